@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2018 IBM Corporation and others.
+ * Copyright (c) 2018, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -13,7 +13,14 @@
  *******************************************************************************/
 package org.eclipse.jdt.core.manipulation;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.ISafeRunnable;
@@ -22,6 +29,7 @@ import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.SafeRunner;
 import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 
 import org.eclipse.jdt.core.ITypeRoot;
 import org.eclipse.jdt.core.JavaModelException;
@@ -30,6 +38,7 @@ import org.eclipse.jdt.core.dom.ASTParser;
 import org.eclipse.jdt.core.dom.AbstractTypeDeclaration;
 import org.eclipse.jdt.core.dom.CompilationUnit;
 
+import org.eclipse.jdt.internal.core.manipulation.ASTCache;
 import org.eclipse.jdt.internal.core.manipulation.JavaManipulationPlugin;
 import org.eclipse.jdt.internal.corext.dom.ASTNodes;
 import org.eclipse.jdt.internal.corext.dom.IASTSharedValues;
@@ -59,11 +68,43 @@ public final class CoreASTProvider {
 	private volatile ITypeRoot fReconcilingJavaElement;
 	private ITypeRoot fActiveJavaElement;
 	private CompilationUnit fAST;
+	/**
+	 * The element of {@link #fAST} and the stamp of its contents, see {@link ASTCache#computeStamp(ITypeRoot)}.
+	 */
+	private ITypeRoot fASTElement;
+	private long fASTStamp;
+	private final ASTCache fCache= ASTCache.getDefault();
 	private Object fReconcileLock= new Object();
-	private Object fWaitLock= new Object();
+	/**
+	 * The stamps of the contents of the elements being reconciled, taken before the reconciler
+	 * starts, so that an AST is never cached with the stamp of newer contents. Guarded by
+	 * {@link #fReconcileLock}.
+	 */
+	private final Map<ITypeRoot, Long> fReconcileStamps= new HashMap<>();
+	/**
+	 * The AST that is being created by the reconciler, completed when the reconciler is done.
+	 */
+	private final AtomicReference<PendingAST> fPendingAST= new AtomicReference<>();
 	private volatile boolean fIsReconciling;
 	private volatile Runnable fFinishReconciling;
 
+	/**
+	 * An AST which is being created by the reconciler for the active Java element.
+	 * <p>
+	 * The future is completed with the AST or with <code>null</code> if the reconciler did not
+	 * deliver an AST for the element, e.g. because reconciling has been cancelled or another
+	 * editor became active. In that case, waiting clients have to check again.
+	 * </p>
+	 */
+	private static final class PendingAST {
+		final ITypeRoot fElement;
+		final CompletableFuture<CompilationUnit> fFuture= new CompletableFuture<>();
+
+		PendingAST(ITypeRoot element) {
+			fElement= element;
+		}
+	}
+
 	/**
 	 * Wait flag class.
 	 */
@@ -142,6 +183,16 @@ public final class CoreASTProvider {
 
 					return fAST;
 				}
+				// e.g. an editor which has been active before
+				long stamp= ASTCache.computeStamp(input);
+				CompilationUnit cached= fCache.get(input, stamp);
+				if (cached != null) {
+					fCache.remove(input);
+					fAST= cached;
+					fASTElement= input;
+					fASTStamp= stamp;
+					return cached;
+				}
 				if (waitFlag == CoreASTProvider.WAIT_NO) {
 					if (JavaManipulationPlugin.DEBUG_AST_PROVIDER)
 						System.out.println(getThreadName() + " - " + DEBUG_PREFIX + "returning null (WAIT_NO) for: " + input.getElementName()); //$NON-NLS-1$ //$NON-NLS-2$
@@ -162,18 +213,31 @@ public final class CoreASTProvider {
 				if (!isReconciling && !canReturnNull)
 					aboutToBeReconciled(input);
 			}
-		} else
+		} else {
 			activeElement= null;
+		}
+
+		long stamp= ASTCache.NO_STAMP;
+		// WAIT_NO and WAIT_ACTIVE_ONLY only return the AST of the active element
+		if (!isActiveElement && waitFlag == CoreASTProvider.WAIT_YES) {
+			stamp= ASTCache.computeStamp(input);
+			CompilationUnit cached= fCache.get(input, stamp);
+			if (cached != null)
+				return cached;
+		}
 
 		if (isReconciling) {
 			try {
 				notifyReconciler();
 				// Wait for AST
-				synchronized (fWaitLock) {
-					if (isReconciling(input)) {
-						if (JavaManipulationPlugin.DEBUG_AST_PROVIDER)
-							System.out.println(getThreadName() + " - " + DEBUG_PREFIX + "waiting for AST for: " + input.getElementName()); //$NON-NLS-1$ //$NON-NLS-2$
-						fWaitLock.wait(30000); // XXX: The 30 seconds timeout is an attempt to at least avoid a deadlock. See https://bugs.eclipse.org/366048#c21
+				PendingAST pending= getPendingAST(input);
+				if (pending != null) {
+					if (JavaManipulationPlugin.DEBUG_AST_PROVIDER)
+						System.out.println(getThreadName() + " - " + DEBUG_PREFIX + "waiting for AST for: " + input.getElementName()); //$NON-NLS-1$ //$NON-NLS-2$
+					try {
+						pending.fFuture.get(30000, TimeUnit.MILLISECONDS); // XXX: The 30 seconds timeout is an attempt to at least avoid a deadlock. See https://bugs.eclipse.org/366048#c21
+					} catch (TimeoutException | ExecutionException e) {
+						// check below
 					}
 				}
 
@@ -212,11 +276,110 @@ public final class CoreASTProvider {
 					return fAST;
 				} else
 					reconciled(ast, input, null);
+			} else if (ast != null) {
+				fCache.put(input, stamp, ast);
 			}
 		}
 		return ast;
 	}
 
+	/**
+	 * Returns a future of the compilation unit AST for the given Java element. Unlike
+	 * {@link #getAST(ITypeRoot, WAIT_FLAG, IProgressMonitor)}, this method never blocks: an
+	 * available AST is returned as a completed future, the AST of the active editor which is
+	 * being reconciled is delivered when the reconciler is done, and other ASTs are created in a
+	 * background job.
+	 * <p>
+	 * Clients are not allowed to modify the AST and must synchronize all access to its nodes.
+	 * Cancelling the future cancels the creation of the AST.
+	 * </p>
+	 *
+	 * @param input the Java element, must not be <code>null</code>
+	 * @param waitFlag {@link #WAIT_YES}, {@link #WAIT_NO} or {@link #WAIT_ACTIVE_ONLY}, with the
+	 *            same meaning as for {@link #getAST(ITypeRoot, WAIT_FLAG, IProgressMonitor)}
+	 * @return the future of the AST, completed with <code>null</code> if the AST is not available,
+	 *         or completed exceptionally if creating the AST fails
+	 * @since 1.17
+	 */
+	public CompletableFuture<CompilationUnit> getASTAsync(final ITypeRoot input, final WAIT_FLAG waitFlag) {
+		if (input == null || waitFlag == null)
+			throw new IllegalArgumentException("input or wait flag are null"); //$NON-NLS-1$
+
+		CompilationUnit ast= getAST(input, CoreASTProvider.WAIT_NO, null);
+		if (ast != null || waitFlag == CoreASTProvider.WAIT_NO)
+			return CompletableFuture.completedFuture(ast);
+
+		boolean isActiveElement;
+		synchronized (this) {
+			isActiveElement= input.equals(fActiveJavaElement);
+		}
+		if (isActiveElement) {
+			PendingAST pending= getPendingAST(input);
+			if (pending != null) {
+				notifyReconciler();
+				// don't run in the reconciler thread
+				return pending.fFuture.thenComposeAsync(reconciledAST -> reconciledAST != null ? CompletableFuture.completedFuture(reconciledAST) : getASTAsync(input, waitFlag));
+			}
+		} else if (waitFlag == CoreASTProvider.WAIT_ACTIVE_ONLY) {
+			return CompletableFuture.completedFuture(null);
+		} else {
+			CompilationUnit cached= fCache.get(input, ASTCache.computeStamp(input));
+			if (cached != null)
+				return CompletableFuture.completedFuture(cached);
+		}
+
+		final CompletableFuture<CompilationUnit> result= new CompletableFuture<>();
+		final Job job= Job.create("Creating AST for " + input.getElementName(), monitor -> { //$NON-NLS-1$
+			try {
+				if (!result.isDone())
+					result.complete(getAST(input, waitFlag, monitor));
+			} catch (RuntimeException | Error e) {
+				result.completeExceptionally(e);
+				throw e;
+			}
+		});
+		job.setSystem(true);
+		job.setPriority(Job.SHORT);
+		result.whenComplete((createdAST, e) -> {
+			if (result.isCancelled())
+				job.cancel();
+		});
+		job.schedule();
+		return result;
+	}
+
+	/**
+	 * Returns the pending AST of the reconciler for the given element.
+	 *
+	 * @param javaElement the Java element
+	 * @return the pending AST or <code>null</code> if the element is not being reconciled
+	 */
+	private PendingAST getPendingAST(ITypeRoot javaElement) {
+		PendingAST pending= fPendingAST.get();
+		if (pending != null && pending.fElement.equals(javaElement) && isReconciling(javaElement))
+			return pending;
+		return null;
+	}
+
+	/**
+	 * Completes the pending AST, so that waiting clients check whether the AST they wait for is
+	 * available. The pending AST is kept while its element is still being reconciled and no AST is
+	 * given.
+	 *
+	 * @param ast the new AST or <code>null</code>
+	 * @param javaElement the Java element of the AST or <code>null</code>
+	 */
+	private void signalASTChanged(CompilationUnit ast, ITypeRoot javaElement) {
+		PendingAST pending= fPendingAST.get();
+		if (pending == null)
+			return;
+		boolean matches= ast != null && pending.fElement.equals(javaElement);
+		if (!matches && isReconciling(pending.fElement) && (javaElement == null || pending.fElement.equals(javaElement)))
+			return; // still waiting for the reconciler
+		if (fPendingAST.compareAndSet(pending, null))
+			pending.fFuture.complete(matches ? ast : null);
+	}
+
 	private void notifyReconciler() {
 		Runnable finishReconciling= fFinishReconciling;
 		if (finishReconciling!=null) {
@@ -250,11 +413,22 @@ public final class CoreASTProvider {
 		if (JavaManipulationPlugin.DEBUG_AST_PROVIDER)
 			System.out.println(getThreadName() + " - " + DEBUG_PREFIX + "about to reconcile: " + toString(javaElement)); //$NON-NLS-1$ //$NON-NLS-2$
 
+		long stamp= ASTCache.computeStamp(javaElement);
+		PendingAST replaced= null;
 		synchronized (fReconcileLock) {
+			fReconcileStamps.put(javaElement, Long.valueOf(stamp));
 			fReconcilingJavaElement= javaElement;
 			fIsReconciling= true;
 			this.fFinishReconciling = finishReconciling;
+			PendingAST pending= fPendingAST.get();
+			if (pending == null || !pending.fElement.equals(javaElement) || pending.fFuture.isDone()) {
+				fPendingAST.set(new PendingAST(javaElement));
+				replaced= pending;
+			}
 		}
+		// Signal - threads might wait for the previous element
+		if (replaced != null)
+			replaced.fFuture.complete(null);
 		cache(null, javaElement);
 	}
 
@@ -325,19 +499,22 @@ public final class CoreASTProvider {
 		synchronized (fReconcileLock) {
 			fIsReconciling= false;
 			fFinishReconciling= null;
+			Long stamp= javaElement != null ? fReconcileStamps.remove(javaElement) : null;
 			if (javaElement == null || !javaElement.equals(fReconcilingJavaElement)) {
 
 				if (JavaManipulationPlugin.DEBUG_AST_PROVIDER)
 					System.out.println(getThreadName() + " - " + DEBUG_PREFIX + "  ignoring AST of out-dated editor"); //$NON-NLS-1$ //$NON-NLS-2$
 
+				// still good for requests of other editors
+				if (ast != null && stamp != null)
+					fCache.put(javaElement, stamp.longValue(), ast);
+
 				// Signal - threads might wait for wrong element
-				synchronized (fWaitLock) {
-					fWaitLock.notifyAll();
-				}
+				signalASTChanged(null, null);
 
 				return;
 			}
-			cache(ast, javaElement);
+			cache(ast, javaElement, stamp != null ? stamp.longValue() : ASTCache.NO_STAMP);
 		}
 	}
 
@@ -358,6 +535,18 @@ public final class CoreASTProvider {
 	 * @param javaElement the java element
 	 */
 	public synchronized void cache(CompilationUnit ast, ITypeRoot javaElement) {
+		cache(ast, javaElement, ast != null ? ASTCache.computeStamp(javaElement) : ASTCache.NO_STAMP);
+	}
+
+	/**
+	 * Caches the given compilation unit AST for the given Java element.
+	 *
+	 * @param ast the ast
+	 * @param javaElement the java element
+	 * @param stamp the stamp of the contents the AST has been created from, see
+	 *            {@link ASTCache#computeStamp(ITypeRoot)}
+	 */
+	private synchronized void cache(CompilationUnit ast, ITypeRoot javaElement, long stamp) {
 
 		if (fActiveJavaElement != null && !fActiveJavaElement.equals(javaElement)) {
 			if (JavaManipulationPlugin.DEBUG_AST_PROVIDER && javaElement != null) // don't report call from disposeAST()
@@ -368,15 +557,20 @@ public final class CoreASTProvider {
 		if (JavaManipulationPlugin.DEBUG_AST_PROVIDER && (javaElement != null || ast != null)) // don't report call from disposeAST()
 			System.out.println(getThreadName() + " - " + DEBUG_PREFIX + "caching AST: " + toString(ast) + " for: " + toString(javaElement)); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
 
-		if (fAST != null)
+		if (fAST != null) {
+			if (fASTElement != null && !fASTElement.equals(javaElement)) {
+				// the active editor changed, keep the AST in case the editor gets active again
+				fCache.put(fASTElement, fASTStamp, fAST);
+			}
 			disposeAST();
+		}
 
 		fAST= ast;
+		fASTElement= ast != null ? javaElement : null;
+		fASTStamp= ast != null ? stamp : ASTCache.NO_STAMP;
 
 		// Signal AST change
-		synchronized (fWaitLock) {
-			fWaitLock.notifyAll();
-		}
+		signalASTChanged(ast, javaElement);
 	}
 
 	/**
@@ -410,6 +604,7 @@ public final class CoreASTProvider {
 			System.out.println(getThreadName() + " - " + DEBUG_PREFIX + "disposing AST: " + toString(fAST) + " for: " + toString(fActiveJavaElement)); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
 
 		fAST= null;
+		fASTElement= null;
 
 		cache(null, null);
 	}
@@ -509,9 +704,7 @@ public final class CoreASTProvider {
 	 * Notify all waiting threads that the AST has changed.
 	 */
 	public void waitLockNotifyAll () {
-		synchronized (fWaitLock) {
-			fWaitLock.notifyAll();
-		}
+		signalASTChanged(null, null);
 	}
 
 	/**
@@ -522,7 +715,9 @@ public final class CoreASTProvider {
 			fIsReconciling = false;
 			fReconcilingJavaElement = null;
 			fFinishReconciling = null;
+			fReconcileStamps.clear();
 		}
+		signalASTChanged(null, null);
 	}
 
 }
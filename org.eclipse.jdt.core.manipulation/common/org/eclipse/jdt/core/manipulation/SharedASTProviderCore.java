@@ -13,6 +13,8 @@
  *******************************************************************************/
 package org.eclipse.jdt.core.manipulation;
 
+import java.util.concurrent.CompletableFuture;
+
 import org.eclipse.core.runtime.IProgressMonitor;
 
 import org.eclipse.jdt.core.ITypeRoot;
@@ -138,6 +140,37 @@ public class SharedASTProviderCore {
 		return CoreASTProvider.getInstance().getAST(element, finalWaitFlag, progressMonitor);
 	}
 
+	/**
+	 * Returns a future of a compilation unit AST for the given Java element. If the element is the
+	 * input of the active Java editor, the AST is the shared AST.
+	 * <p>
+	 * In contrast to {@link #getAST(ITypeRoot, WAIT_FLAG, IProgressMonitor)}, the calling thread
+	 * is never blocked: the future is completed when the reconciler of the active editor delivers
+	 * the AST, or when the AST has been created in the background. Cancelling the future cancels
+	 * the creation of the AST.
+	 * </p>
+	 * <p>
+	 * Clients are not allowed to modify the AST and must not keep any references.
+	 * </p>
+	 *
+	 * @param element the {@link ITypeRoot}, must not be <code>null</code>
+	 * @param waitFlag {@link #WAIT_YES}, {@link #WAIT_NO} or {@link #WAIT_ACTIVE_ONLY}
+	 * @return the future of the AST, completed with <code>null</code> in the cases in which
+	 *         {@link #getAST(ITypeRoot, WAIT_FLAG, IProgressMonitor)} returns <code>null</code>
+	 * @since 1.17
+	 */
+	public static CompletableFuture<CompilationUnit> getASTAsync(ITypeRoot element, WAIT_FLAG waitFlag) {
+		CoreASTProvider.WAIT_FLAG finalWaitFlag = null;
+		if (waitFlag == WAIT_ACTIVE_ONLY) {
+			finalWaitFlag = CoreASTProvider.WAIT_ACTIVE_ONLY;
+		} else if (waitFlag == WAIT_NO) {
+			finalWaitFlag= CoreASTProvider.WAIT_NO;
+		} else if (waitFlag == WAIT_YES) {
+			finalWaitFlag= CoreASTProvider.WAIT_YES;
+		}
+		return CoreASTProvider.getInstance().getASTAsync(element, finalWaitFlag);
+	}
+
 	protected SharedASTProviderCore() {
 		// Prevent instantiation.
 	}
@@ -0,0 +1,222 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.core.manipulation;
+
+import java.lang.ref.SoftReference;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.IBuffer;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.ITypeRoot;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+
+import org.eclipse.jdt.core.manipulation.CoreASTProvider;
+
+import org.eclipse.jdt.internal.corext.util.JavaElementDeltas;
+
+/**
+ * Keeps the shared ASTs of recently used Java elements other than the active one, so that
+ * requests for the ASTs of other open editors do not parse the element again each time.
+ * <p>
+ * An entry is keyed by the Java element and a stamp of the contents of its buffer, an entry
+ * whose stamp does not match the current contents is stale and is dropped. The number of entries
+ * is bounded by {@link #MAX_SIZE} and the ASTs are only softly referenced, so that they are
+ * released under memory pressure. Since bindings of an AST can refer to other elements, all
+ * entries are dropped when the Java model changes other than by edits of method bodies. The
+ * cache only listens to Java model changes while it has entries.
+ * </p>
+ *
+ * @see CoreASTProvider
+ */
+public final class ASTCache {
+
+	/**
+	 * Stamp of an element without buffer, such an element is never cached.
+	 */
+	public static final long NO_STAMP= 0;
+
+	private static final int MAX_SIZE= 8;
+
+	private static final ASTCache fgDefault= new ASTCache();
+
+	private static final class CacheEntry {
+		final long fStamp;
+		final SoftReference<CompilationUnit> fAST;
+
+		CacheEntry(long stamp, CompilationUnit ast) {
+			fStamp= stamp;
+			fAST= new SoftReference<>(ast);
+		}
+	}
+
+	private final LinkedHashMap<ITypeRoot, CacheEntry> fEntries;
+	private IElementChangedListener fListener;
+	private long fHits;
+	private long fMisses;
+
+	/**
+	 * @return the cache used by {@link CoreASTProvider}
+	 */
+	public static ASTCache getDefault() {
+		return fgDefault;
+	}
+
+	private ASTCache() {
+		fEntries= new LinkedHashMap<ITypeRoot, CacheEntry>(16, 0.75f, true) {
+			private static final long serialVersionUID= 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<ITypeRoot, CacheEntry> eldest) {
+				return size() > MAX_SIZE;
+			}
+		};
+	}
+
+	/**
+	 * @param element the Java element
+	 * @param stamp the stamp of the current contents of <code>element</code>, see
+	 *            {@link #computeStamp(ITypeRoot)}
+	 * @return the cached AST or <code>null</code> if there is no AST for the current contents
+	 */
+	public synchronized CompilationUnit get(ITypeRoot element, long stamp) {
+		CacheEntry entry= fEntries.get(element);
+		CompilationUnit ast= null;
+		if (entry != null) {
+			if (entry.fStamp == stamp) {
+				ast= entry.fAST.get();
+			}
+			if (ast == null) {
+				// stale or released under memory pressure
+				fEntries.remove(element);
+				releaseListenerIfEmpty();
+			}
+		}
+		if (ast != null) {
+			fHits++;
+		} else {
+			fMisses++;
+		}
+		if (JavaManipulationPlugin.DEBUG_AST_PROVIDER)
+			System.out.println(CoreASTProvider.getThreadName() + " - " + CoreASTProvider.DEBUG_PREFIX + "AST cache " + (ast != null ? "hit" : "miss") + " for: " + element.getElementName() //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+					+ " (hits: " + fHits + ", misses: " + fMisses + ")"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		return ast;
+	}
+
+	/**
+	 * Caches an AST.
+	 *
+	 * @param element the Java element
+	 * @param stamp the stamp of the contents the AST has been created from
+	 * @param ast the AST, must be protected against modification
+	 */
+	public synchronized void put(ITypeRoot element, long stamp, CompilationUnit ast) {
+		if (element == null || ast == null || stamp == NO_STAMP)
+			return;
+
+		if (fListener == null) {
+			fListener= this::elementChanged;
+			JavaCore.addElementChangedListener(fListener, ElementChangedEvent.POST_CHANGE | ElementChangedEvent.POST_RECONCILE);
+		}
+		fEntries.put(element, new CacheEntry(stamp, ast));
+	}
+
+	/**
+	 * @param element the Java element whose AST is to be removed
+	 */
+	public synchronized void remove(ITypeRoot element) {
+		fEntries.remove(element);
+		releaseListenerIfEmpty();
+	}
+
+	public synchronized void clear() {
+		fEntries.clear();
+		releaseListenerIfEmpty();
+	}
+
+	public synchronized int size() {
+		return fEntries.size();
+	}
+
+	/**
+	 * @return the number of requests answered from the cache
+	 */
+	public synchronized long getHits() {
+		return fHits;
+	}
+
+	/**
+	 * @return the number of requests for which no AST was cached
+	 */
+	public synchronized long getMisses() {
+		return fMisses;
+	}
+
+	public synchronized void resetCounters() {
+		fHits= 0;
+		fMisses= 0;
+	}
+
+	/**
+	 * Computes a stamp of the contents of the buffer of <code>element</code>. Buffers have no
+	 * modification stamp, the stamp is a hash of the characters, which is much cheaper than
+	 * parsing.
+	 *
+	 * @param element the Java element
+	 * @return the stamp, or {@link #NO_STAMP} if the element has no buffer
+	 */
+	public static long computeStamp(ITypeRoot element) {
+		try {
+			IBuffer buffer= element.getBuffer();
+			if (buffer == null)
+				return NO_STAMP;
+			char[] characters= buffer.getCharacters();
+			if (characters == null)
+				return NO_STAMP;
+			long hash= 1125899906842597L;
+			for (char c : characters) {
+				hash= 31 * hash + c;
+			}
+			hash= 31 * hash + characters.length;
+			return hash == NO_STAMP ? 1 : hash;
+		} catch (JavaModelException e) {
+			return NO_STAMP;
+		}
+	}
+
+	private void elementChanged(ElementChangedEvent event) {
+		if (event.getType() == ElementChangedEvent.POST_RECONCILE && JavaElementDeltas.isBodyChangeOnly(event.getDelta())) {
+			// the reconciled element itself is invalidated by its stamp
+			return;
+		}
+		synchronized (this) {
+			if (!fEntries.isEmpty()) {
+				if (JavaManipulationPlugin.DEBUG_AST_PROVIDER)
+					System.out.println(CoreASTProvider.getThreadName() + " - " + CoreASTProvider.DEBUG_PREFIX + "clearing AST cache, Java model changed"); //$NON-NLS-1$ //$NON-NLS-2$
+				fEntries.clear();
+			}
+			releaseListenerIfEmpty();
+		}
+	}
+
+	private void releaseListenerIfEmpty() {
+		if (fListener != null && fEntries.isEmpty()) {
+			JavaCore.removeElementChangedListener(fListener);
+			fListener= null;
+		}
+	}
+}
@@ -56,4 +56,27 @@ public abstract class SemanticHighlightingCore {
 		return false;
 	}
 
+	/**
+	 * Returns the kinds of the bindings of the semantic tokens this semantic highlighting can
+	 * consume. {@link #consumes(SemanticToken)} is only called for tokens whose binding has one of
+	 * the returned kinds, this allows to dispatch a token to the relevant semantic highlightings
+	 * only.
+	 *
+	 * @return the kinds as defined by {@link org.eclipse.jdt.core.dom.IBinding#getKind()}, or
+	 *         <code>null</code> if tokens with any or without binding can be consumed
+	 */
+	public int[] getConsumedBindingKinds() {
+		return null;
+	}
+
+	/**
+	 * Tells whether {@link #consumesLiteral(SemanticToken)} can return <code>true</code>, it is
+	 * only called if this method returns <code>true</code>.
+	 *
+	 * @return <code>true</code> iff the semantic highlighting can consume literals
+	 */
+	public boolean canConsumeLiterals() {
+		return false;
+	}
+
 }
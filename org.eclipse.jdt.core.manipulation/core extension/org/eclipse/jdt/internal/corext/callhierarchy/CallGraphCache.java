@@ -0,0 +1,439 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.corext.callhierarchy;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IField;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.IMember;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.core.search.IJavaSearchScope;
+import org.eclipse.jdt.core.search.SearchEngine;
+
+import org.eclipse.jdt.internal.corext.util.JavaElementDeltas;
+
+/**
+ * Keeps the callers and callees found by call hierarchies, so that navigating to a member whose
+ * calls have already been searched in another hierarchy does not search them again. The cache is
+ * keyed by the handle identifier of the member, unlike the cache of a {@link MethodWrapper}
+ * hierarchy it lives as long as the Java model does not change in a way that can affect the
+ * cached calls.
+ * <p>
+ * An entry remembers the compilation units its calls have been found in and the names which
+ * would have to appear in another compilation unit to affect it: the name of the member for
+ * callers, the names of the called members for callees. An entry is dropped when one of these
+ * compilation units changes or when a changed compilation unit contains one of the names. Changes
+ * above compilation units, e.g. of the class path, and changes of the type hierarchy, i.e. added
+ * or removed types and changed super types, drop all entries since they can change which methods
+ * override each other.
+ * </p>
+ * <p>
+ * The entries are only valid for the search scope, the filters and the implementors mode they
+ * have been found with, all entries are dropped when one of them changes. The size of the entries
+ * is estimated and bounded by a memory budget, the least recently used entries are evicted first.
+ * </p>
+ */
+public final class CallGraphCache {
+
+	/**
+	 * The default memory budget in bytes.
+	 */
+	public static final long DEFAULT_MEMORY_BUDGET= 16 * 1024 * 1024;
+
+	/**
+	 * The maximum number of changed compilation units in a delta which are examined, more changes
+	 * drop all entries.
+	 */
+	private static final int MAX_CHANGED_UNITS= 50;
+
+	private static final int ENTRY_SIZE= 160;
+	private static final int CALL_SIZE= 96;
+	private static final int LOCATION_SIZE= 72;
+
+	private static final Object WORKSPACE_SCOPE= new Object();
+
+	/**
+	 * The settings the calls of an entry have been found with.
+	 */
+	private static final class Configuration {
+		private final Object fScope;
+		private final Object fFilters;
+		private final boolean fFilterTestCode;
+		private final boolean fUseImplementors;
+
+		Configuration(CallHierarchyCore core) {
+			IJavaSearchScope scope= core.getSearchScope();
+			// a scope other than the workspace is created anew for each hierarchy, its calls are found again
+			fScope= SearchEngine.createWorkspaceScope().equals(scope) ? WORKSPACE_SCOPE : scope;
+			// the filters are parsed again when they are changed
+			fFilters= core.getIgnoreFilters();
+			fFilterTestCode= core.isFilterTestCode();
+			fUseImplementors= core.isSearchUsingImplementorsEnabled();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Configuration))
+				return false;
+			Configuration other= (Configuration) obj;
+			return fScope == other.fScope && fFilters == other.fFilters && fFilterTestCode == other.fFilterTestCode && fUseImplementors == other.fUseImplementors;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(System.identityHashCode(fScope), System.identityHashCode(fFilters), fFilterTestCode, fUseImplementors);
+		}
+	}
+
+	private static final class Entry {
+		final Map<String, MethodCall> fCalls;
+		final Set<String> fUnits;
+		final Set<String> fNames;
+		final long fSize;
+
+		Entry(Map<String, MethodCall> calls, Set<String> units, Set<String> names, long size) {
+			fCalls= calls;
+			fUnits= units;
+			fNames= names;
+			fSize= size;
+		}
+	}
+
+	private final LinkedHashMap<String, Entry> fEntries= new LinkedHashMap<>(64, 0.75f, true);
+	private Configuration fConfiguration;
+	private final long fMemoryBudget;
+	private long fSize;
+	private long fStamp;
+	private IElementChangedListener fListener;
+
+	/**
+	 * @param memoryBudget the memory budget in bytes, entries are evicted until their estimated
+	 *            size fits into it, a budget of 0 disables the cache
+	 */
+	CallGraphCache(long memoryBudget) {
+		fMemoryBudget= Math.max(0, memoryBudget);
+	}
+
+	/**
+	 * @return the memory budget in bytes
+	 */
+	public synchronized long getMemoryBudget() {
+		return fMemoryBudget;
+	}
+
+	/**
+	 * @return the estimated size of the entries in bytes
+	 */
+	public synchronized long getSize() {
+		return fSize;
+	}
+
+	public synchronized void clear() {
+		fEntries.clear();
+		fSize= 0;
+		fStamp++;
+	}
+
+	/**
+	 * Returns a stamp of the state of the cache, to be taken before calls are searched and to be
+	 * passed to {@link #put(MethodWrapper, Map, long)} when the search is done.
+	 *
+	 * @return the stamp
+	 */
+	public synchronized long getStamp() {
+		return fStamp;
+	}
+
+	/**
+	 * Tells whether the calls of a wrapper are cached, without touching the entry.
+	 *
+	 * @param wrapper the wrapper
+	 * @return <code>true</code> if {@link #get(MethodWrapper)} returns the calls of the wrapper
+	 */
+	public synchronized boolean contains(MethodWrapper wrapper) {
+		String key= getKey(wrapper);
+		return key != null && isConfigurationUnchanged() && fEntries.containsKey(key);
+	}
+
+	/**
+	 * @param wrapper the wrapper
+	 * @return a copy of the cached calls of the wrapper, or <code>null</code> if they are not
+	 *         cached
+	 */
+	public synchronized Map<String, MethodCall> get(MethodWrapper wrapper) {
+		String key= getKey(wrapper);
+		if (key == null || !isConfigurationUnchanged())
+			return null;
+		Entry entry= fEntries.get(key);
+		return entry != null ? new HashMap<>(entry.fCalls) : null;
+	}
+
+	/**
+	 * Removes the calls of a wrapper, so that they are searched again.
+	 *
+	 * @param wrapper the wrapper
+	 */
+	public synchronized void remove(MethodWrapper wrapper) {
+		String key= getKey(wrapper);
+		if (key == null)
+			return;
+		Entry entry= fEntries.remove(key);
+		if (entry != null) {
+			fSize-= entry.fSize;
+		}
+	}
+
+	/**
+	 * Caches the calls of a wrapper. The calls are not cached if the cache has been invalidated
+	 * since the stamp has been taken, they may have been found in a stale state.
+	 *
+	 * @param wrapper the wrapper
+	 * @param calls the calls of the wrapper
+	 * @param stamp the stamp taken before the calls have been searched, see {@link #getStamp()}
+	 */
+	public void put(MethodWrapper wrapper, Map<String, MethodCall> calls, long stamp) {
+		String key= getKey(wrapper);
+		if (key == null)
+			return;
+		Set<String> units= new HashSet<>();
+		Set<String> names= new HashSet<>();
+		long size= ENTRY_SIZE + 2 * key.length();
+		addUnit(units, wrapper.getMember());
+		boolean callers= wrapper instanceof CallerMethodWrapper;
+		if (callers) {
+			addName(names, wrapper.getMember());
+		}
+		for (Map.Entry<String, MethodCall> call : calls.entrySet()) {
+			MethodCall methodCall= call.getValue();
+			if (callers) {
+				addUnit(units, methodCall.getMember());
+			} else {
+				addName(names, methodCall.getMember());
+			}
+			size+= CALL_SIZE + 2 * call.getKey().length();
+			if (methodCall.getCallLocations() != null) {
+				size+= LOCATION_SIZE * methodCall.getCallLocations().size();
+			}
+		}
+
+		synchronized (this) {
+			if (stamp != fStamp || size > fMemoryBudget)
+				return;
+			Configuration configuration= new Configuration(CallHierarchyCore.getDefault());
+			if (!configuration.equals(fConfiguration)) {
+				clear();
+				fConfiguration= configuration;
+			}
+			if (fListener == null) {
+				fListener= this::elementChanged;
+				JavaCore.addElementChangedListener(fListener, ElementChangedEvent.POST_CHANGE | ElementChangedEvent.POST_RECONCILE);
+			}
+			Entry previous= fEntries.put(key, new Entry(new HashMap<>(calls), units, names, size));
+			if (previous != null) {
+				fSize-= previous.fSize;
+			}
+			fSize+= size;
+			evict();
+		}
+	}
+
+	private void evict() {
+		Iterator<Entry> iterator= fEntries.values().iterator();
+		while (fSize > fMemoryBudget && iterator.hasNext()) {
+			fSize-= iterator.next().fSize;
+			iterator.remove();
+		}
+	}
+
+	private boolean isConfigurationUnchanged() {
+		return fConfiguration != null && fConfiguration.equals(new Configuration(CallHierarchyCore.getDefault()));
+	}
+
+	/**
+	 * @param wrapper the wrapper
+	 * @return the key of the calls of the wrapper, or <code>null</code> if they are not cached
+	 */
+	private static String getKey(MethodWrapper wrapper) {
+		if (wrapper instanceof CallerMethodWrapper) {
+			// the field search mode is inherited from the root, it selects the kind of the accesses
+			return "<" + wrapper.getFieldSearchMode() + wrapper.getMethodCall().getKey(); //$NON-NLS-1$
+		} else if (wrapper instanceof CalleeMethodWrapper) {
+			return ">" + wrapper.getMethodCall().getKey(); //$NON-NLS-1$
+		}
+		return null;
+	}
+
+	private static void addUnit(Set<String> units, IMember member) {
+		ICompilationUnit unit= member.getCompilationUnit();
+		if (unit != null) {
+			units.add(unit.getPrimary().getHandleIdentifier());
+		}
+	}
+
+	/*
+	 * References of constructors and of types standing in for default constructors contain the
+	 * name of the type. Initializers are not referenced.
+	 */
+	private static void addName(Set<String> names, IMember member) {
+		if (member instanceof IMethod || member instanceof IField) {
+			try {
+				if (member instanceof IMethod && ((IMethod) member).isConstructor()) {
+					names.add(member.getDeclaringType().getElementName());
+					return;
+				}
+			} catch (JavaModelException e) {
+				// fall through, the name of the constructor is the name of the type
+			}
+			names.add(member.getElementName());
+		} else if (member.getElementType() == IJavaElement.TYPE) {
+			names.add(member.getElementName());
+		}
+	}
+
+	private void elementChanged(ElementChangedEvent event) {
+		Set<ICompilationUnit> changed= new HashSet<>();
+		Set<ICompilationUnit> removed= new HashSet<>();
+		if (!collectChangedUnits(event.getDelta(), changed, removed) || changed.size() + removed.size() > MAX_CHANGED_UNITS) {
+			clear();
+			return;
+		}
+		Set<String> units= new HashSet<>();
+		Set<String> identifiers= new HashSet<>();
+		for (ICompilationUnit unit : removed) {
+			units.add(unit.getPrimary().getHandleIdentifier());
+		}
+		for (ICompilationUnit unit : changed) {
+			units.add(unit.getPrimary().getHandleIdentifier());
+			try {
+				collectIdentifiers(unit.getSource(), identifiers);
+			} catch (JavaModelException e) {
+				clear();
+				return;
+			}
+		}
+		if (units.isEmpty())
+			return;
+		synchronized (this) {
+			// a search running concurrently may have missed the change
+			fStamp++;
+			for (Iterator<Entry> iterator= fEntries.values().iterator(); iterator.hasNext();) {
+				Entry entry= iterator.next();
+				if (intersects(entry.fUnits, units) || intersects(entry.fNames, identifiers)) {
+					fSize-= entry.fSize;
+					iterator.remove();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Collects the compilation units changed by a delta.
+	 *
+	 * @param delta the delta
+	 * @param changed the added or changed compilation units
+	 * @param removed the removed compilation units
+	 * @return <code>false</code> if the delta changes an element above the compilation units or
+	 *         the type hierarchy in a way that can affect the calls of any member
+	 */
+	private static boolean collectChangedUnits(IJavaElementDelta delta, Set<ICompilationUnit> changed, Set<ICompilationUnit> removed) {
+		if (!JavaElementDeltas.changesOnlyCompilationUnits(delta)) {
+			return false;
+		}
+		if (delta.getElement().getElementType() > IJavaElement.COMPILATION_UNIT) {
+			// a reconcile delta of the members of a compilation unit, the unit is reported itself
+			return !hasHierarchyChange(delta);
+		}
+		List<IJavaElementDelta> unitDeltas= new ArrayList<>();
+		JavaElementDeltas.collectCompilationUnitDeltas(delta, unitDeltas);
+		for (IJavaElementDelta unitDelta : unitDeltas) {
+			ICompilationUnit unit= (ICompilationUnit) unitDelta.getElement();
+			if (unitDelta.getKind() != IJavaElementDelta.CHANGED && unit.getPrimary() == unit) {
+				// adds or removes the types of the unit
+				return false;
+			}
+			if (unitDelta.getKind() == IJavaElementDelta.REMOVED) {
+				removed.add(unit);
+			} else if (unitDelta.getKind() == IJavaElementDelta.ADDED || (unitDelta.getFlags() & ~(IJavaElementDelta.F_PRIMARY_WORKING_COPY | IJavaElementDelta.F_AST_AFFECTED)) != 0) {
+				// opening and closing an editor does not change the contents
+				changed.add(unit);
+				if ((unitDelta.getFlags() & (IJavaElementDelta.F_CONTENT | IJavaElementDelta.F_FINE_GRAINED)) == IJavaElementDelta.F_CONTENT) {
+					// the changes of the types are not reported
+					return false;
+				}
+			}
+			if (hasHierarchyChange(unitDelta)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @param delta the delta of a compilation unit or of a member
+	 * @return <code>true</code> if the delta adds or removes a type or changes super types
+	 */
+	private static boolean hasHierarchyChange(IJavaElementDelta delta) {
+		if (delta.getElement().getElementType() == IJavaElement.TYPE
+				&& (delta.getKind() != IJavaElementDelta.CHANGED || (delta.getFlags() & IJavaElementDelta.F_SUPER_TYPES) != 0)) {
+			return true;
+		}
+		for (IJavaElementDelta child : delta.getAffectedChildren()) {
+			if (hasHierarchyChange(child)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static void collectIdentifiers(String source, Set<String> identifiers) {
+		if (source == null)
+			return;
+		int length= source.length();
+		int i= 0;
+		while (i < length) {
+			if (Character.isJavaIdentifierStart(source.charAt(i))) {
+				int start= i++;
+				while (i < length && Character.isJavaIdentifierPart(source.charAt(i))) {
+					i++;
+				}
+				identifiers.add(source.substring(start, i));
+			} else {
+				i++;
+			}
+		}
+	}
+
+	private static boolean intersects(Set<String> set, Set<String> other) {
+		for (String element : set) {
+			if (other.contains(element))
+				return true;
+		}
+		return false;
+	}
+}
@@ -0,0 +1,426 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.corext.callhierarchy;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.SubMonitor;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IMember;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.ISourceRange;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.core.SourceRange;
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.ASTRequestor;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.MethodDeclaration;
+import org.eclipse.jdt.core.dom.NodeFinder;
+
+import org.eclipse.jdt.internal.corext.dom.IASTSharedValues;
+
+/**
+ * Exports the call graph of Java projects without a user interface, e.g. for an impact analysis
+ * in a build.
+ * <p>
+ * The calls from each method, initializer and field of the source folders of the projects are
+ * found like the callees of a {@link CalleeMethodWrapper}, and the filters of
+ * {@link CallHierarchyCore} apply. A call is exported with the method it binds to, calls of an
+ * abstract method are not expanded to its implementations and abstract methods themselves have no
+ * calls. The compilation units are parsed in batches and each call is written as soon as it is
+ * found, only the handle identifiers of the members are kept in memory.
+ * </p>
+ * <p>
+ * Inverting the calls does not give the callers of a {@link CallerMethodWrapper}, which also finds
+ * calls through super types and calls from outside the projects in its search scope. If
+ * {@link #setExportCallers(boolean)} is set, the callers of each method of the projects are
+ * searched like the callers of a {@link CallerMethodWrapper} as well and are written as separate
+ * caller records. This runs one search per method.
+ * </p>
+ * <p>
+ * The format is binary, all numbers other than the header are written as unsigned variable
+ * length integers with 7 bits per byte, least significant group first:
+ * </p>
+ * <pre>
+ * header:  int {@link #MAGIC}, byte {@link #VERSION}
+ * member:  byte 1, modified UTF-8 handle identifier   (the members are numbered from 0 in order)
+ * call:    byte 2, caller, callee, offset, length, line, flags   (flags: 1 for potential calls)
+ * caller:  byte 3, caller, callee, offset, length, line
+ * end:     byte 0
+ * </pre>
+ * <p>
+ * A member is written before the first call which refers to it. Use
+ * {@link #read(InputStream, ICallGraphRequestor)} to read an exported call graph.
+ * </p>
+ */
+public class CallGraphExporter {
+
+	/**
+	 * Receives the calls of an exported call graph.
+	 */
+	public interface ICallGraphRequestor {
+
+		/**
+		 * @param caller the handle identifier of the calling member
+		 * @param callee the handle identifier of the called member
+		 * @param offset the offset of the call in the source of the caller
+		 * @param length the length of the call
+		 * @param line the line number of the call, or {@link CallLocation#UNKNOWN_LINE_NUMBER}
+		 * @param potential <code>true</code> if the call is a call of an implementation of the
+		 *            called method, see {@link MethodCall#isPotential()}
+		 */
+		void acceptCall(String caller, String callee, int offset, int length, int line, boolean potential);
+
+		/**
+		 * Receives a caller of a method of the projects, see
+		 * {@link CallGraphExporter#setExportCallers(boolean)}. The default implementation does
+		 * nothing.
+		 *
+		 * @param caller the handle identifier of the calling member, may be outside the projects
+		 * @param callee the handle identifier of the called method of the projects
+		 * @param offset the offset of the call in the source of the caller
+		 * @param length the length of the call
+		 * @param line the line number of the call, or {@link CallLocation#UNKNOWN_LINE_NUMBER}
+		 */
+		default void acceptCaller(String caller, String callee, int offset, int length, int line) {
+			// the callers are not needed
+		}
+	}
+
+	/**
+	 * The magic number at the start of an exported call graph.
+	 */
+	public static final int MAGIC= 0x4A434746;
+
+	/**
+	 * The version of the format.
+	 */
+	public static final byte VERSION= 2;
+
+	private static final byte END= 0;
+	private static final byte MEMBER= 1;
+	private static final byte CALL= 2;
+	private static final byte CALLER= 3;
+
+	private static final int FLAG_POTENTIAL= 1;
+
+	/**
+	 * The number of compilation units which are parsed together, the bindings of a batch are kept
+	 * until the whole batch has been analyzed.
+	 */
+	private static final int BATCH_SIZE= 100;
+
+	private final IJavaProject[] fProjects;
+
+	private boolean fExportCallers;
+
+	/**
+	 * @param projects the projects whose call graph is to be exported
+	 */
+	public CallGraphExporter(IJavaProject[] projects) {
+		fProjects= projects;
+	}
+
+	/**
+	 * Sets whether the callers of the methods of the projects are exported as well. The callers
+	 * include the calls through super types and the calls from outside the projects, but they are
+	 * found with one search per method.
+	 *
+	 * @param exportCallers <code>true</code> to export the callers, the default is
+	 *            <code>false</code>
+	 */
+	public void setExportCallers(boolean exportCallers) {
+		fExportCallers= exportCallers;
+	}
+
+	/**
+	 * Writes the call graph of the projects.
+	 *
+	 * @param out the stream to write to, is not closed
+	 * @param progressMonitor the progress monitor, may be <code>null</code>
+	 * @return the number of written calls and callers
+	 * @throws IOException if writing fails
+	 * @throws JavaModelException if the projects cannot be accessed
+	 * @throws OperationCanceledException if the export has been canceled
+	 */
+	public int export(OutputStream out, IProgressMonitor progressMonitor) throws IOException, JavaModelException {
+		SubMonitor monitor= SubMonitor.convert(progressMonitor, CallHierarchyMessages.CalleeMethodWrapper_taskname, fProjects.length);
+		Writer writer= new Writer(out);
+		for (IJavaProject project : fProjects) {
+			List<ICompilationUnit> units= getCompilationUnits(project);
+			SubMonitor projectMonitor= monitor.split(1).setWorkRemaining(fExportCallers ? 2 * units.size() : units.size());
+			for (int start= 0; start < units.size(); start+= BATCH_SIZE) {
+				List<ICompilationUnit> batch= units.subList(start, Math.min(start + BATCH_SIZE, units.size()));
+				exportBatch(project, batch.toArray(new ICompilationUnit[batch.size()]), writer, projectMonitor.split(batch.size()));
+			}
+			if (fExportCallers) {
+				for (ICompilationUnit unit : units) {
+					SubMonitor unitMonitor= projectMonitor.split(1);
+					for (IType type : unit.getTypes()) {
+						exportCallers(type, writer, unitMonitor);
+					}
+				}
+			}
+		}
+		writer.close();
+		return writer.fCalls;
+	}
+
+	private static List<ICompilationUnit> getCompilationUnits(IJavaProject project) throws JavaModelException {
+		List<ICompilationUnit> units= new ArrayList<>();
+		for (IPackageFragmentRoot root : project.getPackageFragmentRoots()) {
+			if (root.getKind() != IPackageFragmentRoot.K_SOURCE) {
+				continue;
+			}
+			for (IJavaElement child : root.getChildren()) {
+				for (ICompilationUnit unit : ((IPackageFragment) child).getCompilationUnits()) {
+					units.add(unit);
+				}
+			}
+		}
+		return units;
+	}
+
+	private static void exportBatch(IJavaProject project, ICompilationUnit[] units, Writer writer, IProgressMonitor monitor) throws IOException {
+		ASTParser parser= ASTParser.newParser(IASTSharedValues.SHARED_AST_LEVEL);
+		parser.setProject(project);
+		parser.setResolveBindings(true);
+		IProgressMonitor analyzerMonitor= new NullProgressMonitor();
+		try {
+			parser.createASTs(units, new String[0], new ASTRequestor() {
+				@Override
+				public void acceptAST(ICompilationUnit source, CompilationUnit ast) {
+					if (monitor.isCanceled()) {
+						throw new OperationCanceledException();
+					}
+					try {
+						for (IType type : source.getTypes()) {
+							exportType(type, ast, writer, analyzerMonitor);
+						}
+					} catch (JavaModelException e) {
+						// the unit has been deleted or cannot be read, its calls are not exported
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				}
+			}, monitor);
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	private static void exportType(IType type, CompilationUnit ast, Writer writer, IProgressMonitor monitor) throws JavaModelException, IOException {
+		for (IMember member : type.getInitializers()) {
+			exportMember(member, ast, writer, monitor);
+		}
+		for (IMember member : type.getFields()) {
+			exportMember(member, ast, writer, monitor);
+		}
+		for (IMember member : type.getMethods()) {
+			exportMember(member, ast, writer, monitor);
+		}
+		for (IType memberType : type.getTypes()) {
+			exportType(memberType, ast, writer, monitor);
+		}
+	}
+
+	private static void exportMember(IMember member, CompilationUnit ast, Writer writer, IProgressMonitor monitor) throws JavaModelException, IOException {
+		ISourceRange range= member.getSourceRange();
+		if (!SourceRange.isAvailable(range)) {
+			return;
+		}
+		// only visit the declaration of the member, the analyzer reports the implementations of any abstract method declaration it visits
+		ASTNode declaration= NodeFinder.perform(ast, range);
+		if (declaration == null || declaration instanceof MethodDeclaration && ((MethodDeclaration) declaration).getBody() == null) {
+			return;
+		}
+		CalleeAnalyzerVisitor visitor= new CalleeAnalyzerVisitor(null, member, ast, monitor);
+		declaration.accept(visitor);
+		for (MethodCall methodCall : visitor.getCallees().values()) {
+			if (methodCall.getCallLocations() == null) {
+				continue;
+			}
+			for (CallLocation location : methodCall.getCallLocations()) {
+				int line= ast.getLineNumber(location.getStart());
+				writer.writeCall(location.getMember(), location.getCalledMember(), location.getStart(), location.getEnd() - location.getStart(),
+						line > 0 ? line : CallLocation.UNKNOWN_LINE_NUMBER, methodCall.isPotential());
+			}
+		}
+	}
+
+	private static void exportCallers(IType type, Writer writer, IProgressMonitor monitor) throws JavaModelException, IOException {
+		for (IMethod method : type.getMethods()) {
+			if (monitor.isCanceled()) {
+				throw new OperationCanceledException();
+			}
+			// search like a caller root, but without adding the callers to the caches of the call hierarchy
+			CallerMethodWrapper wrapper= new CallerMethodWrapper(null, new MethodCall(method));
+			for (MethodCall methodCall : wrapper.findChildren(monitor).values()) {
+				if (methodCall.getCallLocations() == null) {
+					continue;
+				}
+				for (CallLocation location : methodCall.getCallLocations()) {
+					writer.writeCaller(location.getMember(), method, location.getStart(), location.getEnd() - location.getStart(), location.getLineNumber());
+				}
+			}
+		}
+		for (IType memberType : type.getTypes()) {
+			exportCallers(memberType, writer, monitor);
+		}
+	}
+
+	/**
+	 * Reads a call graph written by {@link #export(OutputStream, IProgressMonitor)}.
+	 *
+	 * @param in the stream to read from, is not closed
+	 * @param requestor the requestor which receives the calls
+	 * @throws IOException if reading fails or if the stream does not contain a call graph
+	 */
+	public static void read(InputStream in, ICallGraphRequestor requestor) throws IOException {
+		DataInputStream input= new DataInputStream(new BufferedInputStream(in));
+		if (input.readInt() != MAGIC || input.readByte() != VERSION) {
+			throw new IOException("Not a call graph"); //$NON-NLS-1$
+		}
+		List<String> members= new ArrayList<>();
+		while (true) {
+			byte record= input.readByte();
+			switch (record) {
+				case END:
+					return;
+				case MEMBER:
+					members.add(input.readUTF());
+					break;
+				case CALL:
+					String caller= getMember(members, readInt(input));
+					String callee= getMember(members, readInt(input));
+					int offset= readInt(input);
+					int length= readInt(input);
+					int line= readInt(input) - 1;
+					int flags= readInt(input);
+					requestor.acceptCall(caller, callee, offset, length, line, (flags & FLAG_POTENTIAL) != 0);
+					break;
+				case CALLER:
+					requestor.acceptCaller(getMember(members, readInt(input)), getMember(members, readInt(input)), readInt(input), readInt(input), readInt(input) - 1);
+					break;
+				default:
+					throw new IOException("Unknown record: " + record); //$NON-NLS-1$
+			}
+		}
+	}
+
+	private static String getMember(List<String> members, int id) throws IOException {
+		if (id >= members.size()) {
+			throw new IOException("Unknown member: " + id); //$NON-NLS-1$
+		}
+		return members.get(id);
+	}
+
+	private static int readInt(DataInputStream input) throws IOException {
+		int value= 0;
+		for (int shift= 0; shift < 35; shift+= 7) {
+			int b= input.readUnsignedByte();
+			value|= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new EOFException("Malformed number"); //$NON-NLS-1$
+	}
+
+	private static final class Writer {
+		private final DataOutputStream fOutput;
+		private final Map<String, Integer> fMembers= new HashMap<>();
+		int fCalls;
+
+		Writer(OutputStream out) throws IOException {
+			fOutput= new DataOutputStream(new BufferedOutputStream(out));
+			fOutput.writeInt(MAGIC);
+			fOutput.writeByte(VERSION);
+		}
+
+		void writeCall(IMember caller, IMember callee, int offset, int length, int line, boolean potential) throws IOException {
+			int callerId= getId(caller);
+			int calleeId= getId(callee);
+			fOutput.writeByte(CALL);
+			writeInt(callerId);
+			writeInt(calleeId);
+			writeInt(Math.max(0, offset));
+			writeInt(Math.max(0, length));
+			// UNKNOWN_LINE_NUMBER is written as 0
+			writeInt(line + 1);
+			writeInt(potential ? FLAG_POTENTIAL : 0);
+			fCalls++;
+		}
+
+		void writeCaller(IMember caller, IMember callee, int offset, int length, int line) throws IOException {
+			int callerId= getId(caller);
+			int calleeId= getId(callee);
+			fOutput.writeByte(CALLER);
+			writeInt(callerId);
+			writeInt(calleeId);
+			writeInt(Math.max(0, offset));
+			writeInt(Math.max(0, length));
+			writeInt(line + 1);
+			fCalls++;
+		}
+
+		private int getId(IMember member) throws IOException {
+			String handle= member.getHandleIdentifier();
+			Integer id= fMembers.get(handle);
+			if (id == null) {
+				id= Integer.valueOf(fMembers.size());
+				fMembers.put(handle, id);
+				fOutput.writeByte(MEMBER);
+				fOutput.writeUTF(handle);
+			}
+			return id.intValue();
+		}
+
+		private void writeInt(int value) throws IOException {
+			int remaining= value;
+			while ((remaining & ~0x7F) != 0) {
+				fOutput.writeByte((remaining & 0x7F) | 0x80);
+				remaining>>>= 7;
+			}
+			fOutput.writeByte(remaining);
+		}
+
+		void close() throws IOException {
+			fOutput.writeByte(END);
+			fOutput.flush();
+		}
+	}
+}
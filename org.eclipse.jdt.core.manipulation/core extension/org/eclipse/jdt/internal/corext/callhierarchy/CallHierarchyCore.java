@@ -50,12 +50,14 @@ public class CallHierarchyCore {
     private static final String PREF_USE_FILTERS= "PREF_USE_FILTERS"; //$NON-NLS-1$
     private static final String PREF_FILTERS_LIST= "PREF_FILTERS_LIST"; //$NON-NLS-1$
     private static final String PREF_FILTER_TESTCODE= "PREF_FILTER_TESTCODE"; //$NON-NLS-1$
+    private static final String PREF_CALL_GRAPH_CACHE_BUDGET= "PREF_CALL_GRAPH_CACHE_BUDGET"; //$NON-NLS-1$
 
     private String defaultIgnoreFilters= "java.*,javax.*"; //$NON-NLS-1$
 
     private static CallHierarchyCore fgInstance;
     private IJavaSearchScope fSearchScope;
     private StringMatcher[] fFilters;
+    private CallGraphCache fCallGraphCache;
 
     public static CallHierarchyCore getDefault() {
         if (fgInstance == null) {
@@ -73,6 +75,35 @@ public class CallHierarchyCore {
         return Boolean.parseBoolean(JavaManipulation.getPreference(PREF_FILTER_TESTCODE, null));
     }
 
+    /**
+     * Returns the memory budget of the call graph cache, see {@link #getCallGraphCache()}.
+     *
+     * @return the memory budget in kilobytes
+     */
+    public long getCallGraphCacheBudget() {
+        String pref= JavaManipulation.getPreference(PREF_CALL_GRAPH_CACHE_BUDGET, null);
+        if (pref != null) {
+            try {
+                return Math.max(0, Long.parseLong(pref.trim()));
+            } catch (NumberFormatException e) {
+                // use the default
+            }
+        }
+        return CallGraphCache.DEFAULT_MEMORY_BUDGET / 1024;
+    }
+
+    /**
+     * Returns the cache of the calls found by all call hierarchies.
+     *
+     * @return the call graph cache
+     */
+    public synchronized CallGraphCache getCallGraphCache() {
+        if (fCallGraphCache == null) {
+            fCallGraphCache= new CallGraphCache(getCallGraphCacheBudget() * 1024);
+        }
+        return fCallGraphCache;
+    }
+
     public Collection<IJavaElement> getImplementingMethods(IMethod method) {
         if (isSearchUsingImplementorsEnabled()) {
             IJavaElement[] result= Implementors.getInstance().searchForImplementors(new IJavaElement[] {
@@ -0,0 +1,196 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.corext.callhierarchy;
+
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+
+/**
+ * Expands a call hierarchy to a given depth. The calls of sibling wrappers are searched
+ * concurrently on a bounded number of threads, and every wrapper whose calls have been found is
+ * reported right away, so that a view can show the results as they arrive.
+ * <p>
+ * The wrappers of a hierarchy share the cache of the found calls, see
+ * {@link MethodWrapper#hasCachedCalls()}, so that the calls found by the expander are not
+ * searched again when they are requested from other wrappers of the same hierarchy.
+ * </p>
+ */
+public class CallHierarchyExpander {
+
+	/**
+	 * Receives the results of an expansion.
+	 */
+	public interface IExpansionListener {
+
+		/**
+		 * Called when the calls of a wrapper have been found. Called in the thread which runs
+		 * {@link CallHierarchyExpander#expand(MethodWrapper[], int, IExpansionListener, IProgressMonitor)},
+		 * a wrapper is always reported after its parent.
+		 *
+		 * @param wrapper the wrapper
+		 * @param calls the calls of the wrapper
+		 */
+		void callsFound(MethodWrapper wrapper, MethodWrapper[] calls);
+	}
+
+	private static final class Expansion {
+		final MethodWrapper fWrapper;
+		final MethodWrapper[] fCalls;
+
+		Expansion(MethodWrapper wrapper, MethodWrapper[] calls) {
+			fWrapper= wrapper;
+			fCalls= calls;
+		}
+	}
+
+	/**
+	 * The default maximum number of concurrent searches.
+	 */
+	public static final int DEFAULT_MAX_THREADS= Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+	/**
+	 * The interval in milliseconds in which cancellation is checked while waiting for results.
+	 */
+	private static final long POLL_INTERVAL= 100;
+
+	private final int fMaxThreads;
+
+	public CallHierarchyExpander() {
+		this(DEFAULT_MAX_THREADS);
+	}
+
+	/**
+	 * @param maxThreads the maximum number of concurrent searches
+	 */
+	public CallHierarchyExpander(int maxThreads) {
+		fMaxThreads= Math.max(1, maxThreads);
+	}
+
+	/**
+	 * Finds the calls of the given wrappers and of their calls, down to the given depth. The
+	 * expansion does not descend into recursive calls and into wrappers which cannot have calls.
+	 *
+	 * @param roots the wrappers to expand
+	 * @param depth the number of levels to expand, 1 to find the calls of the roots only
+	 * @param listener the listener which receives the found calls
+	 * @param progressMonitor the progress monitor, may be <code>null</code>
+	 * @throws OperationCanceledException if the expansion has been canceled
+	 */
+	public void expand(MethodWrapper[] roots, int depth, IExpansionListener listener, IProgressMonitor progressMonitor) throws OperationCanceledException {
+		IProgressMonitor monitor= progressMonitor != null ? progressMonitor : new NullProgressMonitor();
+		// the searches check the monitor of the expansion, but must not report progress to it
+		IProgressMonitor searchMonitor= new NullProgressMonitor() {
+			@Override
+			public boolean isCanceled() {
+				return monitor.isCanceled();
+			}
+		};
+		monitor.beginTask(CallHierarchyMessages.CallerMethodWrapper_taskname, IProgressMonitor.UNKNOWN);
+
+		AtomicInteger threadCount= new AtomicInteger();
+		ExecutorService executor= new ThreadPoolExecutor(fMaxThreads, fMaxThreads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
+			Thread thread= new Thread(r, "Call Hierarchy Expansion " + threadCount.incrementAndGet()); //$NON-NLS-1$
+			thread.setDaemon(true);
+			return thread;
+		});
+		CompletionService<Expansion> completionService= new ExecutorCompletionService<>(executor);
+		try {
+			int pending= 0;
+			for (MethodWrapper root : roots) {
+				if (canExpand(root, root.getLevel(), depth)) {
+					submit(completionService, root, searchMonitor);
+					pending++;
+				}
+			}
+			while (pending > 0) {
+				if (monitor.isCanceled()) {
+					throw new OperationCanceledException();
+				}
+				Future<Expansion> done= completionService.poll(POLL_INTERVAL, TimeUnit.MILLISECONDS);
+				if (done == null) {
+					continue;
+				}
+				pending--;
+				Expansion expansion= getExpansion(done);
+				listener.callsFound(expansion.fWrapper, expansion.fCalls);
+				monitor.worked(1);
+				int rootLevel= expansion.fWrapper.getLevel() - getDistanceToRoot(expansion.fWrapper, roots);
+				for (MethodWrapper call : expansion.fCalls) {
+					if (canExpand(call, rootLevel, depth)) {
+						submit(completionService, call, searchMonitor);
+						pending++;
+					}
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new OperationCanceledException();
+		} finally {
+			executor.shutdownNow();
+			monitor.done();
+		}
+	}
+
+	private static void submit(CompletionService<Expansion> completionService, MethodWrapper wrapper, IProgressMonitor monitor) {
+		completionService.submit(() -> new Expansion(wrapper, wrapper.getCalls(monitor)));
+	}
+
+	private static Expansion getExpansion(Future<Expansion> done) throws InterruptedException {
+		try {
+			return done.get();
+		} catch (ExecutionException e) {
+			Throwable cause= e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new IllegalStateException(cause);
+		}
+	}
+
+	/**
+	 * @param wrapper a wrapper found by the expansion
+	 * @param roots the roots of the expansion
+	 * @return the number of levels between the wrapper and the root it has been found from
+	 */
+	private static int getDistanceToRoot(MethodWrapper wrapper, MethodWrapper[] roots) {
+		int distance= 0;
+		for (MethodWrapper current= wrapper; current != null; current= current.getParent()) {
+			for (MethodWrapper root : roots) {
+				if (current == root) {
+					return distance;
+				}
+			}
+			distance++;
+		}
+		return 0;
+	}
+
+	private static boolean canExpand(MethodWrapper wrapper, int rootLevel, int depth) {
+		return wrapper.getLevel() - rootLevel < depth && wrapper.canHaveChildren() && !wrapper.isRecursive();
+	}
+}
@@ -131,7 +131,7 @@ public class ArrayWithCurlyFixCore extends CompilationUnitRewriteOperationsFixCo
 	public static ICleanUpFixCore createCleanUp(final CompilationUnit compilationUnit) {
 		List<ArrayWithCurlyFixOperation> operations= new ArrayList<>();
 		ArrayWithCurlyFinder finder= new ArrayWithCurlyFinder(operations);
-		compilationUnit.accept(finder);
+		SharedASTTraversal.get(compilationUnit).accept(ArrayCreation.class, finder::visit);
 
 		if (operations.isEmpty()) {
 			return null;
@@ -358,7 +358,7 @@ public class DoWhileRatherThanWhileFixCore extends CompilationUnitRewriteOperati
 	public static ICleanUpFixCore createCleanUp(final CompilationUnit compilationUnit) {
 		List<CompilationUnitRewriteOperation> operations= new ArrayList<>();
 		DoWhileRatherThanWhileFinder finder= new DoWhileRatherThanWhileFinder(operations);
-		compilationUnit.accept(finder);
+		SharedASTTraversal.get(compilationUnit).accept(WhileStatement.class, finder::visit);
 
 		if (operations.isEmpty()) {
 			return null;
@@ -129,7 +129,7 @@ public class InvertEqualsFixCore extends CompilationUnitRewriteOperationsFixCore
 	public static ICleanUpFixCore createCleanUp(final CompilationUnit compilationUnit) {
 		List<InvertEqualsFixOperation> operations= new ArrayList<>();
 		InvertEqualsFinder finder= new InvertEqualsFinder(operations);
-		compilationUnit.accept(finder);
+		SharedASTTraversal.get(compilationUnit).accept(MethodInvocation.class, finder::visit);
 
 		if (operations.isEmpty()) {
 			return null;
@@ -161,7 +161,7 @@ public class OneIfRatherThanDuplicateBlocksThatFallThroughFixCore extends Compil
 	public static ICleanUpFixCore createCleanUp(final CompilationUnit compilationUnit) {
 		List<CompilationUnitRewriteOperation> operations= new ArrayList<>();
 		OneIfRatherThanDuplicateBlocksThatFallThroughFinder finder= new OneIfRatherThanDuplicateBlocksThatFallThroughFinder(operations);
-		compilationUnit.accept(finder);
+		SharedASTTraversal.get(compilationUnit).accept(Block.class, finder::visit);
 
 		if (operations.isEmpty()) {
 			return null;
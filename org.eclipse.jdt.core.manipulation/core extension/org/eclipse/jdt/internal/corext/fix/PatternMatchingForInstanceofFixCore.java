@@ -217,7 +217,13 @@ public class PatternMatchingForInstanceofFixCore extends CompilationUnitRewriteO
 	public static ICleanUpFixCore createCleanUp(final CompilationUnit compilationUnit) {
 		List<PatternMatchingForInstanceofFixOperation> operations= new ArrayList<>();
 		PatternMatchingForInstanceofFinder finder= new PatternMatchingForInstanceofFinder(operations);
-		compilationUnit.accept(finder);
+		for (InstanceofExpression instanceofExpression : SharedASTTraversal.get(compilationUnit).getNodes(InstanceofExpression.class)) {
+			// same as visiting all blocks with the finder, every expression is analyzed in the context of its innermost block
+			Block block= ASTNodes.getTypedAncestor(instanceofExpression, Block.class);
+			if (block != null) {
+				finder.new InstanceofVisitor(block).visit(instanceofExpression);
+			}
+		}
 
 		if (operations.isEmpty()) {
 			return null;
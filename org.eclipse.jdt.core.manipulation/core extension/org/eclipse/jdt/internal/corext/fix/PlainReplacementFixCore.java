@@ -164,7 +164,7 @@ public class PlainReplacementFixCore extends CompilationUnitRewriteOperationsFix
 	public static ICleanUpFixCore createCleanUp(final CompilationUnit compilationUnit) {
 		List<PlainReplacementFixOperation> operations= new ArrayList<>();
 		PlainReplacementFinder finder= new PlainReplacementFinder(operations);
-		compilationUnit.accept(finder);
+		SharedASTTraversal.get(compilationUnit).accept(MethodInvocation.class, finder::visit);
 
 		if (operations.isEmpty()) {
 			return null;
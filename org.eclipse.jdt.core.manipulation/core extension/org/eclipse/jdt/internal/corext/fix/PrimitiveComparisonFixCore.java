@@ -136,7 +136,7 @@ public class PrimitiveComparisonFixCore extends CompilationUnitRewriteOperations
 	public static ICleanUpFixCore createCleanUp(final CompilationUnit compilationUnit) {
 		List<PrimitiveComparisonFixOperation> operations= new ArrayList<>();
 		PrimitiveComparisonFinder finder= new PrimitiveComparisonFinder(operations);
-		compilationUnit.accept(finder);
+		SharedASTTraversal.get(compilationUnit).accept(MethodInvocation.class, finder::visit);
 
 		if (operations.isEmpty()) {
 			return null;
@@ -17,19 +17,27 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.VariableDeclarationStatement;
 import org.eclipse.jdt.core.manipulation.ICleanUpFixCore;
 
 public class PrimitiveRatherThanWrapperFixCore extends CompilationUnitRewriteOperationsFixCore {
 	public static ICleanUpFixCore createCleanUp(final CompilationUnit compilationUnit) {
 		List<CompilationUnitRewriteOperation> operations= new ArrayList<>();
-		compilationUnit.accept(new PrimitiveBooleanRatherThanWrapperFinder(operations));
-		compilationUnit.accept(new PrimitiveCharRatherThanWrapperFinder(operations));
-		compilationUnit.accept(new PrimitiveByteRatherThanWrapperFinder(operations));
-		compilationUnit.accept(new PrimitiveShortRatherThanWrapperFinder(operations));
-		compilationUnit.accept(new PrimitiveIntRatherThanWrapperFinder(operations));
-		compilationUnit.accept(new PrimitiveLongRatherThanWrapperFinder(operations));
-		compilationUnit.accept(new PrimitiveFloatRatherThanWrapperFinder(operations));
-		compilationUnit.accept(new PrimitiveDoubleRatherThanWrapperFinder(operations));
+		AbstractPrimitiveRatherThanWrapperFinder[] finders= {
+				new PrimitiveBooleanRatherThanWrapperFinder(operations),
+				new PrimitiveCharRatherThanWrapperFinder(operations),
+				new PrimitiveByteRatherThanWrapperFinder(operations),
+				new PrimitiveShortRatherThanWrapperFinder(operations),
+				new PrimitiveIntRatherThanWrapperFinder(operations),
+				new PrimitiveLongRatherThanWrapperFinder(operations),
+				new PrimitiveFloatRatherThanWrapperFinder(operations),
+				new PrimitiveDoubleRatherThanWrapperFinder(operations) };
+
+		// The finders only visit variable declaration statements, share one traversal instead of visiting the unit eight times
+		SharedASTTraversal traversal= SharedASTTraversal.get(compilationUnit);
+		for (AbstractPrimitiveRatherThanWrapperFinder finder : finders) {
+			traversal.accept(VariableDeclarationStatement.class, finder::visit);
+		}
 
 		if (operations.isEmpty()) {
 			return null;
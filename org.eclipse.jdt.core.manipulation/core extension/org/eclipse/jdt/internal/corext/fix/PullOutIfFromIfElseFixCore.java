@@ -107,7 +107,7 @@ public class PullOutIfFromIfElseFixCore extends CompilationUnitRewriteOperations
 	public static ICleanUpFixCore createCleanUp(final CompilationUnit compilationUnit) {
 		List<CompilationUnitRewriteOperation> operations= new ArrayList<>();
 		PullOutIfFromIfElseFinder finder= new PullOutIfFromIfElseFinder(operations);
-		compilationUnit.accept(finder);
+		SharedASTTraversal.get(compilationUnit).accept(IfStatement.class, finder::visit);
 
 		if (operations.isEmpty()) {
 			return null;
@@ -429,7 +429,7 @@ public class RedundantComparatorFixCore extends CompilationUnitRewriteOperations
 	public static ICleanUpFixCore createCleanUp(final CompilationUnit compilationUnit) {
 		List<RedundantComparatorFixOperation> operations= new ArrayList<>();
 		RedundantComparatorFinder finder= new RedundantComparatorFinder(operations);
-		compilationUnit.accept(finder);
+		SharedASTTraversal.get(compilationUnit).accept(MethodInvocation.class, finder::visit);
 
 		if (operations.isEmpty()) {
 			return null;
@@ -283,7 +283,7 @@ public class ReturnExpressionFixCore extends CompilationUnitRewriteOperationsFix
 	public static ICleanUpFixCore createCleanUp(final CompilationUnit compilationUnit) {
 		List<CompilationUnitRewriteOperation> operations= new ArrayList<>();
 		ReturnExpressionFinder finder= new ReturnExpressionFinder(operations);
-		compilationUnit.accept(finder);
+		SharedASTTraversal.get(compilationUnit).accept(Block.class, finder::visit);
 
 		if (operations.isEmpty()) {
 			return null;
@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.corext.fix;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+
+import org.eclipse.jdt.internal.corext.dom.ASTNodes;
+
+/**
+ * Shares one traversal of a compilation unit between all clean ups which run on the same AST.
+ * <p>
+ * The first clean up asking for the traversal of an AST visits the whole tree once and records
+ * the nodes per node class. All clean ups then only iterate the nodes of the classes they are
+ * interested in, instead of each clean up walking the full tree with its own visitor. The
+ * traversal is stored as a property of the compilation unit and is computed again if the AST has
+ * been modified since.
+ * </p>
+ * <p>
+ * Like a default {@link ASTVisitor}, the traversal does not visit doc comment tags.
+ * </p>
+ */
+public final class SharedASTTraversal {
+
+	/**
+	 * Handles the nodes of one class during {@link SharedASTTraversal#accept(Class, INodeHandler)}.
+	 *
+	 * @param <T> the node class
+	 */
+	public interface INodeHandler<T extends ASTNode> {
+
+		/**
+		 * Visits a node, see {@link ASTVisitor#visit(org.eclipse.jdt.core.dom.Block)}.
+		 *
+		 * @param node the node to visit
+		 * @return <code>false</code> if nodes of the same class contained in <code>node</code> are
+		 *         not to be handled
+		 */
+		boolean visit(T node);
+	}
+
+	private static final String PROPERTY= SharedASTTraversal.class.getName();
+
+	private final Map<Class<? extends ASTNode>, List<ASTNode>> fNodes;
+	private final long fModificationCount;
+
+	private SharedASTTraversal(CompilationUnit unit) {
+		fNodes= new HashMap<>();
+		fModificationCount= unit.getAST().modificationCount();
+		unit.accept(new ASTVisitor() {
+			@Override
+			public void preVisit(ASTNode node) {
+				List<ASTNode> nodes= fNodes.get(node.getClass());
+				if (nodes == null) {
+					nodes= new ArrayList<>();
+					fNodes.put(node.getClass(), nodes);
+				}
+				nodes.add(node);
+			}
+		});
+	}
+
+	/**
+	 * Returns the traversal of <code>unit</code>, visits the unit if this has not yet been done
+	 * for the current state of its AST.
+	 *
+	 * @param unit the compilation unit
+	 * @return the shared traversal
+	 */
+	public static SharedASTTraversal get(CompilationUnit unit) {
+		Object property= unit.getProperty(PROPERTY);
+		if (property instanceof SharedASTTraversal && ((SharedASTTraversal) property).fModificationCount == unit.getAST().modificationCount()) {
+			return (SharedASTTraversal) property;
+		}
+
+		SharedASTTraversal result= new SharedASTTraversal(unit);
+		// setting a property does not modify the AST
+		unit.setProperty(PROPERTY, result);
+		return result;
+	}
+
+	/**
+	 * @param <T> the node class
+	 * @param nodeClass the class of the nodes, e.g. <code>SwitchStatement.class</code>
+	 * @return the nodes of the given class in the order of a pre-order traversal
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends ASTNode> List<T> getNodes(Class<T> nodeClass) {
+		List<ASTNode> nodes= fNodes.get(nodeClass);
+		if (nodes == null)
+			return Collections.emptyList();
+		return Collections.unmodifiableList((List<T>) (List<?>) nodes);
+	}
+
+	/**
+	 * Passes all nodes of the given class to <code>handler</code> in the order an
+	 * {@link ASTVisitor} would visit them. If the handler returns <code>false</code> the nodes
+	 * contained in the visited node are skipped, as if an <code>ASTVisitor</code> returned
+	 * <code>false</code> from its <code>visit</code> method.
+	 *
+	 * @param <T> the node class
+	 * @param nodeClass the class of the nodes to handle
+	 * @param handler the handler
+	 */
+	public <T extends ASTNode> void accept(Class<T> nodeClass, INodeHandler<? super T> handler) {
+		ASTNode skipped= null;
+		for (T node : getNodes(nodeClass)) {
+			if (skipped != null) {
+				if (ASTNodes.isParent(node, skipped))
+					continue;
+				skipped= null;
+			}
+			if (!handler.visit(node))
+				skipped= node;
+		}
+	}
+}
@@ -126,7 +126,7 @@ public class StandardComparisonFixCore extends CompilationUnitRewriteOperationsF
 	public static ICleanUpFixCore createCleanUp(final CompilationUnit compilationUnit) {
 		List<StandardComparisonFixOperation> operations= new ArrayList<>();
 		StandardComparisonFinder finder= new StandardComparisonFinder(operations);
-		compilationUnit.accept(finder);
+		SharedASTTraversal.get(compilationUnit).accept(InfixExpression.class, finder::visit);
 
 		if (operations.isEmpty()) {
 			return null;
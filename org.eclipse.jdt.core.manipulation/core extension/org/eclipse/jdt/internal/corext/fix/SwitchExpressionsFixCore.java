@@ -515,7 +515,7 @@ public class SwitchExpressionsFixCore extends CompilationUnitRewriteOperationsFi
 
 		List<SwitchExpressionsFixOperation> operations= new ArrayList<>();
 		SwitchStatementsFinder finder= new SwitchStatementsFinder(operations);
-		compilationUnit.accept(finder);
+		SharedASTTraversal.get(compilationUnit).accept(SwitchStatement.class, finder::visit);
 		if (operations.isEmpty())
 			return null;
 
@@ -422,7 +422,7 @@ public class SwitchFixCore extends CompilationUnitRewriteOperationsFixCore {
 	public static ICleanUpFixCore createCleanUp(final CompilationUnit compilationUnit) {
 		List<SwitchFixOperation> operations= new ArrayList<>();
 		SwitchStatementsFinder finder= new SwitchStatementsFinder(operations);
-		compilationUnit.accept(finder);
+		SharedASTTraversal.get(compilationUnit).accept(Block.class, finder::visit);
 
 		if (operations.isEmpty()) {
 			return null;
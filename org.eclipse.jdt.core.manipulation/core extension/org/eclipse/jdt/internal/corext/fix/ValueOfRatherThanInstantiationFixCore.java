@@ -260,7 +260,7 @@ public class ValueOfRatherThanInstantiationFixCore extends CompilationUnitRewrit
 	public static ICleanUpFixCore createCleanUp(final CompilationUnit compilationUnit) {
 		List<CompilationUnitRewriteOperation> operations= new ArrayList<>();
 		ValueOfRatherThanInstantiationFinder finder= new ValueOfRatherThanInstantiationFinder(operations);
-		compilationUnit.accept(finder);
+		SharedASTTraversal.get(compilationUnit).accept(ClassInstanceCreation.class, finder::visit);
 
 		if (operations.isEmpty()) {
 			return null;
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2016 IBM Corporation and others.
+ * Copyright (c) 2007, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -13,8 +13,14 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.corext.refactoring.util;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.text.edits.DeleteEdit;
+import org.eclipse.text.edits.InsertEdit;
 import org.eclipse.text.edits.MalformedTreeException;
 import org.eclipse.text.edits.MultiTextEdit;
+import org.eclipse.text.edits.ReplaceEdit;
 import org.eclipse.text.edits.TextEdit;
 
 import org.eclipse.jdt.internal.corext.refactoring.changes.TextChangeCompatibility;
@@ -352,6 +358,101 @@ public class TextEditUtil {
 		}
 	}
 
+	/**
+	 * Tries to merge two edit trees which {@link #overlaps(TextEdit, TextEdit) overlap} on the
+	 * level of their leaf edits.
+	 * <p>
+	 * Two trees computed on the same document often overlap only because an inner node of one
+	 * tree spans a region which contains leafs of the other tree. Such trees can be merged into one
+	 * flat edit if:
+	 * <ul>
+	 * <li>all leafs are {@link ReplaceEdit}s, {@link InsertEdit}s or {@link DeleteEdit}s, i.e.
+	 * there are no move or copy edits whose source and target must be kept together</li>
+	 * <li>there is at least one unmodified character between any leaf of <code>edit1</code> and
+	 * any leaf of <code>edit2</code>, edits touching each other usually modify a node and its
+	 * parent</li>
+	 * </ul>
+	 * </p>
+	 * <p>
+	 * If the edits are merged they are modified and can no longer be used. If <code>null</code>
+	 * is returned the edits are not modified.
+	 * </p>
+	 *
+	 * @param edit1 the edit to rebase onto edit2
+	 * @param edit2 the edit to rebase onto edit1
+	 * @return the flat merged edit or <code>null</code> if the leafs of the edits conflict
+	 */
+	public static TextEdit rebase(TextEdit edit1, TextEdit edit2) {
+		List<TextEdit> leafs1= new ArrayList<>();
+		List<TextEdit> leafs2= new ArrayList<>();
+		if (!collectRebaseableLeafs(edit1, leafs1) || !collectRebaseableLeafs(edit2, leafs2))
+			return null;
+
+		int i1= 0;
+		int i2= 0;
+		while (i1 < leafs1.size() && i2 < leafs2.size()) {
+			TextEdit leaf1= leafs1.get(i1);
+			TextEdit leaf2= leafs2.get(i2);
+			if (leaf1.getExclusiveEnd() < leaf2.getOffset()) {
+				i1++;
+			} else if (leaf2.getExclusiveEnd() < leaf1.getOffset()) {
+				i2++;
+			} else {
+				return null;
+			}
+		}
+
+		// Adding the leafs to a multi text edit checks the tree constraints, do it on copies first to leave the edits untouched on failure
+		try {
+			MultiTextEdit dryRun= new MultiTextEdit();
+			for (TextEdit leaf : leafs1) {
+				dryRun.addChild(leaf.copy());
+			}
+			for (TextEdit leaf : leafs2) {
+				dryRun.addChild(leaf.copy());
+			}
+		} catch (MalformedTreeException e) {
+			return null;
+		}
+
+		// Build the result from exactly the leafs validated above, they are only detached from their trees now that the merge cannot fail
+		MultiTextEdit result= new MultiTextEdit();
+		for (TextEdit leaf : leafs1) {
+			detach(leaf);
+			result.addChild(leaf);
+		}
+		for (TextEdit leaf : leafs2) {
+			detach(leaf);
+			result.addChild(leaf);
+		}
+		return result;
+	}
+
+	private static void detach(TextEdit edit) {
+		TextEdit parent= edit.getParent();
+		if (parent != null)
+			parent.removeChild(edit);
+	}
+
+	private static boolean collectRebaseableLeafs(TextEdit edit, List<TextEdit> result) {
+		if (edit instanceof MultiTextEdit) {
+			for (TextEdit child : edit.getChildren()) {
+				if (!collectRebaseableLeafs(child, result))
+					return false;
+			}
+			return true;
+		}
+
+		if (edit.hasChildren())
+			return false;
+
+		if (edit instanceof ReplaceEdit || edit instanceof InsertEdit || edit instanceof DeleteEdit) {
+			result.add(edit);
+			return true;
+		}
+		return false;
+	}
+
 	private TextEditUtil() {
 	}
 
@@ -0,0 +1,142 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.corext.util;
+
+import java.util.Collection;
+
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+
+/**
+ * Classifies the changes reported by Java element deltas, for the caches which are invalidated by
+ * element changed listeners.
+ */
+public final class JavaElementDeltas {
+
+	private JavaElementDeltas() {
+	}
+
+	/**
+	 * @param delta the reconcile delta of a compilation unit
+	 * @return <code>true</code> if the delta does not change the structure of the element, e.g.
+	 *         if only method bodies have been edited
+	 */
+	public static boolean isBodyChangeOnly(IJavaElementDelta delta) {
+		if (delta.getKind() != IJavaElementDelta.CHANGED || delta.getAffectedChildren().length > 0)
+			return false;
+		int flags= delta.getFlags() & ~(IJavaElementDelta.F_CONTENT | IJavaElementDelta.F_FINE_GRAINED | IJavaElementDelta.F_AST_AFFECTED);
+		return flags == 0;
+	}
+
+	/**
+	 * @param delta the delta
+	 * @return <code>false</code> if the delta only changes the bodies of members, or opens, closes
+	 *         or saves working copies
+	 */
+	public static boolean isStructuralChange(IJavaElementDelta delta) {
+		return !changesOnlyCompilationUnits(delta) || hasStructuralChange(delta);
+	}
+
+	/**
+	 * @param delta the delta
+	 * @return <code>true</code> if the delta only changes compilation units and their members,
+	 *         i.e. it does not add, remove or change projects, package fragment roots, packages or
+	 *         class files other than by changing their compilation units
+	 */
+	public static boolean changesOnlyCompilationUnits(IJavaElementDelta delta) {
+		switch (delta.getElement().getElementType()) {
+			case IJavaElement.JAVA_MODEL:
+			case IJavaElement.JAVA_PROJECT:
+			case IJavaElement.PACKAGE_FRAGMENT_ROOT:
+			case IJavaElement.PACKAGE_FRAGMENT:
+				if (delta.getKind() != IJavaElementDelta.CHANGED)
+					return false;
+				// F_CONTENT on a project or a package reports changes of non-Java resources
+				if ((delta.getFlags() & ~(IJavaElementDelta.F_CHILDREN | IJavaElementDelta.F_CONTENT)) != 0)
+					return false;
+				for (IJavaElementDelta child : delta.getAffectedChildren()) {
+					if (!changesOnlyCompilationUnits(child))
+						return false;
+				}
+				return true;
+			case IJavaElement.CLASS_FILE:
+				return false;
+			default:
+				return true;
+		}
+	}
+
+	/**
+	 * Collects the deltas of the compilation units in a delta. The deltas of their members are
+	 * not collected.
+	 *
+	 * @param delta the delta
+	 * @param unitDeltas the collection to add the deltas of the compilation units to
+	 */
+	public static void collectCompilationUnitDeltas(IJavaElementDelta delta, Collection<IJavaElementDelta> unitDeltas) {
+		int type= delta.getElement().getElementType();
+		if (type == IJavaElement.COMPILATION_UNIT) {
+			unitDeltas.add(delta);
+			return;
+		}
+		if (type > IJavaElement.COMPILATION_UNIT)
+			return;
+		for (IJavaElementDelta child : delta.getAffectedChildren()) {
+			collectCompilationUnitDeltas(child, unitDeltas);
+		}
+	}
+
+	private static boolean hasStructuralChange(IJavaElementDelta delta) {
+		int flags= delta.getFlags();
+		switch (delta.getElement().getElementType()) {
+			case IJavaElement.COMPILATION_UNIT:
+				if (delta.getKind() != IJavaElementDelta.CHANGED)
+					return true;
+				// the changes of the contents are only known if the delta is fine grained
+				if ((flags & IJavaElementDelta.F_CONTENT) != 0 && (flags & IJavaElementDelta.F_FINE_GRAINED) == 0)
+					return true;
+				if ((flags & ~(IJavaElementDelta.F_CHILDREN | IJavaElementDelta.F_CONTENT | IJavaElementDelta.F_FINE_GRAINED
+						| IJavaElementDelta.F_PRIMARY_WORKING_COPY | IJavaElementDelta.F_PRIMARY_RESOURCE | IJavaElementDelta.F_AST_AFFECTED)) != 0)
+					return true;
+				break;
+			case IJavaElement.METHOD:
+			case IJavaElement.FIELD:
+			case IJavaElement.INITIALIZER:
+				if (delta.getKind() != IJavaElementDelta.CHANGED)
+					return true;
+				if ((flags & ~(IJavaElementDelta.F_CHILDREN | IJavaElementDelta.F_CONTENT | IJavaElementDelta.F_FINE_GRAINED)) != 0)
+					return true;
+				break;
+			case IJavaElement.TYPE:
+				if (delta.getKind() != IJavaElementDelta.CHANGED)
+					return true;
+				if ((flags & ~(IJavaElementDelta.F_CHILDREN | IJavaElementDelta.F_FINE_GRAINED)) != 0)
+					return true;
+				break;
+			case IJavaElement.JAVA_MODEL:
+			case IJavaElement.JAVA_PROJECT:
+			case IJavaElement.PACKAGE_FRAGMENT_ROOT:
+			case IJavaElement.PACKAGE_FRAGMENT:
+				// checked by changesOnlyCompilationUnits
+				break;
+			default:
+				return true;
+		}
+		for (IJavaElementDelta child : delta.getAffectedChildren()) {
+			if (hasStructuralChange(child))
+				return true;
+		}
+		return false;
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -14,10 +14,18 @@
 package org.eclipse.jdt.internal.corext.util;
 
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
 
 import org.eclipse.jdt.core.IType;
 import org.eclipse.jdt.core.ITypeHierarchy;
@@ -26,6 +34,12 @@ import org.eclipse.jdt.core.JavaModelException;
 
 /**
  * A thread-safe cache for super type hierarchies.
+ * <p>
+ * A cached hierarchy is found by any type it contains without locking. The size of the cache is
+ * bounded by the total number of types of the cached hierarchies, which approximates their memory
+ * use, see {@link #setMaxSize(int)}. The least recently used hierarchies are evicted first. When
+ * several threads ask for the hierarchy of the same type, it is only computed once.
+ * </p>
  */
 // @see JDTUIHelperClasses
 public class SuperTypeHierarchyCache {
@@ -33,10 +47,15 @@ public class SuperTypeHierarchyCache {
 	private static class HierarchyCacheEntry implements ITypeHierarchyChangedListener {
 
 		private ITypeHierarchy fTypeHierarchy;
-		private long fLastAccess;
+		private final IType fType;
+		private final IType[] fTypes;
+		private final Map<IType, MethodOverrideTester> fMethodOverrideTesters= new ConcurrentHashMap<>();
+		private volatile long fLastAccess;
 
 		public HierarchyCacheEntry(ITypeHierarchy hierarchy) {
 			fTypeHierarchy= hierarchy;
+			fType= hierarchy.getType();
+			fTypes= hierarchy.getAllTypes();
 			fTypeHierarchy.addTypeHierarchyChangedListener(this);
 			markAsAccessed();
 		}
@@ -46,40 +65,81 @@ public class SuperTypeHierarchyCache {
 			removeHierarchyEntryFromCache(this);
 		}
 
-		public ITypeHierarchy getTypeHierarchy() {
+		public synchronized ITypeHierarchy getTypeHierarchy() {
 			return fTypeHierarchy;
 		}
 
+		public IType getType() {
+			return fType;
+		}
+
+		public IType[] getTypes() {
+			return fTypes;
+		}
+
+		public int getSize() {
+			return fTypes.length;
+		}
+
+		public MethodOverrideTester getMethodOverrideTester(IType type, ITypeHierarchy hierarchy) {
+			return fMethodOverrideTesters.computeIfAbsent(type, t -> new MethodOverrideTester(t, hierarchy));
+		}
+
 		public void markAsAccessed() {
-			fLastAccess= System.currentTimeMillis();
+			fLastAccess= fgAccessCounter.incrementAndGet();
 		}
 
 		public long getLastAccess() {
 			return fLastAccess;
 		}
 
-		public void dispose() {
+		public synchronized void dispose() {
 			if (fTypeHierarchy != null) {
 				fTypeHierarchy.removeTypeHierarchyChangedListener(this);
 				fTypeHierarchy= null;
 			}
+			fMethodOverrideTesters.clear();
 		}
 
 		@Override
 		public String toString() {
-			return "Super hierarchy of: " + fTypeHierarchy.getType().getElementName(); //$NON-NLS-1$
+			return "Super hierarchy of: " + fType.getElementName(); //$NON-NLS-1$
 		}
 
 	}
 
 
-	private static final int CACHE_SIZE= 8;
+	/**
+	 * The default maximum total number of types of the cached hierarchies.
+	 */
+	public static final int DEFAULT_MAX_SIZE= 2000;
+
+	/**
+	 * The interval in milliseconds in which a thread waiting for the hierarchy computed by another
+	 * thread checks for cancellation.
+	 */
+	private static final long POLL_INTERVAL= 100;
+
+	/**
+	 * The cached hierarchies by the types they contain. A type contained in several cached
+	 * hierarchies is mapped to the most recently added one.
+	 */
+	private static final Map<IType, HierarchyCacheEntry> fgTypeIndex= new ConcurrentHashMap<>();
+	/**
+	 * The cached hierarchies by their focus types. The cache is only modified while holding the
+	 * lock of this map.
+	 */
+	private static final Map<IType, HierarchyCacheEntry> fgHierarchyCache= new ConcurrentHashMap<>();
+	private static final Map<IType, CompletableFuture<ITypeHierarchy>> fgComputations= new ConcurrentHashMap<>();
 
-	private static ArrayList<HierarchyCacheEntry> fgHierarchyCache= new ArrayList<>(CACHE_SIZE);
-	private static Map<IType, MethodOverrideTester> fgMethodOverrideTesterCache= new LRUMap<>(CACHE_SIZE);
+	private static final AtomicLong fgAccessCounter= new AtomicLong();
+	private static final AtomicLong fgCacheHits= new AtomicLong();
+	private static final AtomicLong fgCacheMisses= new AtomicLong();
+	private static final AtomicLong fgCacheEvictions= new AtomicLong();
+	private static final AtomicLong fgSharedComputations= new AtomicLong();
 
-	private static int fgCacheHits= 0;
-	private static int fgCacheMisses= 0;
+	private static int fgMaxSize= DEFAULT_MAX_SIZE;
+	private static int fgSize= 0;
 
 	/**
 	 * Returns a super type hierarchy that contains the given type.
@@ -97,32 +157,13 @@ public class SuperTypeHierarchyCache {
 	}
 
 	public static MethodOverrideTester getMethodOverrideTester(IType type) throws JavaModelException {
-		MethodOverrideTester test= null;
-		synchronized (fgMethodOverrideTesterCache) {
-			test= fgMethodOverrideTesterCache.get(type);
-		}
-		if (test == null) {
-			ITypeHierarchy hierarchy= getTypeHierarchy(type); // don't nest the locks
-			synchronized (fgMethodOverrideTesterCache) {
-				test= fgMethodOverrideTesterCache.get(type); // test again after waiting a long time for 'getTypeHierarchy'
-				if (test == null) {
-					test= new MethodOverrideTester(type, hierarchy);
-					fgMethodOverrideTesterCache.put(type, test);
-				}
-			}
-		}
-		return test;
-	}
-
-	private static void removeMethodOverrideTester(ITypeHierarchy hierarchy) {
-		synchronized (fgMethodOverrideTesterCache) {
-			for (Iterator<MethodOverrideTester> iter= fgMethodOverrideTesterCache.values().iterator(); iter.hasNext();) {
-				MethodOverrideTester curr= iter.next();
-				if (curr.getTypeHierarchy().equals(hierarchy)) {
-					iter.remove();
-				}
-			}
+		ITypeHierarchy hierarchy= getTypeHierarchy(type);
+		HierarchyCacheEntry entry= fgTypeIndex.get(type);
+		if (entry != null && entry.getTypeHierarchy() == hierarchy) {
+			return entry.getMethodOverrideTester(type, hierarchy);
 		}
+		// the hierarchy has been evicted in the meantime
+		return new MethodOverrideTester(type, hierarchy);
 	}
 
 	/**
@@ -138,44 +179,100 @@ public class SuperTypeHierarchyCache {
 	 * @throws JavaModelException if a problem occurs
 	 */
 	public static ITypeHierarchy getTypeHierarchy(IType type, IProgressMonitor progressMonitor) throws JavaModelException {
-		ITypeHierarchy hierarchy= findTypeHierarchyInCache(type);
-		if (hierarchy == null) {
-			fgCacheMisses++;
-			hierarchy= type.newSupertypeHierarchy(progressMonitor);
-			addTypeHierarchyToCache(hierarchy);
-		} else {
-			fgCacheHits++;
+		while (true) {
+			ITypeHierarchy hierarchy= findTypeHierarchyInCache(type);
+			if (hierarchy != null) {
+				fgCacheHits.incrementAndGet();
+				return hierarchy;
+			}
+
+			CompletableFuture<ITypeHierarchy> computation= new CompletableFuture<>();
+			CompletableFuture<ITypeHierarchy> running= fgComputations.putIfAbsent(type, computation);
+			if (running == null) {
+				fgCacheMisses.incrementAndGet();
+				try {
+					hierarchy= type.newSupertypeHierarchy(progressMonitor);
+					addTypeHierarchyToCache(hierarchy);
+					computation.complete(hierarchy);
+					return hierarchy;
+				} catch (JavaModelException | RuntimeException e) {
+					computation.completeExceptionally(e);
+					throw e;
+				} finally {
+					fgComputations.remove(type, computation);
+				}
+			}
+
+			hierarchy= waitForComputation(running, progressMonitor);
+			if (hierarchy != null) {
+				fgSharedComputations.incrementAndGet();
+				return hierarchy;
+			}
+			// the computing thread has been canceled, compute again
+		}
+	}
+
+	private static ITypeHierarchy waitForComputation(CompletableFuture<ITypeHierarchy> computation, IProgressMonitor progressMonitor) throws JavaModelException {
+		while (true) {
+			if (progressMonitor != null && progressMonitor.isCanceled()) {
+				throw new OperationCanceledException();
+			}
+			try {
+				return computation.get(POLL_INTERVAL, TimeUnit.MILLISECONDS);
+			} catch (TimeoutException e) {
+				// check for cancellation
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new OperationCanceledException();
+			} catch (ExecutionException e) {
+				Throwable cause= e.getCause();
+				if (cause instanceof JavaModelException) {
+					throw (JavaModelException) cause;
+				}
+				return null;
+			}
 		}
-		return hierarchy;
 	}
 
 	private static void addTypeHierarchyToCache(ITypeHierarchy hierarchy) {
 		synchronized (fgHierarchyCache) {
-			int nEntries= fgHierarchyCache.size();
-			if (nEntries >= CACHE_SIZE) {
-				// find obsolete entries or remove entry that was least recently accessed
-				HierarchyCacheEntry oldest= null;
-				ArrayList<HierarchyCacheEntry> obsoleteHierarchies= new ArrayList<>(CACHE_SIZE);
-				for (HierarchyCacheEntry entry : fgHierarchyCache) {
-					ITypeHierarchy curr= entry.getTypeHierarchy();
-					if (!curr.exists() || hierarchy.contains(curr.getType())) {
-						obsoleteHierarchies.add(entry);
-					} else {
-						if (oldest == null || entry.getLastAccess() < oldest.getLastAccess()) {
-							oldest= entry;
-						}
-					}
-				}
-				if (!obsoleteHierarchies.isEmpty()) {
-					for (HierarchyCacheEntry obsoleteHierarchie : obsoleteHierarchies) {
-						removeHierarchyEntryFromCache(obsoleteHierarchie);
-					}
-				} else if (oldest != null) {
-					removeHierarchyEntryFromCache(oldest);
+			HierarchyCacheEntry newEntry= new HierarchyCacheEntry(hierarchy);
+			// remove hierarchies which are contained in the new one
+			for (IType type : newEntry.getTypes()) {
+				HierarchyCacheEntry obsolete= fgHierarchyCache.get(type);
+				if (obsolete != null) {
+					removeHierarchyEntryFromCache(obsolete);
 				}
 			}
-			HierarchyCacheEntry newEntry= new HierarchyCacheEntry(hierarchy);
-			fgHierarchyCache.add(newEntry);
+			fgHierarchyCache.put(newEntry.getType(), newEntry);
+			for (IType type : newEntry.getTypes()) {
+				fgTypeIndex.put(type, newEntry);
+			}
+			fgSize+= newEntry.getSize();
+			evict(newEntry);
+		}
+	}
+
+	/**
+	 * Removes the least recently used hierarchies until the cache fits into its size. Must be
+	 * called with the lock of {@link #fgHierarchyCache}.
+	 *
+	 * @param keep the entry not to evict, or <code>null</code>
+	 */
+	private static void evict(HierarchyCacheEntry keep) {
+		if (fgSize <= fgMaxSize) {
+			return;
+		}
+		List<HierarchyCacheEntry> entries= new ArrayList<>(fgHierarchyCache.values());
+		entries.sort(Comparator.comparingLong(HierarchyCacheEntry::getLastAccess));
+		for (HierarchyCacheEntry entry : entries) {
+			if (fgSize <= fgMaxSize) {
+				break;
+			}
+			if (entry != keep) {
+				removeHierarchyEntryFromCache(entry);
+				fgCacheEvictions.incrementAndGet();
+			}
 		}
 	}
 
@@ -191,38 +288,80 @@ public class SuperTypeHierarchyCache {
 
 
 	private static ITypeHierarchy findTypeHierarchyInCache(IType type) {
-		synchronized (fgHierarchyCache) {
-			for (int i= fgHierarchyCache.size() - 1; i>= 0; i--) {
-				HierarchyCacheEntry curr= fgHierarchyCache.get(i);
-				ITypeHierarchy hierarchy= curr.getTypeHierarchy();
-				if (!hierarchy.exists()) {
-					removeHierarchyEntryFromCache(curr);
-				} else {
-					if (hierarchy.contains(type)) {
-						curr.markAsAccessed();
-						return hierarchy;
-					}
-				}
-			}
+		HierarchyCacheEntry entry= fgTypeIndex.get(type);
+		if (entry == null) {
+			return null;
+		}
+		ITypeHierarchy hierarchy= entry.getTypeHierarchy();
+		if (hierarchy == null || !hierarchy.exists()) {
+			removeHierarchyEntryFromCache(entry);
+			return null;
 		}
-		return null;
+		entry.markAsAccessed();
+		return hierarchy;
 	}
 
 	private static void removeHierarchyEntryFromCache(HierarchyCacheEntry entry) {
 		synchronized (fgHierarchyCache) {
-			removeMethodOverrideTester(entry.getTypeHierarchy());
+			if (fgHierarchyCache.remove(entry.getType(), entry)) {
+				fgSize-= entry.getSize();
+			}
+			for (IType type : entry.getTypes()) {
+				fgTypeIndex.remove(type, entry);
+			}
 			entry.dispose();
-			fgHierarchyCache.remove(entry);
 		}
 	}
 
+	/**
+	 * Sets the maximum size of the cache. The size of a hierarchy is the number of its types. A
+	 * hierarchy larger than the maximum size is cached until another hierarchy is added.
+	 *
+	 * @param maxSize the maximum total number of types of the cached hierarchies
+	 */
+	public static void setMaxSize(int maxSize) {
+		synchronized (fgHierarchyCache) {
+			fgMaxSize= Math.max(0, maxSize);
+			evict(null);
+		}
+	}
+
+	/**
+	 * @return the maximum total number of types of the cached hierarchies
+	 * @see #setMaxSize(int)
+	 */
+	public static int getMaxSize() {
+		synchronized (fgHierarchyCache) {
+			return fgMaxSize;
+		}
+	}
+
+	/**
+	 * @return the total number of types of the cached hierarchies
+	 */
+	public static int getSize() {
+		synchronized (fgHierarchyCache) {
+			return fgSize;
+		}
+	}
+
+	/**
+	 * Removes all hierarchies from the cache. The counters are not reset.
+	 */
+	public static void clear() {
+		synchronized (fgHierarchyCache) {
+			for (HierarchyCacheEntry entry : new ArrayList<>(fgHierarchyCache.values())) {
+				removeHierarchyEntryFromCache(entry);
+			}
+		}
+	}
 
 	/**
 	 * Gets the number of times the hierarchy could be taken from the hierarchy.
 	 * @return Returns a int
 	 */
 	public static int getCacheHits() {
-		return fgCacheHits;
+		return (int) fgCacheHits.get();
 	}
 
 	/**
@@ -230,7 +369,31 @@ public class SuperTypeHierarchyCache {
 	 * @return Returns a int
 	 */
 	public static int getCacheMisses() {
-		return fgCacheMisses;
+		return (int) fgCacheMisses.get();
+	}
+
+	/**
+	 * Gets the number of hierarchies which have been removed from the cache to fit into its size.
+	 * @return the number of evictions
+	 */
+	public static long getCacheEvictions() {
+		return fgCacheEvictions.get();
+	}
+
+	/**
+	 * Gets the number of times a thread received the hierarchy computed by another thread which
+	 * asked for the same type at the same time, instead of building it again.
+	 * @return the number of shared computations
+	 */
+	public static long getSharedComputations() {
+		return fgSharedComputations.get();
+	}
+
+	public static void resetCounters() {
+		fgCacheHits.set(0);
+		fgCacheMisses.set(0);
+		fgCacheEvictions.set(0);
+		fgSharedComputations.set(0);
 	}
 
 	private SuperTypeHierarchyCache() {
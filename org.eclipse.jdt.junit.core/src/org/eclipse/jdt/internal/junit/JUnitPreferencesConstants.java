@@ -62,6 +62,42 @@ public class JUnitPreferencesConstants {
 	 */
 	public static final String MAX_TEST_RUNS= JUnitCorePlugin.PLUGIN_ID + ".max_test_runs"; //$NON-NLS-1$
 
+	/**
+	 * Size in megabytes from which on test run files are imported lazily, i.e. only the summaries
+	 * of the top-level suites are read upfront and their children are read when accessed. A
+	 * negative value disables lazy import.
+	 */
+	public static final String LAZY_IMPORT_THRESHOLD= JUnitCorePlugin.PLUGIN_ID + ".lazy_import_threshold"; //$NON-NLS-1$
+
+	/**
+	 * Default value for {@link #LAZY_IMPORT_THRESHOLD}.
+	 */
+	public static final int LAZY_IMPORT_THRESHOLD_DEFAULT= 16;
+
+	/**
+	 * <code>true</code> to swap test runs of the history to disk in a compact binary format
+	 * instead of XML.
+	 */
+	public static final String BINARY_SWAP_FORMAT= JUnitCorePlugin.PLUGIN_ID + ".binary_swap_format"; //$NON-NLS-1$
+
+	/**
+	 * Number of tests from which on a test run keeps failure traces on disk instead of in memory.
+	 * A negative value disables spilling traces.
+	 */
+	public static final String COMPACT_STORAGE_THRESHOLD= JUnitCorePlugin.PLUGIN_ID + ".compact_storage_threshold"; //$NON-NLS-1$
+
+	/**
+	 * Default value for {@link #COMPACT_STORAGE_THRESHOLD}.
+	 */
+	public static final int COMPACT_STORAGE_THRESHOLD_DEFAULT= 50000;
+
+	/**
+	 * <code>true</code> to let the test runner send its events in batched binary frames instead of
+	 * one text line per event. Runtimes which do not support framing fall back to the text
+	 * protocol.
+	 */
+	public static final String FRAMED_PROTOCOL= JUnitCorePlugin.PLUGIN_ID + ".framed_protocol"; //$NON-NLS-1$
+
 	/**
 	 * Javadoc location for JUnit 3
 	 */
@@ -38,6 +38,10 @@ public class JunitPreferenceInitializer extends AbstractPreferenceInitializer {
 		prefs.put(JUnitPreferencesConstants.PREF_ACTIVE_FILTERS_LIST, active);
 		prefs.put(JUnitPreferencesConstants.PREF_INACTIVE_FILTERS_LIST, ""); //$NON-NLS-1$
 		prefs.putInt(JUnitPreferencesConstants.MAX_TEST_RUNS, 10);
+		prefs.putInt(JUnitPreferencesConstants.LAZY_IMPORT_THRESHOLD, JUnitPreferencesConstants.LAZY_IMPORT_THRESHOLD_DEFAULT);
+		prefs.putBoolean(JUnitPreferencesConstants.BINARY_SWAP_FORMAT, false);
+		prefs.putInt(JUnitPreferencesConstants.COMPACT_STORAGE_THRESHOLD, JUnitPreferencesConstants.COMPACT_STORAGE_THRESHOLD_DEFAULT);
+		prefs.putBoolean(JUnitPreferencesConstants.FRAMED_PROTOCOL, true);
 
 		// see https://github.com/junit-team/junit/issues/570
 		prefs.put(JUnitPreferencesConstants.JUNIT3_JAVADOC, "http://junit.sourceforge.net/junit3.8.1/javadoc/"); //$NON-NLS-1$
@@ -62,6 +62,12 @@ public class JUnitLaunchConfigurationConstants {
 	public static final String ATTR_TEST_METHOD_NAME= ATTR_TEST_NAME;
 
 	public static final String ATTR_KEEPRUNNING = JUnitCorePlugin.PLUGIN_ID+ ".KEEPRUNNING_ATTR"; //$NON-NLS-1$
+
+	/**
+	 * <code>true</code> to let the JUnit Platform execute the test classes of a JUnit 5 run in
+	 * parallel, see <code>junit.jupiter.execution.parallel.enabled</code>.
+	 */
+	public static final String ATTR_PARALLEL_EXECUTION= JUnitCorePlugin.PLUGIN_ID + ".PARALLEL_EXECUTION"; //$NON-NLS-1$
 	/**
 	 * The launch container, or "" iff running a single test type.
 	 */
@@ -0,0 +1,118 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.jdt.internal.junit.model;
+
+import java.io.IOException;
+
+import org.eclipse.jdt.junit.model.ITestElement.FailureTrace;
+
+import org.eclipse.jdt.internal.junit.JUnitCorePlugin;
+
+/**
+ * The trace, expected and actual value of a test element. Only test elements which failed or
+ * were skipped with a message have one. In compact storage mode the values are kept in a
+ * {@link TraceStore} and read back on access.
+ */
+final class FailureInfo {
+
+	private static final int TRACE= 0;
+	private static final int EXPECTED= 1;
+	private static final int ACTUAL= 2;
+
+	private final String fTrace;
+	private final String fExpected;
+	private final String fActual;
+
+	private final TraceStore fStore;
+	private final long fOffset;
+	private final boolean fIsComparisonFailure;
+
+	private FailureInfo(String trace, String expected, String actual, boolean isComparisonFailure, TraceStore store, long offset) {
+		fTrace= trace;
+		fExpected= expected;
+		fActual= actual;
+		fIsComparisonFailure= isComparisonFailure;
+		fStore= store;
+		fOffset= offset;
+	}
+
+	/**
+	 * @param trace the trace, can be <code>null</code>
+	 * @param expected the expected value, can be <code>null</code>
+	 * @param actual the actual value, can be <code>null</code>
+	 * @param store the store to spill the values to, or <code>null</code> to keep them in memory
+	 * @return the failure info, or <code>null</code> if all values are <code>null</code>
+	 */
+	static FailureInfo create(String trace, String expected, String actual, TraceStore store) {
+		if (trace == null && expected == null && actual == null)
+			return null;
+
+		boolean isComparisonFailure= expected != null && actual != null;
+		if (store != null) {
+			try {
+				long offset= store.write(trace, expected, actual);
+				return new FailureInfo(null, null, null, isComparisonFailure, store, offset);
+			} catch (IOException e) {
+				// keep in memory
+				JUnitCorePlugin.log(e);
+			}
+		}
+		return new FailureInfo(trace, expected, actual, isComparisonFailure, null, -1);
+	}
+
+	String getTrace() {
+		return get(TRACE, fTrace);
+	}
+
+	String getExpected() {
+		return get(EXPECTED, fExpected);
+	}
+
+	String getActual() {
+		return get(ACTUAL, fActual);
+	}
+
+	/**
+	 * @return the trace, expected and actual value, read with a single access to the store
+	 */
+	FailureTrace toFailureTrace() {
+		if (fStore == null)
+			return new FailureTrace(fTrace, fExpected, fActual);
+
+		try {
+			String[] values= fStore.read(fOffset);
+			return new FailureTrace(values[TRACE], values[EXPECTED], values[ACTUAL]);
+		} catch (IOException e) {
+			JUnitCorePlugin.log(e);
+			return new FailureTrace(null, null, null);
+		}
+	}
+
+	boolean isComparisonFailure() {
+		return fIsComparisonFailure;
+	}
+
+	private String get(int index, String value) {
+		if (fStore == null)
+			return value;
+
+		try {
+			return fStore.read(fOffset)[index];
+		} catch (IOException e) {
+			JUnitCorePlugin.log(e);
+			return null;
+		}
+	}
+}
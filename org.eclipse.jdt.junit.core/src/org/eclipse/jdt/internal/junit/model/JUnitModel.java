@@ -20,6 +20,8 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -377,20 +379,46 @@ public final class JUnitModel {
 	}
 
 	/**
-	 * Imports a test run session from the given file.
+	 * Imports a test run session from the given file. Files larger than the
+	 * {@link JUnitPreferencesConstants#LAZY_IMPORT_THRESHOLD} are imported lazily.
 	 *
 	 * @param file a file containing a test run session transcript
 	 * @return the imported test run session
 	 * @throws CoreException if the import failed
 	 */
 	public static TestRunSession importTestRunSession(File file) throws CoreException {
+		return importTestRunSession(file, isLazyImport(file));
+	}
+
+	/**
+	 * Imports a test run session from the given file.
+	 * <p>
+	 * A lazy import only creates the top-level suites, as {@link LazyTestSuiteElement}s with the
+	 * cumulated status of their tests. The file is copied into the history directory first and the
+	 * children of a suite are read from the copy when they are accessed, so <code>file</code> may
+	 * be modified or deleted after the import. The copy also serves as the swap file of the
+	 * session.
+	 * </p>
+	 *
+	 * @param file a file containing a test run session transcript
+	 * @param lazy <code>true</code> to read the children of the top-level suites on demand
+	 * @return the imported test run session
+	 * @throws CoreException if the import failed
+	 */
+	public static TestRunSession importTestRunSession(File file, boolean lazy) throws CoreException {
+		File source= lazy ? copyToHistory(file) : file;
+		boolean keepSource= !lazy;
 		try {
 			SAXParserFactory parserFactory= SAXParserFactory.newInstance();
 //			parserFactory.setValidating(true); // TODO: add DTD and debug flag
 			SAXParser parser= parserFactory.newSAXParser();
-			TestRunHandler handler= new TestRunHandler();
-			parser.parse(file, handler);
+			TestRunHandler handler= lazy ? new TestRunHandler(null, source) : new TestRunHandler();
+			parser.parse(source, handler);
 			TestRunSession session= handler.getTestRunSession();
+			if (lazy && session != null) {
+				session.setLazySource(source);
+				keepSource= true;
+			}
 			JUnitCorePlugin.getModel().addTestRunSession(session);
 			return session;
 		} catch (ParserConfigurationException | SAXException e) {
@@ -400,10 +428,35 @@ public final class JUnitModel {
 		} catch (IllegalArgumentException e) {
 			// Bug in parser: can throw IAE even if file is not null
 			throwImportError(file, e);
+		} finally {
+			if (!keepSource)
+				source.delete();
 		}
 		return null; // does not happen
 	}
 
+	/**
+	 * Copies a file to be imported lazily into the history directory, such that the session does
+	 * not depend on a file it does not own.
+	 *
+	 * @param file the file to copy
+	 * @return the copy, deleted by {@link TestRunSession#removeSwapFile()}
+	 * @throws CoreException if the file could not be copied
+	 */
+	private static File copyToHistory(File file) throws CoreException {
+		File copy= null;
+		try {
+			copy= File.createTempFile("import", ".xml", JUnitCorePlugin.getHistoryDirectory()); //$NON-NLS-1$ //$NON-NLS-2$
+			Files.copy(file.toPath(), copy.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			return copy;
+		} catch (IOException | IllegalStateException e) {
+			if (copy != null)
+				copy.delete();
+			throwImportError(file, e);
+			return null; // does not happen
+		}
+	}
+
 	/**
 	 * Imports a test run session from the given URL.
 	 *
@@ -475,8 +528,10 @@ public final class JUnitModel {
 			SAXParserFactory parserFactory= SAXParserFactory.newInstance();
 //			parserFactory.setValidating(true); // TODO: add DTD and debug flag
 			SAXParser parser= parserFactory.newSAXParser();
-			TestRunHandler handler= new TestRunHandler(testRunSession);
+			boolean lazy= isLazyImport(swapFile);
+			TestRunHandler handler= lazy ? new TestRunHandler(testRunSession, swapFile) : new TestRunHandler(testRunSession);
 			parser.parse(swapFile, handler);
+			testRunSession.setLazySource(lazy ? swapFile : null);
 		} catch (ParserConfigurationException | SAXException e) {
 			throwImportError(swapFile, e);
 		} catch (IOException e) {
@@ -487,6 +542,69 @@ public final class JUnitModel {
 		}
 	}
 
+	/**
+	 * Exports the given test run session in the compact binary format of
+	 * {@link TestRunSessionBinaryFormat}.
+	 *
+	 * @param testRunSession the test run session
+	 * @param file the destination
+	 * @throws CoreException if an error occurred
+	 */
+	public static void exportTestRunSessionBinary(TestRunSession testRunSession, File file) throws CoreException {
+		try {
+			TestRunSessionBinaryFormat.write(testRunSession, file);
+		} catch (IOException | SAXException e) {
+			throwExportError(file, e);
+		}
+	}
+
+	/**
+	 * Imports a file written by {@link #exportTestRunSessionBinary(TestRunSession, File)} into the
+	 * given session.
+	 *
+	 * @param swapFile the file to read
+	 * @param testRunSession the session to import into
+	 * @throws CoreException if the import failed
+	 */
+	public static void importBinaryIntoTestRunSession(File swapFile, TestRunSession testRunSession) throws CoreException {
+		try {
+			TestRunSessionBinaryFormat.read(swapFile, new TestRunHandler(testRunSession));
+			testRunSession.setLazySource(null);
+		} catch (IOException | SAXException e) {
+			throwImportError(swapFile, e);
+		}
+	}
+
+	/**
+	 * Reads the children of a suite of a lazily imported test run session.
+	 *
+	 * @param file the file the suite has been imported from
+	 * @param testSuite the suite to read the children of
+	 * @throws CoreException if the import failed
+	 */
+	static void importIntoTestSuite(File file, LazyTestSuiteElement testSuite) throws CoreException {
+		TestRunHandler handler= new TestRunHandler(testSuite);
+		try {
+			SAXParserFactory parserFactory= SAXParserFactory.newInstance();
+			SAXParser parser= parserFactory.newSAXParser();
+			parser.parse(file, handler);
+		} catch (ParserConfigurationException | SAXException e) {
+			if (handler.isLoadCompleted())
+				return; // stopped after the suite, see TestRunHandler.LoadCompletedException
+			throwImportError(file, e);
+		} catch (IOException e) {
+			throwImportError(file, e);
+		} catch (IllegalArgumentException e) {
+			// Bug in parser: can throw IAE even if file is not null
+			throwImportError(file, e);
+		}
+	}
+
+	private static boolean isLazyImport(File file) {
+		int threshold= Platform.getPreferencesService().getInt(JUnitCorePlugin.CORE_PLUGIN_ID, JUnitPreferencesConstants.LAZY_IMPORT_THRESHOLD, JUnitPreferencesConstants.LAZY_IMPORT_THRESHOLD_DEFAULT, null);
+		return threshold >= 0 && file.length() >= threshold * 1024L * 1024L;
+	}
+
 	/**
 	 * Exports the given test run session.
 	 *
@@ -0,0 +1,111 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.jdt.internal.junit.model;
+
+import java.io.File;
+
+import org.eclipse.jdt.junit.model.ITestElement;
+
+import org.eclipse.core.runtime.CoreException;
+
+import org.eclipse.jdt.internal.junit.JUnitCorePlugin;
+
+/**
+ * A top-level test suite of a lazily imported test run. Only a summary of the suite is read
+ * upfront: the number of its children and the cumulated status of all contained tests. The
+ * children are read from the test run file on first access.
+ *
+ * @see JUnitModel#importTestRunSession(File, boolean)
+ */
+public class LazyTestSuiteElement extends TestSuiteElement {
+
+	private final File fSource;
+	/**
+	 * Index of this suite among the top-level suites in {@link #fSource}.
+	 */
+	private final int fIndex;
+
+	private int fChildCount;
+	/**
+	 * The cumulated status of all contained tests, or <code>null</code> if there are none.
+	 */
+	private Status fSummaryStatus;
+
+	private volatile boolean fLoaded;
+
+	public LazyTestSuiteElement(TestSuiteElement parent, String id, String testName, String displayName, String[] parameterTypes, String uniqueId, File source, int index) {
+		super(parent, id, testName, 0, displayName, parameterTypes, uniqueId);
+		fSource= source;
+		fIndex= index;
+	}
+
+	/**
+	 * @return the index of this suite among the top-level suites of the test run file
+	 */
+	public int getIndex() {
+		return fIndex;
+	}
+
+	/**
+	 * @return <code>true</code> iff the children have been read
+	 */
+	public boolean isLoaded() {
+		return fLoaded;
+	}
+
+	void setSummary(int childCount, Status summaryStatus) {
+		fChildCount= childCount;
+		fSummaryStatus= summaryStatus;
+	}
+
+	@Override
+	public ITestElement[] getChildren() {
+		load();
+		return super.getChildren();
+	}
+
+	@Override
+	public boolean hasChildren() {
+		if (fLoaded)
+			return super.hasChildren();
+		return fChildCount > 0;
+	}
+
+	@Override
+	public Status getStatus() {
+		if (fLoaded)
+			return super.getStatus();
+
+		Status suiteStatus= getSuiteStatus();
+		if (fSummaryStatus != null) {
+			return Status.combineStatus(fSummaryStatus, suiteStatus);
+		} else {
+			return suiteStatus;
+		}
+	}
+
+	private synchronized void load() {
+		if (fLoaded)
+			return;
+
+		try {
+			JUnitModel.importIntoTestSuite(fSource, this);
+		} catch (CoreException e) {
+			// don't try again, the children stay empty
+			JUnitCorePlugin.log(e);
+		}
+		fLoaded= true;
+	}
+}
@@ -15,8 +15,12 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.junit.model;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.EOFException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
@@ -30,6 +34,7 @@ import org.eclipse.core.runtime.ISafeRunnable;
 import org.eclipse.core.runtime.SafeRunner;
 
 import org.eclipse.jdt.internal.junit.JUnitCorePlugin;
+import org.eclipse.jdt.internal.junit.runner.FramedMessageWriter;
 import org.eclipse.jdt.internal.junit.runner.MessageIds;
 import org.eclipse.jdt.internal.junit.runner.RemoteTestRunner;
 
@@ -228,6 +233,10 @@ public class RemoteTestRunnerClient {
 	private int fPort= -1;
 	private PrintWriter fWriter;
 	private PushbackReader fPushbackReader;
+	/**
+	 * The stream of the framed protocol, or <code>null</code> if the text protocol is used
+	 */
+	private DataInputStream fFramedInput;
 	private String fLastLineDelimiter;
 	/**
 	 * The protocol version
@@ -266,11 +275,16 @@ public class RemoteTestRunnerClient {
 					System.out.println("Creating server socket "+fServerPort); //$NON-NLS-1$
 				fServerSocket= new ServerSocket(fServerPort);
 				fSocket= fServerSocket.accept();
-				fPushbackReader= new PushbackReader(new BufferedReader(new InputStreamReader(fSocket.getInputStream(), StandardCharsets.UTF_8)));
 				fWriter= new PrintWriter(new OutputStreamWriter(fSocket.getOutputStream(), StandardCharsets.UTF_8), true);
-				String message;
-				while(fPushbackReader != null && (message= readMessage(fPushbackReader)) != null)
-					receiveMessage(message);
+				InputStream in= new BufferedInputStream(fSocket.getInputStream(), 8192);
+				if (isFramed(in)) {
+					readFramedMessages(in);
+				} else {
+					fPushbackReader= new PushbackReader(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)));
+					String message;
+					while(fPushbackReader != null && (message= readMessage(fPushbackReader)) != null)
+						receiveMessage(message);
+				}
 			} catch (SocketException e) {
 				notifyTestRunTerminated();
 			} catch (IOException e) {
@@ -326,6 +340,13 @@ public class RemoteTestRunnerClient {
 			}
 		} catch(IOException e) {
 		}
+		try {
+			if (fFramedInput != null) {
+				fFramedInput.close();
+				fFramedInput= null;
+			}
+		} catch(IOException e) {
+		}
 		try {
 			if (fSocket != null) {
 				fSocket.close();
@@ -374,6 +395,71 @@ public class RemoteTestRunnerClient {
 		return buf.toString();
 	}
 
+	/**
+	 * The framed protocol starts with {@link FramedMessageWriter#MAGIC}, whose first byte can
+	 * not start a message of the text protocol.
+	 *
+	 * @param in the stream, must support mark
+	 * @return <code>true</code> if the runner uses the framed protocol
+	 * @throws IOException if reading fails
+	 */
+	private boolean isFramed(InputStream in) throws IOException {
+		in.mark(1);
+		int first= in.read();
+		in.reset();
+		return first == (FramedMessageWriter.MAGIC >>> 24);
+	}
+
+	/**
+	 * Reads the frames sent by a {@link FramedMessageWriter} and passes their messages to the
+	 * same state machine as the text protocol.
+	 *
+	 * @param in the stream
+	 * @throws IOException if reading fails or the header is invalid
+	 */
+	private void readFramedMessages(InputStream in) throws IOException {
+		fFramedInput= new DataInputStream(in);
+		if (fFramedInput.readInt() != FramedMessageWriter.MAGIC)
+			throw new IOException("Invalid message stream"); //$NON-NLS-1$
+		int version= fFramedInput.readInt();
+		if (version < 1 || version > FramedMessageWriter.VERSION)
+			throw new IOException("Unsupported message framing version " + version); //$NON-NLS-1$
+		String lineDelimiter= fFramedInput.readUTF();
+
+		byte[] frame= new byte[8192];
+		while (true) {
+			DataInputStream input= fFramedInput;
+			if (input == null)
+				return;
+			int length;
+			try {
+				length= input.readInt();
+			} catch (EOFException e) {
+				return;
+			}
+			if (length < 0)
+				throw new IOException("Invalid frame length " + length); //$NON-NLS-1$
+			if (length > frame.length)
+				frame= new byte[Math.max(length, 2 * frame.length)];
+			input.readFully(frame, 0, length);
+
+			int offset= 0;
+			while (offset < length) {
+				if (length - offset < 4)
+					throw new IOException("Truncated frame"); //$NON-NLS-1$
+				int messageLength= ((frame[offset] & 0xFF) << 24) | ((frame[offset + 1] & 0xFF) << 16) | ((frame[offset + 2] & 0xFF) << 8) | (frame[offset + 3] & 0xFF);
+				offset+= 4;
+				if (messageLength < 0 || messageLength > length - offset)
+					throw new IOException("Invalid message length " + messageLength); //$NON-NLS-1$
+				String message= new String(frame, offset, messageLength, StandardCharsets.UTF_8);
+				offset+= messageLength;
+				// a message may span several lines, they are delimited like the last line in the text protocol
+				fLastLineDelimiter= lineDelimiter;
+				receiveMessage(message);
+			}
+		}
+	}
+
 	private void receiveMessage(String message) {
 	    fCurrentState= fCurrentState.readMessage(message);
 	}
@@ -190,9 +190,10 @@ public abstract class TestElement implements ITestElement {
 	private String fUniqueId;
 
 	private Status fStatus;
-	private String fTrace;
-	private String fExpected;
-	private String fActual;
+	/**
+	 * The trace, expected and actual value, or <code>null</code> if there are none.
+	 */
+	private FailureInfo fFailure;
 
 	private boolean fAssumptionFailed;
 
@@ -261,9 +262,12 @@ public abstract class TestElement implements ITestElement {
 	@Override
 	public FailureTrace getFailureTrace() {
 		Result testResult= getTestResult(false);
-		if (testResult == Result.ERROR || testResult == Result.FAILURE
-				|| (testResult == Result.IGNORED && fTrace != null)) {
-			return new FailureTrace(fTrace, fExpected, fActual);
+		if (testResult == Result.ERROR || testResult == Result.FAILURE) {
+			return fFailure != null ? fFailure.toFailureTrace() : new FailureTrace(null, null, null);
+		}
+		if (testResult == Result.IGNORED && fFailure != null) {
+			FailureTrace failureTrace= fFailure.toFailureTrace();
+			return failureTrace.getTrace() != null ? failureTrace : null;
 		}
 		return null;
 	}
@@ -304,35 +308,42 @@ public abstract class TestElement implements ITestElement {
 	}
 
 	public void setStatus(Status status, String trace, String expected, String actual) {
-		if (trace != null && fTrace != null) {
+		FailureTrace old= trace != null && fFailure != null ? fFailure.toFailureTrace() : null;
+		if (old != null && old.getTrace() != null) {
 			//don't overwrite first trace if same test run logs multiple errors
-			fTrace= fTrace + trace;
+			fFailure= FailureInfo.create(old.getTrace() + trace, old.getExpected(), old.getActual(), getTraceStore());
 		} else {
-			fTrace= trace;
-			fExpected= expected;
-			fActual= actual;
+			fFailure= FailureInfo.create(trace, expected, actual, getTraceStore());
 		}
 		setStatus(status);
 	}
 
+	/**
+	 * @return the store to keep traces in, or <code>null</code> to keep them in memory
+	 */
+	private TraceStore getTraceStore() {
+		ITestRunSession session= getRoot().getTestRunSession();
+		return session instanceof TestRunSession ? ((TestRunSession) session).getTraceStore() : null;
+	}
+
 	public Status getStatus() {
 		return fStatus;
 	}
 
 	public String getTrace() {
-		return fTrace;
+		return fFailure != null ? fFailure.getTrace() : null;
 	}
 
 	public String getExpected() {
-		return fExpected;
+		return fFailure != null ? fFailure.getExpected() : null;
 	}
 
 	public String getActual() {
-		return fActual;
+		return fFailure != null ? fFailure.getActual() : null;
 	}
 
 	public boolean isComparisonFailure() {
-		return fExpected != null && fActual != null;
+		return fFailure != null && fFailure.isComparisonFailure();
 	}
 
 	/**
@@ -0,0 +1,79 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.jdt.internal.junit.model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Maps test ids to test elements. The test runners number the tests consecutively, so elements
+ * with a numeric id are kept in an array indexed by the id. The array only grows in proportion to
+ * the number of elements it holds; other ids, including numbers far beyond the array, are kept in
+ * a map.
+ */
+final class TestElementIndex {
+
+	private static final int MAX_INDEXED_ID= 1 << 24;
+
+	private static final int INITIAL_SIZE= 64;
+
+	private TestElement[] fElements= new TestElement[INITIAL_SIZE];
+	private int fIndexedCount;
+	private HashMap<String, TestElement> fOthers;
+
+	TestElement get(String id) {
+		int index= toIndex(id);
+		if (index >= 0 && index < fElements.length && fElements[index] != null)
+			return fElements[index];
+		return fOthers == null ? null : fOthers.get(id);
+	}
+
+	void put(String id, TestElement element) {
+		int index= toIndex(id);
+		if (index >= fElements.length && index < 2 * fIndexedCount + INITIAL_SIZE)
+			fElements= Arrays.copyOf(fElements, Math.max(index + 1, fElements.length * 2));
+
+		if (index >= 0 && index < fElements.length) {
+			if (fElements[index] == null)
+				fIndexedCount++;
+			fElements[index]= element;
+			if (fOthers != null)
+				fOthers.remove(id);
+		} else {
+			if (fOthers == null)
+				fOthers= new HashMap<>();
+			fOthers.put(id, element);
+		}
+	}
+
+	/**
+	 * @param id a test id
+	 * @return the array index for <code>id</code>, or -1 if the id is not a small non-negative
+	 *         number without leading zeros
+	 */
+	private static int toIndex(String id) {
+		int length= id.length();
+		if (length == 0 || length > 8 || (length > 1 && id.charAt(0) == '0'))
+			return -1;
+		int result= 0;
+		for (int i= 0; i < length; i++) {
+			char ch= id.charAt(i);
+			if (ch < '0' || ch > '9')
+				return -1;
+			result= result * 10 + ch - '0';
+		}
+		return result < MAX_INDEXED_ID ? result : -1;
+	}
+}
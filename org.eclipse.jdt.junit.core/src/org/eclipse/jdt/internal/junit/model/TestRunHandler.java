@@ -17,6 +17,7 @@
 
 package org.eclipse.jdt.internal.junit.model;
 
+import java.io.File;
 import java.util.Arrays;
 import java.util.Stack;
 
@@ -45,6 +46,29 @@ public class TestRunHandler extends DefaultHandler {
 	 * TODO: validate (currently assumes correct XML)
 	 */
 
+	/**
+	 * Thrown to stop parsing once the children of the suite to load have been read.
+	 */
+	static final class LoadCompletedException extends SAXException {
+		private static final long serialVersionUID= 1L;
+	}
+
+	/**
+	 * A test element inside a lazily imported top-level suite, of which only the status is kept.
+	 */
+	private static final class SummarizedElement {
+		final boolean fIsTestCase;
+		final boolean fNotRun;
+		boolean fIgnored;
+		boolean fAssumptionFailed;
+		Status fStatus= Status.NOT_RUN;
+
+		SummarizedElement(boolean isTestCase, boolean notRun) {
+			fIsTestCase= isTestCase;
+			fNotRun= notRun;
+		}
+	}
+
 	private int fId;
 
 	private TestRunSession fTestRunSession;
@@ -65,6 +89,29 @@ public class TestRunHandler extends DefaultHandler {
 	private IProgressMonitor fMonitor;
 	private int fLastReportedLine;
 
+	/**
+	 * The file which is imported lazily, or <code>null</code> if all test elements are created.
+	 */
+	private File fLazySource;
+	private int fTopLevelSuiteCount;
+	/**
+	 * The top-level suite being summarized, or <code>null</code>.
+	 */
+	private LazyTestSuiteElement fLazySuite;
+	private int fSummaryChildCount;
+	private Status fSummaryStatus;
+	private Stack<SummarizedElement> fSummarized= new Stack<>();
+	private Status fSummaryFailureStatus;
+	private boolean fSummaryFailureHasText;
+
+	/**
+	 * The suite whose children are read, or <code>null</code>.
+	 */
+	private LazyTestSuiteElement fLoadSuite;
+	private boolean fLoading;
+	private boolean fLoadCompleted;
+	private int fSuiteDepth;
+
 	public TestRunHandler() {
 
 	}
@@ -77,6 +124,30 @@ public class TestRunHandler extends DefaultHandler {
 		fTestRunSession= testRunSession;
 	}
 
+	/**
+	 * Creates a handler which creates {@link LazyTestSuiteElement}s for the top-level suites and
+	 * only reads a summary of their children.
+	 *
+	 * @param testRunSession the session to import into, or <code>null</code> to create a new one
+	 * @param lazySource the file being parsed
+	 */
+	public TestRunHandler(TestRunSession testRunSession, File lazySource) {
+		fTestRunSession= testRunSession;
+		fLazySource= lazySource;
+	}
+
+	/**
+	 * Creates a handler which only reads the children of <code>loadSuite</code>, from the file the
+	 * suite has been summarized from. Counters of the test run session are not updated, since
+	 * they already include the children.
+	 *
+	 * @param loadSuite the suite to load
+	 */
+	public TestRunHandler(LazyTestSuiteElement loadSuite) {
+		fLoadSuite= loadSuite;
+		fTestRunSession= (TestRunSession) loadSuite.getTestRunSession();
+	}
+
 	@Override
 	public void setDocumentLocator(Locator locator) {
 		fLocator= locator;
@@ -99,6 +170,30 @@ public class TestRunHandler extends DefaultHandler {
 		if (Thread.interrupted())
 			throw new OperationCanceledException();
 
+		if (fLoadSuite != null) {
+			boolean isSuite= IXMLTags.NODE_TESTSUITE.equals(qName);
+			if (!fLoading) {
+				if (isSuite) {
+					if (fSuiteDepth == 0 && fTopLevelSuiteCount++ == fLoadSuite.getIndex()) {
+						fLoading= true;
+						fTestSuite= fLoadSuite;
+					}
+					fSuiteDepth++;
+				}
+				return;
+			}
+			if (isSuite) {
+				fSuiteDepth++;
+			} else if (fTestSuite == fLoadSuite && fTestCase == null && !IXMLTags.NODE_TESTCASE.equals(qName)) {
+				// results of the loaded suite itself are already known
+				return;
+			}
+		}
+		if (fLazySuite != null && (!fSummarized.isEmpty() || IXMLTags.NODE_TESTSUITE.equals(qName) || IXMLTags.NODE_TESTCASE.equals(qName))) {
+			startSummarizedElement(qName, attributes);
+			return;
+		}
+
 		switch (qName) {
 		case IXMLTags.NODE_TESTRUN:
 			if (fTestRunSession == null) {
@@ -125,6 +220,14 @@ public class TestRunHandler extends DefaultHandler {
 			} else {
 				fTestRunSession.reset();
 			}
+			String tests= attributes.getValue(IXMLTags.ATTR_TESTS);
+			if (tests != null) {
+				try {
+					fTestRunSession.updateCompactStorage(Integer.parseInt(tests));
+				} catch (NumberFormatException e) {
+					// keep traces in memory
+				}
+			}
 			fTestSuite= fTestRunSession.getTestRoot();
 			break;
 		// support Ant's 'junitreport' task; create suite from NODE_TESTSUITE
@@ -150,7 +253,7 @@ public class TestRunHandler extends DefaultHandler {
 				}	String uniqueId= attributes.getValue(IXMLTags.ATTR_UNIQUE_ID);
 				if (uniqueId != null && uniqueId.trim().isEmpty()) {
 					uniqueId= null;
-				}	fTestSuite= (TestSuiteElement) fTestRunSession.createTestElement(fTestSuite, getNextId(), suiteName, true, 0, false, displayName, paramTypes, uniqueId);
+				}	fTestSuite= (TestSuiteElement) createTestElement(fTestSuite, suiteName, true, false, displayName, paramTypes, uniqueId);
 				readTime(fTestSuite, attributes);
 				fNotRun.push(Boolean.valueOf(attributes.getValue(IXMLTags.ATTR_INCOMPLETE)));
 				break;
@@ -176,7 +279,7 @@ public class TestRunHandler extends DefaultHandler {
 				}	String uniqueId= attributes.getValue(IXMLTags.ATTR_UNIQUE_ID);
 				if (uniqueId != null && uniqueId.trim().isEmpty()) {
 					uniqueId= null;
-				}	fTestCase= (TestCaseElement) fTestRunSession.createTestElement(fTestSuite, getNextId(), testName, false, 0, isDynamicTest, displayName, paramTypes, uniqueId);
+				}	fTestCase= (TestCaseElement) createTestElement(fTestSuite, testName, false, isDynamicTest, displayName, paramTypes, uniqueId);
 				fNotRun.push(Boolean.parseBoolean(attributes.getValue(IXMLTags.ATTR_INCOMPLETE)));
 				fTestCase.setIgnored(Boolean.parseBoolean(attributes.getValue(IXMLTags.ATTR_IGNORED)));
 				readTime(fTestCase, attributes);
@@ -219,6 +322,118 @@ public class TestRunHandler extends DefaultHandler {
 		}
 	}
 
+	private TestElement createTestElement(TestSuiteElement parent, String testName, boolean isSuite, boolean isDynamicTest, String displayName, String[] paramTypes, String uniqueId) {
+		if (fLoadSuite != null) {
+			// not registered with the session, the children can be read again at any time
+			String id= fLoadSuite.getId() + '.' + getNextId();
+			if (isSuite) {
+				return new TestSuiteElement(parent, id, testName, 0, displayName, paramTypes, uniqueId);
+			} else {
+				return new TestCaseElement(parent, id, testName, displayName, isDynamicTest, paramTypes, uniqueId);
+			}
+		}
+		if (fLazySource != null && isSuite) {
+			fLazySuite= new LazyTestSuiteElement(parent, getNextId(), testName, displayName, paramTypes, uniqueId, fLazySource, fTopLevelSuiteCount++);
+			fSummaryChildCount= 0;
+			fSummaryStatus= null;
+			return fLazySuite;
+		}
+		return fTestRunSession.createTestElement(parent, getNextId(), testName, isSuite, 0, isDynamicTest, displayName, paramTypes, uniqueId);
+	}
+
+	private void startSummarizedElement(String qName, Attributes attributes) throws SAXException {
+		switch (qName) {
+		case IXMLTags.NODE_TESTSUITE:
+		case IXMLTags.NODE_TESTCASE:
+			if (fSummarized.isEmpty())
+				fSummaryChildCount++;
+			SummarizedElement element= new SummarizedElement(IXMLTags.NODE_TESTCASE.equals(qName), Boolean.parseBoolean(attributes.getValue(IXMLTags.ATTR_INCOMPLETE)));
+			element.fIgnored= Boolean.parseBoolean(attributes.getValue(IXMLTags.ATTR_IGNORED));
+			fSummarized.push(element);
+			break;
+		case IXMLTags.NODE_ERROR:
+			fSummaryFailureStatus= Status.ERROR;
+			fSummaryFailureHasText= false;
+			break;
+		case IXMLTags.NODE_FAILURE:
+			fSummaryFailureStatus= Status.FAILURE;
+			fSummaryFailureHasText= false;
+			break;
+		case IXMLTags.NODE_SKIPPED:
+			fSummaryFailureStatus= Status.OK;
+			fSummaryFailureHasText= attributes.getValue(IXMLTags.ATTR_MESSAGE) != null;
+			break;
+		// not interested
+		case IXMLTags.NODE_PROPERTIES:
+		case IXMLTags.NODE_PROPERTY:
+		case IXMLTags.NODE_EXPECTED:
+		case IXMLTags.NODE_ACTUAL:
+		case IXMLTags.NODE_SYSTEM_OUT:
+		case IXMLTags.NODE_SYSTEM_ERR:
+			break;
+		default:
+			throw new SAXParseException("unknown node '" + qName + "'", fLocator);  //$NON-NLS-1$//$NON-NLS-2$
+		}
+	}
+
+	private void endSummarizedElement(String qName) throws SAXException {
+		SummarizedElement element= fSummarized.peek();
+		switch (qName) {
+		case IXMLTags.NODE_TESTSUITE:
+		case IXMLTags.NODE_TESTCASE:
+			fSummarized.pop();
+			boolean completed= !element.fNotRun;
+			if (completed && element.fIsTestCase && !element.fStatus.isErrorOrFailure())
+				element.fStatus= Status.OK;
+			fTestRunSession.registerSummarizedTestEnded(element.fIsTestCase, completed, element.fIgnored, element.fAssumptionFailed);
+			fSummaryStatus= fSummaryStatus == null ? element.fStatus : Status.combineStatus(fSummaryStatus, element.fStatus);
+			break;
+		case IXMLTags.NODE_FAILURE:
+		case IXMLTags.NODE_ERROR:
+			handleSummarizedFailure(element);
+			break;
+		case IXMLTags.NODE_SKIPPED:
+			if (fSummaryFailureHasText) {
+				handleSummarizedFailure(element);
+				element.fAssumptionFailed= true;
+			} else if (element.fIsTestCase) {
+				element.fIgnored= true;
+			} else {
+				element.fAssumptionFailed= true;
+			}
+			fSummaryFailureStatus= null;
+			break;
+		// OK
+		case IXMLTags.NODE_PROPERTIES:
+		case IXMLTags.NODE_PROPERTY:
+		case IXMLTags.NODE_EXPECTED:
+		case IXMLTags.NODE_ACTUAL:
+		case IXMLTags.NODE_SYSTEM_OUT:
+		case IXMLTags.NODE_SYSTEM_ERR:
+			break;
+		default:
+			handleUnknownNode(qName);
+			break;
+		}
+	}
+
+	private void handleSummarizedFailure(SummarizedElement element) {
+		if (fSummaryFailureStatus != null) {
+			element.fStatus= fSummaryFailureStatus;
+			fTestRunSession.registerSummarizedFailure(fSummaryFailureStatus, element.fAssumptionFailed);
+			fSummaryFailureStatus= null;
+		}
+	}
+
+	private void endLazySuite() {
+		LazyTestSuiteElement lazySuite= fLazySuite;
+		fLazySuite= null;
+		lazySuite.setSummary(fSummaryChildCount, fSummaryStatus);
+		TestSuiteElement parent= lazySuite.getParent();
+		if (parent != null)
+			parent.childChangedStatus(lazySuite, lazySuite.getStatus());
+	}
+
 	private void readTime(TestElement testElement, Attributes attributes) {
 		String timeString= attributes.getValue(IXMLTags.ATTR_TIME);
 		if (timeString != null) {
@@ -231,6 +446,14 @@ public class TestRunHandler extends DefaultHandler {
 
 	@Override
 	public void characters(char[] ch, int start, int length) throws SAXException {
+		if (fLoadSuite != null && !fLoading)
+			return;
+		if (!fSummarized.isEmpty()) {
+			if (fSummaryFailureStatus != null && length > 0)
+				fSummaryFailureHasText= true;
+			return;
+		}
+
 		if (fInExpected) {
 			fExpectedBuffer.append(ch, start, length);
 
@@ -244,6 +467,22 @@ public class TestRunHandler extends DefaultHandler {
 
 	@Override
 	public void endElement(String uri, String localName, String qName) throws SAXException {
+		if (fLoadSuite != null) {
+			if (IXMLTags.NODE_TESTSUITE.equals(qName)) {
+				fSuiteDepth--;
+				if (fLoading && fSuiteDepth == 0) {
+					fLoadCompleted= true;
+					throw new LoadCompletedException();
+				}
+			}
+			if (!fLoading || (fTestSuite == fLoadSuite && fTestCase == null))
+				return;
+		}
+		if (!fSummarized.isEmpty()) {
+			endSummarizedElement(qName);
+			return;
+		}
+
 		switch (qName) {
 		// OK
 		case IXMLTags.NODE_TESTRUN:
@@ -253,6 +492,8 @@ public class TestRunHandler extends DefaultHandler {
 			break;
 		case IXMLTags.NODE_TESTSUITE:
 			handleTestElementEnd(fTestSuite);
+			if (fTestSuite == fLazySuite)
+				endLazySuite();
 			fTestSuite= fTestSuite.getParent();
 			//TODO: end suite: compare counters?
 			break;
@@ -313,12 +554,22 @@ public class TestRunHandler extends DefaultHandler {
 
 	private void handleTestElementEnd(TestElement testElement) {
 		boolean completed= fNotRun.pop() != Boolean.TRUE;
+		if (fLoadSuite != null) {
+			// same as TestRunSession#registerTestEnded(..), but without counting
+			if (completed && testElement instanceof TestCaseElement && !testElement.getStatus().isErrorOrFailure())
+				testElement.setStatus(Status.OK);
+			return;
+		}
 		fTestRunSession.registerTestEnded(testElement, completed);
 	}
 
 	private void handleFailure(TestElement testElement) {
 		if (fFailureBuffer != null) {
-			fTestRunSession.registerTestFailureStatus(testElement, fStatus, fFailureBuffer.toString(), toString(fExpectedBuffer), toString(fActualBuffer));
+			if (fLoadSuite != null) {
+				testElement.setStatus(fStatus, fFailureBuffer.toString(), toString(fExpectedBuffer), toString(fActualBuffer));
+			} else {
+				fTestRunSession.registerTestFailureStatus(testElement, fStatus, fFailureBuffer.toString(), toString(fExpectedBuffer), toString(fActualBuffer));
+			}
 			fFailureBuffer= null;
 			fExpectedBuffer= null;
 			fActualBuffer= null;
@@ -353,6 +604,13 @@ public class TestRunHandler extends DefaultHandler {
 		return Integer.toString(fId++);
 	}
 
+	/**
+	 * @return <code>true</code> iff all children of the suite to load have been read
+	 */
+	boolean isLoadCompleted() {
+		return fLoadCompleted;
+	}
+
 	/**
 	 * @return the parsed test run session, or <code>null</code>
 	 */
@@ -16,6 +16,7 @@
 package org.eclipse.jdt.internal.junit.model;
 
 import java.io.File;
+import java.io.IOException;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
@@ -31,6 +32,7 @@ import org.eclipse.jdt.junit.model.ITestRunSession;
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.ListenerList;
+import org.eclipse.core.runtime.Platform;
 
 import org.eclipse.debug.core.DebugPlugin;
 import org.eclipse.debug.core.ILaunch;
@@ -42,6 +44,7 @@ import org.eclipse.jdt.core.IJavaProject;
 
 import org.eclipse.jdt.internal.junit.JUnitCorePlugin;
 import org.eclipse.jdt.internal.junit.JUnitMessages;
+import org.eclipse.jdt.internal.junit.JUnitPreferencesConstants;
 import org.eclipse.jdt.internal.junit.launcher.ITestKind;
 import org.eclipse.jdt.internal.junit.launcher.JUnitLaunchConfigurationConstants;
 import org.eclipse.jdt.internal.junit.model.TestElement.Status;
@@ -86,20 +89,38 @@ public class TestRunSession implements ITestRunSession {
 	/**
 	 * Map from testId to testElement.
 	 */
-	private HashMap<String, TestElement> fIdToTest;
+	private TestElementIndex fIdToTest;
+
+	/**
+	 * Shared parameter type arrays, keyed by the comma separated types.
+	 */
+	private HashMap<String, String[]> fParameterTypes;
+
+	/**
+	 * <code>true</code> iff traces are kept in {@link #fTraceStore} instead of in memory.
+	 */
+	private boolean fCompactStorage;
+
+	/**
+	 * The store for failure traces, or <code>null</code> if not yet created.
+	 */
+	private TraceStore fTraceStore;
 
 	/**
 	 * The TestSuites for which additional children are expected.
 	 */
 	private List<IncompleteTestSuite> fIncompleteTestSuites;
 
-	private List<IncompleteTestSuite> fFactoryTestSuites;
-
 	/**
 	 * Suite for unrooted test case elements, or <code>null</code>.
 	 */
 	private TestSuiteElement fUnrootedSuite;
 
+	/**
+	 * The file the test tree has been lazily imported from, or <code>null</code>.
+	 */
+	private File fLazySource;
+
 	private static final String EMPTY_STRING= ""; //$NON-NLS-1$
 
 	/**
@@ -167,7 +188,8 @@ public class TestRunSession implements ITestRunSession {
 		fTestRunnerKind= ITestKind.NULL; //TODO
 
 		fTestRoot= new TestRoot(this);
-		fIdToTest= new HashMap<>();
+		fIdToTest= new TestElementIndex();
+		fParameterTypes= new HashMap<>();
 
 		fTestRunnerClient= null;
 
@@ -191,7 +213,8 @@ public class TestRunSession implements ITestRunSession {
 		}
 
 		fTestRoot= new TestRoot(this);
-		fIdToTest= new HashMap<>();
+		fIdToTest= new TestElementIndex();
+		fParameterTypes= new HashMap<>();
 
 		fTestRunnerClient= new RemoteTestRunnerClient();
 		fTestRunnerClient.startListening(new ITestRunListener2[] { new TestSessionNotifier() }, port);
@@ -238,7 +261,9 @@ public class TestRunSession implements ITestRunSession {
 
 		fTestRoot= new TestRoot(this);
 		fTestResult= null;
-		fIdToTest= new HashMap<>();
+		fIdToTest= new TestElementIndex();
+		fParameterTypes= new HashMap<>();
+		closeTraceStore();
 	}
 
 	@Override
@@ -368,15 +393,27 @@ public class TestRunSession implements ITestRunSession {
 		}
 
 		try {
-			File swapFile= getSwapFile();
+			if (fLazySource == null) {
+				boolean binary= Platform.getPreferencesService().getBoolean(JUnitCorePlugin.CORE_PLUGIN_ID, JUnitPreferencesConstants.BINARY_SWAP_FORMAT, false, null);
+				File swapFile= getSwapFile(binary);
 
-			JUnitModel.exportTestRunSession(this, swapFile);
+				if (binary) {
+					JUnitModel.exportTestRunSessionBinary(this, swapFile);
+				} else {
+					JUnitModel.exportTestRunSession(this, swapFile);
+				}
+				// don't swap in an outdated file of the other format
+				File otherSwapFile= getSwapFile(!binary);
+				if (otherSwapFile.exists())
+					otherSwapFile.delete();
+			} // else: the session has not changed since it was imported from fLazySource, which is a file of the history
 			fTestResult= fTestRoot.getTestResult(true);
 			fTestRoot= null;
 			fTestRunnerClient= null;
-			fIdToTest= new HashMap<>();
+			fIdToTest= new TestElementIndex();
+			fParameterTypes= new HashMap<>();
+			closeTraceStore();
 			fIncompleteTestSuites= null;
-			fFactoryTestSuites= null;
 			fUnrootedSuite= null;
 
 		} catch (IllegalStateException | CoreException e) {
@@ -390,15 +427,17 @@ public class TestRunSession implements ITestRunSession {
 
 
 	public void removeSwapFile() {
-		File swapFile= getSwapFile();
-		if (swapFile.exists())
-			swapFile.delete();
+		closeTraceStore();
+		for (File swapFile : new File[] { getSwapFile(false), getSwapFile(true), fLazySource }) {
+			if (swapFile != null && swapFile.exists())
+				swapFile.delete();
+		}
 	}
 
-	private File getSwapFile() throws IllegalStateException {
+	private File getSwapFile(boolean binary) throws IllegalStateException {
 		File historyDir= JUnitCorePlugin.getHistoryDirectory();
 		String isoTime= new SimpleDateFormat("yyyyMMdd-HHmmss.SSS").format(new Date(getStartTime())); //$NON-NLS-1$
-		String swapFileName= isoTime + ".xml"; //$NON-NLS-1$
+		String swapFileName= isoTime + (binary ? ".bin" : ".xml"); //$NON-NLS-1$ //$NON-NLS-2$
 		return new File(historyDir, swapFileName);
 	}
 
@@ -408,7 +447,12 @@ public class TestRunSession implements ITestRunSession {
 			return;
 
 		try {
-			JUnitModel.importIntoTestRunSession(getSwapFile(), this);
+			File binarySwapFile= getSwapFile(true);
+			if (fLazySource == null && binarySwapFile.exists()) {
+				JUnitModel.importBinaryIntoTestRunSession(binarySwapFile, this);
+			} else {
+				JUnitModel.importIntoTestRunSession(fLazySource != null ? fLazySource : getSwapFile(false), this);
+			}
 		} catch (IllegalStateException | CoreException e) {
 			JUnitCorePlugin.log(e);
 			fTestRoot= new TestRoot(this);
@@ -416,6 +460,56 @@ public class TestRunSession implements ITestRunSession {
 		}
 	}
 
+	/**
+	 * @return the file in the history directory the test tree has been lazily imported from, or
+	 *         <code>null</code> if the test tree has been fully created
+	 * @see LazyTestSuiteElement
+	 */
+	public File getLazySource() {
+		return fLazySource;
+	}
+
+	void setLazySource(File lazySource) {
+		fLazySource= lazySource;
+	}
+
+	/**
+	 * Enables the compact storage mode if the given number of tests reaches the
+	 * {@link JUnitPreferencesConstants#COMPACT_STORAGE_THRESHOLD}. In compact storage mode,
+	 * failure traces are kept on disk.
+	 *
+	 * @param testCount the expected number of tests
+	 */
+	void updateCompactStorage(int testCount) {
+		int threshold= Platform.getPreferencesService().getInt(JUnitCorePlugin.CORE_PLUGIN_ID, JUnitPreferencesConstants.COMPACT_STORAGE_THRESHOLD, JUnitPreferencesConstants.COMPACT_STORAGE_THRESHOLD_DEFAULT, null);
+		fCompactStorage= threshold >= 0 && testCount >= threshold;
+	}
+
+	/**
+	 * @return the store to keep failure traces in, or <code>null</code> if they are kept in
+	 *         memory
+	 */
+	synchronized TraceStore getTraceStore() {
+		if (!fCompactStorage)
+			return null;
+		if (fTraceStore == null) {
+			try {
+				fTraceStore= new TraceStore();
+			} catch (IOException | IllegalStateException e) {
+				JUnitCorePlugin.log(e);
+				fCompactStorage= false;
+			}
+		}
+		return fTraceStore;
+	}
+
+	private synchronized void closeTraceStore() {
+		if (fTraceStore != null) {
+			fTraceStore.close();
+			fTraceStore= null;
+		}
+	}
+
 	public void stopTestRun() {
 		if (isRunning() || ! isKeptAlive())
 			fIsStopped= true;
@@ -541,11 +635,11 @@ public class TestRunSession implements ITestRunSession {
 		}
 
 		if (isDynamicTest) {
+			// dynamic tests of different factories are interleaved if tests are executed in parallel, only rely on the parent id
 			if (parentId != null) {
-				for (IncompleteTestSuite suite : fFactoryTestSuites) {
-					if (parentId.equals(suite.fTestSuiteElement.getId())) {
-						return createTestElement(suite.fTestSuiteElement, id, testName, isSuite, testCount, isDynamicTest, displayName, parameterTypes, uniqueId);
-					}
+				TestElement parent= getTestElement(parentId);
+				if (parent instanceof TestSuiteElement) {
+					return createTestElement((TestSuiteElement) parent, id, testName, isSuite, testCount, isDynamicTest, displayName, parameterTypes, uniqueId);
 				}
 			}
 			return createTestElement(getUnrootedSuite(), id, testName, isSuite, testCount, isDynamicTest, displayName, parameterTypes, uniqueId); // should not reach here
@@ -568,13 +662,19 @@ public class TestRunSession implements ITestRunSession {
 		if (parameterTypes != null && parameterTypes.length > 1) {
 			parameterTypes= Arrays.stream(parameterTypes).map(String::trim).toArray(String[]::new);
 		}
+		if (parameterTypes != null) {
+			// parameterized tests share their parameter types
+			String key= String.join(",", parameterTypes); //$NON-NLS-1$
+			String[] shared= fParameterTypes.putIfAbsent(key, parameterTypes);
+			if (shared != null)
+				parameterTypes= shared;
+		}
 		if (isSuite) {
 			TestSuiteElement testSuiteElement= new TestSuiteElement(parent, id, testName, testCount, displayName, parameterTypes, uniqueId);
 			testElement= testSuiteElement;
-			if (testCount > 0) {
+			// children of dynamic containers are registered with their parent id
+			if (testCount > 0 && !isDynamicTest) {
 				fIncompleteTestSuites.add(new IncompleteTestSuite(testSuiteElement, testCount));
-			} else if (fFactoryTestSuites != null) {
-				fFactoryTestSuites.add(new IncompleteTestSuite(testSuiteElement, testCount));
 			}
 		} else {
 			testElement= new TestCaseElement(parent, id, testName, displayName, isDynamicTest, parameterTypes, uniqueId);
@@ -628,7 +728,6 @@ public class TestRunSession implements ITestRunSession {
 		@Override
 		public void testRunStarted(int testCount) {
 			fIncompleteTestSuites= new ArrayList<>();
-			fFactoryTestSuites= new ArrayList<>();
 
 			fStartedCount= 0;
 			fIgnoredCount= 0;
@@ -636,6 +735,7 @@ public class TestRunSession implements ITestRunSession {
 			fAssumptionFailureCount = 0;
 			fErrorCount= 0;
 			fTotalCount= testCount;
+			updateCompactStorage(testCount);
 
 			fStartTime= System.currentTimeMillis();
 			fIsRunning= true;
@@ -842,6 +942,50 @@ public class TestRunSession implements ITestRunSession {
 		}
 	}
 
+	/**
+	 * Counts a test element of a lazily imported suite, like
+	 * {@link #registerTestEnded(TestElement, boolean)} but without a {@link TestElement}.
+	 *
+	 * @param isTestCase <code>true</code> for a test case, <code>false</code> for a suite
+	 * @param completed <code>true</code> iff the test has been run
+	 * @param ignored <code>true</code> iff the test case has been ignored
+	 * @param assumptionFailed <code>true</code> iff an assumption failed
+	 */
+	void registerSummarizedTestEnded(boolean isTestCase, boolean completed, boolean ignored, boolean assumptionFailed) {
+		if (isTestCase) {
+			fTotalCount++;
+			if (! completed) {
+				return;
+			}
+			fStartedCount++;
+			if (ignored) {
+				fIgnoredCount++;
+			}
+		}
+
+		if (assumptionFailed) {
+			fAssumptionFailureCount++;
+		}
+	}
+
+	/**
+	 * Counts a failure of a test element of a lazily imported suite, like
+	 * {@link #registerTestFailureStatus(TestElement, Status, String, String, String)} but without
+	 * a {@link TestElement}.
+	 *
+	 * @param status the failure status
+	 * @param assumptionFailed <code>true</code> iff an assumption of the test failed
+	 */
+	void registerSummarizedFailure(Status status, boolean assumptionFailed) {
+		if (!assumptionFailed) {
+			if (status.isError()) {
+				fErrorCount++;
+			} else if (status.isFailure()) {
+				fFailureCount++;
+			}
+		}
+	}
+
 	private void setStatus(TestElement testElement, Status status) {
 		testElement.setStatus(status);
 	}
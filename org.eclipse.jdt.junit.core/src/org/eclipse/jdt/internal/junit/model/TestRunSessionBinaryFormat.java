@@ -0,0 +1,313 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.jdt.internal.junit.model;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Compact binary swap format for test run sessions.
+ * <p>
+ * The file contains the SAX events produced by the {@link TestRunSessionSerializer}, so reading it
+ * with a {@link TestRunHandler} yields the same session as reading the XML export. Element names,
+ * attribute values and the lines of character data are interned: each distinct string is only
+ * written once and referenced by its index afterwards, which pays off for class names and stack
+ * trace frames. The whole stream is compressed with GZIP.
+ * </p>
+ *
+ * @see org.eclipse.jdt.internal.junit.JUnitPreferencesConstants#BINARY_SWAP_FORMAT
+ */
+public final class TestRunSessionBinaryFormat {
+
+	private static final int MAGIC= 0x4A555452; // "JUTR"
+	private static final int VERSION= 1;
+
+	private static final int END_OF_DOCUMENT= 0;
+	private static final int START_ELEMENT= 1;
+	private static final int END_ELEMENT= 2;
+	private static final int CHARACTERS= 3;
+
+	/**
+	 * String reference for a string which is not interned, followed by the string.
+	 */
+	private static final int LITERAL= 0;
+	/**
+	 * String reference for a string which is added to the table, followed by the string. Other
+	 * references are the index in the table plus {@link #FIRST_INDEX}.
+	 */
+	private static final int NEW_STRING= 1;
+	private static final int FIRST_INDEX= 2;
+
+	/**
+	 * Longer strings, e.g. expected and actual values, are unlikely to repeat.
+	 */
+	private static final int MAX_INTERNED_LENGTH= 512;
+
+	private TestRunSessionBinaryFormat() {
+		// no instance
+	}
+
+	/**
+	 * Writes the given test run session in binary format.
+	 *
+	 * @param testRunSession the session
+	 * @param file the destination
+	 * @throws IOException if writing fails
+	 * @throws SAXException if serializing the session fails
+	 */
+	public static void write(TestRunSession testRunSession, File file) throws IOException, SAXException {
+		try (OutputStream out= new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+			BinaryWriter writer= new BinaryWriter(new DataOutputStream(out));
+			TestRunSessionSerializer serializer= new TestRunSessionSerializer(testRunSession);
+			serializer.setContentHandler(writer);
+			serializer.parse(new InputSource());
+			writer.flush();
+		}
+	}
+
+	/**
+	 * Replays a file written by {@link #write(TestRunSession, File)} into the given handler.
+	 *
+	 * @param file the file to read
+	 * @param handler the handler, usually a {@link TestRunHandler}
+	 * @throws IOException if reading fails or the file is not in binary format
+	 * @throws SAXException if the handler fails
+	 */
+	public static void read(File file, DefaultHandler handler) throws IOException, SAXException {
+		try (InputStream in= new GZIPInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			new BinaryReader(new DataInputStream(in)).read(handler);
+		}
+	}
+
+	private static final class BinaryWriter extends DefaultHandler {
+		private final DataOutputStream fOut;
+		private final Map<String, Integer> fStrings= new HashMap<>();
+
+		BinaryWriter(DataOutputStream out) {
+			fOut= out;
+		}
+
+		@Override
+		public void startDocument() throws SAXException {
+			try {
+				fOut.writeInt(MAGIC);
+				fOut.writeInt(VERSION);
+			} catch (IOException e) {
+				throw new SAXException(e);
+			}
+		}
+
+		@Override
+		public void startElement(String uri, String localName, String qName, Attributes atts) throws SAXException {
+			try {
+				fOut.writeByte(START_ELEMENT);
+				writeString(qName);
+				writeInt(atts.getLength());
+				for (int i= 0; i < atts.getLength(); i++) {
+					writeString(atts.getQName(i));
+					writeString(atts.getValue(i));
+				}
+			} catch (IOException e) {
+				throw new SAXException(e);
+			}
+		}
+
+		@Override
+		public void endElement(String uri, String localName, String qName) throws SAXException {
+			try {
+				fOut.writeByte(END_ELEMENT);
+				writeString(qName);
+			} catch (IOException e) {
+				throw new SAXException(e);
+			}
+		}
+
+		@Override
+		public void characters(char[] ch, int start, int length) throws SAXException {
+			try {
+				fOut.writeByte(CHARACTERS);
+				// intern line by line, stack frames repeat across failures
+				List<String> lines= new ArrayList<>();
+				int lineStart= start;
+				int end= start + length;
+				for (int i= start; i < end; i++) {
+					if (ch[i] == '\n') {
+						lines.add(new String(ch, lineStart, i + 1 - lineStart));
+						lineStart= i + 1;
+					}
+				}
+				if (lineStart < end)
+					lines.add(new String(ch, lineStart, end - lineStart));
+
+				writeInt(lines.size());
+				for (String line : lines) {
+					writeString(line);
+				}
+			} catch (IOException e) {
+				throw new SAXException(e);
+			}
+		}
+
+		@Override
+		public void endDocument() throws SAXException {
+			try {
+				fOut.writeByte(END_OF_DOCUMENT);
+			} catch (IOException e) {
+				throw new SAXException(e);
+			}
+		}
+
+		void flush() throws IOException {
+			fOut.flush();
+		}
+
+		private void writeString(String value) throws IOException {
+			Integer index= fStrings.get(value);
+			if (index != null) {
+				writeInt(index.intValue() + FIRST_INDEX);
+				return;
+			}
+			if (value.length() > MAX_INTERNED_LENGTH) {
+				writeInt(LITERAL);
+			} else {
+				fStrings.put(value, Integer.valueOf(fStrings.size()));
+				writeInt(NEW_STRING);
+			}
+			byte[] bytes= value.getBytes(StandardCharsets.UTF_8);
+			writeInt(bytes.length);
+			fOut.write(bytes);
+		}
+
+		/**
+		 * Writes a non-negative int in 7 bit groups, small values take one byte.
+		 *
+		 * @param value the value to write
+		 * @throws IOException if writing fails
+		 */
+		private void writeInt(int value) throws IOException {
+			while ((value & ~0x7F) != 0) {
+				fOut.writeByte((value & 0x7F) | 0x80);
+				value>>>= 7;
+			}
+			fOut.writeByte(value);
+		}
+	}
+
+	private static final class BinaryReader {
+		private static final String EMPTY= ""; //$NON-NLS-1$
+		private static final String CDATA= "CDATA"; //$NON-NLS-1$
+
+		private final DataInputStream fIn;
+		private final List<String> fStrings= new ArrayList<>();
+
+		BinaryReader(DataInputStream in) {
+			fIn= in;
+		}
+
+		void read(ContentHandler handler) throws IOException, SAXException {
+			if (fIn.readInt() != MAGIC || fIn.readInt() != VERSION)
+				throw new IOException("Not a binary test run file"); //$NON-NLS-1$
+
+			handler.startDocument();
+			StringBuilder characters= new StringBuilder();
+			while (true) {
+				int kind= fIn.readByte();
+				switch (kind) {
+					case START_ELEMENT: {
+						String name= readString();
+						int count= readInt();
+						AttributesImpl atts= new AttributesImpl();
+						for (int i= 0; i < count; i++) {
+							String attName= readString();
+							atts.addAttribute(EMPTY, EMPTY, attName, CDATA, readString());
+						}
+						handler.startElement(EMPTY, name, name, atts);
+						break;
+					}
+					case END_ELEMENT: {
+						String name= readString();
+						handler.endElement(EMPTY, name, name);
+						break;
+					}
+					case CHARACTERS: {
+						characters.setLength(0);
+						int count= readInt();
+						for (int i= 0; i < count; i++) {
+							characters.append(readString());
+						}
+						char[] chars= new char[characters.length()];
+						characters.getChars(0, chars.length, chars, 0);
+						handler.characters(chars, 0, chars.length);
+						break;
+					}
+					case END_OF_DOCUMENT:
+						handler.endDocument();
+						return;
+					default:
+						throw new IOException("Unexpected record " + kind); //$NON-NLS-1$
+				}
+			}
+		}
+
+		private String readString() throws IOException {
+			int reference= readInt();
+			if (reference >= FIRST_INDEX) {
+				int index= reference - FIRST_INDEX;
+				if (index >= fStrings.size())
+					throw new IOException("Invalid string reference " + reference); //$NON-NLS-1$
+				return fStrings.get(index);
+			}
+			byte[] bytes= new byte[readInt()];
+			fIn.readFully(bytes);
+			String value= new String(bytes, StandardCharsets.UTF_8);
+			if (reference == NEW_STRING)
+				fStrings.add(value);
+			return value;
+		}
+
+		private int readInt() throws IOException {
+			int result= 0;
+			for (int shift= 0; shift < 32; shift+= 7) {
+				int b= fIn.readByte();
+				result|= (b & 0x7F) << shift;
+				if ((b & 0x80) == 0)
+					return result;
+			}
+			throw new IOException("Malformed int"); //$NON-NLS-1$
+		}
+	}
+}
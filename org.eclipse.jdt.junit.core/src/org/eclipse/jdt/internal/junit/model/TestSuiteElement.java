@@ -50,6 +50,14 @@ public class TestSuiteElement extends TestElement implements ITestSuiteElement {
 		return fChildren.toArray(new ITestElement[fChildren.size()]);
 	}
 
+	/**
+	 * @return <code>true</code> iff this suite has children, cheaper than
+	 *         <code>getChildren().length != 0</code>
+	 */
+	public boolean hasChildren() {
+		return !fChildren.isEmpty();
+	}
+
 	public void addChild(TestElement child) {
 		fChildren.add(child);
 	}
@@ -92,8 +100,10 @@ public class TestSuiteElement extends TestElement implements ITestSuiteElement {
 
 	public void childChangedStatus(TestElement child, Status childStatus) {
 		int childCount= fChildren.size();
-		if (child == fChildren.get(0) && childStatus.isRunning()) {
-			// is first child, and is running -> copy status
+		if (childStatus.isRunning() && (fChildrenStatus == null || !fChildrenStatus.isRunning())
+				&& (child == fChildren.get(0) || fChildrenStatus == null || fChildrenStatus.isNotRun())) {
+			// is first child, or first child to run if tests are executed in parallel -> copy status
+			// (don't reset a RUNNING_FAILURE/ERROR caused by a sibling running in parallel)
 			internalSetChildrenStatus(childStatus);
 			return;
 		}
@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.jdt.internal.junit.model;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.ref.Cleaner;
+import java.nio.charset.StandardCharsets;
+
+import org.eclipse.jdt.internal.junit.JUnitCorePlugin;
+
+/**
+ * Keeps failure traces of a test run session in a file in the history directory instead of in
+ * memory. Records are only appended until the store is closed. Test elements which have been
+ * dropped by their session can still read their records after that, so the file is only deleted
+ * once the store is no longer reachable.
+ */
+final class TraceStore {
+
+	private static final Cleaner fgCleaner= Cleaner.create();
+
+	/**
+	 * Deletes the file of a store. Must not reference the store.
+	 */
+	private static final class FileDeleter implements Runnable {
+		private final File fFile;
+
+		FileDeleter(File file) {
+			fFile= file;
+		}
+
+		@Override
+		public void run() {
+			fFile.delete();
+		}
+	}
+
+	private final File fFile;
+	private RandomAccessFile fAccess;
+
+	TraceStore() throws IOException {
+		fFile= File.createTempFile("traces", ".bin", JUnitCorePlugin.getHistoryDirectory()); //$NON-NLS-1$ //$NON-NLS-2$
+		fFile.deleteOnExit();
+		fAccess= new RandomAccessFile(fFile, "rw"); //$NON-NLS-1$
+		fgCleaner.register(this, new FileDeleter(fFile));
+	}
+
+	/**
+	 * Appends a record.
+	 *
+	 * @param values the values to store, elements can be <code>null</code>
+	 * @return the offset of the record
+	 * @throws IOException if writing fails
+	 */
+	synchronized long write(String... values) throws IOException {
+		if (fAccess == null)
+			throw new IOException("Trace store closed"); //$NON-NLS-1$
+
+		ByteArrayOutputStream bytes= new ByteArrayOutputStream();
+		DataOutputStream out= new DataOutputStream(bytes);
+		out.writeInt(values.length);
+		for (String value : values) {
+			if (value == null) {
+				out.writeInt(-1);
+			} else {
+				byte[] encoded= value.getBytes(StandardCharsets.UTF_8);
+				out.writeInt(encoded.length);
+				out.write(encoded);
+			}
+		}
+		long offset= fAccess.length();
+		fAccess.seek(offset);
+		fAccess.write(bytes.toByteArray());
+		return offset;
+	}
+
+	/**
+	 * @param offset the offset returned by {@link #write(String...)}
+	 * @return the values of the record
+	 * @throws IOException if reading fails
+	 */
+	synchronized String[] read(long offset) throws IOException {
+		if (fAccess != null)
+			return read(fAccess, offset);
+
+		// closed, but still referenced by test elements of a swapped out session
+		try (RandomAccessFile access= new RandomAccessFile(fFile, "r")) { //$NON-NLS-1$
+			return read(access, offset);
+		}
+	}
+
+	private static String[] read(RandomAccessFile access, long offset) throws IOException {
+		access.seek(offset);
+		String[] values= new String[access.readInt()];
+		for (int i= 0; i < values.length; i++) {
+			int length= access.readInt();
+			if (length >= 0) {
+				byte[] encoded= new byte[length];
+				access.readFully(encoded);
+				values[i]= new String(encoded, StandardCharsets.UTF_8);
+			}
+		}
+		return values;
+	}
+
+	/**
+	 * Closes the store for writing. The records can still be read.
+	 */
+	synchronized void close() {
+		if (fAccess == null)
+			return;
+		try {
+			fAccess.close();
+		} catch (IOException e) {
+			JUnitCorePlugin.log(e);
+		}
+		fAccess= null;
+	}
+}
@@ -66,11 +66,13 @@ import org.eclipse.jdt.core.JavaModelException;
 
 import org.eclipse.jdt.internal.junit.JUnitCorePlugin;
 import org.eclipse.jdt.internal.junit.JUnitMessages;
+import org.eclipse.jdt.internal.junit.JUnitPreferencesConstants;
 import org.eclipse.jdt.internal.junit.Messages;
 import org.eclipse.jdt.internal.junit.launcher.ITestKind;
 import org.eclipse.jdt.internal.junit.launcher.JUnitLaunchConfigurationConstants;
 import org.eclipse.jdt.internal.junit.launcher.JUnitRuntimeClasspathEntry;
 import org.eclipse.jdt.internal.junit.launcher.TestKindRegistry;
+import org.eclipse.jdt.internal.junit.runner.FramedMessageWriter;
 import org.eclipse.jdt.internal.junit.util.CoreTestSearchEngine;
 import org.eclipse.jdt.internal.junit.util.IJUnitStatusConstants;
 
@@ -99,6 +101,9 @@ public class JUnitLaunchConfigurationDelegate extends AbstractJavaLaunchConfigur
 
 	private static final String DEFAULT= "<default>"; //$NON-NLS-1$
 
+	private static final String PARALLEL_ENABLED= "junit.jupiter.execution.parallel.enabled"; //$NON-NLS-1$
+	private static final String PARALLEL_MODE_CLASSES_DEFAULT= "junit.jupiter.execution.parallel.mode.classes.default"; //$NON-NLS-1$
+
 	@Override
 	public String showCommandLine(ILaunchConfiguration configuration, String mode, ILaunch launch, IProgressMonitor monitor) throws CoreException {
 		if (monitor == null) {
@@ -442,6 +447,15 @@ public class JUnitLaunchConfigurationDelegate extends AbstractJavaLaunchConfigur
 		if (fKeepAlive)
 			programArguments.add(0, "-keepalive"); //$NON-NLS-1$
 
+		/*
+		 * Runtimes which don't know the framed protocol ignore the argument and keep
+		 * sending text messages, RemoteTestRunnerClient accepts both.
+		 */
+		if (Platform.getPreferencesService().getBoolean(JUnitCorePlugin.CORE_PLUGIN_ID, JUnitPreferencesConstants.FRAMED_PROTOCOL, true, null)) {
+			programArguments.add(FramedMessageWriter.FRAMING_ARG);
+			programArguments.add(String.valueOf(FramedMessageWriter.VERSION));
+		}
+
 		ITestKind testRunnerKind= getTestRunnerKind(configuration);
 
 		programArguments.add("-testLoaderClass"); //$NON-NLS-1$
@@ -524,6 +538,15 @@ public class JUnitLaunchConfigurationDelegate extends AbstractJavaLaunchConfigur
 		if (addOpensTargets != null) {
 			vmArguments.addAll(addOpensVmArgs);
 		}
+
+		if (isJUnit5 && configuration.getAttribute(JUnitLaunchConfigurationConstants.ATTR_PARALLEL_EXECUTION, false)) {
+			// the JUnit Platform reads its configuration parameters from system properties, too
+			vmArguments.add("-D" + PARALLEL_ENABLED + "=true"); //$NON-NLS-1$ //$NON-NLS-2$
+			// run test classes concurrently unless the user configured the execution mode explicitly
+			if (vmArgs == null || !vmArgs.contains(PARALLEL_MODE_CLASSES_DEFAULT)) {
+				vmArguments.add("-D" + PARALLEL_MODE_CLASSES_DEFAULT + "=concurrent"); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+		}
 	}
 
 	private static boolean isOnModulePath(IJavaProject javaProject, String typeToCheck) {
@@ -36,8 +36,11 @@ public class FirstRunExecutionListener implements IListensToTestExecutions {
 
 	@Override
 	public void notifyTestFailed(TestReferenceFailure failure) {
-		sendMessage(failure.getTest(), failure.getStatus());
-		sendFailure(failure, MessageIds.TRACE_START, MessageIds.TRACE_END);
+		// the messages of a failure must not be interleaved with messages of tests running in parallel
+		synchronized (fSender) {
+			sendMessage(failure.getTest(), failure.getStatus());
+			sendFailure(failure, MessageIds.TRACE_START, MessageIds.TRACE_END);
+		}
 		// fSender.flush(); // flush is implicitly done by sendFailure()
 	}
 
@@ -0,0 +1,196 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.jdt.internal.junit.runner;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes messages in the framed protocol. Messages are collected in a batch which is sent as one
+ * length-prefixed frame once it holds {@link #BATCH_SIZE} messages or its first message is older
+ * than {@link #MAX_DELAY} milliseconds, so that the client does not have to scan the stream
+ * character by character and a test run with many fast tests does not cause a write per event.
+ * <p>
+ * The stream starts with a header: the int {@link #MAGIC}, the int protocol version and the line
+ * delimiter of the runner in modified UTF-8. Each frame consists of an int holding the length of
+ * the frame followed by its messages, each message as an int length followed by the message in
+ * UTF-8. The messages are the same as in the text protocol, see {@link MessageIds}.
+ * </p>
+ * <p>
+ * The framed protocol is only used if the client requests it with the {@link #FRAMING_ARG}
+ * argument, see {@link RemoteTestRunner#defaultInit(String[])}.
+ * </p>
+ */
+public class FramedMessageWriter {
+
+	/**
+	 * Argument to request the framed protocol, followed by the highest protocol version the
+	 * client supports.
+	 */
+	public static final String FRAMING_ARG= "-messageframing"; //$NON-NLS-1$
+
+	/**
+	 * The first byte of the magic number is 0, a message of the text protocol never starts with 0.
+	 */
+	public static final int MAGIC= 0x004A5546;
+
+	public static final int VERSION= 1;
+
+	/**
+	 * The maximum number of messages in one frame.
+	 */
+	public static final int BATCH_SIZE= 256;
+
+	/**
+	 * The maximum time in milliseconds a message is held back.
+	 */
+	public static final long MAX_DELAY= 50;
+
+	private final DataOutputStream fOut;
+	private final ByteArrayOutputStream fFrame= new ByteArrayOutputStream(8192);
+	private final DataOutputStream fFrameData= new DataOutputStream(fFrame);
+	private int fMessageCount;
+	private long fFirstMessageTime;
+	private boolean fError;
+	private boolean fClosed;
+	private Thread fFlusher;
+
+	/**
+	 * Creates a writer and writes the header.
+	 *
+	 * @param out the stream to write to
+	 * @param version the protocol version to use
+	 * @throws IOException if writing the header fails
+	 */
+	public FramedMessageWriter(OutputStream out, int version) throws IOException {
+		fOut= new DataOutputStream(out);
+		fOut.writeInt(MAGIC);
+		fOut.writeInt(version);
+		fOut.writeUTF(System.getProperty("line.separator")); //$NON-NLS-1$
+		fOut.flush();
+	}
+
+	/**
+	 * Adds a message to the current batch.
+	 *
+	 * @param message the message
+	 */
+	public synchronized void write(String message) {
+		if (fClosed)
+			return;
+		byte[] bytes= message.getBytes(StandardCharsets.UTF_8);
+		try {
+			fFrameData.writeInt(bytes.length);
+			fFrameData.write(bytes);
+		} catch (IOException e) {
+			// ByteArrayOutputStream does not throw
+		}
+		if (fMessageCount++ == 0) {
+			fFirstMessageTime= System.currentTimeMillis();
+			startFlusher();
+			// wake up the flusher, it waits without a timeout while there is no batch
+			notifyAll();
+		}
+		if (fMessageCount >= BATCH_SIZE)
+			flush();
+	}
+
+	/**
+	 * Sends the current batch if it is full or has been held back long enough.
+	 */
+	public synchronized void flushIfDue() {
+		if (fMessageCount > 0 && (fMessageCount >= BATCH_SIZE || System.currentTimeMillis() - fFirstMessageTime >= MAX_DELAY))
+			flush();
+	}
+
+	/**
+	 * Sends the current batch.
+	 */
+	public synchronized void flush() {
+		if (fMessageCount == 0 || fClosed)
+			return;
+		try {
+			fOut.writeInt(fFrame.size());
+			fFrame.writeTo(fOut);
+			fOut.flush();
+		} catch (IOException e) {
+			fError= true;
+		}
+		fFrame.reset();
+		fMessageCount= 0;
+	}
+
+	/**
+	 * @return <code>true</code> if writing to the stream failed, like {@link java.io.PrintWriter#checkError()}
+	 */
+	public synchronized boolean checkError() {
+		return fError;
+	}
+
+	/**
+	 * Sends the current batch and closes the stream.
+	 */
+	public synchronized void close() {
+		if (fClosed)
+			return;
+		flush();
+		fClosed= true;
+		notifyAll();
+		try {
+			fOut.close();
+		} catch (IOException e) {
+			fError= true;
+		}
+	}
+
+	/**
+	 * Starts a daemon thread which sends batches which have been held back for
+	 * {@link #MAX_DELAY} milliseconds, in case no further message arrives, e.g. while a slow test
+	 * is running. The thread blocks while there is no batch and is woken up by the first message
+	 * of the next batch.
+	 */
+	private void startFlusher() {
+		if (fFlusher != null)
+			return;
+		fFlusher= new Thread("FramedMessageWriter") { //$NON-NLS-1$
+			@Override
+			public void run() {
+				synchronized (FramedMessageWriter.this) {
+					while (!fClosed) {
+						try {
+							if (fMessageCount == 0) {
+								FramedMessageWriter.this.wait();
+								continue;
+							}
+							long wait= fFirstMessageTime + MAX_DELAY - System.currentTimeMillis();
+							if (wait > 0) {
+								FramedMessageWriter.this.wait(wait);
+							} else {
+								flush();
+							}
+						} catch (InterruptedException e) {
+							return;
+						}
+					}
+				}
+			}
+		};
+		fFlusher.setDaemon(true);
+		fFlusher.start();
+	}
+}
@@ -14,6 +14,7 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.junit.runner;
 
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
@@ -90,6 +91,15 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 	 * Print writer for sending messages
 	 */
 	private PrintWriter fWriter;
+	/**
+	 * Writer for sending messages in the framed protocol, or <code>null</code>
+	 * if the text protocol is used
+	 */
+	private FramedMessageWriter fFramedWriter;
+	/**
+	 * The version of the framed protocol requested by the client, 0 for the text protocol
+	 */
+	private int fFramingVersion= 0;
 	/**
 	 * Reader for incoming messages
 	 */
@@ -201,6 +211,7 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 	 * -host: the host to connect to default local host
 	 * -port: the port to connect to, mandatory argument
 	 * -keepalive: keep the process alive after a test run
+	 * -messageframing: the highest version of the framed protocol supported by the client
      * </pre>
      */
 	public static void main(String[] args) {
@@ -297,6 +308,10 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 				fRerunTest= args[i+1];
 				i++;
 			}
+			else if(FramedMessageWriter.FRAMING_ARG.equals(args[i].toLowerCase())) {
+				fFramingVersion= Math.min(Integer.parseInt(args[i+1]), FramedMessageWriter.VERSION);
+				i++;
+			}
 			else if("-keepalive".equals(args[i].toLowerCase())) { //$NON-NLS-1$
 				fKeepAlive= true;
 			}
@@ -462,18 +477,25 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 	}
 
 	/**
-	 * Waits for rerun requests until an explicit stop request
+	 * Waits for rerun requests until an explicit stop request. The reruns are
+	 * executed without holding the lock on this runner, since tests executed in
+	 * parallel send their messages from other threads, see {@link #sendMessage(String)}.
 	 */
-	private synchronized void waitForReruns() {
-		while (!fStopped) {
-			try {
-				wait();
-				if (!fStopped && fRerunRequests.size() > 0) {
-					RerunRequest r= fRerunRequests.remove(0);
-					rerunTest(r);
+	private void waitForReruns() {
+		while (true) {
+			RerunRequest r;
+			synchronized (this) {
+				while (!fStopped && fRerunRequests.isEmpty()) {
+					try {
+						wait();
+					} catch (InterruptedException e) {
+					}
 				}
-			} catch (InterruptedException e) {
+				if (fStopped)
+					return;
+				r= fRerunRequests.remove(0);
 			}
+			rerunTest(r);
 		}
 	}
 
@@ -647,11 +669,15 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 		for (int i= 1; i < 20; i++) {
 			try{
 				fClientSocket= new Socket(fHost, fPort);
-				try {
-				    fWriter= new PrintWriter(new BufferedWriter(new OutputStreamWriter(fClientSocket.getOutputStream(), "UTF-8")), false/*true*/); //$NON-NLS-1$
-	            } catch (UnsupportedEncodingException e1) {
-	                fWriter= new PrintWriter(new BufferedWriter(new OutputStreamWriter(fClientSocket.getOutputStream())), false/*true*/);
-	            }
+				if (fFramingVersion > 0) {
+					fFramedWriter= new FramedMessageWriter(new BufferedOutputStream(fClientSocket.getOutputStream()), fFramingVersion);
+				} else {
+					try {
+					    fWriter= new PrintWriter(new BufferedWriter(new OutputStreamWriter(fClientSocket.getOutputStream(), "UTF-8")), false/*true*/); //$NON-NLS-1$
+		            } catch (UnsupportedEncodingException e1) {
+		                fWriter= new PrintWriter(new BufferedWriter(new OutputStreamWriter(fClientSocket.getOutputStream())), false/*true*/);
+		            }
+				}
 				try {
 				    fReader= new BufferedReader(new InputStreamReader(fClientSocket.getInputStream(), "UTF-8")); //$NON-NLS-1$
                 } catch (UnsupportedEncodingException e1) {
@@ -676,6 +702,10 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 	 * Shutsdown the connection to the remote test listener.
 	 */
 	private void shutDown() {
+		if (fFramedWriter != null) {
+			fFramedWriter.close();
+			fFramedWriter= null;
+		}
 		if (fWriter != null) {
 			fWriter.close();
 			fWriter= null;
@@ -707,8 +737,17 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 		}
 	}
 
+	/**
+	 * Sends a message. Synchronized since tests may be executed in parallel,
+	 * messages which must not be interleaved are sent while holding the lock
+	 * on this runner, see {@link FirstRunExecutionListener#notifyTestFailed(TestReferenceFailure)}.
+	 */
 	@Override
-	public void sendMessage(String msg) {
+	public synchronized void sendMessage(String msg) {
+		if (fFramedWriter != null) {
+			fFramedWriter.write(msg);
+			return;
+		}
 		if(fWriter == null)
 			return;
 		fWriter.println(msg);
@@ -723,12 +762,14 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 	private void notifyTestRunEnded(long elapsedTime) {
 		fSender.sendMessage(MessageIds.TEST_RUN_END + elapsedTime);
 		fSender.flush();
+		flushFrames();
 		//shutDown();
 	}
 
 	protected void notifyTestRunStopped(long elapsedTime) {
 		fSender.sendMessage(MessageIds.TEST_STOPPED + elapsedTime);
 		fSender.flush();
+		flushFrames();
 		//shutDown();
 	}
 
@@ -744,14 +785,31 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 		if (fPort != -1) {
 			fSender.sendMessage(MessageIds.TEST_RERAN + r.fRerunTestId + " " + r.fRerunClassName + " " + r.fRerunTestName + " " + status); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
 			fSender.flush();
+			flushFrames();
 		}
 	}
 
+	/**
+	 * In the framed protocol, messages are only sent once a batch is due,
+	 * see {@link FramedMessageWriter#flushIfDue()}.
+	 */
 	@Override
-	public void flush() {
+	public synchronized void flush() {
+		if (fFramedWriter != null) {
+			fFramedWriter.flushIfDue();
+			return;
+		}
 	    fWriter.flush();
 	}
 
+	/**
+	 * Sends the pending batch of the framed protocol immediately.
+	 */
+	private void flushFrames() {
+		if (fFramedWriter != null)
+			fFramedWriter.flush();
+	}
+
 	public void runTests(TestExecution execution) {
 		runTests(fTestClassNames, fTestName, execution);
 	}
@@ -18,12 +18,15 @@ package org.eclipse.jdt.internal.junit.runner;
 
 import java.util.HashMap;
 
+/**
+ * Assigns the ids of the tests. Thread-safe, tests can be executed in parallel.
+ */
 public class TestIdMap {
 	private HashMap<ITestIdentifier, String> fIdMap= new HashMap<>();
 
 	private int fNextId= 1;
 
-	public String getTestId(ITestIdentifier identifier) {
+	public synchronized String getTestId(ITestIdentifier identifier) {
 		Object id= fIdMap.get(identifier);
 		if (id != null)
 			return (String) id;
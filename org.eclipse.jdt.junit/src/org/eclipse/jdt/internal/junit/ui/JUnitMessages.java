@@ -141,6 +141,7 @@ public final class JUnitMessages extends NLS {
 	public static String JUnitLaunchConfigurationTab_label_containerTest;
 
 	public static String JUnitLaunchConfigurationTab_label_keeprunning;
+	public static String JUnitLaunchConfigurationTab_label_parallelexecution;
 
 	public static String JUnitLaunchConfigurationTab_label_method;
 
@@ -19,6 +19,7 @@ import java.util.List;
 
 import org.junit.platform.engine.Filter;
 import org.junit.platform.engine.discovery.ClassNameFilter;
+import org.junit.platform.engine.discovery.ClassSelector;
 import org.junit.platform.engine.discovery.DiscoverySelectors;
 import org.junit.platform.launcher.Launcher;
 import org.junit.platform.launcher.LauncherDiscoveryRequest;
@@ -34,6 +35,8 @@ public class JUnit5TestLoader implements ITestLoader {
 
 	public final static String FAILURE_NAMES= "org.eclipse.jdt.junit5.runtime.failureNames"; //$NON-NLS-1$
 
+	private final static String PARALLEL_ENABLED= "junit.jupiter.execution.parallel.enabled"; //$NON-NLS-1$
+
 	private Launcher fLauncher= LauncherFactory.create();
 
 	private RemoteTestRunner fRemoteTestRunner;
@@ -50,6 +53,10 @@ public class JUnit5TestLoader implements ITestLoader {
 			for (int i= 0; i < packages.length; i++) {
 				refs[i]= createTest(packages[i], includeExcludeTags);
 			}
+		} else if (testName == null && testClasses.length > 1 && isParallelExecutionEnabled()) {
+			// one request for all classes, the JUnit Platform only executes the classes of one request in parallel
+			refs= new ITestReference[1];
+			refs[0]= createUnfilteredTest(testClasses, includeExcludeTags, failureNames);
 		} else {
 			refs= new ITestReference[testClasses.length];
 			for (int i= 0; i < testClasses.length; i++) {
@@ -66,7 +73,7 @@ public class JUnit5TestLoader implements ITestLoader {
 		if (testName != null) {
 			return createFilteredTest(clazz, testName, includeExcludeTags);
 		}
-		return createUnfilteredTest(clazz, includeExcludeTags, failureNames);
+		return createUnfilteredTest(new Class<?>[] { clazz }, includeExcludeTags, failureNames);
 	}
 
 	private ITestReference createFilteredTest(Class<?> clazz, String testName, String[][] includeExcludeTags) {
@@ -74,8 +81,14 @@ public class JUnit5TestLoader implements ITestLoader {
 		return new JUnit5TestReference(request, fLauncher, fRemoteTestRunner);
 	}
 
-	private ITestReference createUnfilteredTest(Class<?> clazz, String[][] includeExcludeTags, String[] failureNames) {
-		LauncherDiscoveryRequestBuilder requestBuilder= LauncherDiscoveryRequestBuilder.request().selectors(DiscoverySelectors.selectClass(clazz)).filters(getTagFilters(includeExcludeTags));
+	private ITestReference createUnfilteredTest(Class<?>[] classes, String[][] includeExcludeTags, String[] failureNames) {
+		List<ClassSelector> selectors= new ArrayList<>(classes.length);
+		for (Class<?> clazz : classes) {
+			if (clazz != null) {
+				selectors.add(DiscoverySelectors.selectClass(clazz));
+			}
+		}
+		LauncherDiscoveryRequestBuilder requestBuilder= LauncherDiscoveryRequestBuilder.request().selectors(selectors).filters(getTagFilters(includeExcludeTags));
 		if (failureNames != null && failureNames.length > 0) {
 			String failureNamesString= ""; //$NON-NLS-1$
 			for (String failureName : failureNames) {
@@ -113,6 +126,14 @@ public class JUnit5TestLoader implements ITestLoader {
 		return new JUnit5TestReference(request, fLauncher, fRemoteTestRunner);
 	}
 
+	/**
+	 * @return <code>true</code> if the JUnit Platform has been configured to execute tests in
+	 *         parallel, e.g. by the launch configuration
+	 */
+	private static boolean isParallelExecutionEnabled() {
+		return Boolean.parseBoolean(System.getProperty(PARALLEL_ENABLED));
+	}
+
 	private Filter<?>[] getTagFilters(String[][] includeExcludeTags) {
 		String[] includeTags= includeExcludeTags[0];
 		String[] excludeTags= includeExcludeTags[1];
@@ -0,0 +1,217 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.text.tests.codemining;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.eclipse.jdt.testplugin.JavaProjectHelper;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+
+import org.eclipse.jface.preference.IPreferenceStore;
+
+import org.eclipse.jface.text.codemining.ICodeMining;
+import org.eclipse.jface.text.tests.util.DisplayHelper;
+
+import org.eclipse.ui.IEditorReference;
+import org.eclipse.ui.IWorkbenchPage;
+import org.eclipse.ui.PlatformUI;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.IType;
+
+import org.eclipse.jdt.ui.PreferenceConstants;
+
+import org.eclipse.jdt.internal.ui.javaeditor.EditorUtility;
+import org.eclipse.jdt.internal.ui.javaeditor.JavaCodeMiningReconciler;
+import org.eclipse.jdt.internal.ui.javaeditor.JavaEditor;
+import org.eclipse.jdt.internal.ui.javaeditor.JavaSourceViewer;
+import org.eclipse.jdt.internal.ui.javaeditor.codemining.JavaElementCodeMiningProvider;
+import org.eclipse.jdt.internal.ui.javaeditor.codemining.JavaReferenceCodeMining;
+
+public class JavaElementCodeMiningProviderTest {
+
+	private static final String[] PREFERENCES= {
+			PreferenceConstants.EDITOR_CODEMINING_ENABLED,
+			PreferenceConstants.EDITOR_JAVA_CODEMINING_SHOW_REFERENCES,
+			PreferenceConstants.EDITOR_JAVA_CODEMINING_SHOW_REFERENCES_ON_METHODS,
+	};
+
+	private IJavaProject fProject;
+	private IPackageFragment fPackage;
+	private boolean[] fWasEnabled;
+	private JavaElementCodeMiningProvider fProvider;
+
+	@Before
+	public void setUp() throws Exception {
+		fProject= JavaProjectHelper.createJavaProject(getClass().getName(), "bin");
+		JavaProjectHelper.addRTJar(fProject);
+		IPackageFragmentRoot root= JavaProjectHelper.addSourceContainer(fProject, "src");
+		fPackage= root.getPackageFragment("");
+		IPreferenceStore store= PreferenceConstants.getPreferenceStore();
+		fWasEnabled= new boolean[PREFERENCES.length];
+		for (int i= 0; i < PREFERENCES.length; i++) {
+			fWasEnabled[i]= store.getBoolean(PREFERENCES[i]);
+			store.setValue(PREFERENCES[i], true);
+		}
+		fProvider= new JavaElementCodeMiningProvider();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		fProvider.dispose();
+		IPreferenceStore store= PreferenceConstants.getPreferenceStore();
+		for (int i= 0; i < PREFERENCES.length; i++) {
+			store.setValue(PREFERENCES[i], fWasEnabled[i]);
+		}
+		IWorkbenchPage workbenchPage= PlatformUI.getWorkbench().getActiveWorkbenchWindow().getActivePage();
+		for (IEditorReference ref : workbenchPage.getEditorReferences()) {
+			workbenchPage.closeEditor(ref.getEditor(false), false);
+		}
+		JavaProjectHelper.delete(fProject);
+	}
+
+	private void waitReconciled(JavaSourceViewer viewer) {
+		assertTrue("Editor not reconciled", new DisplayHelper() {
+			@Override
+			protected boolean condition() {
+				return JavaCodeMiningReconciler.isReconciled(viewer);
+			}
+		}.waitForCondition(viewer.getTextWidget().getDisplay(), 2000));
+	}
+
+	private ICodeMining provideReferenceMining(JavaSourceViewer viewer) throws Exception {
+		List<? extends ICodeMining> minings= fProvider.provideCodeMinings(viewer, new NullProgressMonitor()).get(10, TimeUnit.SECONDS);
+		assertEquals(1, minings.size());
+		return minings.get(0);
+	}
+
+	private JavaSourceViewer open(ICompilationUnit compilationUnit) throws Exception {
+		JavaProjectHelper.performDummySearch();
+		JavaEditor editor= (JavaEditor) EditorUtility.openInEditor(compilationUnit);
+		fProvider.setContext(editor);
+		JavaSourceViewer viewer= (JavaSourceViewer) editor.getViewer();
+		waitReconciled(viewer);
+		return viewer;
+	}
+
+	private JavaSourceViewer openFoo() throws Exception {
+		String bar= "public class Bar {\n" +
+				"	void run(Foo foo) {\n" +
+				"		foo.m();\n" +
+				"		foo.m();\n" +
+				"	}\n" +
+				"}\n";
+		fPackage.createCompilationUnit("Bar.java", bar, true, new NullProgressMonitor());
+		String foo= "public class Foo {\n" +
+				"	void m() {\n" +
+				"	}\n" +
+				"}\n";
+		return open(fPackage.createCompilationUnit("Foo.java", foo, true, new NullProgressMonitor()));
+	}
+
+	@Test
+	public void testReferenceCount() throws Exception {
+		JavaSourceViewer viewer= openFoo();
+		ICodeMining mining= provideReferenceMining(viewer);
+
+		mining.resolve(viewer, new NullProgressMonitor()).get(10, TimeUnit.SECONDS);
+		assertEquals("2 references", mining.getLabel());
+	}
+
+	@Test
+	public void testReferenceCountAfterReconcile() throws Exception {
+		JavaSourceViewer viewer= openFoo();
+		ICodeMining mining= provideReferenceMining(viewer);
+
+		ICompilationUnit bar= fPackage.getCompilationUnit("Bar.java").getWorkingCopy(null);
+		ICompilationUnit foo= fPackage.getCompilationUnit("Foo.java").getWorkingCopy(null);
+		try {
+			CompletableFuture<Void> resolved= mining.resolve(viewer, new NullProgressMonitor());
+			// an edit of a body of another unit and a structural edit while the count is searched
+			bar.getBuffer().replace(bar.getSource().indexOf("foo.m();"), 0, "foo.hashCode();\n\t\t");
+			bar.reconcile(ICompilationUnit.NO_AST, false, null, null);
+			foo.getBuffer().replace(foo.getSource().lastIndexOf('}'), 0, "\tvoid n() {\n\t}\n");
+			foo.reconcile(ICompilationUnit.NO_AST, false, null, null);
+
+			resolved.get(10, TimeUnit.SECONDS);
+			assertEquals("2 references", mining.getLabel());
+		} finally {
+			bar.discardWorkingCopy();
+			foo.discardWorkingCopy();
+		}
+	}
+
+	@Test
+	public void testReferenceCountOfTypeAndConstructor() throws Exception {
+		IPreferenceStore store= PreferenceConstants.getPreferenceStore();
+		boolean wasEnabled= store.getBoolean(PreferenceConstants.EDITOR_JAVA_CODEMINING_SHOW_REFERENCES_ON_TYPES);
+		store.setValue(PreferenceConstants.EDITOR_JAVA_CODEMINING_SHOW_REFERENCES_ON_TYPES, true);
+		try {
+			String bar= "public class Bar {\n" +
+					"	void run() {\n" +
+					"		Foo foo= new Foo();\n" +
+					"		foo.setFoo(new Foo());\n" +
+					"	}\n" +
+					"}\n";
+			fPackage.createCompilationUnit("Bar.java", bar, true, new NullProgressMonitor());
+			String foo= "public class Foo {\n" +
+					"	public Foo() {\n" +
+					"	}\n" +
+					"	void setFoo(Foo foo) {\n" +
+					"	}\n" +
+					"}\n";
+			ICompilationUnit compilationUnit= fPackage.createCompilationUnit("Foo.java", foo, true, new NullProgressMonitor());
+			JavaSourceViewer viewer= open(compilationUnit);
+
+			// the minings of the type and of its methods are resolved in one batch
+			List<? extends ICodeMining> minings= fProvider.provideCodeMinings(viewer, new NullProgressMonitor()).get(10, TimeUnit.SECONDS);
+			List<CompletableFuture<Void>> resolved= new ArrayList<>();
+			for (ICodeMining mining : minings) {
+				resolved.add(mining.resolve(viewer, new NullProgressMonitor()));
+			}
+			CompletableFuture.allOf(resolved.toArray(new CompletableFuture[resolved.size()])).get(10, TimeUnit.SECONDS);
+			Map<IJavaElement, String> labels= new HashMap<>();
+			for (ICodeMining mining : minings) {
+				if (mining instanceof JavaReferenceCodeMining) {
+					labels.put(((JavaReferenceCodeMining) mining).getElement(), mining.getLabel());
+				}
+			}
+
+			IType type= compilationUnit.getType("Foo");
+			assertEquals(3, labels.size());
+			assertEquals("4 references", labels.get(type));
+			assertEquals("2 references", labels.get(type.getMethod("Foo", new String[0])));
+			assertEquals("1 reference", labels.get(type.getMethod("setFoo", new String[] { "QFoo;" })));
+		} finally {
+			store.setValue(PreferenceConstants.EDITOR_JAVA_CODEMINING_SHOW_REFERENCES_ON_TYPES, wasEnabled);
+		}
+	}
+}
@@ -0,0 +1,159 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.text.tests.codemining;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.eclipse.jdt.testplugin.JavaProjectHelper;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.jobs.Job;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+
+import org.eclipse.jdt.internal.ui.javaeditor.codemining.JavaReferenceCountIndex;
+
+public class JavaReferenceCountIndexTest {
+
+	private IJavaProject fProject;
+	private IPackageFragment fPackage;
+	private IMethod fMethod;
+	private File fDirectory;
+	private JavaReferenceCountIndex fIndex;
+
+	@Before
+	public void setUp() throws Exception {
+		fProject= JavaProjectHelper.createJavaProject(getClass().getName(), "bin");
+		JavaProjectHelper.addRTJar(fProject);
+		IPackageFragmentRoot root= JavaProjectHelper.addSourceContainer(fProject, "src");
+		fPackage= root.getPackageFragment("");
+		String foo= "public class Foo {\n" +
+				"	void m() {\n" +
+				"	}\n" +
+				"}\n";
+		ICompilationUnit unit= fPackage.createCompilationUnit("Foo.java", foo, true, new NullProgressMonitor());
+		fPackage.createCompilationUnit("Bar.java", "public class Bar {\n}\n", true, new NullProgressMonitor());
+		fMethod= unit.getType("Foo").getMethod("m", new String[0]);
+		fDirectory= Files.createTempDirectory(getClass().getSimpleName()).toFile();
+		fIndex= new JavaReferenceCountIndex(fDirectory);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		fIndex.dispose();
+		JavaProjectHelper.delete(fProject);
+		File[] files= fDirectory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		fDirectory.delete();
+	}
+
+	private Long getLoaded(IMethod method) throws InterruptedException {
+		fIndex.get(method);
+		Job.getJobManager().join(fIndex, null);
+		return fIndex.get(method);
+	}
+
+	private void put(long count) throws InterruptedException {
+		getLoaded(fMethod);
+		fIndex.put(fMethod, count, fIndex.getStamp());
+	}
+
+	/**
+	 * Disposes the index after the fingerprints have been computed, and creates a new one
+	 * reading the stored counts.
+	 *
+	 * @throws InterruptedException if interrupted
+	 */
+	private void restart() throws InterruptedException {
+		Job.getJobManager().join(fIndex, null);
+		fIndex.dispose();
+		fIndex= new JavaReferenceCountIndex(fDirectory);
+	}
+
+	private void editBar() throws Exception {
+		IFile file= (IFile) fPackage.getCompilationUnit("Bar.java").getResource();
+		byte[] contents= "public class Bar {\n\tint i;\n}\n".getBytes(StandardCharsets.UTF_8);
+		file.setContents(new ByteArrayInputStream(contents), IResource.FORCE, null);
+	}
+
+	@Test
+	public void testPut() throws Exception {
+		put(3);
+		assertEquals(Long.valueOf(3), fIndex.get(fMethod));
+	}
+
+	@Test
+	public void testPutStale() throws Exception {
+		getLoaded(fMethod);
+		long stamp= fIndex.getStamp();
+		editBar();
+		fIndex.put(fMethod, 3, stamp);
+		assertNull(fIndex.get(fMethod));
+	}
+
+	@Test
+	public void testInvalidation() throws Exception {
+		put(3);
+		editBar();
+		assertNull(fIndex.get(fMethod));
+	}
+
+	@Test
+	public void testPersistence() throws Exception {
+		put(3);
+		restart();
+		assertEquals(Long.valueOf(3), getLoaded(fMethod));
+	}
+
+	@Test
+	public void testChangedWhileShutdown() throws Exception {
+		put(3);
+		restart();
+		// the change is detected by the fingerprint, not by a delta
+		editBar();
+		assertNull(getLoaded(fMethod));
+	}
+
+	@Test
+	public void testPersistenceOfLoadedCounts() throws Exception {
+		put(3);
+		restart();
+		put(4);
+		// the fingerprint of loaded counts is known, they are stored without computing it again
+		fIndex.dispose();
+		fIndex= new JavaReferenceCountIndex(fDirectory);
+		assertEquals(Long.valueOf(4), getLoaded(fMethod));
+	}
+}
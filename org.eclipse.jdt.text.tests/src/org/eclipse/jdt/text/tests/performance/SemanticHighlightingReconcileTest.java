@@ -0,0 +1,120 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.text.tests.performance;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.eclipse.test.performance.PerformanceMeter;
+
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.source.SourceViewer;
+
+import org.eclipse.ui.texteditor.AbstractTextEditor;
+
+import org.eclipse.jdt.internal.ui.javaeditor.SemanticHighlightingReconciler;
+
+/**
+ * Measures the time to reconcile an edit in a method body of a large file in the Java editor,
+ * with incremental and with full reconciling of the semantic highlighting.
+ */
+public class SemanticHighlightingReconcileTest extends TextPerformanceTestCase {
+
+	private static final Class<SemanticHighlightingReconcileTest> THIS= SemanticHighlightingReconcileTest.class;
+
+	private static final String FILE= PerformanceTestSetup.STYLED_TEXT;
+
+	private static final int WARM_UP_RUNS= 5;
+
+	private static final int MEASURED_RUNS= 10;
+
+	private static final int LINE= 3347;
+
+	private static final int COLUMN= 38;
+
+	private AbstractTextEditor fEditor;
+
+	public static Test suite() {
+		return new PerformanceTestSetup(new TestSuite(THIS));
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		fEditor= (AbstractTextEditor) EditorTestHelper.openInEditor(ResourceTestHelper.findFile(FILE), EditorTestHelper.COMPILATION_UNIT_EDITOR_ID, true);
+		EditorTestHelper.joinBackgroundActivities(fEditor);
+		setWarmUpRuns(WARM_UP_RUNS);
+		setMeasuredRuns(MEASURED_RUNS);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		super.tearDown();
+		System.clearProperty(SemanticHighlightingReconciler.INCREMENTAL_PROPERTY);
+		EditorTestHelper.revertEditor(fEditor, true);
+		EditorTestHelper.closeAllEditors();
+	}
+
+	/**
+	 * Measures the time to reconcile an edit in a method body with incremental semantic
+	 * highlighting.
+	 *
+	 * @throws Exception if the edit fails
+	 */
+	public void testIncremental() throws Exception {
+		System.setProperty(SemanticHighlightingReconciler.INCREMENTAL_PROPERTY, Boolean.TRUE.toString());
+		measure(getNullPerformanceMeter(), getWarmUpRuns());
+		measure(createPerformanceMeter(), getMeasuredRuns());
+		commitAllMeasurements();
+		assertAllPerformance();
+	}
+
+	/**
+	 * Measures the time to reconcile an edit in a method body when the semantic highlighting of
+	 * the whole file is reconciled.
+	 *
+	 * @throws Exception if the edit fails
+	 */
+	public void testFull() throws Exception {
+		System.setProperty(SemanticHighlightingReconciler.INCREMENTAL_PROPERTY, Boolean.FALSE.toString());
+		measure(getNullPerformanceMeter(), getWarmUpRuns());
+		measure(createPerformanceMeter(), getMeasuredRuns());
+		commitAllMeasurements();
+		assertAllPerformance();
+	}
+
+	private void measure(PerformanceMeter performanceMeter, int runs) throws Exception {
+		IDocument document= EditorTestHelper.getDocument(fEditor);
+		SourceViewer sourceViewer= EditorTestHelper.getSourceViewer(fEditor);
+		int offset= document.getLineOffset(LINE) + COLUMN;
+		for (int i= 0; i < runs; i++) {
+			document.replace(offset, 0, " ");
+			performanceMeter.start();
+			reconcile(sourceViewer);
+			performanceMeter.stop();
+
+			document.replace(offset, 1, "");
+			reconcile(sourceViewer);
+		}
+	}
+
+	/*
+	 * Not forced, a forced reconcile always reconciles the whole file. The measurement includes
+	 * the delay of the reconciler, which is the same in both modes.
+	 */
+	private void reconcile(SourceViewer sourceViewer) {
+		assertTrue(EditorTestHelper.joinReconciler(sourceViewer, 0, 10000, 10));
+		EditorTestHelper.runEventQueue();
+	}
+}
@@ -113,4 +113,14 @@ public class RefactoringScannerTests extends GenericRefactoringTest {
 				new Position(38, 20),
 		});
 	}
+
+	@Test
+	public void findMatches() throws Exception{
+		String text= getFileContents(getRefactoringPath() + "A.java");
+		fScanner.scan(text);
+		assertEquals("results.length", fScanner.getMatches().size(), fScanner.findMatches(text.toCharArray()).size());
+
+		assertEquals("results.length", 0, fScanner.findMatches("/* Test Pattern */".toCharArray()).size());
+		assertEquals("results.length", 1, fScanner.findMatches("/* TestPattern */".toCharArray()).size());
+	}
 }
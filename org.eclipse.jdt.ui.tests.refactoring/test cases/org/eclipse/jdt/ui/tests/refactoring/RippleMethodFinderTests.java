@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2020 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -13,6 +13,7 @@
  *******************************************************************************/
 package org.eclipse.jdt.ui.tests.refactoring;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
@@ -30,7 +31,9 @@ import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.IMethod;
 import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.WorkingCopyOwner;
 
+import org.eclipse.jdt.internal.corext.refactoring.rename.RippleMethodCache;
 import org.eclipse.jdt.internal.corext.refactoring.rename.RippleMethodFinder2;
 
 import org.eclipse.jdt.ui.tests.refactoring.infra.AbstractJunit4CUTestCase;
@@ -136,4 +139,58 @@ public class RippleMethodFinderTests extends AbstractJunit4CUTestCase {
 		perform();
 	}
 
+	@Test
+	public void cache() throws Exception {
+		IPackageFragment pack= rts.getPackageP();
+		String contents= "package p;\n"
+				+ "class A {\n"
+				+ "	void m() {}\n"
+				+ "}\n"
+				+ "class B extends A {\n"
+				+ "	void m() {}\n"
+				+ "}\n";
+		ICompilationUnit cu= createCU(pack, "A_cache.java", contents);
+		try {
+			IMethod target= cu.getType("A").getMethod("m", new String[0]);
+			RippleMethodCache.clear();
+			IMethod[] rippleMethods= RippleMethodFinder2.getRelatedMethods(target, new NullProgressMonitor(), null);
+			assertEquals(2, rippleMethods.length);
+			assertEquals(1, RippleMethodCache.getResultCount());
+			assertArrayEquals(rippleMethods, RippleMethodFinder2.getRelatedMethods(target, new NullProgressMonitor(), null));
+
+			// a structural change discards the result
+			cu.getType("B").createMethod("void n() {}", null, true, null);
+			assertEquals(0, RippleMethodCache.getResultCount());
+			assertEquals(2, RippleMethodFinder2.getRelatedMethods(target, new NullProgressMonitor(), null).length);
+		} finally {
+			cu.delete(true, null);
+		}
+	}
+
+	@Test
+	public void cacheOnlyPrimaryOwner() throws Exception {
+		IPackageFragment pack= rts.getPackageP();
+		String contents= "package p;\n"
+				+ "class A {\n"
+				+ "	void m() {}\n"
+				+ "}\n"
+				+ "class B extends A {\n"
+				+ "	void m() {}\n"
+				+ "}\n";
+		ICompilationUnit cu= createCU(pack, "A_owner.java", contents);
+		try {
+			IMethod target= cu.getType("A").getMethod("m", new String[0]);
+			RippleMethodCache.clear();
+			WorkingCopyOwner owner= new WorkingCopyOwner() {
+			};
+			assertEquals(2, RippleMethodFinder2.getRelatedMethods(target, new NullProgressMonitor(), owner).length);
+			assertEquals(0, RippleMethodCache.getResultCount());
+			assertEquals(0, RippleMethodCache.getHierarchyCount());
+
+			assertEquals(2, RippleMethodFinder2.getRelatedMethods(target, new NullProgressMonitor(), null).length);
+			assertEquals(1, RippleMethodCache.getResultCount());
+		} finally {
+			cu.delete(true, null);
+		}
+	}
 }
@@ -48,6 +48,8 @@ import org.eclipse.swt.widgets.Display;
 
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.preferences.IEclipsePreferences;
+import org.eclipse.core.runtime.preferences.InstanceScope;
 
 import org.eclipse.core.resources.IFile;
 
@@ -58,7 +60,10 @@ import org.eclipse.jdt.core.IPackageFragment;
 import org.eclipse.jdt.core.IPackageFragmentRoot;
 import org.eclipse.jdt.core.IType;
 
+import org.eclipse.jdt.internal.junit.JUnitCorePlugin;
+import org.eclipse.jdt.internal.junit.JUnitPreferencesConstants;
 import org.eclipse.jdt.internal.junit.model.JUnitModel;
+import org.eclipse.jdt.internal.junit.model.TestElement;
 import org.eclipse.jdt.internal.junit.model.TestRunSession;
 import org.eclipse.jdt.internal.junit.model.TestSuiteElement;
 
@@ -117,6 +122,26 @@ public class AbstractTestRunSessionSerializationTests {
 			// due to lingering TestRunnerViewPart$TestSessionListeners
 			serializationResult.fTestRunSession.swapOut();
 			assertEqualSessions(serializationResult.fTestRunSession, imported);
+
+			TestRunSession lazilyImported= JUnitModel.importTestRunSession(resultFile.getLocation().toFile(), true);
+			assertEqualSessions(serializationResult.fTestRunSession, lazilyImported);
+
+			// a lazily imported session must not depend on the imported file
+			TestRunSession detached= JUnitModel.importTestRunSession(resultFile.getLocation().toFile(), true);
+			resultFile.delete(true, null);
+			detached.swapOut();
+			detached.swapIn();
+			assertEqualSessions(serializationResult.fTestRunSession, detached);
+
+			File binaryFile= File.createTempFile("testresult", ".bin");
+			try {
+				JUnitModel.exportTestRunSessionBinary(serializationResult.fTestRunSession, binaryFile);
+				TestRunSession binaryImported= new TestRunSession(serializationResult.fTestRunSession.getTestRunName(), null);
+				JUnitModel.importBinaryIntoTestRunSession(binaryFile, binaryImported);
+				assertEqualSessions(serializationResult.fTestRunSession, binaryImported);
+			} finally {
+				binaryFile.delete();
+			}
 		} finally {
 			if (resultFile.exists())
 				try {
@@ -265,6 +290,69 @@ public class AbstractTestRunSessionSerializationTests {
 		JUnitModel.importTestRunSession(testFile); // no contents check for now...
 	}
 
+	/**
+	 * Imports a transcript with the failure traces kept in the trace store and checks that the
+	 * traces can be read while the session is in memory, from the test elements of the swapped out
+	 * session and after the session has been swapped in again.
+	 *
+	 * @param test the name of the transcript
+	 * @throws Exception if the test fails
+	 */
+	protected void runCompactStorageTest(String test) throws Exception {
+		Path path= new Path(JUnitWorkspaceTestSetup.getProjectPath() + "xml/" + test + ".xml");
+		File file= JavaTestPlugin.getDefault().getFileInPlugin(path);
+		TestRunSession expected= JUnitModel.importTestRunSession(file, false);
+		TestElement[] expectedFailures= expected.getAllFailedTestElements();
+		assertTrue(expectedFailures.length > 0);
+
+		IEclipsePreferences prefs= InstanceScope.INSTANCE.getNode(JUnitCorePlugin.CORE_PLUGIN_ID);
+		prefs.putInt(JUnitPreferencesConstants.COMPACT_STORAGE_THRESHOLD, 0);
+		TestRunSession compact= null;
+		try {
+			File historyDirectory= JUnitCorePlugin.getHistoryDirectory();
+			int traceFiles= countTraceFiles(historyDirectory);
+			compact= JUnitModel.importTestRunSession(file, false);
+			assertTrue(countTraceFiles(historyDirectory) > traceFiles);
+			assertEqualSessions(expected, compact);
+
+			TestElement[] failures= compact.getAllFailedTestElements();
+			assertEqualTraces(expectedFailures, failures);
+
+			compact.swapOut();
+			// the elements of the swapped out session still read from the closed store
+			assertEqualTraces(expectedFailures, failures);
+
+			compact.swapIn();
+			assertEqualSessions(expected, compact);
+			assertEqualTraces(expectedFailures, compact.getAllFailedTestElements());
+		} finally {
+			prefs.remove(JUnitPreferencesConstants.COMPACT_STORAGE_THRESHOLD);
+			JUnitCorePlugin.getModel().removeTestRunSession(expected);
+			if (compact != null)
+				JUnitCorePlugin.getModel().removeTestRunSession(compact);
+		}
+	}
+
+	private static int countTraceFiles(File historyDirectory) {
+		File[] files= historyDirectory.listFiles((dir, name) -> name.startsWith("traces") && name.endsWith(".bin"));
+		return files == null ? 0 : files.length;
+	}
+
+	private void assertEqualTraces(TestElement[] expected, TestElement[] actual) {
+		assertEquals(expected.length, actual.length);
+		for (int i= 0; i < expected.length; i++) {
+			assertEquals(expected[i].getTestName(), actual[i].getTestName());
+			assertNotNull(actual[i].getTrace());
+			assertEquals(expected[i].getTrace(), actual[i].getTrace());
+			assertEquals(expected[i].getExpected(), actual[i].getExpected());
+			assertEquals(expected[i].getActual(), actual[i].getActual());
+			FailureTrace failureTrace= actual[i].getFailureTrace();
+			assertEquals(expected[i].getTrace(), failureTrace.getTrace());
+			assertEquals(expected[i].getExpected(), failureTrace.getExpected());
+			assertEquals(expected[i].getActual(), failureTrace.getActual());
+		}
+	}
+
 	protected void runMethodTest(String testType, String method) throws Exception {
 		IPackageFragmentRoot root= JUnitWorkspaceTestSetup.getRoot();
 		IPackageFragment pack= root.getPackageFragment("pack");
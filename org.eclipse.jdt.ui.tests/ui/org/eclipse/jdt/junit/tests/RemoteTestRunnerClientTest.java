@@ -0,0 +1,287 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.jdt.junit.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.eclipse.jdt.internal.junit.model.ITestRunListener2;
+import org.eclipse.jdt.internal.junit.model.RemoteTestRunnerClient;
+import org.eclipse.jdt.internal.junit.runner.FramedMessageWriter;
+import org.eclipse.jdt.internal.junit.runner.MessageIds;
+
+/**
+ * Tests that {@link RemoteTestRunnerClient} reports the same events for the text protocol and the
+ * framed protocol written by {@link FramedMessageWriter}.
+ */
+public class RemoteTestRunnerClientTest {
+
+	private static final long TIMEOUT= 10 * 1000;
+
+	private static final String NL= System.lineSeparator();
+
+	private static final String TRACE= "java.lang.AssertionError: expected:<a> but was:<b>" + NL
+			+ "\tat org.junit.Assert.fail(Assert.java:89)" + NL
+			+ "\tat pack.ATest.testB(ATest.java:12)";
+
+	private static final String[] MESSAGES= {
+			MessageIds.TEST_RUN_START + "2 v2",
+			MessageIds.TEST_TREE + "1,pack.ATest,true,2",
+			MessageIds.TEST_TREE + "2,testA(pack.ATest),false,1",
+			MessageIds.TEST_TREE + "3,testB(pack.ATest),false,1",
+			MessageIds.TEST_START + "2,testA(pack.ATest)",
+			MessageIds.TEST_END + "2,testA(pack.ATest)",
+			MessageIds.TEST_START + "3,testB(pack.ATest)",
+			MessageIds.TEST_FAILED + "3,testB(pack.ATest)",
+			MessageIds.EXPECTED_START,
+			"a",
+			MessageIds.EXPECTED_END,
+			MessageIds.ACTUAL_START,
+			"b",
+			MessageIds.ACTUAL_END,
+			MessageIds.TRACE_START,
+			TRACE,
+			MessageIds.TRACE_END,
+			MessageIds.TEST_END + "3,testB(pack.ATest)",
+			MessageIds.TEST_RUN_END + "42",
+	};
+
+	private static final String[] EVENTS= {
+			"testRunStarted 2",
+			"testTreeEntry 1,pack.ATest,true,2",
+			"testTreeEntry 2,testA(pack.ATest),false,1",
+			"testTreeEntry 3,testB(pack.ATest),false,1",
+			"testStarted 2 testA(pack.ATest)",
+			"testEnded 2 testA(pack.ATest)",
+			"testStarted 3 testB(pack.ATest)",
+			"testFailed " + ITestRunListener2.STATUS_FAILURE + " 3 testB(pack.ATest) " + TRACE + NL + " a b",
+			"testEnded 3 testB(pack.ATest)",
+			"testRunEnded 42",
+	};
+
+	private static class RecordingListener implements ITestRunListener2 {
+		private final List<String> fEvents= new ArrayList<>();
+
+		private synchronized void add(String event) {
+			fEvents.add(event);
+			notifyAll();
+		}
+
+		synchronized List<String> awaitEvents(int count) throws InterruptedException {
+			long end= System.currentTimeMillis() + TIMEOUT;
+			long remaining= TIMEOUT;
+			while (fEvents.size() < count && remaining > 0) {
+				wait(remaining);
+				remaining= end - System.currentTimeMillis();
+			}
+			return new ArrayList<>(fEvents);
+		}
+
+		@Override
+		public void testRunStarted(int testCount) {
+			add("testRunStarted " + testCount);
+		}
+
+		@Override
+		public void testRunEnded(long elapsedTime) {
+			add("testRunEnded " + elapsedTime);
+		}
+
+		@Override
+		public void testRunStopped(long elapsedTime) {
+			add("testRunStopped " + elapsedTime);
+		}
+
+		@Override
+		public void testStarted(String testId, String testName) {
+			add("testStarted " + testId + " " + testName);
+		}
+
+		@Override
+		public void testEnded(String testId, String testName) {
+			add("testEnded " + testId + " " + testName);
+		}
+
+		@Override
+		public void testRunTerminated() {
+			add("testRunTerminated");
+		}
+
+		@Override
+		public void testTreeEntry(String description) {
+			add("testTreeEntry " + description);
+		}
+
+		@Override
+		public void testFailed(int status, String testId, String testName, String trace, String expected, String actual) {
+			add("testFailed " + status + " " + testId + " " + testName + " " + trace + " " + expected + " " + actual);
+		}
+
+		@Override
+		public void testReran(String testId, String testClass, String testName, int status, String trace, String expected, String actual) {
+			add("testReran " + testId + " " + testClass + " " + testName + " " + status);
+		}
+	}
+
+	private RemoteTestRunnerClient fClient;
+	private RecordingListener fListener;
+	private Socket fSocket;
+
+	@Before
+	public void setUp() throws Exception {
+		int port;
+		try (ServerSocket socket= new ServerSocket(0)) {
+			port= socket.getLocalPort();
+		}
+		fListener= new RecordingListener();
+		fClient= new RemoteTestRunnerClient();
+		fClient.startListening(new ITestRunListener2[] { fListener }, port);
+		fSocket= connect(port);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		fSocket.close();
+		fClient.stopWaiting();
+	}
+
+	private static Socket connect(int port) throws Exception {
+		for (int i= 0; i < 100; i++) {
+			try {
+				return new Socket(InetAddress.getLoopbackAddress(), port);
+			} catch (ConnectException e) {
+				Thread.sleep(100);
+			}
+		}
+		fail("could not connect to port " + port);
+		return null;
+	}
+
+	@Test
+	public void testTextProtocol() throws Exception {
+		PrintWriter writer= new PrintWriter(new OutputStreamWriter(fSocket.getOutputStream(), StandardCharsets.UTF_8));
+		for (String message : MESSAGES) {
+			writer.println(message);
+		}
+		writer.flush();
+
+		assertEquals(Arrays.asList(EVENTS), fListener.awaitEvents(EVENTS.length));
+	}
+
+	@Test
+	public void testFramedProtocol() throws Exception {
+		FramedMessageWriter writer= new FramedMessageWriter(fSocket.getOutputStream(), FramedMessageWriter.VERSION);
+		for (String message : MESSAGES) {
+			writer.write(message);
+		}
+		writer.flush();
+
+		assertEquals(Arrays.asList(EVENTS), fListener.awaitEvents(EVENTS.length));
+		assertTrue(!writer.checkError());
+	}
+
+	@Test
+	public void testFramedProtocolManyBatches() throws Exception {
+		int count= 3 * FramedMessageWriter.BATCH_SIZE + 1;
+		List<String> expected= new ArrayList<>();
+		FramedMessageWriter writer= new FramedMessageWriter(fSocket.getOutputStream(), FramedMessageWriter.VERSION);
+		writer.write(MessageIds.TEST_RUN_START + count + " v2");
+		expected.add("testRunStarted " + count);
+		for (int i= 1; i <= count; i++) {
+			String test= i + ",test" + i + "(pack.ATest)";
+			writer.write(MessageIds.TEST_START + test);
+			writer.write(MessageIds.TEST_END + test);
+			expected.add("testStarted " + i + " test" + i + "(pack.ATest)");
+			expected.add("testEnded " + i + " test" + i + "(pack.ATest)");
+		}
+		writer.write(MessageIds.TEST_RUN_END + "42");
+		expected.add("testRunEnded 42");
+		writer.close();
+
+		assertEquals(expected, fListener.awaitEvents(expected.size()));
+	}
+
+	@Test
+	public void testFramedProtocolSendsHeldBackBatch() throws Exception {
+		FramedMessageWriter writer= new FramedMessageWriter(fSocket.getOutputStream(), FramedMessageWriter.VERSION);
+		// not flushed, sent by the flusher after FramedMessageWriter.MAX_DELAY
+		writer.write(MessageIds.TEST_RUN_START + "1 v2");
+		assertEquals(Arrays.asList("testRunStarted 1"), fListener.awaitEvents(1));
+
+		// the flusher must wake up again for the next batch after being idle
+		Thread.sleep(3 * FramedMessageWriter.MAX_DELAY);
+		writer.write(MessageIds.TEST_START + "1,testA(pack.ATest)");
+		assertEquals(Arrays.asList("testRunStarted 1", "testStarted 1 testA(pack.ATest)"), fListener.awaitEvents(2));
+		writer.close();
+	}
+
+	@Test
+	public void testFramedFormat() throws Exception {
+		ByteArrayOutputStream bytes= new ByteArrayOutputStream();
+		FramedMessageWriter writer= new FramedMessageWriter(bytes, FramedMessageWriter.VERSION);
+		writer.write(MessageIds.TEST_START + "1,testA(pack.ATest)");
+		writer.write("\u00e4\u20ac");
+		writer.flush();
+		writer.write(MessageIds.TEST_RUN_END + "42");
+		writer.close();
+
+		DataInputStream in= new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+		assertEquals(FramedMessageWriter.MAGIC, in.readInt());
+		assertEquals(0, FramedMessageWriter.MAGIC >>> 24);
+		assertEquals(FramedMessageWriter.VERSION, in.readInt());
+		assertEquals(NL, in.readUTF());
+		// the flusher may have sent the first message in a frame of its own
+		List<String> messages= new ArrayList<>();
+		while (in.available() > 0) {
+			List<String> frame= readFrame(in);
+			assertTrue(!frame.isEmpty());
+			messages.addAll(frame);
+		}
+		assertEquals(Arrays.asList(MessageIds.TEST_START + "1,testA(pack.ATest)", "\u00e4\u20ac", MessageIds.TEST_RUN_END + "42"), messages);
+	}
+
+	private static List<String> readFrame(DataInputStream in) throws IOException {
+		byte[] frame= new byte[in.readInt()];
+		in.readFully(frame);
+		DataInputStream frameIn= new DataInputStream(new ByteArrayInputStream(frame));
+		List<String> messages= new ArrayList<>();
+		while (frameIn.available() > 0) {
+			byte[] message= new byte[frameIn.readInt()];
+			frameIn.readFully(message);
+			messages.add(new String(message, StandardCharsets.UTF_8));
+		}
+		return messages;
+	}
+}
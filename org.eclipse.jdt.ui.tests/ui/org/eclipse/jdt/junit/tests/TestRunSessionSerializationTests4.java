@@ -93,6 +93,11 @@ public class TestRunSessionSerializationTests4 extends AbstractTestRunSessionSer
 		}
 	}
 
+	@Test
+	public void testCompactStorage() throws Exception {
+		runCompactStorageTest("Failures");
+	}
+
 	@Test
 	public void testAllTests() throws Exception {
 		String test= "AllTests";
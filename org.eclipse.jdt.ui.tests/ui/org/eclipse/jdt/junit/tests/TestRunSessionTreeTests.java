@@ -0,0 +1,241 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.jdt.junit.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.function.BooleanSupplier;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.eclipse.core.resources.ResourcesPlugin;
+
+import org.eclipse.debug.core.ILaunchManager;
+import org.eclipse.debug.core.Launch;
+
+import org.eclipse.jdt.junit.model.ITestElement;
+
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaCore;
+
+import org.eclipse.jdt.internal.junit.model.TestCaseElement;
+import org.eclipse.jdt.internal.junit.model.TestElement;
+import org.eclipse.jdt.internal.junit.model.TestElement.Status;
+import org.eclipse.jdt.internal.junit.model.TestRunSession;
+import org.eclipse.jdt.internal.junit.model.TestSuiteElement;
+import org.eclipse.jdt.internal.junit.runner.MessageIds;
+
+/**
+ * Tests how a {@link TestRunSession} builds the test tree and the status of suites from the
+ * messages of a test runner, in particular for dynamic tests and for tests executed in parallel.
+ */
+public class TestRunSessionTreeTests {
+
+	private static final long TIMEOUT= 10 * 1000;
+
+	private TestRunSession fSession;
+	private Socket fSocket;
+	private PrintWriter fWriter;
+
+	@Before
+	public void setUp() throws Exception {
+		int port;
+		try (ServerSocket socket= new ServerSocket(0)) {
+			port= socket.getLocalPort();
+		}
+		IJavaProject project= JavaCore.create(ResourcesPlugin.getWorkspace().getRoot().getProject("TestRunSessionTreeTests"));
+		fSession= new TestRunSession(new Launch(null, ILaunchManager.RUN_MODE, null), project, port);
+		fSocket= connect(port);
+		fWriter= new PrintWriter(new OutputStreamWriter(fSocket.getOutputStream(), StandardCharsets.UTF_8));
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		fSocket.close();
+	}
+
+	private static Socket connect(int port) throws Exception {
+		for (int i= 0; i < 100; i++) {
+			try {
+				return new Socket(InetAddress.getLoopbackAddress(), port);
+			} catch (ConnectException e) {
+				Thread.sleep(100);
+			}
+		}
+		fail("could not connect to port " + port);
+		return null;
+	}
+
+	private void send(String... messages) {
+		for (String message : messages) {
+			fWriter.println(message);
+		}
+		fWriter.flush();
+	}
+
+	/**
+	 * The messages are processed in order by a single thread, so once the condition holds, all
+	 * messages sent before have been processed.
+	 *
+	 * @param condition the condition to wait for
+	 * @throws InterruptedException if interrupted
+	 */
+	private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+		long end= System.currentTimeMillis() + TIMEOUT;
+		while (!condition.getAsBoolean()) {
+			if (System.currentTimeMillis() > end)
+				fail("timed out");
+			Thread.sleep(10);
+		}
+	}
+
+	private void waitForStatus(String id, Status status) throws InterruptedException {
+		waitFor(() -> {
+			TestElement element= fSession.getTestElement(id);
+			return element != null && element.getStatus() == status;
+		});
+	}
+
+	private void startRun(int testCount, String... treeEntries) throws InterruptedException {
+		send(MessageIds.TEST_RUN_START + testCount + " v2");
+		send(treeEntries);
+		waitFor(() -> fSession.isRunning());
+	}
+
+	private void endRun() throws InterruptedException {
+		send(MessageIds.TEST_RUN_END + "100");
+		waitFor(() -> !fSession.isRunning());
+	}
+
+	private static String treeEntry(String id, String name, boolean isSuite, int testCount, boolean isDynamic, String parentId, String displayName) {
+		return MessageIds.TEST_TREE + id + ',' + name + ',' + isSuite + ',' + testCount + ',' + isDynamic + ',' + parentId + ',' + displayName + ",,[" + id + ']';
+	}
+
+	@Test
+	public void testDynamicTestsOfInterleavedFactories() throws Exception {
+		startRun(2,
+				treeEntry("1", "pack.ATest", true, 1, false, "-1", "ATest"),
+				treeEntry("2", "testFactory(pack.ATest)", true, 0, false, "1", "testFactory()"),
+				treeEntry("3", "pack.BTest", true, 1, false, "-1", "BTest"),
+				treeEntry("4", "testFactory(pack.BTest)", true, 0, false, "3", "testFactory()"),
+				// dynamic tests of both factories arrive interleaved when the classes run in parallel
+				treeEntry("5", "testFactory(pack.ATest)", false, 1, true, "2", "a1"),
+				treeEntry("6", "testFactory(pack.BTest)", true, 0, true, "4", "container"),
+				treeEntry("7", "testFactory(pack.ATest)", false, 1, true, "2", "a2"),
+				treeEntry("8", "testFactory(pack.BTest)", false, 1, true, "6", "b1"),
+				treeEntry("9", "testFactory(pack.BTest)", false, 1, true, "4", "b2"));
+		for (String id : new String[] { "5", "7", "8", "9" }) {
+			send(MessageIds.TEST_START + id + ",testFactory(pack.Test)");
+		}
+		for (String id : new String[] { "8", "5", "9", "7" }) {
+			send(MessageIds.TEST_END + id + ",testFactory(pack.Test)");
+		}
+		endRun();
+
+		TestSuiteElement factoryA= (TestSuiteElement) fSession.getTestElement("2");
+		TestSuiteElement factoryB= (TestSuiteElement) fSession.getTestElement("4");
+		TestSuiteElement container= (TestSuiteElement) fSession.getTestElement("6");
+		assertSame(fSession.getTestElement("1"), factoryA.getParent());
+		assertSame(fSession.getTestElement("3"), factoryB.getParent());
+
+		assertChildren(factoryA, "5", "7");
+		assertChildren(factoryB, "6", "9");
+		assertChildren(container, "8");
+		assertTrue(((TestCaseElement) fSession.getTestElement("8")).isDynamicTest());
+
+		assertEquals(Status.OK, factoryA.getStatus());
+		assertEquals(Status.OK, factoryB.getStatus());
+		assertEquals(Status.OK, container.getStatus());
+	}
+
+	@Test
+	public void testDynamicContainerWithChildren() throws Exception {
+		// the children of a dynamic container are attached by their parent id, even if the container
+		// already had children when it was registered
+		startRun(3,
+				treeEntry("1", "pack.ATest", true, 2, false, "-1", "ATest"),
+				treeEntry("2", "testFactory(pack.ATest)", true, 0, false, "1", "testFactory()"),
+				treeEntry("3", "test(pack.ATest)", false, 1, false, "1", "test()"),
+				treeEntry("4", "pack.BTest", true, 1, false, "-1", "BTest"),
+				treeEntry("5", "test(pack.BTest)", false, 1, false, "4", "test()"),
+				treeEntry("6", "testFactory(pack.ATest)", true, 1, true, "2", "container"),
+				treeEntry("7", "testFactory(pack.ATest)", false, 1, true, "6", "a1"));
+		endRun();
+
+		assertChildren((TestSuiteElement) fSession.getTestElement("1"), "2", "3");
+		assertChildren((TestSuiteElement) fSession.getTestElement("4"), "5");
+		assertChildren((TestSuiteElement) fSession.getTestElement("2"), "6");
+		assertChildren((TestSuiteElement) fSession.getTestElement("6"), "7");
+	}
+
+	@Test
+	public void testSuiteStatusOfTestsRunInParallel() throws Exception {
+		startRun(4,
+				treeEntry("1", "pack.ATest", true, 3, false, "-1", "ATest"),
+				treeEntry("2", "test1(pack.ATest)", false, 1, false, "1", "test1()"),
+				treeEntry("3", "test2(pack.ATest)", false, 1, false, "1", "test2()"),
+				treeEntry("4", "test3(pack.ATest)", false, 1, false, "1", "test3()"),
+				treeEntry("5", "pack.BTest", true, 1, false, "-1", "BTest"),
+				treeEntry("6", "test(pack.BTest)", false, 1, false, "5", "test()"));
+
+		// a child other than the first one starts first
+		send(MessageIds.TEST_START + "3,test2(pack.ATest)");
+		waitForStatus("3", Status.RUNNING);
+		TestElement suite= fSession.getTestElement("1");
+		waitFor(() -> suite.getStatus() == Status.RUNNING);
+
+		send(MessageIds.TEST_FAILED + "3,test2(pack.ATest)",
+				MessageIds.TRACE_START,
+				"java.lang.AssertionError",
+				MessageIds.TRACE_END,
+				MessageIds.TEST_END + "3,test2(pack.ATest)");
+		waitFor(() -> suite.getStatus() == Status.RUNNING_FAILURE);
+
+		// the first child starting later must not reset the failure of its sibling
+		send(MessageIds.TEST_START + "2,test1(pack.ATest)",
+				MessageIds.TEST_START + "6,test(pack.BTest)");
+		waitForStatus("6", Status.RUNNING);
+		assertEquals(Status.RUNNING_FAILURE, suite.getStatus());
+
+		send(MessageIds.TEST_END + "2,test1(pack.ATest)",
+				MessageIds.TEST_START + "4,test3(pack.ATest)",
+				MessageIds.TEST_END + "4,test3(pack.ATest)",
+				MessageIds.TEST_END + "6,test(pack.BTest)");
+		endRun();
+
+		assertEquals(Status.FAILURE, suite.getStatus());
+		assertEquals(Status.OK, fSession.getTestElement("5").getStatus());
+	}
+
+	private void assertChildren(TestSuiteElement suite, String... ids) {
+		ITestElement[] children= suite.getChildren();
+		assertEquals(ids.length, children.length);
+		for (int i= 0; i < ids.length; i++) {
+			assertSame(fSession.getTestElement(ids[i]), children[i]);
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2020 IBM Corporation and others.
+ * Copyright (c) 2007, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -14,7 +14,15 @@
 package org.eclipse.jdt.ui.tests.core;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.After;
 import org.junit.Before;
@@ -40,10 +48,16 @@ import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.IPackageFragment;
 import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.ITypeRoot;
+import org.eclipse.jdt.core.dom.ASTParser;
 import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.manipulation.CoreASTProvider;
 import org.eclipse.jdt.core.manipulation.SharedASTProviderCore;
 import org.eclipse.jdt.core.refactoring.CompilationUnitChange;
 
+import org.eclipse.jdt.internal.core.manipulation.ASTCache;
+import org.eclipse.jdt.internal.corext.dom.IASTSharedValues;
+
 import org.eclipse.jdt.ui.JavaUI;
 import org.eclipse.jdt.ui.tests.core.rules.ProjectTestSetup;
 
@@ -141,6 +155,85 @@ public class ASTProviderTest extends CoreTests {
 		cu.getBuffer().save(null, true);
 	}
 
+	@Test
+	public void testCacheOfNonActiveElement() throws Exception {
+		IPackageFragment pack1= fSourceFolder.createPackageFragment("test1", false, null);
+		StringBuilder buf= new StringBuilder();
+		buf.append("package test1;\n");
+		buf.append("public class E2 {\n");
+		buf.append("}\n");
+		final ICompilationUnit cu= pack1.createCompilationUnit("E2.java", buf.toString(), false, null);
+
+		ASTCache cache= ASTCache.getDefault();
+		long hits= cache.getHits();
+
+		CompilationUnit ast1= SharedASTProviderCore.getAST(cu, SharedASTProviderCore.WAIT_YES, null);
+		assertNotNull(ast1);
+		CompilationUnit ast2= SharedASTProviderCore.getAST(cu, SharedASTProviderCore.WAIT_YES, null);
+		assertSame(ast1, ast2);
+		assertEquals(hits + 1, cache.getHits());
+		// only the AST of the active element is returned without waiting
+		assertNull(SharedASTProviderCore.getAST(cu, SharedASTProviderCore.WAIT_NO, null));
+		assertNull(SharedASTProviderCore.getAST(cu, SharedASTProviderCore.WAIT_ACTIVE_ONLY, null));
+
+		cu.getBuffer().replace(buf.length() - 2, 0, "  int a;\n");
+		CompilationUnit ast3= SharedASTProviderCore.getAST(cu, SharedASTProviderCore.WAIT_YES, null);
+		assertNotNull(ast3);
+		assertNotSame(ast1, ast3);
+		assertEquals(cu.getBuffer().getContents(), ast3.toString());
+	}
+
+	@Test
+	public void testGetASTAsync() throws Exception {
+		IPackageFragment pack1= fSourceFolder.createPackageFragment("test1", false, null);
+		StringBuilder buf= new StringBuilder();
+		buf.append("package test1;\n");
+		buf.append("public class E3 {\n");
+		buf.append("}\n");
+		final ICompilationUnit cu= pack1.createCompilationUnit("E3.java", buf.toString(), false, null);
+
+		assertNull(SharedASTProviderCore.getASTAsync(cu, SharedASTProviderCore.WAIT_ACTIVE_ONLY).get(30, TimeUnit.SECONDS));
+
+		CompilationUnit ast= SharedASTProviderCore.getASTAsync(cu, SharedASTProviderCore.WAIT_YES).get(30, TimeUnit.SECONDS);
+		assertNotNull(ast);
+		assertEquals(buf.toString(), ast.toString());
+		assertSame(ast, SharedASTProviderCore.getASTAsync(cu, SharedASTProviderCore.WAIT_NO).get(30, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testGetASTAsyncFromReconciler() throws Exception {
+		IPackageFragment pack1= fSourceFolder.createPackageFragment("test1", false, null);
+		StringBuilder buf= new StringBuilder();
+		buf.append("package test1;\n");
+		buf.append("public class E4 {\n");
+		buf.append("}\n");
+		final ICompilationUnit cu= pack1.createCompilationUnit("E4.java", buf.toString(), false, null);
+
+		CoreASTProvider provider= CoreASTProvider.getInstance();
+		ITypeRoot previous= provider.getActiveJavaElement();
+		provider.setActiveJavaElement(cu);
+		try {
+			boolean[] finishRequested= { false };
+			provider.aboutToBeReconciled(cu, () -> finishRequested[0]= true);
+
+			// the request of the active element waits for the AST of the reconciler
+			CompletableFuture<CompilationUnit> future= provider.getASTAsync(cu, CoreASTProvider.WAIT_ACTIVE_ONLY);
+			assertFalse(future.isDone());
+			assertTrue(finishRequested[0]);
+
+			ASTParser parser= ASTParser.newParser(IASTSharedValues.SHARED_AST_LEVEL);
+			parser.setResolveBindings(true);
+			parser.setSource(cu);
+			CompilationUnit ast= (CompilationUnit) parser.createAST(null);
+			provider.reconciled(ast, cu, null);
+
+			assertSame(ast, future.get(30, TimeUnit.SECONDS));
+		} finally {
+			provider.disposeAST();
+			provider.setActiveJavaElement(previous);
+		}
+	}
+
 	private static String getNormalizeNumber(int number) {
 		if (number < 10) {
 			return "000" + number;
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2021 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -19,10 +19,16 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.junit.After;
 import org.junit.Before;
@@ -30,12 +36,17 @@ import org.junit.Test;
 
 import org.eclipse.core.runtime.NullProgressMonitor;
 
+import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.IInitializer;
+import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.IMember;
 import org.eclipse.jdt.core.IMethod;
 import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaCore;
 
+import org.eclipse.jdt.internal.corext.callhierarchy.CallGraphExporter;
 import org.eclipse.jdt.internal.corext.callhierarchy.CallHierarchy;
+import org.eclipse.jdt.internal.corext.callhierarchy.CallHierarchyExpander;
 import org.eclipse.jdt.internal.corext.callhierarchy.MethodWrapper;
 
 import org.eclipse.jdt.ui.tests.callhierarchy.CallHierarchyTestHelper;
@@ -96,6 +107,162 @@ public class CallHierarchyTest {
         helper.assertCalls(expectedSecondLevelMethods, wrapper2.getCalls(new NullProgressMonitor()));
     }
 
+	@Test
+	public void expandCallers() throws Exception {
+        helper.createSimpleClasses();
+
+        IMethod method= helper.getMethod1();
+        IMethod secondLevelMethod= helper.getMethod3();
+
+        MethodWrapper wrapper= getSingleCallerRoot(method);
+
+        Map<IMember, MethodWrapper[]> found= new LinkedHashMap<>();
+        new CallHierarchyExpander(2).expand(new MethodWrapper[] { wrapper }, 3, (expanded, calls) -> {
+            assertTrue(expanded == wrapper || found.containsKey(expanded.getParent().getMember()));
+            found.put(expanded.getMember(), calls);
+        }, new NullProgressMonitor());
+
+        assertEquals(method, found.keySet().iterator().next());
+        helper.assertCalls(Arrays.asList(helper.getMethod2(), secondLevelMethod), found.get(method));
+        helper.assertCalls(Arrays.asList(helper.getMethod4()), found.get(secondLevelMethod));
+        helper.assertCalls(Arrays.asList(), found.get(helper.getMethod4()));
+
+        // the calls found by the expansion are shared with the other wrappers of the hierarchy
+        MethodWrapper wrapper2= helper.findMethodWrapper(secondLevelMethod, wrapper.getCalls(new NullProgressMonitor()));
+        assertTrue(wrapper2.hasCachedCalls());
+        helper.assertCalls(Arrays.asList(helper.getMethod4()), wrapper2.getCalls(new NullProgressMonitor()));
+    }
+
+	@Test
+	public void callersFromCallGraphCache() throws Exception {
+        helper.createSimpleClasses();
+
+        IMethod method= helper.getMethod1();
+
+        MethodWrapper wrapper= getSingleCallerRoot(method);
+        helper.assertCalls(Arrays.asList(helper.getMethod2(), helper.getMethod3()), wrapper.getCalls(new NullProgressMonitor()));
+
+        // another hierarchy of the same method does not search again
+        MethodWrapper wrapper2= getSingleCallerRoot(method);
+        assertTrue(wrapper2.hasCachedCalls());
+        helper.assertCalls(Arrays.asList(helper.getMethod2(), helper.getMethod3()), wrapper2.getCalls(new NullProgressMonitor()));
+
+        // a new compilation unit calling the method invalidates the calls
+        ICompilationUnit cu= helper.getPackage2().createCompilationUnit("C.java",
+                "package pack2;\npublic class C {\n public void method5(pack1.A a) { a.method1(); }\n}\n", true, null);
+        IMethod method5= cu.getType("C").getMethod("method5", new String[] { "Qpack1.A;" });
+
+        MethodWrapper wrapper3= getSingleCallerRoot(method);
+        assertFalse(wrapper3.hasCachedCalls());
+        helper.assertCalls(Arrays.asList(helper.getMethod2(), helper.getMethod3(), method5), wrapper3.getCalls(new NullProgressMonitor()));
+    }
+
+	@Test
+	public void callGraphCacheSuperTypeChange() throws Exception {
+        helper.createSimpleClasses();
+        ICompilationUnit cu= helper.getPackage2().createCompilationUnit("D.java",
+                "package pack2;\npublic class D {\n}\n", true, null);
+
+        IMethod method= helper.getMethod1();
+        getSingleCallerRoot(method).getCalls(new NullProgressMonitor());
+        assertTrue(getSingleCallerRoot(method).hasCachedCalls());
+
+        // a changed super type invalidates the calls, although the unit does not contain the name
+        ICompilationUnit workingCopy= cu.getWorkingCopy(null);
+        try {
+            workingCopy.getBuffer().replace(workingCopy.getSource().indexOf('{'), 0, "extends pack1.A ");
+            workingCopy.reconcile(ICompilationUnit.NO_AST, false, null, null);
+
+            MethodWrapper wrapper= getSingleCallerRoot(method);
+            assertFalse(wrapper.hasCachedCalls());
+            helper.assertCalls(Arrays.asList(helper.getMethod2(), helper.getMethod3()), wrapper.getCalls(new NullProgressMonitor()));
+        } finally {
+            workingCopy.discardWorkingCopy();
+        }
+    }
+
+	@Test
+	public void exportCallGraph() throws Exception {
+        helper.createSimpleClasses();
+
+        IJavaProject[] projects= { helper.getPackage1().getJavaProject(), helper.getJavaProject2() };
+        ByteArrayOutputStream out= new ByteArrayOutputStream();
+        int count= new CallGraphExporter(projects).export(out, new NullProgressMonitor());
+
+        Set<String> calls= new HashSet<>();
+        CallGraphExporter.read(new ByteArrayInputStream(out.toByteArray()), (caller, callee, offset, length, line, potential) -> {
+            assertFalse(potential);
+            assertTrue(line > 0);
+            calls.add(JavaCore.create(caller).getElementName() + "->" + JavaCore.create(callee).getElementName());
+        });
+
+        Set<String> expected= new HashSet<>(Arrays.asList("method2->method1", "recursiveMethod1->recursiveMethod2", "recursiveMethod2->recursiveMethod1",
+                "method3->method1", "method3->method2", "method4->method3"));
+        assertEquals(expected, calls);
+        assertEquals(expected.size(), count);
+    }
+
+	@Test
+	public void exportCallGraphCallers() throws Exception {
+        helper.createSimpleClasses();
+
+        // the callers of A in B are outside the exported project
+        IJavaProject[] projects= { helper.getPackage1().getJavaProject() };
+        ByteArrayOutputStream out= new ByteArrayOutputStream();
+        CallGraphExporter exporter= new CallGraphExporter(projects);
+        exporter.setExportCallers(true);
+        exporter.export(out, new NullProgressMonitor());
+
+        Set<String> calls= new HashSet<>();
+        Set<String> callers= new HashSet<>();
+        CallGraphExporter.read(new ByteArrayInputStream(out.toByteArray()), new CallGraphExporter.ICallGraphRequestor() {
+            @Override
+            public void acceptCall(String caller, String callee, int offset, int length, int line, boolean potential) {
+                calls.add(JavaCore.create(caller).getElementName() + "->" + JavaCore.create(callee).getElementName());
+            }
+
+            @Override
+            public void acceptCaller(String caller, String callee, int offset, int length, int line) {
+                assertTrue(line > 0);
+                callers.add(JavaCore.create(caller).getElementName() + "->" + JavaCore.create(callee).getElementName());
+            }
+        });
+
+        assertEquals(new HashSet<>(Arrays.asList("method2->method1", "recursiveMethod1->recursiveMethod2", "recursiveMethod2->recursiveMethod1")), calls);
+        assertEquals(new HashSet<>(Arrays.asList("method2->method1", "recursiveMethod1->recursiveMethod2", "recursiveMethod2->recursiveMethod1",
+                "method3->method1", "method3->method2")), callers);
+    }
+
+	@Test
+	public void exportCallGraphAbstractMethods() throws Exception {
+        helper.createPackages();
+        helper.getPackage2().createCompilationUnit("Mixed.java",
+                "package pack2;\n"
+                + "public abstract class Mixed {\n"
+                + "    abstract void run();\n"
+                + "    void start() {\n"
+                + "        run();\n"
+                + "    }\n"
+                + "}\n"
+                + "class MixedImpl extends Mixed {\n"
+                + "    void run() {\n"
+                + "    }\n"
+                + "}\n", true, null);
+
+        IJavaProject[] projects= { helper.getJavaProject2() };
+        ByteArrayOutputStream out= new ByteArrayOutputStream();
+        new CallGraphExporter(projects).export(out, new NullProgressMonitor());
+
+        List<String> calls= new ArrayList<>();
+        CallGraphExporter.read(new ByteArrayInputStream(out.toByteArray()), (caller, callee, offset, length, line, potential) -> {
+            assertFalse(potential);
+            IMember calledMember= (IMember) JavaCore.create(callee);
+            calls.add(JavaCore.create(caller).getElementName() + "->" + calledMember.getDeclaringType().getElementName() + "." + calledMember.getElementName());
+        });
+
+        assertEquals(Arrays.asList("start->Mixed.run"), calls);
+    }
+
 	@Test
 	public void callersNoResults() throws Exception {
         helper.createSimpleClasses();
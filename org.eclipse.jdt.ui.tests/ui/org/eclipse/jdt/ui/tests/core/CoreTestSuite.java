@@ -32,6 +32,7 @@ CodeFormatterTest.class,
 CodeFormatterTest9.class,
 CodeFormatterMigrationTest.class,
 HierarchicalASTVisitorTest.class,
+SharedASTTraversalTest.class,
 ImportOrganizeTest.class,
 ImportOrganizeTest1d8.class,
 JavaElementLabelsTest.class,
@@ -52,6 +53,7 @@ TypeHierarchyViewPartTest.class,
 TypeRulesTest.class,
 TypeInfoTest.class,
 StringsTest.class,
+TextEditUtilTest.class,
 IndentManipulationTest.class,
 SelectionHistoryTest.class,
 ASTProviderTest.class,
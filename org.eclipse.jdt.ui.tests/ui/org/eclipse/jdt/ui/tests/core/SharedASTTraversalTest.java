@@ -0,0 +1,317 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import org.eclipse.jdt.testplugin.JavaProjectHelper;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.ArrayCreation;
+import org.eclipse.jdt.core.dom.Block;
+import org.eclipse.jdt.core.dom.ClassInstanceCreation;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.IfStatement;
+import org.eclipse.jdt.core.dom.InfixExpression;
+import org.eclipse.jdt.core.dom.Javadoc;
+import org.eclipse.jdt.core.dom.MethodDeclaration;
+import org.eclipse.jdt.core.dom.MethodInvocation;
+import org.eclipse.jdt.core.dom.TagElement;
+import org.eclipse.jdt.core.dom.TypeDeclaration;
+import org.eclipse.jdt.core.dom.WhileStatement;
+
+import org.eclipse.jdt.internal.corext.dom.IASTSharedValues;
+import org.eclipse.jdt.internal.corext.fix.ArrayWithCurlyFixCore.ArrayWithCurlyFinder;
+import org.eclipse.jdt.internal.corext.fix.DoWhileRatherThanWhileFixCore.DoWhileRatherThanWhileFinder;
+import org.eclipse.jdt.internal.corext.fix.InvertEqualsFixCore.InvertEqualsFinder;
+import org.eclipse.jdt.internal.corext.fix.OneIfRatherThanDuplicateBlocksThatFallThroughFixCore.OneIfRatherThanDuplicateBlocksThatFallThroughFinder;
+import org.eclipse.jdt.internal.corext.fix.PlainReplacementFixCore.PlainReplacementFinder;
+import org.eclipse.jdt.internal.corext.fix.PrimitiveComparisonFixCore.PrimitiveComparisonFinder;
+import org.eclipse.jdt.internal.corext.fix.PullOutIfFromIfElseFixCore.PullOutIfFromIfElseFinder;
+import org.eclipse.jdt.internal.corext.fix.RedundantComparatorFixCore.RedundantComparatorFinder;
+import org.eclipse.jdt.internal.corext.fix.ReturnExpressionFixCore.ReturnExpressionFinder;
+import org.eclipse.jdt.internal.corext.fix.SharedASTTraversal;
+import org.eclipse.jdt.internal.corext.fix.StandardComparisonFixCore.StandardComparisonFinder;
+import org.eclipse.jdt.internal.corext.fix.SwitchFixCore.SwitchStatementsFinder;
+import org.eclipse.jdt.internal.corext.fix.ValueOfRatherThanInstantiationFixCore.ValueOfRatherThanInstantiationFinder;
+
+import org.eclipse.jdt.ui.tests.core.rules.ProjectTestSetup;
+
+/**
+ * Tests that the clean ups which use {@link SharedASTTraversal} find the same changes as with
+ * their own traversal of the AST.
+ */
+public class SharedASTTraversalTest {
+
+	private static final String SOURCE= ""
+			+ "package test1;\n"
+			+ "\n"
+			+ "import java.util.Collections;\n"
+			+ "import java.util.Comparator;\n"
+			+ "import java.util.List;\n"
+			+ "\n"
+			+ "/**\n"
+			+ " * Uses {@link List}.\n"
+			+ " */\n"
+			+ "public class E {\n"
+			+ "    private int[] fArray= new int[] {1, 2};\n"
+			+ "    private Object[][] fNested= new Object[][] {new Object[] {\"a\"}};\n"
+			+ "\n"
+			+ "    public boolean compare(String s, String t, Comparator<String> c, int i, int j) {\n"
+			+ "        if (s.equals(\"a\") || s.equalsIgnoreCase(\"b\" + t)) {\n"
+			+ "            return true;\n"
+			+ "        }\n"
+			+ "        if (s.compareTo(t) == -1 || c.compare(s, t) != 1) {\n"
+			+ "            return false;\n"
+			+ "        }\n"
+			+ "        return Integer.valueOf(i).compareTo(j) > 0 || new Integer(i).compareTo(j) < 0;\n"
+			+ "    }\n"
+			+ "\n"
+			+ "    public String replace(String s) {\n"
+			+ "        return s.replaceAll(\"a\", \"b\").replaceAll(\"c\", \"d\");\n"
+			+ "    }\n"
+			+ "\n"
+			+ "    public long valueOf(int i) {\n"
+			+ "        int k= new Integer(i);\n"
+			+ "        long l= new Long(new Integer(i));\n"
+			+ "        return k + l;\n"
+			+ "    }\n"
+			+ "\n"
+			+ "    public void loop(boolean b) {\n"
+			+ "        while (true) {\n"
+			+ "            while (true) {\n"
+			+ "                if (b) {\n"
+			+ "                    return;\n"
+			+ "                }\n"
+			+ "            }\n"
+			+ "        }\n"
+			+ "    }\n"
+			+ "\n"
+			+ "    public void pullOut(boolean a, boolean b) {\n"
+			+ "        if (a) {\n"
+			+ "            if (b) {\n"
+			+ "                if (a) {\n"
+			+ "                    if (b) {\n"
+			+ "                        System.out.println(1);\n"
+			+ "                    }\n"
+			+ "                } else {\n"
+			+ "                    if (b) {\n"
+			+ "                        System.out.println(2);\n"
+			+ "                    }\n"
+			+ "                }\n"
+			+ "            }\n"
+			+ "        } else {\n"
+			+ "            if (b) {\n"
+			+ "                System.out.println(3);\n"
+			+ "            }\n"
+			+ "        }\n"
+			+ "    }\n"
+			+ "\n"
+			+ "    public int fallThrough(boolean a, boolean b) {\n"
+			+ "        if (a) {\n"
+			+ "            return 1;\n"
+			+ "        }\n"
+			+ "        if (b) {\n"
+			+ "            return 1;\n"
+			+ "        }\n"
+			+ "        int r= a ? 2 : 3;\n"
+			+ "        return r;\n"
+			+ "    }\n"
+			+ "\n"
+			+ "    public void ifChain(int i) {\n"
+			+ "        if (i == 0) {\n"
+			+ "            System.out.println(0);\n"
+			+ "        } else if (i == 1) {\n"
+			+ "            System.out.println(1);\n"
+			+ "        } else if (i == 2) {\n"
+			+ "            if (i == 2) {\n"
+			+ "                System.out.println(2);\n"
+			+ "            } else if (i == 3) {\n"
+			+ "                System.out.println(3);\n"
+			+ "            } else if (i == 4) {\n"
+			+ "                System.out.println(4);\n"
+			+ "            }\n"
+			+ "        }\n"
+			+ "    }\n"
+			+ "\n"
+			+ "    public void sort(List<String> list) {\n"
+			+ "        Collections.sort(list, Comparator.naturalOrder());\n"
+			+ "        list.sort(Comparator.naturalOrder());\n"
+			+ "    }\n"
+			+ "}\n";
+
+	@Rule
+	public ProjectTestSetup pts= new ProjectTestSetup();
+
+	private IJavaProject fJProject1;
+	private IPackageFragmentRoot fSourceFolder;
+
+	@Before
+	public void setUp() throws Exception {
+		fJProject1= pts.getProject();
+		fSourceFolder= JavaProjectHelper.addSourceContainer(fJProject1, "src");
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		JavaProjectHelper.clear(fJProject1, pts.getDefaultClasspath());
+	}
+
+	private CompilationUnit createAST(String source) throws Exception {
+		IPackageFragment pack1= fSourceFolder.createPackageFragment("test1", false, null);
+		ICompilationUnit cu= pack1.createCompilationUnit("E.java", source, false, null);
+		ASTParser parser= ASTParser.newParser(IASTSharedValues.SHARED_AST_LEVEL);
+		parser.setSource(cu);
+		parser.setResolveBindings(true);
+		return (CompilationUnit) parser.createAST(null);
+	}
+
+	@Test
+	public void testNodesInVisitorOrder() throws Exception {
+		CompilationUnit unit= createAST(SOURCE);
+		List<ASTNode> visited= new ArrayList<>();
+		unit.accept(new ASTVisitor() {
+			@Override
+			public void preVisit(ASTNode node) {
+				visited.add(node);
+			}
+		});
+
+		SharedASTTraversal traversal= SharedASTTraversal.get(unit);
+		for (ASTNode node : visited) {
+			List<ASTNode> expected= new ArrayList<>();
+			for (ASTNode other : visited) {
+				if (other.getClass() == node.getClass())
+					expected.add(other);
+			}
+			assertEquals(expected, traversal.getNodes(node.getClass()));
+		}
+	}
+
+	@Test
+	public void testDocCommentTagsNotVisited() throws Exception {
+		CompilationUnit unit= createAST(SOURCE);
+		SharedASTTraversal traversal= SharedASTTraversal.get(unit);
+		assertEquals(1, traversal.getNodes(Javadoc.class).size());
+		assertTrue(traversal.getNodes(TagElement.class).isEmpty());
+	}
+
+	@Test
+	public void testAcceptSkipsLikeVisitor() throws Exception {
+		CompilationUnit unit= createAST(SOURCE);
+		assertSameVisits(unit, Block.class, block -> block.statements().size() < 2);
+		assertSameVisits(unit, IfStatement.class, ifStatement -> ifStatement.getElseStatement() == null);
+		assertSameVisits(unit, WhileStatement.class, whileStatement -> false);
+		assertSameVisits(unit, MethodInvocation.class, invocation -> !"replaceAll".equals(invocation.getName().getIdentifier()));
+		assertSameVisits(unit, ArrayCreation.class, arrayCreation -> true);
+	}
+
+	private static <T extends ASTNode> void assertSameVisits(CompilationUnit unit, Class<T> nodeClass, Predicate<T> visitChildren) {
+		List<ASTNode> expected= new ArrayList<>();
+		unit.accept(new ASTVisitor() {
+			@Override
+			public boolean preVisit2(ASTNode node) {
+				if (node.getClass() != nodeClass)
+					return true;
+				expected.add(node);
+				return visitChildren.test(nodeClass.cast(node));
+			}
+		});
+
+		List<ASTNode> actual= new ArrayList<>();
+		SharedASTTraversal.get(unit).accept(nodeClass, node -> {
+			actual.add(node);
+			return visitChildren.test(node);
+		});
+		assertFalse(expected.isEmpty());
+		assertEquals(expected, actual);
+	}
+
+	@Test
+	public void testSharedUntilModified() throws Exception {
+		CompilationUnit unit= createAST(SOURCE);
+		SharedASTTraversal traversal= SharedASTTraversal.get(unit);
+		assertSame(traversal, SharedASTTraversal.get(unit));
+		int methodCount= traversal.getNodes(MethodDeclaration.class).size();
+
+		TypeDeclaration type= (TypeDeclaration) unit.types().get(0);
+		MethodDeclaration method= unit.getAST().newMethodDeclaration();
+		method.setName(unit.getAST().newSimpleName("added"));
+		type.bodyDeclarations().add(method);
+
+		SharedASTTraversal modified= SharedASTTraversal.get(unit);
+		assertNotSame(traversal, modified);
+		assertEquals(methodCount + 1, modified.getNodes(MethodDeclaration.class).size());
+		assertSame(method, modified.getNodes(MethodDeclaration.class).get(methodCount));
+	}
+
+	@Test
+	public void testCleanUpsFindSameChanges() throws Exception {
+		CompilationUnit unit= createAST(SOURCE);
+		assertSameChanges(unit, ArrayCreation.class, ArrayWithCurlyFinder::new, ArrayWithCurlyFinder::visit);
+		assertSameChanges(unit, WhileStatement.class, DoWhileRatherThanWhileFinder::new, DoWhileRatherThanWhileFinder::visit);
+		assertSameChanges(unit, MethodInvocation.class, InvertEqualsFinder::new, InvertEqualsFinder::visit);
+		assertSameChanges(unit, Block.class, OneIfRatherThanDuplicateBlocksThatFallThroughFinder::new, OneIfRatherThanDuplicateBlocksThatFallThroughFinder::visit);
+		assertSameChanges(unit, MethodInvocation.class, PlainReplacementFinder::new, PlainReplacementFinder::visit);
+		assertSameChanges(unit, MethodInvocation.class, PrimitiveComparisonFinder::new, PrimitiveComparisonFinder::visit);
+		assertSameChanges(unit, IfStatement.class, PullOutIfFromIfElseFinder::new, PullOutIfFromIfElseFinder::visit);
+		assertSameChanges(unit, MethodInvocation.class, RedundantComparatorFinder::new, RedundantComparatorFinder::visit);
+		assertSameChanges(unit, Block.class, ReturnExpressionFinder::new, ReturnExpressionFinder::visit);
+		assertSameChanges(unit, InfixExpression.class, StandardComparisonFinder::new, StandardComparisonFinder::visit);
+		assertSameChanges(unit, Block.class, SwitchStatementsFinder::new, SwitchStatementsFinder::visit);
+		assertSameChanges(unit, ClassInstanceCreation.class, ValueOfRatherThanInstantiationFinder::new, ValueOfRatherThanInstantiationFinder::visit);
+	}
+
+	private static <T, F extends ASTVisitor, N extends ASTNode> void assertSameChanges(CompilationUnit unit, Class<N> nodeClass, Function<List<T>, F> finderFactory,
+			BiPredicate<F, N> visit) {
+		List<T> expected= new ArrayList<>();
+		unit.accept(finderFactory.apply(expected));
+
+		List<T> actual= new ArrayList<>();
+		F finder= finderFactory.apply(actual);
+		SharedASTTraversal.get(unit).accept(nodeClass, node -> visit.test(finder, node));
+
+		assertFalse(expected.isEmpty());
+		assertEquals(toClassNames(expected), toClassNames(actual));
+	}
+
+	private static List<String> toClassNames(List<?> operations) {
+		List<String> result= new ArrayList<>();
+		for (Object operation : operations) {
+			result.add(operation.getClass().getName());
+		}
+		return result;
+	}
+}
@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import org.eclipse.text.edits.DeleteEdit;
+import org.eclipse.text.edits.InsertEdit;
+import org.eclipse.text.edits.MoveSourceEdit;
+import org.eclipse.text.edits.MoveTargetEdit;
+import org.eclipse.text.edits.MultiTextEdit;
+import org.eclipse.text.edits.ReplaceEdit;
+import org.eclipse.text.edits.TextEdit;
+
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.IDocument;
+
+import org.eclipse.jdt.internal.corext.refactoring.util.TextEditUtil;
+
+public class TextEditUtilTest {
+
+	private static TextEdit multi(int offset, int length, TextEdit... children) {
+		MultiTextEdit result= new MultiTextEdit(offset, length);
+		for (TextEdit child : children) {
+			result.addChild(child);
+		}
+		return result;
+	}
+
+	private static TextEdit root(TextEdit... children) {
+		MultiTextEdit result= new MultiTextEdit();
+		for (TextEdit child : children) {
+			result.addChild(child);
+		}
+		return result;
+	}
+
+	@Test
+	public void rebaseInterleavedEdits() throws Exception {
+		IDocument document= new Document("0123456789");
+		TextEdit edit1= root(multi(0, 6, new ReplaceEdit(1, 1, "a")), new DeleteEdit(8, 1));
+		TextEdit edit2= root(multi(3, 7, new InsertEdit(4, "b")));
+
+		assertTrue(TextEditUtil.overlaps(edit1, edit2));
+
+		TextEdit rebased= TextEditUtil.rebase(edit1, edit2);
+		assertNotNull(rebased);
+		assertEquals(3, rebased.getChildrenSize());
+
+		rebased.apply(document);
+		assertEquals("0a23b45679", document.get());
+	}
+
+	@Test
+	public void rebaseEmptyInnerEdit() throws Exception {
+		IDocument document= new Document("0123456789");
+		TextEdit edit1= root(multi(0, 6, new ReplaceEdit(1, 1, "a")), multi(7, 2));
+		TextEdit edit2= root(multi(3, 7, new InsertEdit(8, "b")));
+
+		TextEdit rebased= TextEditUtil.rebase(edit1, edit2);
+		assertNotNull(rebased);
+		assertEquals(2, rebased.getChildrenSize());
+
+		rebased.apply(document);
+		assertEquals("0a234567b89", document.get());
+	}
+
+	@Test
+	public void rebaseTouchingEdits() {
+		TextEdit edit1= multi(0, 10, new DeleteEdit(2, 1), new DeleteEdit(6, 1));
+		TextEdit edit2= multi(3, 3, new ReplaceEdit(3, 3, "x"));
+
+		assertNull(TextEditUtil.rebase(edit1, edit2));
+		assertEquals(2, edit1.getChildrenSize());
+		assertEquals(1, edit2.getChildrenSize());
+	}
+
+	@Test
+	public void rebaseMoveEdits() {
+		MoveSourceEdit source= new MoveSourceEdit(0, 1);
+		MoveTargetEdit target= new MoveTargetEdit(9, source);
+		TextEdit edit1= multi(0, 10, source, target);
+		TextEdit edit2= multi(4, 1, new InsertEdit(4, "b"));
+
+		assertNull(TextEditUtil.rebase(edit1, edit2));
+	}
+}
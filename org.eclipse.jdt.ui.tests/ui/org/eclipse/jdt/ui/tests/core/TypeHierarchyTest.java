@@ -14,7 +14,16 @@
 package org.eclipse.jdt.ui.tests.core;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.After;
 import org.junit.Before;
@@ -36,6 +45,7 @@ import org.eclipse.jdt.core.ITypeHierarchy;
 import org.eclipse.jdt.core.manipulation.SharedASTProviderCore;
 
 import org.eclipse.jdt.internal.corext.util.JavaModelUtil;
+import org.eclipse.jdt.internal.corext.util.SuperTypeHierarchyCache;
 
 import org.eclipse.jdt.ui.JavaUI;
 import org.eclipse.jdt.ui.tests.core.rules.ProjectTestSetup;
@@ -268,4 +278,49 @@ public class TypeHierarchyTest {
 		assertEquals("Should contain 3 types, contains: " + allTypes.length, 3, allTypes.length);
 		assertEquals("Update count should be 1, is: " + updateCount[0], 1, updateCount[0]);
 	}
+
+	@Test
+	public void superTypeHierarchyCache() throws Exception {
+		IPackageFragmentRoot root1= JavaProjectHelper.addSourceContainer(fJavaProject1, "src");
+		IPackageFragment pack1= root1.createPackageFragment("pack1", true, null);
+		IType typeA= pack1.getCompilationUnit("A.java").createType("public class A {\n}\n", null, true, null);
+		IType typeB= pack1.getCompilationUnit("B.java").createType("public class B extends A {\n}\n", null, true, null);
+		IType typeC= pack1.getCompilationUnit("C.java").createType("public class C {\n}\n", null, true, null);
+
+		int maxSize= SuperTypeHierarchyCache.getMaxSize();
+		SuperTypeHierarchyCache.clear();
+		SuperTypeHierarchyCache.resetCounters();
+		try {
+			// the hierarchy of B contains A
+			ITypeHierarchy hierarchy= SuperTypeHierarchyCache.getTypeHierarchy(typeB);
+			assertSame(hierarchy, SuperTypeHierarchyCache.getTypeHierarchy(typeA));
+			assertEquals(1, SuperTypeHierarchyCache.getCacheMisses());
+			assertEquals(1, SuperTypeHierarchyCache.getCacheHits());
+			assertEquals(3, SuperTypeHierarchyCache.getSize());
+
+			// concurrent requests for the same type compute its hierarchy once
+			ExecutorService executor= Executors.newFixedThreadPool(4);
+			try {
+				List<Future<ITypeHierarchy>> results= new ArrayList<>();
+				for (int i= 0; i < 4; i++) {
+					results.add(executor.submit(() -> SuperTypeHierarchyCache.getTypeHierarchy(typeC)));
+				}
+				for (Future<ITypeHierarchy> result : results) {
+					assertSame(results.get(0).get(), result.get());
+				}
+			} finally {
+				executor.shutdown();
+			}
+			assertEquals(2, SuperTypeHierarchyCache.getCacheMisses());
+
+			// the least recently used hierarchy is evicted
+			SuperTypeHierarchyCache.setMaxSize(2);
+			assertEquals(1, SuperTypeHierarchyCache.getCacheEvictions());
+			assertFalse(SuperTypeHierarchyCache.hasInCache(typeB));
+			assertTrue(SuperTypeHierarchyCache.hasInCache(typeC));
+		} finally {
+			SuperTypeHierarchyCache.setMaxSize(maxSize);
+			SuperTypeHierarchyCache.clear();
+		}
+	}
 }
@@ -24,6 +24,8 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 
+import java.io.File;
+import java.io.StringWriter;
 import java.lang.reflect.Field;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -40,6 +42,7 @@ import org.eclipse.jdt.testplugin.TestOptions;
 
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.Path;
 
 import org.eclipse.ltk.core.refactoring.RefactoringStatus;
@@ -61,6 +64,9 @@ import org.eclipse.jdt.core.manipulation.CleanUpOptionsCore;
 
 import org.eclipse.jdt.internal.corext.dom.IASTSharedValues;
 import org.eclipse.jdt.internal.corext.fix.CleanUpConstants;
+import org.eclipse.jdt.internal.corext.fix.CleanUpRefactoring;
+import org.eclipse.jdt.internal.corext.fix.CleanUpResultCache;
+import org.eclipse.jdt.internal.corext.fix.CleanUpStatistics;
 import org.eclipse.jdt.internal.corext.fix.FixMessages;
 import org.eclipse.jdt.internal.corext.fix.UpdateProperty;
 import org.eclipse.jdt.internal.corext.refactoring.util.RefactoringASTParser;
@@ -68,6 +74,7 @@ import org.eclipse.jdt.internal.corext.util.Messages;
 
 import org.eclipse.jdt.ui.PreferenceConstants;
 import org.eclipse.jdt.ui.cleanup.CleanUpOptions;
+import org.eclipse.jdt.ui.cleanup.ICleanUp;
 import org.eclipse.jdt.ui.cleanup.ICleanUpFix;
 import org.eclipse.jdt.ui.tests.core.rules.Java13ProjectTestSetup;
 import org.eclipse.jdt.ui.tests.core.rules.ProjectTestSetup;
@@ -218,6 +225,121 @@ public class CleanUpTest extends CleanUpTestCase {
 		assertRefactoringResultAsExpected(new ICompilationUnit[] {cu1, cu2, cu3}, new String[] {expected1, expected2, expected3}, null);
 	}
 
+	@Test
+	public void testParallelCleanUp() throws Exception {
+		int count= 12;
+		ICompilationUnit[] cus= new ICompilationUnit[count];
+		String[] expected= new String[count];
+		for (int i= 0; i < count; i++) {
+			IPackageFragment pack= fSourceFolder.createPackageFragment("test" + (i % 3), false, null);
+			String sample= "" //
+					+ "package test" + (i % 3) + ";\n" //
+					+ "public class E" + i + " {\n" //
+					+ "    public void foo() {\n" //
+					+ "        String s= \"\";\n" //
+					+ "    }\n" //
+					+ "}\n";
+			cus[i]= pack.createCompilationUnit("E" + i + ".java", sample, false, null);
+
+			expected[i]= "" //
+					+ "package test" + (i % 3) + ";\n" //
+					+ "public class E" + i + " {\n" //
+					+ "    public void foo() {\n" //
+					+ "        String s= \"\"; //$NON-NLS-1$\n" //
+					+ "    }\n" //
+					+ "}\n";
+		}
+
+		enable(CleanUpConstants.ADD_MISSING_NLS_TAGS);
+
+		CleanUpRefactoring ref= new CleanUpRefactoring();
+		ref.setUseOptionsFromProfile(true);
+		ref.setParallelism(4);
+		performRefactoring(ref, cus, JavaPlugin.getDefault().getCleanUpRegistry().createCleanUps(), null);
+
+		String[] previews= new String[count];
+		for (int i= 0; i < count; i++) {
+			previews[i]= cus[i].getBuffer().getContents();
+		}
+		assertEqualStringsIgnoreOrder(previews, expected);
+	}
+
+	@Test
+	public void testCleanUpResultCache() throws Exception {
+		IPackageFragment pack1= fSourceFolder.createPackageFragment("test1", false, null);
+		String sample= "" //
+				+ "package test1;\n" //
+				+ "public class E1 {\n" //
+				+ "    public void foo() {\n" //
+				+ "        String s= \"\"; //$NON-NLS-1$\n" //
+				+ "    }\n" //
+				+ "}\n";
+		ICompilationUnit cu1= pack1.createCompilationUnit("E1.java", sample, false, null);
+
+		enable(CleanUpConstants.ADD_MISSING_NLS_TAGS);
+
+		// don't touch the cache of the workbench
+		File file= File.createTempFile("cleanUpResultCache", ".dat");
+		try {
+			file.delete();
+			CleanUpResultCache cache= new CleanUpResultCache(file);
+
+			CleanUpRefactoring ref= new CleanUpRefactoring();
+			ref.setUseOptionsFromProfile(true);
+			ref.setUseResultCache(true);
+			ref.setResultCache(cache);
+			ref.addCompilationUnit(cu1);
+			for (ICleanUp cleanUp : JavaPlugin.getDefault().getCleanUpRegistry().createCleanUps()) {
+				ref.addCleanUp(cleanUp);
+			}
+			ref.checkAllConditions(new NullProgressMonitor());
+
+			long settingsHash= CleanUpResultCache.computeSettingsHash(fJProject1, ref.getCleanUps());
+			assertNotEquals(CleanUpResultCache.NO_HASH, settingsHash);
+			assertTrue(cache.isUnchanged(cu1, CleanUpResultCache.computeContentHash(sample), settingsHash));
+			assertTrue(new CleanUpResultCache(file).isUnchanged(cu1, CleanUpResultCache.computeContentHash(sample), settingsHash));
+
+			String changed= sample.replace(" //$NON-NLS-1$", "");
+			cu1.getBuffer().setContents(changed);
+			assertFalse(cache.isUnchanged(cu1, CleanUpResultCache.computeContentHash(changed), settingsHash));
+		} finally {
+			file.delete();
+		}
+	}
+
+	@Test
+	public void testCleanUpStatistics() throws Exception {
+		IPackageFragment pack1= fSourceFolder.createPackageFragment("test1", false, null);
+		String sample= "" //
+				+ "package test1;\n" //
+				+ "public class E1 {\n" //
+				+ "    public void foo() {\n" //
+				+ "        String s= \"\";\n" //
+				+ "    }\n" //
+				+ "}\n";
+		ICompilationUnit cu1= pack1.createCompilationUnit("E1.java", sample, false, null);
+
+		enable(CleanUpConstants.ADD_MISSING_NLS_TAGS);
+
+		CleanUpRefactoring ref= new CleanUpRefactoring();
+		ref.setUseOptionsFromProfile(true);
+		ref.setCollectStatistics(true);
+		ref.addCompilationUnit(cu1);
+		for (ICleanUp cleanUp : JavaPlugin.getDefault().getCleanUpRegistry().createCleanUps()) {
+			ref.addCleanUp(cleanUp);
+		}
+		ref.checkAllConditions(new NullProgressMonitor());
+
+		CleanUpStatistics statistics= ref.getStatistics();
+		assertTrue(statistics.getIterations() >= 1);
+		assertFalse(statistics.getCleanUpStatistics().isEmpty());
+		assertTrue(statistics.getUnitNanos().containsKey(cu1.getHandleIdentifier()));
+
+		StringWriter writer= new StringWriter();
+		statistics.writeJSON(writer);
+		assertTrue(writer.toString().startsWith("{\"iterations\":"));
+	}
+
 	@Test
 	public void testRemoveNLSTag01() throws Exception {
 		IPackageFragment pack1= fSourceFolder.createPackageFragment("test1", false, null);
@@ -16,9 +16,15 @@ package org.eclipse.jdt.internal.corext.fix;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Hashtable;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.eclipse.swt.widgets.Display;
 
@@ -37,6 +43,7 @@ import org.eclipse.core.resources.ProjectScope;
 import org.eclipse.core.resources.ResourcesPlugin;
 
 import org.eclipse.text.edits.MalformedTreeException;
+import org.eclipse.text.edits.MultiTextEdit;
 import org.eclipse.text.edits.TextEdit;
 import org.eclipse.text.edits.TextEditGroup;
 import org.eclipse.text.edits.UndoEdit;
@@ -60,6 +67,7 @@ import org.eclipse.ltk.core.refactoring.TextEditBasedChangeGroup;
 import org.eclipse.ltk.core.refactoring.TextFileChange;
 
 import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.IPackageFragment;
 import org.eclipse.jdt.core.JavaModelException;
@@ -139,6 +147,11 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
         	return fUndoEdit;
         }
 
+		@Override
+		protected boolean isValidationIndependent() {
+			return true;
+		}
+
 		/*
 		 * @see org.eclipse.ltk.core.refactoring.TextChange#perform(org.eclipse.core.runtime.IProgressMonitor)
 		 */
@@ -250,10 +263,29 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 		private final Hashtable<ICompilationUnit, List<CleanUpChange>> fSolutions;
 		private final Hashtable<ICompilationUnit, ParseListElement> fCompilationUnitParseElementMap;
 		private final CleanUpRefactoringProgressMonitor fMonitor;
+		private final Object fLock;
+		private final CleanUpStatistics fStatistics;
 
 		public CleanUpASTRequestor(List<ParseListElement> parseList, Hashtable<ICompilationUnit, List<CleanUpChange>> solutions, CleanUpRefactoringProgressMonitor monitor) {
+			this(parseList, solutions, monitor, new Object(), null);
+		}
+
+		/**
+		 * Creates a requestor which merges its changes into <code>solutions</code> while holding
+		 * <code>lock</code>. Requestors sharing the same lock can be fed from different parser
+		 * threads.
+		 *
+		 * @param parseList the elements to be cleaned up
+		 * @param solutions the shared map from primary compilation unit to computed changes
+		 * @param monitor the monitor to report progress to
+		 * @param lock the lock guarding <code>solutions</code>
+		 * @param statistics the statistics to update or <code>null</code>
+		 */
+		public CleanUpASTRequestor(List<ParseListElement> parseList, Hashtable<ICompilationUnit, List<CleanUpChange>> solutions, CleanUpRefactoringProgressMonitor monitor, Object lock, CleanUpStatistics statistics) {
 			fSolutions= solutions;
 			fMonitor= monitor;
+			fLock= lock;
+			fStatistics= statistics;
 			fUndoneElements= new ArrayList<>();
 			fCompilationUnitParseElementMap= new Hashtable<>(parseList.size());
 			for (ParseListElement element : parseList) {
@@ -263,7 +295,6 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 
 		@Override
 		public void acceptAST(ICompilationUnit source, CompilationUnit ast) {
-
 			fMonitor.subTask(fMonitor.getSubTaskMessage(source));
 
 			ICompilationUnit primary= (ICompilationUnit)source.getPrimaryElement();
@@ -298,13 +329,15 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 			List<ICleanUp>result= new ArrayList<>();
 			CleanUpChange solution;
 			try {
-				solution= calculateChange(context, cleanUps, result, null);
+				solution= calculateChange(context, cleanUps, result, null, fStatistics);
 			} catch (CoreException e) {
 				throw new FixCalculationException(e);
 			}
 
 			if (solution != null) {
-				integrateSolution(solution, context.getCompilationUnit());
+				synchronized (fLock) {
+					integrateSolution(solution, context.getCompilationUnit());
+				}
 			}
 
 			return result.toArray(new ICleanUp[result.size()]);
@@ -328,10 +361,13 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 		private final Hashtable<ICompilationUnit, List<CleanUpChange>> fSolutions;
 		private final Hashtable<ICompilationUnit, ICompilationUnit> fWorkingCopies; // map from primary to working copy
 		private final Map<String, String> fCleanUpOptions;
+		private final Object fLock= new Object();
+		private final CleanUpTarget[] fTargets;
 		private final int fSize;
 		private int fIndex;
 
 		public CleanUpFixpointIterator(CleanUpTarget[] targets, ICleanUp[] cleanUps) {
+			fTargets= targets;
 			fSolutions= new Hashtable<>(targets.length);
 			fWorkingCopies= new Hashtable<>();
 
@@ -380,7 +416,8 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 				}
 
 				CleanUpRefactoringProgressMonitor cuMonitor= new CleanUpRefactoringProgressMonitor(monitor, parseList.size() + sourceList.size(), fSize, fIndex);
-				CleanUpASTRequestor requestor= new CleanUpASTRequestor(fParseList, fSolutions, cuMonitor);
+				CleanUpASTRequestor requestor= null;
+				List<ParseListElement> undoneElements= new ArrayList<>();
 				if (parseList.size() > 0) {
 					ASTBatchParser parser= new ASTBatchParser() {
 						@Override
@@ -396,12 +433,19 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 					};
 					try {
 						ICompilationUnit[] units= parseList.toArray(new ICompilationUnit[parseList.size()]);
-						parser.createASTs(units, new String[0], requestor, cuMonitor);
+						if (fParallelism > 1 && units.length > 1) {
+							undoneElements.addAll(createASTsInParallel(parser, units, cuMonitor));
+						} else {
+							requestor= new CleanUpASTRequestor(fParseList, fSolutions, cuMonitor, fLock, fStatistics);
+							parser.createASTs(units, new String[0], requestor, cuMonitor);
+						}
 					} catch (FixCalculationException e) {
 						throw e.getException();
 					}
 				}
 
+				if (requestor == null && !sourceList.isEmpty())
+					requestor= new CleanUpASTRequestor(fParseList, fSolutions, cuMonitor, fLock, fStatistics);
 				for (ICompilationUnit cu : sourceList) {
 					monitor.worked(1);
 
@@ -411,12 +455,142 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 						throw new OperationCanceledException();
 				}
 
-				fParseList= requestor.getUndoneElements();
+				if (requestor != null)
+					undoneElements.addAll(requestor.getUndoneElements());
+				fParseList= undoneElements;
+				if (fStatistics != null)
+					fStatistics.iterationDone(undoneElements.size());
 				fIndex= cuMonitor.getIndex();
 			} finally {
 			}
 		}
 
+		/**
+		 * Parses the given units on a pool of {@link #fParallelism} threads. The units are
+		 * partitioned such that units of the same package end up in the same partition. The
+		 * partitions compute their fixes concurrently, but each clean up only works on one unit at
+		 * a time. The undone elements are returned in partition order to keep the following rounds
+		 * independent of thread scheduling.
+		 *
+		 * @param parser the parser to use
+		 * @param units the units to parse
+		 * @param monitor the monitor to report progress to, only accessed from the calling thread
+		 * @return the elements which need another round
+		 * @throws CoreException if a clean up failed
+		 */
+		private List<ParseListElement> createASTsInParallel(ASTBatchParser parser, ICompilationUnit[] units, CleanUpRefactoringProgressMonitor monitor) throws CoreException {
+			List<ICompilationUnit[]> partitions= partition(units);
+			List<CleanUpASTRequestor> requestors= new ArrayList<>(partitions.size());
+			List<Future<?>> futures= new ArrayList<>(partitions.size());
+
+			final IProgressMonitor cancelMonitor= new NullProgressMonitor() {
+				@Override
+				public boolean isCanceled() {
+					return super.isCanceled() || monitor.isCanceled();
+				}
+			};
+
+			monitor.beginTask("", units.length); //$NON-NLS-1$
+			ForkJoinPool pool= new ForkJoinPool(fParallelism);
+			try {
+				for (ICompilationUnit[] partition : partitions) {
+					CleanUpRefactoringProgressMonitor partitionMonitor= new CleanUpRefactoringProgressMonitor(cancelMonitor, partition.length, fSize, fIndex);
+					CleanUpASTRequestor partitionRequestor= new CleanUpASTRequestor(fParseList, fSolutions, partitionMonitor, fLock, fStatistics);
+					requestors.add(partitionRequestor);
+					futures.add(pool.submit(() -> parser.createASTs(partition, new String[0], partitionRequestor, partitionMonitor)));
+				}
+
+				List<ParseListElement> result= new ArrayList<>();
+				for (int i= 0; i < futures.size(); i++) {
+					waitFor(futures.get(i), monitor);
+					for (int j= 0; j < partitions.get(i).length; j++) {
+						monitor.worked(1);
+						monitor.flush();
+					}
+					result.addAll(requestors.get(i).getUndoneElements());
+				}
+				return result;
+			} finally {
+				// stop the other partitions if a partition failed or the operation has been cancelled
+				cancelMonitor.setCanceled(true);
+				pool.shutdownNow();
+				awaitTermination(pool);
+			}
+		}
+
+		/**
+		 * Waits until the partitions still running have noticed the cancellation, such that no
+		 * partition touches the solutions after this round is over.
+		 *
+		 * @param pool the pool which has been shut down
+		 */
+		private void awaitTermination(ForkJoinPool pool) {
+			try {
+				while (!pool.awaitTermination(100, TimeUnit.MILLISECONDS)) {
+					// the parser checks the cancelled monitor between units
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		private void waitFor(Future<?> future, IProgressMonitor monitor) throws CoreException {
+			while (true) {
+				if (monitor.isCanceled())
+					throw new OperationCanceledException();
+				try {
+					future.get(100, TimeUnit.MILLISECONDS);
+					return;
+				} catch (TimeoutException e) {
+					// check for cancellation and wait again
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new OperationCanceledException();
+				} catch (ExecutionException e) {
+					Throwable cause= e.getCause();
+					if (cause instanceof FixCalculationException)
+						throw ((FixCalculationException)cause).getException();
+					if (cause instanceof RuntimeException)
+						throw (RuntimeException)cause;
+					if (cause instanceof Error)
+						throw (Error)cause;
+					throw new CoreException(new Status(IStatus.ERROR, JavaPlugin.getPluginId(), IJavaStatusConstants.INTERNAL_ERROR, cause.getMessage(), cause));
+				}
+			}
+		}
+
+		/**
+		 * Splits <code>units</code> into about four partitions per thread. Units are grouped by
+		 * package first such that a partition shares as much binding environment as possible.
+		 *
+		 * @param units the units to split
+		 * @return the partitions, never empty
+		 */
+		private List<ICompilationUnit[]> partition(ICompilationUnit[] units) {
+			Map<IJavaElement, List<ICompilationUnit>> byPackage= new LinkedHashMap<>();
+			for (ICompilationUnit unit : units) {
+				byPackage.computeIfAbsent(unit.getParent(), k -> new ArrayList<>()).add(unit);
+			}
+
+			int partitionCount= fParallelism * 4;
+			int partitionSize= Math.max(1, (units.length + partitionCount - 1) / partitionCount);
+
+			List<ICompilationUnit[]> result= new ArrayList<>();
+			List<ICompilationUnit> current= new ArrayList<>(partitionSize);
+			for (List<ICompilationUnit> packageUnits : byPackage.values()) {
+				for (ICompilationUnit unit : packageUnits) {
+					current.add(unit);
+					if (current.size() == partitionSize) {
+						result.add(current.toArray(new ICompilationUnit[current.size()]));
+						current.clear();
+					}
+				}
+			}
+			if (!current.isEmpty())
+				result.add(current.toArray(new ICompilationUnit[current.size()]));
+			return result;
+		}
+
 		public void dispose() {
 			for (ICompilationUnit cu : fWorkingCopies.values()) {
 				try {
@@ -437,13 +611,21 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 			return false;
 		}
 
+		public boolean hasChange(ICompilationUnit unit) {
+			return fSolutions.containsKey(unit.getPrimary());
+		}
+
 		public Change[] getResult() {
 
+			// Iterate in target order such that the result does not depend on the order the ASTs were accepted
 			Change[] result= new Change[fSolutions.size()];
+			HashSet<ICompilationUnit> added= new HashSet<>();
 			int i=0;
-			for (Entry<ICompilationUnit, List<CleanUpChange>> entry : fSolutions.entrySet()) {
-				List<CleanUpChange> changes= entry.getValue();
-				ICompilationUnit unit= entry.getKey();
+			for (CleanUpTarget target : fTargets) {
+				ICompilationUnit unit= target.getCompilationUnit().getPrimary();
+				List<CleanUpChange> changes= fSolutions.get(unit);
+				if (changes == null || !added.add(unit))
+					continue;
 
 				int saveMode;
 				if (fLeaveFilesDirty) {
@@ -501,6 +683,18 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 	 */
 	private static final int SLOW_CLEAN_UP_THRESHOLD= 2000;
 
+	/**
+	 * The default number of threads used to parse the compilation units of a project, can be
+	 * set with the <code>org.eclipse.jdt.ui.cleanup.parallelism</code> system property.
+	 */
+	private static final int DEFAULT_PARALLELISM= Math.max(1, Integer.getInteger("org.eclipse.jdt.ui.cleanup.parallelism", 1).intValue()); //$NON-NLS-1$
+
+	/**
+	 * Whether the {@link CleanUpResultCache} is used by default, can be set with the
+	 * <code>org.eclipse.jdt.ui.cleanup.resultCache</code> system property.
+	 */
+	private static final boolean DEFAULT_USE_RESULT_CACHE= Boolean.getBoolean("org.eclipse.jdt.ui.cleanup.resultCache"); //$NON-NLS-1$
+
 	private final List<ICleanUp> fCleanUps;
 	private final Hashtable<IJavaProject, List<CleanUpTarget>> fProjects;
 	private Change fChange;
@@ -509,6 +703,15 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 
 	private boolean fUseOptionsFromProfile;
 
+	private int fParallelism;
+
+	private boolean fUseResultCache;
+	private CleanUpResultCache fResultCache;
+
+	private boolean fCollectStatistics;
+
+	private CleanUpStatistics fStatistics;
+
 	public CleanUpRefactoring() {
 		this(FixMessages.CleanUpRefactoring_Refactoring_name);
 	}
@@ -518,12 +721,74 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 		fCleanUps= new ArrayList<>();
 		fProjects= new Hashtable<>();
 		fUseOptionsFromProfile= false;
+		fParallelism= DEFAULT_PARALLELISM;
+		fUseResultCache= DEFAULT_USE_RESULT_CACHE;
 	}
 
 	public void setUseOptionsFromProfile(boolean enabled) {
 		fUseOptionsFromProfile= enabled;
 	}
 
+	/**
+	 * Sets the number of threads used to clean up the compilation units of a project. With a value
+	 * greater than one the units are split into partitions which are parsed and cleaned up
+	 * concurrently. A clean up instance is only used for one unit at a time, but different clean
+	 * ups run concurrently on different units. Clean ups must therefore not share mutable state
+	 * with other clean up instances, e.g. in static fields. The changes are merged into the result
+	 * while holding a lock, and the resulting change is the same as the one of a sequential run.
+	 *
+	 * @param threads the number of threads, values smaller than one are treated as one
+	 */
+	public void setParallelism(int threads) {
+		fParallelism= Math.max(1, threads);
+	}
+
+	public int getParallelism() {
+		return fParallelism;
+	}
+
+	/**
+	 * Sets whether timing and allocation figures are collected while the change is calculated. The
+	 * figures of the last run are available from {@link #getStatistics()}.
+	 *
+	 * @param enabled <code>true</code> to collect statistics
+	 */
+	public void setCollectStatistics(boolean enabled) {
+		fCollectStatistics= enabled;
+	}
+
+	/**
+	 * @return the statistics of the last calculation of the change or <code>null</code> if none
+	 *         have been collected
+	 */
+	public CleanUpStatistics getStatistics() {
+		return fStatistics;
+	}
+
+	/**
+	 * Sets whether compilation units are skipped if neither their content nor the clean up
+	 * settings changed since a previous run which did not produce any change for them.
+	 *
+	 * @param enabled <code>true</code> to use the {@link CleanUpResultCache}
+	 */
+	public void setUseResultCache(boolean enabled) {
+		fUseResultCache= enabled;
+	}
+
+	/**
+	 * Sets the cache to use if enabled with {@link #setUseResultCache(boolean)}.
+	 *
+	 * @param cache the cache or <code>null</code> to use the shared
+	 *            {@link CleanUpResultCache#getDefault() cache}
+	 */
+	public void setResultCache(CleanUpResultCache cache) {
+		fResultCache= cache;
+	}
+
+	private CleanUpResultCache getResultCache() {
+		return fResultCache != null ? fResultCache : CleanUpResultCache.getDefault();
+	}
+
 	public void addCompilationUnit(ICompilationUnit unit) {
 		addCleanUpTarget(new CleanUpTarget(unit));
 	}
@@ -621,12 +886,16 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 		int cuCount= getCleanUpTargetsSize();
 
 		RefactoringStatus result= new RefactoringStatus();
+		fStatistics= fCollectStatistics ? new CleanUpStatistics() : null;
 
 		ICleanUp[] cleanUps= getCleanUps();
 		pm.beginTask("", cuCount * 2 * fCleanUps.size() + 4 * cleanUps.length); //$NON-NLS-1$
 		try {
 			DynamicValidationStateChange change= new DynamicValidationStateChange(getName());
 			change.setSchedulingRule(getSchedulingRule());
+			// the children are compilation unit changes of distinct units
+			change.setParallelValidation(true);
+			change.setBatchedPerform(true);
 			for (Entry<IJavaProject, List<CleanUpTarget>> entry : fProjects.entrySet()) {
 				IJavaProject project= entry.getKey();
 				List<CleanUpTarget> targetsList= entry.getValue();
@@ -648,6 +917,8 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 				}
 			}
 			fChange= change;
+			if (fUseResultCache)
+				getResultCache().save();
 
 			List<IResource> files= new ArrayList<>();
 			findFilesToBeModified(change, files);
@@ -672,6 +943,39 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 	}
 
 	private Change[] cleanUpProject(IJavaProject project, CleanUpTarget[] targets, ICleanUp[] cleanUps, IProgressMonitor monitor) throws CoreException {
+		CleanUpResultCache cache= null;
+		long settingsHash= CleanUpResultCache.NO_HASH;
+		Map<CleanUpTarget, Long> contentHashes= null;
+		if (fUseResultCache) {
+			settingsHash= CleanUpResultCache.computeSettingsHash(project, cleanUps);
+			if (settingsHash != CleanUpResultCache.NO_HASH) {
+				cache= getResultCache();
+				contentHashes= new Hashtable<>(targets.length);
+				List<CleanUpTarget> changed= new ArrayList<>(targets.length);
+				for (CleanUpTarget target : targets) {
+					if (target instanceof MultiFixTarget) {
+						changed.add(target);
+						continue;
+					}
+					ICompilationUnit unit= target.getCompilationUnit();
+					String source= unit.getSource();
+					if (source == null) {
+						changed.add(target);
+						continue;
+					}
+					long contentHash= CleanUpResultCache.computeContentHash(source);
+					if (!cache.isUnchanged(unit, contentHash, settingsHash)) {
+						contentHashes.put(target, Long.valueOf(contentHash));
+						changed.add(target);
+					}
+				}
+				if (changed.size() < targets.length) {
+					monitor.worked(2 * (targets.length - changed.size()) * cleanUps.length);
+					targets= changed.toArray(new CleanUpTarget[changed.size()]);
+				}
+			}
+		}
+
 		CleanUpFixpointIterator iter= new CleanUpFixpointIterator(targets, cleanUps);
 
 		SubProgressMonitor subMonitor= new SubProgressMonitor(monitor, 2 * targets.length * cleanUps.length);
@@ -682,6 +986,17 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 				iter.next(subMonitor);
 			}
 
+			if (cache != null) {
+				for (Entry<CleanUpTarget, Long> entry : contentHashes.entrySet()) {
+					ICompilationUnit unit= entry.getKey().getCompilationUnit();
+					if (iter.hasChange(unit)) {
+						cache.remove(unit);
+					} else {
+						cache.setUnchanged(unit, entry.getValue().longValue(), settingsHash);
+					}
+				}
+			}
+
 			return iter.getResult();
 		} finally {
 			iter.dispose();
@@ -755,6 +1070,22 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 	}
 
 	public static CleanUpChange calculateChange(CleanUpContext context, ICleanUp[] cleanUps, List<ICleanUp> undoneCleanUps, HashSet<ICleanUp> slowCleanUps) throws CoreException {
+		return calculateChange(context, cleanUps, undoneCleanUps, slowCleanUps, null);
+	}
+
+	/**
+	 * Calculates the change of the given clean ups and records the time and the bytes allocated
+	 * for each clean up in <code>statistics</code>.
+	 *
+	 * @param context the context of the compilation unit to clean up
+	 * @param cleanUps the clean ups to apply
+	 * @param undoneCleanUps collects the clean ups which have to run again on a fresh AST
+	 * @param slowCleanUps collects the clean ups slower than the threshold, or <code>null</code>
+	 * @param statistics the statistics to update or <code>null</code>
+	 * @return the change or <code>null</code> if none
+	 * @throws CoreException if a clean up failed
+	 */
+	public static CleanUpChange calculateChange(CleanUpContext context, ICleanUp[] cleanUps, List<ICleanUp> undoneCleanUps, HashSet<ICleanUp> slowCleanUps, CleanUpStatistics statistics) throws CoreException {
 		if (cleanUps.length == 0)
 			return null;
 
@@ -762,25 +1093,51 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 		int i= 0;
 		do {
 			ICleanUp cleanUp= cleanUps[i];
-			ICleanUpFix fix;
-			if (slowCleanUps != null) {
-				long timeBefore= System.currentTimeMillis();
-				fix= cleanUp.createFix(context);
-				if (System.currentTimeMillis() - timeBefore > SLOW_CLEAN_UP_THRESHOLD)
-					slowCleanUps.add(cleanUp);
-			} else {
-				fix= cleanUp.createFix(context);
+			CompilationUnitChange current;
+			long nanosBefore;
+			long bytesBefore;
+			long createFixNanos;
+			// clean ups may keep state of the unit between createFix and createChange, units
+			// cleaned up concurrently must therefore not share a clean up at the same time
+			synchronized (cleanUp) {
+				ICleanUpFix fix;
+				nanosBefore= statistics != null ? System.nanoTime() : 0;
+				bytesBefore= statistics != null ? CleanUpStatistics.getAllocatedBytes() : 0;
+				if (slowCleanUps != null) {
+					long timeBefore= System.currentTimeMillis();
+					fix= cleanUp.createFix(context);
+					if (System.currentTimeMillis() - timeBefore > SLOW_CLEAN_UP_THRESHOLD)
+						slowCleanUps.add(cleanUp);
+				} else {
+					fix= cleanUp.createFix(context);
+				}
+				createFixNanos= statistics != null ? System.nanoTime() - nanosBefore : 0;
+				current= fix != null ? fix.createChange(null) : null;
 			}
-			if (fix != null) {
-				CompilationUnitChange current= fix.createChange(null);
+			if (current != null) {
 				TextEdit currentEdit= current.getEdit();
 
+				if (statistics != null)
+					recordFix(statistics, cleanUp, context, true, createFixNanos, nanosBefore, bytesBefore);
+
 				if (solution != null) {
-					if (TextEditUtil.overlaps(currentEdit, solution.getEdit())) {
+					TextEdit mergedEdit= null;
+					if (!TextEditUtil.overlaps(currentEdit, solution.getEdit())) {
+						mergedEdit= TextEditUtil.merge(currentEdit, solution.getEdit());
+					} else if (hasOnlyLeafGroups(current) && hasOnlyLeafGroups(solution)) {
+						// try to avoid another parse round for this unit
+						mergedEdit= TextEditUtil.rebase(currentEdit, solution.getEdit());
+						if (mergedEdit != null && statistics != null)
+							statistics.rebased(cleanUp);
+					}
+
+					if (mergedEdit == null) {
 						undoneCleanUps.add(cleanUp);
+						if (statistics != null)
+							statistics.overlapped(cleanUp);
 					} else {
 						CleanUpChange merge= new CleanUpChange(FixMessages.CleanUpRefactoring_clean_up_multi_chang_name, context.getCompilationUnit());
-						merge.setEdit(TextEditUtil.merge(currentEdit, solution.getEdit()));
+						merge.setEdit(mergedEdit);
 
 						copyChangeGroups(merge, solution);
 						copyChangeGroups(merge, current);
@@ -793,6 +1150,8 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 
 					copyChangeGroups(solution, current);
 				}
+			} else if (statistics != null) {
+				recordFix(statistics, cleanUp, context, false, createFixNanos, nanosBefore, bytesBefore);
 			}
 			i++;
 		} while (i < cleanUps.length && (context.getAST() == null || !cleanUps[i].getRequirements().requiresFreshAST()));
@@ -803,6 +1162,28 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 		return solution;
 	}
 
+	/**
+	 * Rebasing flattens the edit trees, change groups must therefore not refer to inner nodes.
+	 *
+	 * @param change the change to inspect
+	 * @return <code>true</code> if all edits of the change groups are leafs
+	 */
+	private static boolean hasOnlyLeafGroups(CompilationUnitChange change) {
+		for (TextEditBasedChangeGroup changeGroup : change.getChangeGroups()) {
+			for (TextEdit textEdit : changeGroup.getTextEditGroup().getTextEdits()) {
+				if (textEdit.hasChildren() || textEdit instanceof MultiTextEdit)
+					return false;
+			}
+		}
+		return true;
+	}
+
+	private static void recordFix(CleanUpStatistics statistics, ICleanUp cleanUp, CleanUpContext context, boolean hasFix, long createFixNanos, long nanosBefore, long bytesBefore) {
+		long nanos= System.nanoTime() - nanosBefore;
+		long bytes= bytesBefore >= 0 ? CleanUpStatistics.getAllocatedBytes() - bytesBefore : -1;
+		statistics.fixCreated(cleanUp, context.getCompilationUnit(), hasFix, createFixNanos, nanos, bytes);
+	}
+
 	private static void copyChangeGroups(CompilationUnitChange target, CompilationUnitChange source) {
 		for (TextEditBasedChangeGroup changeGroup : source.getChangeGroups()) {
 			TextEditGroup textEditGroup= changeGroup.getTextEditGroup();
@@ -0,0 +1,266 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.corext.fix;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.eclipse.jdt.core.IClasspathEntry;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaModelException;
+
+import org.eclipse.jdt.ui.cleanup.CleanUpOptions;
+import org.eclipse.jdt.ui.cleanup.ICleanUp;
+
+import org.eclipse.jdt.internal.ui.JavaPlugin;
+import org.eclipse.jdt.internal.ui.fix.AbstractCleanUp;
+
+/**
+ * Remembers compilation units for which a clean up run did not produce any change. An entry is
+ * keyed by the handle identifier of the compilation unit and records a hash of the content of the
+ * unit and a hash of the clean up settings, i.e. the clean ups with their options, the compiler
+ * options and the class path of the project. A unit is skipped by {@link CleanUpRefactoring} if
+ * both hashes still match.
+ * <p>
+ * Clean ups may depend on other compilation units through bindings, a change in such a unit is
+ * not detected. The cache is therefore only used if enabled with
+ * {@link CleanUpRefactoring#setUseResultCache(boolean)}.
+ * </p>
+ * <p>
+ * The cache is bounded to {@link #MAX_SIZE} entries and is stored in the state location of the
+ * plug-in.
+ * </p>
+ */
+public final class CleanUpResultCache {
+
+	private static final String FILE_NAME= "cleanUpResultCache.dat"; //$NON-NLS-1$
+	private static final int VERSION= 1;
+	private static final int MAX_SIZE= 100000;
+
+	/**
+	 * Value returned by {@link #computeSettingsHash(IJavaProject, ICleanUp[])} if the settings
+	 * can not be hashed, the cache must not be used in this case.
+	 */
+	public static final long NO_HASH= 0;
+
+	private static final class CacheEntry {
+		final long fContentHash;
+		final long fSettingsHash;
+
+		CacheEntry(long contentHash, long settingsHash) {
+			fContentHash= contentHash;
+			fSettingsHash= settingsHash;
+		}
+	}
+
+	private static CleanUpResultCache fgDefault;
+
+	private final LinkedHashMap<String, CacheEntry> fEntries;
+	private final File fFile;
+	private boolean fDirty;
+
+	/**
+	 * @return the shared cache, loaded from the state location on first access
+	 */
+	public static synchronized CleanUpResultCache getDefault() {
+		if (fgDefault == null) {
+			fgDefault= new CleanUpResultCache(JavaPlugin.getDefault().getStateLocation().append(FILE_NAME).toFile());
+		}
+		return fgDefault;
+	}
+
+	/**
+	 * Creates a cache stored in <code>file</code> and loads the entries saved there.
+	 *
+	 * @param file the file to load the cache from and to save it to
+	 */
+	public CleanUpResultCache(File file) {
+		fFile= file;
+		fEntries= new LinkedHashMap<String, CacheEntry>(16, 0.75f, true) {
+			private static final long serialVersionUID= 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+				return size() > MAX_SIZE;
+			}
+		};
+		load();
+	}
+
+	/**
+	 * @param unit the compilation unit
+	 * @param contentHash the hash of the current content, see {@link #computeContentHash(String)}
+	 * @param settingsHash the hash of the current settings
+	 * @return <code>true</code> if the last clean up of <code>unit</code> with the same content
+	 *         and settings did not produce any change
+	 */
+	public synchronized boolean isUnchanged(ICompilationUnit unit, long contentHash, long settingsHash) {
+		if (settingsHash == NO_HASH)
+			return false;
+
+		CacheEntry entry= fEntries.get(unit.getHandleIdentifier());
+		return entry != null && entry.fContentHash == contentHash && entry.fSettingsHash == settingsHash;
+	}
+
+	/**
+	 * Records that cleaning up <code>unit</code> did not produce any change.
+	 *
+	 * @param unit the compilation unit
+	 * @param contentHash the hash of the content which was cleaned up
+	 * @param settingsHash the hash of the settings used
+	 */
+	public synchronized void setUnchanged(ICompilationUnit unit, long contentHash, long settingsHash) {
+		if (settingsHash == NO_HASH)
+			return;
+
+		fEntries.put(unit.getHandleIdentifier(), new CacheEntry(contentHash, settingsHash));
+		fDirty= true;
+	}
+
+	/**
+	 * Forgets about <code>unit</code>, to be called if cleaning up the unit produced a change.
+	 *
+	 * @param unit the compilation unit
+	 */
+	public synchronized void remove(ICompilationUnit unit) {
+		if (fEntries.remove(unit.getHandleIdentifier()) != null)
+			fDirty= true;
+	}
+
+	public synchronized void clear() {
+		fEntries.clear();
+		fDirty= true;
+	}
+
+	public synchronized int size() {
+		return fEntries.size();
+	}
+
+	/**
+	 * Writes the cache to disk if it has been modified since it was loaded or last saved.
+	 */
+	public synchronized void save() {
+		if (!fDirty)
+			return;
+
+		try (DataOutputStream out= new DataOutputStream(new BufferedOutputStream(new FileOutputStream(fFile)))) {
+			out.writeInt(VERSION);
+			out.writeInt(fEntries.size());
+			for (Entry<String, CacheEntry> entry : fEntries.entrySet()) {
+				out.writeUTF(entry.getKey());
+				out.writeLong(entry.getValue().fContentHash);
+				out.writeLong(entry.getValue().fSettingsHash);
+			}
+			fDirty= false;
+		} catch (IOException e) {
+			JavaPlugin.log(e);
+		}
+	}
+
+	private void load() {
+		if (!fFile.exists())
+			return;
+
+		try (DataInputStream in= new DataInputStream(new BufferedInputStream(new FileInputStream(fFile)))) {
+			if (in.readInt() != VERSION)
+				return;
+
+			int size= in.readInt();
+			for (int i= 0; i < size; i++) {
+				String key= in.readUTF();
+				long contentHash= in.readLong();
+				long settingsHash= in.readLong();
+				fEntries.put(key, new CacheEntry(contentHash, settingsHash));
+			}
+		} catch (IOException e) {
+			// a corrupt cache is as good as no cache
+			fEntries.clear();
+			JavaPlugin.log(e);
+		}
+	}
+
+	/**
+	 * @param content the content of a compilation unit
+	 * @return a 64 bit hash of <code>content</code>
+	 */
+	public static long computeContentHash(String content) {
+		return hash(content);
+	}
+
+	/**
+	 * Computes a hash of everything except the content of a compilation unit which has an
+	 * influence on the result of a clean up run in <code>project</code>.
+	 *
+	 * @param project the project the clean ups run in
+	 * @param cleanUps the clean ups, must have been configured for <code>project</code>
+	 * @return the hash or {@link #NO_HASH} if a clean up does not expose its options
+	 * @throws JavaModelException if the class path of the project can not be accessed
+	 */
+	public static long computeSettingsHash(IJavaProject project, ICleanUp[] cleanUps) throws JavaModelException {
+		StringBuilder buf= new StringBuilder();
+		for (ICleanUp cleanUp : cleanUps) {
+			if (!(cleanUp instanceof AbstractCleanUp))
+				return NO_HASH;
+
+			CleanUpOptions options= ((AbstractCleanUp)cleanUp).getOptions();
+			if (options == null)
+				return NO_HASH;
+
+			buf.append(cleanUp.getClass().getName()).append('{');
+			for (String key : new TreeSet<>(options.getKeys())) {
+				buf.append(key).append('=').append(options.getValue(key)).append(';');
+			}
+			buf.append('}');
+		}
+
+		for (Entry<String, String> entry : new TreeMap<>(project.getOptions(true)).entrySet()) {
+			buf.append(entry.getKey()).append('=').append(entry.getValue()).append(';');
+		}
+		for (IClasspathEntry entry : project.getRawClasspath()) {
+			buf.append(entry.toString()).append(';');
+		}
+
+		long result= hash(buf.toString());
+		return result == NO_HASH ? 1 : result;
+	}
+
+	private static long hash(String value) {
+		try {
+			byte[] digest= MessageDigest.getInstance("SHA-1").digest(value.getBytes(StandardCharsets.UTF_8)); //$NON-NLS-1$
+			long result= 0;
+			for (int i= 0; i < 8; i++) {
+				result= (result << 8) | (digest[i] & 0xFF);
+			}
+			return result;
+		} catch (NoSuchAlgorithmException e) {
+			// SHA-1 is required to be supported by every JRE
+			throw new IllegalStateException(e);
+		}
+	}
+}
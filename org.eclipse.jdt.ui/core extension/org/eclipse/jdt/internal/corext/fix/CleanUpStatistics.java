@@ -0,0 +1,316 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.corext.fix;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+
+import org.eclipse.jdt.ui.cleanup.ICleanUp;
+
+/**
+ * Collects timing and allocation figures of a clean up run: the cumulative time and allocated
+ * bytes per clean up, the time spent in {@link ICleanUp#createFix(org.eclipse.jdt.ui.cleanup.CleanUpContext)}
+ * per compilation unit, the number of fixpoint iterations and the number of compilation units
+ * which had to be parsed again, e.g. because edits of clean ups overlapped.
+ * <p>
+ * Allocated bytes are only available on VMs supporting
+ * <code>com.sun.management.ThreadMXBean#getThreadAllocatedBytes(long)</code>, they are reported as
+ * <code>-1</code> otherwise.
+ * </p>
+ *
+ * @see CleanUpRefactoring#setCollectStatistics(boolean)
+ */
+public final class CleanUpStatistics {
+
+	/**
+	 * The figures of one clean up.
+	 */
+	public static final class CleanUpStatistic {
+
+		private final String fName;
+		private int fInvocations;
+		private int fFixes;
+		private int fOverlaps;
+		private int fRebases;
+		private long fNanos;
+		private long fAllocatedBytes;
+
+		private CleanUpStatistic(String name) {
+			fName= name;
+		}
+
+		/**
+		 * @return the class name of the clean up
+		 */
+		public String getName() {
+			return fName;
+		}
+
+		/**
+		 * @return how often a fix has been requested from the clean up
+		 */
+		public int getInvocations() {
+			return fInvocations;
+		}
+
+		/**
+		 * @return how many fixes the clean up returned
+		 */
+		public int getFixes() {
+			return fFixes;
+		}
+
+		/**
+		 * @return how often the fix of the clean up was rejected because it overlapped with other
+		 *         fixes
+		 */
+		public int getOverlaps() {
+			return fOverlaps;
+		}
+
+		/**
+		 * @return how often an overlapping fix of the clean up could be rebased onto the other
+		 *         fixes, i.e. how often a parse round was saved
+		 */
+		public int getRebases() {
+			return fRebases;
+		}
+
+		/**
+		 * @return the cumulative wall time spent in creating fixes and changes, in nanoseconds
+		 */
+		public long getNanos() {
+			return fNanos;
+		}
+
+		/**
+		 * @return the cumulative bytes allocated while creating fixes and changes, or -1 if not
+		 *         supported by the VM
+		 */
+		public long getAllocatedBytes() {
+			return fAllocatedBytes;
+		}
+	}
+
+	private static final Method GET_THREAD_ALLOCATED_BYTES;
+	static {
+		Method method= null;
+		try {
+			Class<?> clazz= Class.forName("com.sun.management.ThreadMXBean", false, ClassLoader.getSystemClassLoader()); //$NON-NLS-1$
+			if (clazz.isInstance(ManagementFactory.getThreadMXBean())) {
+				method= clazz.getMethod("getThreadAllocatedBytes", long.class); //$NON-NLS-1$
+			}
+		} catch (ClassNotFoundException | NoSuchMethodException | SecurityException e) {
+			// not supported by this VM
+		}
+		GET_THREAD_ALLOCATED_BYTES= method;
+	}
+
+	private final Map<ICleanUp, CleanUpStatistic> fCleanUps;
+	private final Map<String, Long> fUnitNanos;
+	private int fIterations;
+	private int fReruns;
+	private int fRebases;
+
+	public CleanUpStatistics() {
+		fCleanUps= new LinkedHashMap<>();
+		fUnitNanos= new LinkedHashMap<>();
+	}
+
+	/**
+	 * @return the bytes allocated by the current thread so far or -1 if not supported
+	 */
+	static long getAllocatedBytes() {
+		if (GET_THREAD_ALLOCATED_BYTES == null)
+			return -1;
+
+		try {
+			ThreadMXBean bean= ManagementFactory.getThreadMXBean();
+			return ((Long)GET_THREAD_ALLOCATED_BYTES.invoke(bean, Long.valueOf(Thread.currentThread().getId()))).longValue();
+		} catch (ReflectiveOperationException | IllegalArgumentException e) {
+			return -1;
+		}
+	}
+
+	synchronized void fixCreated(ICleanUp cleanUp, ICompilationUnit unit, boolean hasFix, long createFixNanos, long nanos, long allocatedBytes) {
+		CleanUpStatistic statistic= getStatistic(cleanUp);
+		statistic.fInvocations++;
+		if (hasFix)
+			statistic.fFixes++;
+		statistic.fNanos+= nanos;
+		if (allocatedBytes >= 0 && statistic.fAllocatedBytes >= 0) {
+			statistic.fAllocatedBytes+= allocatedBytes;
+		} else {
+			statistic.fAllocatedBytes= -1;
+		}
+
+		String key= unit.getPrimary().getHandleIdentifier();
+		Long current= fUnitNanos.get(key);
+		fUnitNanos.put(key, Long.valueOf(current == null ? createFixNanos : current.longValue() + createFixNanos));
+	}
+
+	synchronized void overlapped(ICleanUp cleanUp) {
+		getStatistic(cleanUp).fOverlaps++;
+	}
+
+	synchronized void rebased(ICleanUp cleanUp) {
+		getStatistic(cleanUp).fRebases++;
+		fRebases++;
+	}
+
+	synchronized void iterationDone(int reruns) {
+		fIterations++;
+		fReruns+= reruns;
+	}
+
+	private CleanUpStatistic getStatistic(ICleanUp cleanUp) {
+		CleanUpStatistic statistic= fCleanUps.get(cleanUp);
+		if (statistic == null) {
+			statistic= new CleanUpStatistic(cleanUp.getClass().getName());
+			fCleanUps.put(cleanUp, statistic);
+		}
+		return statistic;
+	}
+
+	/**
+	 * @return the figures per clean up, the most expensive clean up first
+	 */
+	public synchronized List<CleanUpStatistic> getCleanUpStatistics() {
+		List<CleanUpStatistic> result= new ArrayList<>(fCleanUps.values());
+		Collections.sort(result, Comparator.comparingLong(CleanUpStatistic::getNanos).reversed());
+		return result;
+	}
+
+	/**
+	 * @return map from handle identifier of a compilation unit to the time in nanoseconds spent to
+	 *         create the fixes for it
+	 */
+	public synchronized Map<String, Long> getUnitNanos() {
+		return new LinkedHashMap<>(fUnitNanos);
+	}
+
+	/**
+	 * @return the number of fixpoint iterations, over all projects
+	 */
+	public synchronized int getIterations() {
+		return fIterations;
+	}
+
+	/**
+	 * @return the number of compilation units which had to be parsed again because not all clean
+	 *         ups could be applied in one iteration
+	 */
+	public synchronized int getReruns() {
+		return fReruns;
+	}
+
+	/**
+	 * @return the number of overlapping fixes which could be rebased instead of being calculated
+	 *         again in another iteration
+	 */
+	public synchronized int getRebases() {
+		return fRebases;
+	}
+
+	/**
+	 * Writes the figures per clean up as comma separated values, one clean up per line.
+	 *
+	 * @param writer the writer to write to
+	 * @throws IOException if writing fails
+	 */
+	public synchronized void writeCSV(Writer writer) throws IOException {
+		writer.write("cleanUp,invocations,fixes,overlaps,rebases,nanos,allocatedBytes\n"); //$NON-NLS-1$
+		for (CleanUpStatistic statistic : getCleanUpStatistics()) {
+			writer.write(statistic.getName());
+			writer.write(',');
+			writer.write(String.valueOf(statistic.getInvocations()));
+			writer.write(',');
+			writer.write(String.valueOf(statistic.getFixes()));
+			writer.write(',');
+			writer.write(String.valueOf(statistic.getOverlaps()));
+			writer.write(',');
+			writer.write(String.valueOf(statistic.getRebases()));
+			writer.write(',');
+			writer.write(String.valueOf(statistic.getNanos()));
+			writer.write(',');
+			writer.write(String.valueOf(statistic.getAllocatedBytes()));
+			writer.write('\n');
+		}
+	}
+
+	/**
+	 * Writes all figures as a JSON object.
+	 *
+	 * @param writer the writer to write to
+	 * @throws IOException if writing fails
+	 */
+	public synchronized void writeJSON(Writer writer) throws IOException {
+		writer.write("{\"iterations\":" + fIterations + ",\"reruns\":" + fReruns + ",\"rebases\":" + fRebases + ",\"cleanUps\":["); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+		boolean first= true;
+		for (CleanUpStatistic statistic : getCleanUpStatistics()) {
+			if (!first)
+				writer.write(',');
+			first= false;
+			writer.write("{\"name\":" + quote(statistic.getName()) //$NON-NLS-1$
+					+ ",\"invocations\":" + statistic.getInvocations() //$NON-NLS-1$
+					+ ",\"fixes\":" + statistic.getFixes() //$NON-NLS-1$
+					+ ",\"overlaps\":" + statistic.getOverlaps() //$NON-NLS-1$
+					+ ",\"rebases\":" + statistic.getRebases() //$NON-NLS-1$
+					+ ",\"nanos\":" + statistic.getNanos() //$NON-NLS-1$
+					+ ",\"allocatedBytes\":" + statistic.getAllocatedBytes() + '}'); //$NON-NLS-1$
+		}
+		writer.write("],\"units\":{"); //$NON-NLS-1$
+		first= true;
+		for (Map.Entry<String, Long> entry : fUnitNanos.entrySet()) {
+			if (!first)
+				writer.write(',');
+			first= false;
+			writer.write(quote(entry.getKey()) + ':' + entry.getValue());
+		}
+		writer.write("}}"); //$NON-NLS-1$
+	}
+
+	private static String quote(String value) {
+		StringBuilder buf= new StringBuilder(value.length() + 2);
+		buf.append('"');
+		for (int i= 0; i < value.length(); i++) {
+			char ch= value.charAt(i);
+			switch (ch) {
+				case '"':
+				case '\\':
+					buf.append('\\').append(ch);
+					break;
+				default:
+					if (ch < 0x20) {
+						buf.append(String.format("\\u%04x", Integer.valueOf(ch))); //$NON-NLS-1$
+					} else {
+						buf.append(ch);
+					}
+			}
+		}
+		buf.append('"');
+		return buf.toString();
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -57,7 +57,6 @@ public class RefactoringScanner {
 	private final String fName;
 	private final String fQualifier;
 
-	private IScanner fScanner;
 	private Set<TextMatch> fMatches; //Set<TextMatch>
 
 
@@ -70,9 +69,6 @@ public class RefactoringScanner {
 
 	public void scan(ICompilationUnit cu)	throws JavaModelException {
 		char[] chars= cu.getBuffer().getCharacters();
-		fMatches= new HashSet<>();
-		fScanner= ToolFactory.createScanner(true, true, false, true);
-		fScanner.setSource(chars);
 
 //		IImportContainer importContainer= cu.getImportContainer();
 //		if (importContainer.exists())
@@ -80,8 +76,7 @@ public class RefactoringScanner {
 //		else
 //			fNoFlyZone= null;
 
-		doScan();
-		fScanner= null;
+		fMatches= findMatches(chars);
 	}
 
 	/**
@@ -93,26 +88,62 @@ public class RefactoringScanner {
 	 * @param text the text
 	 */
 	public void scan(String text) {
-		char[] chars= text.toCharArray();
-		fMatches= new HashSet<>();
-		fScanner= ToolFactory.createScanner(true, true, false, true);
-		fScanner.setSource(chars);
-		doScan();
-		fScanner= null;
+		fMatches= findMatches(text.toCharArray());
 	}
 
-	private void doScan() {
+	/**
+	 * Finds the matches in the given source. Unlike {@link #scan(ICompilationUnit)}, this method
+	 * does not change the state of the scanner and can be called concurrently. A source which
+	 * does not contain the name at all is not tokenized.
+	 *
+	 * @param source the source
+	 * @return the set of {@link TextMatch}es
+	 */
+	public Set<TextMatch> findMatches(char[] source) {
+		Set<TextMatch> matches= new HashSet<>();
+		if (!contains(source, fName)) {
+			return matches;
+		}
+		IScanner scanner= ToolFactory.createScanner(true, true, false, true);
+		scanner.setSource(source);
+		doScan(scanner, matches);
+		return matches;
+	}
+
+	private static boolean contains(char[] source, String name) {
+		int length= name.length();
+		if (length == 0) {
+			return true;
+		}
+		char first= name.charAt(0);
+		int last= source.length - length;
+		for (int i= 0; i <= last; i++) {
+			if (source[i] != first) {
+				continue;
+			}
+			int j= 1;
+			while (j < length && source[i + j] == name.charAt(j)) {
+				j++;
+			}
+			if (j == length) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void doScan(IScanner scanner, Set<TextMatch> matches) {
 		try{
-			int token = fScanner.getNextToken();
+			int token = scanner.getNextToken();
 			while (token != ITerminalSymbols.TokenNameEOF) {
 				switch (token) {
 					case ITerminalSymbols.TokenNameStringLiteral :
 					case ITerminalSymbols.TokenNameCOMMENT_JAVADOC :
 					case ITerminalSymbols.TokenNameCOMMENT_LINE :
 					case ITerminalSymbols.TokenNameCOMMENT_BLOCK :
-						parseCurrentToken();
+						parseCurrentToken(scanner, matches);
 				}
-				token = fScanner.getNextToken();
+				token = scanner.getNextToken();
 			}
 		} catch (InvalidInputException e){
 			//ignore
@@ -135,16 +166,16 @@ public class RefactoringScanner {
 		return true;
 	}
 
-	private void parseCurrentToken() {
+	private void parseCurrentToken(IScanner scanner, Set<TextMatch> matches) {
 		// only works for references without whitespace
-		String value = new String(fScanner.getRawTokenSource());
-		int start= fScanner.getCurrentTokenStartPosition();
+		String value = new String(scanner.getRawTokenSource());
+		int start= scanner.getCurrentTokenStartPosition();
 		int index= value.indexOf(fName);
 		while (index != -1) {
 			if (isWholeWord(value, index, index + fName.length())) {
 				int ok= isQualifierOK(value, index);
 				if (ok > NO_MATCH)
-					addMatch(start + index, ok);
+					addMatch(matches, start + index, ok);
 			}
 			index= value.indexOf(fName, index + 1);
 		}
@@ -211,8 +242,8 @@ public class RefactoringScanner {
 		return ".#".indexOf(c) != -1; //$NON-NLS-1$
 	}
 
-	private void addMatch(int matchStart, int matchCode) {
-		fMatches.add(new TextMatch(matchStart, matchCode == MATCH_QUALIFIED));
+	private static void addMatch(Set<TextMatch> matches, int matchStart, int matchCode) {
+		matches.add(new TextMatch(matchStart, matchCode == MATCH_QUALIFIED));
 	}
 
 	/**
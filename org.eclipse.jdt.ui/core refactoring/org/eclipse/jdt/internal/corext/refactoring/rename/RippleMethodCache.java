@@ -0,0 +1,296 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.corext.refactoring.rename;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.ITypeHierarchy;
+import org.eclipse.jdt.core.ITypeHierarchyChangedListener;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.core.WorkingCopyOwner;
+import org.eclipse.jdt.core.search.SearchMatch;
+
+import org.eclipse.jdt.internal.corext.util.JavaElementDeltas;
+
+/**
+ * Caches the ripple methods found by {@link RippleMethodFinder2} and the type hierarchies it
+ * computes, so that the refactorings which ask for the ripple methods of the same method again,
+ * or of other methods of the same class family, do not search and compute the hierarchies again.
+ * <p>
+ * Only the results and hierarchies of the primary working copy owner, passed as <code>null</code>,
+ * are cached; a cache entry must not keep another owner and its working copies alive. The ripple
+ * methods are keyed by the handle of the method and the kind of the search. They are discarded when a delta changes the structure of any Java element;
+ * changes of method bodies keep them. The hierarchies are discarded when they change. Both parts
+ * of the cache are bounded and evict the least recently used entries first.
+ * </p>
+ */
+public class RippleMethodCache {
+
+	/**
+	 * The default maximum number of cached ripple method results.
+	 */
+	public static final int DEFAULT_MAX_RESULTS= 100;
+
+	/**
+	 * The default maximum total number of types of the cached hierarchies.
+	 */
+	public static final int DEFAULT_MAX_HIERARCHY_SIZE= 20000;
+
+	static final class Result {
+		final IMethod[] fMethods;
+		final Map<IMethod, SearchMatch> fBinaryMatches;
+
+		Result(IMethod[] methods, Map<IMethod, SearchMatch> binaryMatches) {
+			fMethods= methods;
+			fBinaryMatches= binaryMatches;
+		}
+	}
+
+	private static final class Key {
+		private final String fHandle;
+		private final int fMode;
+
+		Key(IJavaElement element, int mode) {
+			fHandle= element.getHandleIdentifier();
+			fMode= mode;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(fHandle, Integer.valueOf(fMode));
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key))
+				return false;
+			Key other= (Key) obj;
+			return fHandle.equals(other.fHandle) && fMode == other.fMode;
+		}
+	}
+
+	private static final class HierarchyEntry implements ITypeHierarchyChangedListener {
+		final Key fKey;
+		final ITypeHierarchy fHierarchy;
+		final int fSize;
+
+		HierarchyEntry(Key key, ITypeHierarchy hierarchy) {
+			fKey= key;
+			fHierarchy= hierarchy;
+			fSize= hierarchy.getAllTypes().length;
+		}
+
+		@Override
+		public void typeHierarchyChanged(ITypeHierarchy typeHierarchy) {
+			removeHierarchy(this);
+		}
+	}
+
+	private static final Map<Key, Result> fgResults= new LinkedHashMap<>(16, 0.75f, true);
+	private static final Map<Key, HierarchyEntry> fgHierarchies= new LinkedHashMap<>(16, 0.75f, true);
+
+	private static int fgMaxResults= DEFAULT_MAX_RESULTS;
+	private static int fgMaxHierarchySize= DEFAULT_MAX_HIERARCHY_SIZE;
+	private static int fgHierarchySize= 0;
+
+	/**
+	 * Incremented for every structural change, a result found while the stamp changed may be
+	 * stale and is not cached.
+	 */
+	private static long fgStamp= 0;
+	private static IElementChangedListener fgListener;
+
+	private RippleMethodCache() {
+	}
+
+	/**
+	 * @return the stamp to pass to {@link #putResult(IMethod, WorkingCopyOwner, int, Result, long)}
+	 *         for a result that is about to be computed
+	 */
+	static synchronized long getStamp() {
+		return fgStamp;
+	}
+
+	static synchronized Result getResult(IMethod method, WorkingCopyOwner owner, int mode) {
+		if (owner != null)
+			return null;
+		return fgResults.get(new Key(method, mode));
+	}
+
+	static void putResult(IMethod method, WorkingCopyOwner owner, int mode, Result result, long stamp) {
+		if (owner != null)
+			return;
+		Key key= new Key(method, mode);
+		synchronized (RippleMethodCache.class) {
+			if (stamp != fgStamp || fgMaxResults <= 0)
+				return;
+			addListener();
+			fgResults.put(key, result);
+			Iterator<Result> iterator= fgResults.values().iterator();
+			while (fgResults.size() > fgMaxResults && iterator.hasNext()) {
+				iterator.next();
+				iterator.remove();
+			}
+		}
+	}
+
+	/**
+	 * Returns the complete type hierarchy of a type, from the cache if possible. Only the
+	 * hierarchies of the primary owner are cached.
+	 *
+	 * @param type the focus type
+	 * @param owner the working copy owner, or <code>null</code> for the primary owner
+	 * @param monitor the progress monitor
+	 * @return the hierarchy
+	 * @throws JavaModelException if the hierarchy cannot be computed
+	 */
+	static ITypeHierarchy getTypeHierarchy(IType type, WorkingCopyOwner owner, IProgressMonitor monitor) throws JavaModelException {
+		if (owner != null)
+			return type.newTypeHierarchy(owner, monitor);
+		Key key= new Key(type, 0);
+		synchronized (RippleMethodCache.class) {
+			HierarchyEntry entry= fgHierarchies.get(key);
+			if (entry != null)
+				return entry.fHierarchy;
+		}
+		ITypeHierarchy hierarchy= type.newTypeHierarchy(owner, monitor);
+		HierarchyEntry entry= new HierarchyEntry(key, hierarchy);
+		synchronized (RippleMethodCache.class) {
+			if (fgHierarchies.containsKey(key) || entry.fSize > fgMaxHierarchySize)
+				return hierarchy;
+			hierarchy.addTypeHierarchyChangedListener(entry);
+			fgHierarchies.put(key, entry);
+			fgHierarchySize+= entry.fSize;
+			Iterator<HierarchyEntry> iterator= fgHierarchies.values().iterator();
+			while (fgHierarchySize > fgMaxHierarchySize && iterator.hasNext()) {
+				HierarchyEntry evicted= iterator.next();
+				iterator.remove();
+				dispose(evicted);
+			}
+		}
+		return hierarchy;
+	}
+
+	private static synchronized void removeHierarchy(HierarchyEntry entry) {
+		if (fgHierarchies.get(entry.fKey) == entry) {
+			fgHierarchies.remove(entry.fKey);
+			dispose(entry);
+		}
+	}
+
+	private static void dispose(HierarchyEntry entry) {
+		entry.fHierarchy.removeTypeHierarchyChangedListener(entry);
+		fgHierarchySize-= entry.fSize;
+	}
+
+	/**
+	 * Sets the maximum number of cached ripple method results. 0 disables the cache of the
+	 * results.
+	 *
+	 * @param maxResults the maximum number of results
+	 */
+	public static synchronized void setMaxResults(int maxResults) {
+		fgMaxResults= Math.max(0, maxResults);
+		Iterator<Result> iterator= fgResults.values().iterator();
+		while (fgResults.size() > fgMaxResults && iterator.hasNext()) {
+			iterator.next();
+			iterator.remove();
+		}
+	}
+
+	/**
+	 * @return the maximum number of cached ripple method results
+	 */
+	public static synchronized int getMaxResults() {
+		return fgMaxResults;
+	}
+
+	/**
+	 * Sets the maximum total number of types of the cached hierarchies. 0 disables the cache of
+	 * the hierarchies.
+	 *
+	 * @param maxSize the maximum number of types
+	 */
+	public static synchronized void setMaxHierarchySize(int maxSize) {
+		fgMaxHierarchySize= Math.max(0, maxSize);
+		Iterator<HierarchyEntry> iterator= fgHierarchies.values().iterator();
+		while (fgHierarchySize > fgMaxHierarchySize && iterator.hasNext()) {
+			HierarchyEntry evicted= iterator.next();
+			iterator.remove();
+			dispose(evicted);
+		}
+	}
+
+	/**
+	 * @return the maximum total number of types of the cached hierarchies
+	 */
+	public static synchronized int getMaxHierarchySize() {
+		return fgMaxHierarchySize;
+	}
+
+	/**
+	 * @return the number of cached ripple method results
+	 */
+	public static synchronized int getResultCount() {
+		return fgResults.size();
+	}
+
+	/**
+	 * @return the number of cached hierarchies
+	 */
+	public static synchronized int getHierarchyCount() {
+		return fgHierarchies.size();
+	}
+
+	/**
+	 * Discards all cached results and hierarchies.
+	 */
+	public static synchronized void clear() {
+		fgStamp++;
+		fgResults.clear();
+		for (HierarchyEntry entry : fgHierarchies.values()) {
+			dispose(entry);
+		}
+		fgHierarchies.clear();
+		fgHierarchySize= 0;
+	}
+
+	private static void addListener() {
+		if (fgListener == null) {
+			fgListener= RippleMethodCache::elementChanged;
+			JavaCore.addElementChangedListener(fgListener, ElementChangedEvent.POST_CHANGE | ElementChangedEvent.POST_RECONCILE);
+		}
+	}
+
+	private static void elementChanged(ElementChangedEvent event) {
+		if (!JavaElementDeltas.isStructuralChange(event.getDelta()))
+			return;
+		synchronized (RippleMethodCache.class) {
+			// a search running concurrently may have missed the change
+			fgStamp++;
+			fgResults.clear();
+		}
+	}
+}
@@ -184,7 +184,19 @@ public class RippleMethodFinder2 {
 	}
 
 	private IMethod[] getAllRippleMethods(IProgressMonitor pm, WorkingCopyOwner owner) throws CoreException {
-		IMethod[] rippleMethods= findAllRippleMethods(pm, owner);
+		int mode= getCacheMode();
+		IMethod[] rippleMethods;
+		RippleMethodCache.Result cached= RippleMethodCache.getResult(fMethod, owner, mode);
+		if (cached != null) {
+			rippleMethods= cached.fMethods.clone();
+			if (fDeclarationToMatch != null)
+				fDeclarationToMatch.putAll(cached.fBinaryMatches);
+		} else {
+			long stamp= RippleMethodCache.getStamp();
+			rippleMethods= findAllRippleMethods(pm, owner);
+			Map<IMethod, SearchMatch> binaryMatches= fDeclarationToMatch != null ? new HashMap<>(fDeclarationToMatch) : null;
+			RippleMethodCache.putResult(fMethod, owner, mode, new RippleMethodCache.Result(rippleMethods.clone(), binaryMatches), stamp);
+		}
 		if (fDeclarationToMatch == null)
 			return rippleMethods;
 
@@ -201,6 +213,17 @@ public class RippleMethodFinder2 {
 		return toArray(filteredMethods);
 	}
 
+	/**
+	 * @return the kind of the search, the ripple methods are only cached for the same kind
+	 */
+	private int getCacheMode() {
+		if (fBinaryRefs != null)
+			return 2;
+		if (fSearchOnlyInCompilationUnit)
+			return 3;
+		return fExcludeBinaries ? 0 : 1;
+	}
+
 	private IMethod[] findAllRippleMethods(IProgressMonitor pm, WorkingCopyOwner owner) throws CoreException {
 		pm.beginTask("", 4); //$NON-NLS-1$
 
@@ -299,10 +322,10 @@ public class RippleMethodFinder2 {
 			for (IType alienType : alienTypes) {
 				checkCanceled(pm);
 				Collection<IMethod> alienMethods= fTypeToMethod.get(alienType);
+				ITypeHierarchy hierarchy= hierarchy(pm, owner, alienType);
+				IType[] alienSubtypes= hierarchy.getAllSubtypes(alienType);
 				for (IMethod alienMethod : alienMethods) {
-					ITypeHierarchy hierarchy= hierarchy(pm, owner, alienType);
-
-					for (IType subtype : hierarchy.getAllSubtypes(alienType)) {
+					for (IType subtype : alienSubtypes) {
 						if (relatedSubTypes.contains(subtype)) {
 							if (JavaModelUtil.isVisibleInHierarchy(alienMethod, subtype.getPackageFragment())) {
 								marriedAlienTypeReps.add(fUnionFind.find(alienType));
@@ -349,11 +372,11 @@ public class RippleMethodFinder2 {
 		Set<IType> allTypesInMethodHierarchy= new HashSet<>(Arrays.asList(methodHierarchy.getAllClasses()));
 		allTypesInMethodHierarchy.addAll(Arrays.asList(methodHierarchy.getAllInterfaces()));
 
-
+		// a region hierarchy contains all super types of the types in the region
+		ITypeHierarchy subtypesHierarchy= createHierarchyOfTypes(new SubProgressMonitor(pm, 1), owner, Arrays.stream(methodTypeSubtypes));
 		for (IType methodTypeSubtype : methodTypeSubtypes) {
 			checkCanceled(pm);
-			ITypeHierarchy subtypeHierarchy= methodTypeSubtype.newTypeHierarchy(owner, pm);
-			IType[] subtypeSuperTypes= subtypeHierarchy.getAllSupertypes(methodTypeSubtype);
+			IType[] subtypeSuperTypes= subtypesHierarchy.getAllSupertypes(methodTypeSubtype);
 			for (IType subtypeSuperType : subtypeSuperTypes) {
 				checkCanceled(pm);
 				if (!allTypesInMethodHierarchy.contains(subtypeSuperType)) {
@@ -398,7 +421,7 @@ public class RippleMethodFinder2 {
 			throws JavaModelException {
 		ITypeHierarchy hierarchy= getCachedHierarchy(type, owner, new SubProgressMonitor(pm, 1));
 		if (hierarchy == null)
-			hierarchy= type.newTypeHierarchy(owner, new SubProgressMonitor(pm, 1));
+			hierarchy= RippleMethodCache.getTypeHierarchy(type, owner, new SubProgressMonitor(pm, 1));
 		return hierarchy;
 	}
 
@@ -418,7 +441,7 @@ public class RippleMethodFinder2 {
 			for (IType root : fRootReps.get(rep)) {
 				ITypeHierarchy hierarchy= fRootHierarchies.get(root);
 				if (hierarchy == null) {
-					hierarchy= root.newTypeHierarchy(owner, new SubProgressMonitor(monitor, 1));
+					hierarchy= RippleMethodCache.getTypeHierarchy(root, owner, new SubProgressMonitor(monitor, 1));
 					fRootHierarchies.put(root, hierarchy);
 				}
 				if (hierarchy.contains(type))
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -13,11 +13,26 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.corext.refactoring.rename;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.CoreException;
@@ -52,6 +67,15 @@ import org.eclipse.jdt.internal.corext.refactoring.rename.RefactoringScanner.Tex
 import org.eclipse.jdt.internal.corext.refactoring.tagging.ITextUpdating;
 import org.eclipse.jdt.internal.corext.refactoring.util.TextChangeManager;
 
+/**
+ * Finds and updates the textual occurrences of a renamed element in comments and strings.
+ * <p>
+ * The compilation units in the scope are scanned concurrently. Compilation units without unsaved
+ * changes are read directly from the file system, a compilation unit which does not contain the
+ * name at all is not tokenized. The text edits are added in the order in which the compilation
+ * units are found, like when they are scanned one after the other.
+ * </p>
+ */
 class TextMatchUpdater {
 
 	private static final String TEXT_EDIT_LABEL= RefactoringCoreMessages.TextMatchUpdater_update;
@@ -61,6 +85,18 @@ class TextMatchUpdater {
 			RefactoringCoreMessages.TextMatchUpdater_textualMatches_name,
 			RefactoringCoreMessages.TextMatchUpdater_textualMatches_description));
 
+	/**
+	 * The maximum number of compilation units which are scanned concurrently.
+	 */
+	private static final int MAX_THREADS= Math.max(1, Math.min(8, Runtime.getRuntime().availableProcessors()));
+
+	/**
+	 * The interval in milliseconds in which cancellation is checked while waiting for a scan.
+	 */
+	private static final long POLL_INTERVAL= 100;
+
+	private static final byte[] UTF8_BOM= { (byte) 0xEF, (byte) 0xBB, (byte) 0xBF };
+
 	private final IJavaSearchScope fScope;
 	private final TextChangeManager fManager;
 	private final SearchResultGroup[] fReferences;
@@ -96,12 +132,14 @@ class TextMatchUpdater {
 		try{
 			IProject[] projectsInScope= getProjectsInScope();
 
-			pm.beginTask("", projectsInScope.length); //$NON-NLS-1$
+			pm.beginTask("", 2 * projectsInScope.length); //$NON-NLS-1$
+			List<ICompilationUnit> cus= new ArrayList<>();
 			for (IProject project : projectsInScope) {
 				if (pm.isCanceled())
 					throw new OperationCanceledException();
-				addTextMatches(project, new SubProgressMonitor(pm, 1));
+				collectCompilationUnits(project, cus, new SubProgressMonitor(pm, 1));
 			}
+			addTextMatches(cus, new SubProgressMonitor(pm, projectsInScope.length));
 		} finally{
 			pm.done();
 		}
@@ -120,7 +158,7 @@ class TextMatchUpdater {
 		return projectsInScope.toArray(new IProject[projectsInScope.size()]);
 	}
 
-	private void addTextMatches(IResource resource, IProgressMonitor pm) throws JavaModelException{
+	private void collectCompilationUnits(IResource resource, List<ICompilationUnit> cus, IProgressMonitor pm) throws JavaModelException{
 		try{
 			String task= RefactoringCoreMessages.TextMatchUpdater_searching + resource.getFullPath();
 			if (resource instanceof IFile){
@@ -132,7 +170,7 @@ class TextMatchUpdater {
 					return;
 				if (! fScope.encloses(element))
 					return;
-				addCuTextMatches((ICompilationUnit) element);
+				cus.add((ICompilationUnit) element);
 
 			} else if (resource instanceof IContainer){
 				IResource[] members= ((IContainer) resource).members();
@@ -141,7 +179,7 @@ class TextMatchUpdater {
 				for (IResource member : members) {
 					if (pm.isCanceled())
 						throw new OperationCanceledException();
-					addTextMatches(member, new SubProgressMonitor(pm, 1));
+					collectCompilationUnits(member, cus, new SubProgressMonitor(pm, 1));
 				}
 			}
 		} catch (JavaModelException e){
@@ -153,9 +191,100 @@ class TextMatchUpdater {
 		}
 	}
 
-	private void addCuTextMatches(ICompilationUnit cu) throws JavaModelException{
-		fScanner.scan(cu);
-		Set<TextMatch> matches= fScanner.getMatches(); //Set of TextMatch
+	private void addTextMatches(List<ICompilationUnit> cus, IProgressMonitor pm) throws JavaModelException {
+		AtomicInteger threadCount= new AtomicInteger();
+		ExecutorService executor= new ThreadPoolExecutor(MAX_THREADS, MAX_THREADS, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
+			Thread thread= new Thread(r, "Text Match Scanner " + threadCount.incrementAndGet()); //$NON-NLS-1$
+			thread.setDaemon(true);
+			return thread;
+		});
+		try {
+			pm.beginTask("", cus.size()); //$NON-NLS-1$
+			List<Future<Set<TextMatch>>> results= new ArrayList<>(cus.size());
+			for (ICompilationUnit cu : cus) {
+				results.add(executor.submit(() -> fScanner.findMatches(getContents(cu))));
+			}
+			// the text edits are added in the order of the compilation units, the change manager is not thread-safe
+			for (int i= 0; i < cus.size(); i++) {
+				addCuTextMatches(cus.get(i), getMatches(results.get(i), pm));
+				pm.worked(1);
+			}
+		} finally {
+			executor.shutdownNow();
+			pm.done();
+		}
+	}
+
+	private static Set<TextMatch> getMatches(Future<Set<TextMatch>> result, IProgressMonitor pm) throws JavaModelException {
+		while (true) {
+			if (pm.isCanceled())
+				throw new OperationCanceledException();
+			try {
+				return result.get(POLL_INTERVAL, TimeUnit.MILLISECONDS);
+			} catch (TimeoutException e) {
+				// check for cancellation
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new OperationCanceledException();
+			} catch (ExecutionException e) {
+				Throwable cause= e.getCause();
+				if (cause instanceof JavaModelException)
+					throw (JavaModelException) cause;
+				if (cause instanceof RuntimeException)
+					throw (RuntimeException) cause;
+				if (cause instanceof Error)
+					throw (Error) cause;
+				throw new IllegalStateException(cause);
+			}
+		}
+	}
+
+	/**
+	 * Returns the contents of a compilation unit like its buffer. The contents of a compilation
+	 * unit without unsaved changes are read from its file, which is much cheaper than opening its
+	 * buffer.
+	 *
+	 * @param cu the compilation unit
+	 * @return the contents
+	 * @throws JavaModelException if the buffer cannot be read
+	 */
+	private static char[] getContents(ICompilationUnit cu) throws JavaModelException {
+		IResource resource= cu.getResource();
+		if (!cu.isWorkingCopy() && !cu.hasUnsavedChanges() && resource instanceof IFile) {
+			IFile file= (IFile) resource;
+			IPath location= file.getLocation();
+			if (location != null) {
+				try {
+					byte[] bytes= Files.readAllBytes(location.toFile().toPath());
+					Charset charset= Charset.forName(file.getCharset());
+					int offset= 0;
+					// like the buffer, skip the byte order mark
+					if (StandardCharsets.UTF_8.equals(charset) && startsWith(bytes, UTF8_BOM)) {
+						offset= UTF8_BOM.length;
+					}
+					CharBuffer chars= charset.decode(ByteBuffer.wrap(bytes, offset, bytes.length - offset));
+					char[] contents= new char[chars.remaining()];
+					chars.get(contents);
+					return contents;
+				} catch (IOException | CoreException | IllegalArgumentException e) {
+					// read the buffer
+				}
+			}
+		}
+		return cu.getBuffer().getCharacters();
+	}
+
+	private static boolean startsWith(byte[] bytes, byte[] prefix) {
+		if (bytes.length < prefix.length)
+			return false;
+		for (int i= 0; i < prefix.length; i++) {
+			if (bytes[i] != prefix[i])
+				return false;
+		}
+		return true;
+	}
+
+	private void addCuTextMatches(ICompilationUnit cu, Set<TextMatch> matches) {
 		if (matches.isEmpty())
 			return;
 
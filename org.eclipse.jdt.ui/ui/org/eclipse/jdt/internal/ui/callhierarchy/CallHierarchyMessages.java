@@ -163,6 +163,10 @@ public final class CallHierarchyMessages extends NLS {
 	public static String ExpandWithConstructorsAction_expandWithConstructors_description;
 	public static String ExpandWithConstructorsAction_expandWithConstructors_tooltip;
 	public static String ExpandWithConstructorsDialog_title;
+	public static String ExpandAllAction_expandAll_text;
+	public static String ExpandAllAction_expandAll_description;
+	public static String ExpandAllAction_expandAll_tooltip;
+	public static String ExpandAllAction_job_name;
 	public static String PinCallHierarchyViewAction_label;
 	public static String PinCallHierarchyViewAction_tooltip;
 	static {
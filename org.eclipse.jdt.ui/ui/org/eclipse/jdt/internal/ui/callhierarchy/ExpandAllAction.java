@@ -0,0 +1,122 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.callhierarchy;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.Display;
+
+import org.eclipse.core.runtime.jobs.Job;
+
+import org.eclipse.jface.action.Action;
+import org.eclipse.jface.viewers.ISelection;
+import org.eclipse.jface.viewers.IStructuredSelection;
+
+import org.eclipse.jdt.internal.corext.callhierarchy.CallHierarchyExpander;
+import org.eclipse.jdt.internal.corext.callhierarchy.MethodWrapper;
+import org.eclipse.jdt.internal.corext.callhierarchy.RealCallers;
+
+/**
+ * This action expands the selected nodes of the Call Hierarchy view down to
+ * {@link #EXPAND_LEVELS} levels. The calls of sibling nodes are searched concurrently and the
+ * nodes are expanded in the view as soon as their calls have been found.
+ *
+ * @see CallHierarchyExpander
+ */
+class ExpandAllAction extends Action {
+
+	/**
+	 * The maximum number of levels which are expanded.
+	 */
+	static final int EXPAND_LEVELS= 5;
+
+	private final CallHierarchyViewPart fPart;
+
+	private final CallHierarchyViewer fCallHierarchyViewer;
+
+	/**
+	 * Creates the expand all action.
+	 *
+	 * @param part the call hierarchy view part
+	 * @param viewer the call hierarchy viewer
+	 */
+	public ExpandAllAction(CallHierarchyViewPart part, CallHierarchyViewer viewer) {
+		super(CallHierarchyMessages.ExpandAllAction_expandAll_text);
+		fPart= part;
+		fCallHierarchyViewer= viewer;
+		setDescription(CallHierarchyMessages.ExpandAllAction_expandAll_description);
+		setToolTipText(CallHierarchyMessages.ExpandAllAction_expandAll_tooltip);
+	}
+
+	@Override
+	public void run() {
+		MethodWrapper[] wrappers= getSelectedMethodWrappers();
+		if (wrappers == null)
+			return;
+
+		int maxLevel= 0;
+		for (MethodWrapper wrapper : wrappers) {
+			maxLevel= Math.max(maxLevel, wrapper.getLevel());
+		}
+		int depth= Math.max(1, Math.min(EXPAND_LEVELS, CallHierarchyUI.getDefault().getMaxCallDepth() - maxLevel + 1));
+		Display display= fCallHierarchyViewer.getControl().getDisplay();
+		Job job= Job.create(CallHierarchyMessages.ExpandAllAction_job_name, monitor -> {
+			new CallHierarchyExpander().expand(wrappers, depth, (wrapper, calls) -> {
+				if (calls.length > 0) {
+					display.asyncExec(() -> expand(wrapper));
+				}
+			}, monitor);
+		});
+		job.setUser(true);
+		job.schedule();
+	}
+
+	/**
+	 * Expands a node whose calls have been found, its children are created from the cached calls
+	 * without searching, see {@link CallHierarchyContentProvider#getChildren(Object)}.
+	 *
+	 * @param wrapper the wrapper of the node
+	 */
+	private void expand(MethodWrapper wrapper) {
+		Control control= fCallHierarchyViewer.getControl();
+		if (control.isDisposed())
+			return;
+		fCallHierarchyViewer.setExpandedState(wrapper, true);
+	}
+
+	/**
+	 * Checks whether this action can be added for the selected element in the call hierarchy.
+	 *
+	 * @return <code> true</code> if the action can be added, <code>false</code> otherwise
+	 */
+	protected boolean canActionBeAdded() {
+		return getSelectedMethodWrappers() != null;
+	}
+
+	private MethodWrapper[] getSelectedMethodWrappers() {
+		ISelection selection= fPart.getSelection();
+		if (!(selection instanceof IStructuredSelection) || selection.isEmpty())
+			return null;
+
+		List<MethodWrapper> wrappers= new ArrayList<>();
+		for (Object element : ((IStructuredSelection) selection).toList()) {
+			if (!(element instanceof MethodWrapper) || element instanceof RealCallers) // takes care of '...' node
+				return null;
+			wrappers.add((MethodWrapper) element);
+		}
+		return wrappers.toArray(new MethodWrapper[wrappers.size()]);
+	}
+}
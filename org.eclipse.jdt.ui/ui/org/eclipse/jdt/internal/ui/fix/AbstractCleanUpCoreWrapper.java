@@ -61,6 +61,7 @@ public class AbstractCleanUpCoreWrapper<T extends AbstractCleanUpCore> extends A
 
 	@Override
 	public void setOptions(CleanUpOptions options) {
+		super.setOptions(options);
 		cleanUpCore.setOptions(options);
 	}
 
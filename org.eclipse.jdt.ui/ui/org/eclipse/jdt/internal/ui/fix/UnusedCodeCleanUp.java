@@ -56,6 +56,7 @@ public class UnusedCodeCleanUp extends AbstractMultiFix {
 
 	@Override
 	public void setOptions(CleanUpOptions options) {
+		super.setOptions(options);
 		cleanUpCore.setOptions(options);
 	}
 
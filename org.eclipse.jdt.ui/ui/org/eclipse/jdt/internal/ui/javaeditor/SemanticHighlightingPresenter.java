@@ -134,6 +134,21 @@ public class SemanticHighlightingPresenter extends SemanticHighlightingPresenter
 	 * @return the runnable or <code>null</code>, if reconciliation should be canceled
 	 */
 	public Runnable createUpdateRunnable(final TextPresentation textPresentation, List<Position> addedPositions, List<Position> removedPositions) {
+		return createUpdateRunnable(textPresentation, addedPositions, removedPositions, null);
+	}
+
+	/**
+	 * Create a runnable for updating the presentation.
+	 * <p>
+	 * NOTE: Called from background thread.
+	 * </p>
+	 * @param textPresentation the text presentation
+	 * @param addedPositions the added positions
+	 * @param removedPositions the removed positions
+	 * @param updated the runnable to run in the UI thread after the positions have been updated, or <code>null</code>
+	 * @return the runnable or <code>null</code>, if reconciliation should be canceled
+	 */
+	public Runnable createUpdateRunnable(final TextPresentation textPresentation, List<Position> addedPositions, List<Position> removedPositions, final Runnable updated) {
 		if (fSourceViewer == null || textPresentation == null)
 			return null;
 
@@ -146,7 +161,10 @@ public class SemanticHighlightingPresenter extends SemanticHighlightingPresenter
 		if (isCanceled())
 			return null;
 
-		Runnable runnable= () -> updatePresentation(textPresentation, added, removed);
+		Runnable runnable= () -> {
+			if (updatePresentation(textPresentation, added, removed) && updated != null)
+				updated.run();
+		};
 		return runnable;
 	}
 
@@ -159,10 +177,11 @@ public class SemanticHighlightingPresenter extends SemanticHighlightingPresenter
 	 * @param textPresentation the text presentation or <code>null</code>, if the presentation should computed in the UI thread
 	 * @param addedPositions the added positions
 	 * @param removedPositions the removed positions
+	 * @return <code>true</code> if the positions have been updated, <code>false</code> if the update has been canceled
 	 */
-	public void updatePresentation(TextPresentation textPresentation, HighlightedPosition[] addedPositions, HighlightedPosition[] removedPositions) {
+	public boolean updatePresentation(TextPresentation textPresentation, HighlightedPosition[] addedPositions, HighlightedPosition[] removedPositions) {
 		if (fSourceViewer == null)
-			return;
+			return false;
 
 //		checkOrdering("added positions: ", Arrays.asList(addedPositions)); //$NON-NLS-1$
 //		checkOrdering("removed positions: ", Arrays.asList(removedPositions)); //$NON-NLS-1$
@@ -171,16 +190,17 @@ public class SemanticHighlightingPresenter extends SemanticHighlightingPresenter
 		// TODO: double-check consistency with document.getPositions(...)
 		// TODO: reuse removed positions
 		if (isCanceled())
-			return;
+			return false;
 
 		IDocument document= fSourceViewer.getDocument();
 		if (document == null)
-			return;
+			return false;
 
 		String positionCategory= getPositionCategory();
 
 		List<HighlightedPosition> removedPositionsList= Arrays.asList(removedPositions);
 
+		boolean updated= true;
 		try {
 			synchronized (fPositionLock) {
 				List<Position> oldPositions= fPositions;
@@ -238,6 +258,7 @@ public class SemanticHighlightingPresenter extends SemanticHighlightingPresenter
 		} catch (BadPositionCategoryException | BadLocationException e) {
 			// Should not happen
 			JavaPlugin.log(e);
+			updated= false;
 		}
 //		checkOrdering("new positions: ", fPositions); //$NON-NLS-1$
 
@@ -245,6 +266,7 @@ public class SemanticHighlightingPresenter extends SemanticHighlightingPresenter
 			fSourceViewer.changeTextPresentation(textPresentation, false);
 		else
 			fSourceViewer.invalidateTextPresentation();
+		return updated;
 	}
 
 //	private void checkOrdering(String s, List positions) {
@@ -15,6 +15,7 @@
 package org.eclipse.jdt.internal.ui.javaeditor;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.eclipse.swt.widgets.Display;
@@ -25,20 +26,32 @@ import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.jobs.Job;
 
+import org.eclipse.jface.text.DocumentEvent;
 import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentListener;
+import org.eclipse.jface.text.IRegion;
 import org.eclipse.jface.text.ITextInputListener;
 import org.eclipse.jface.text.Position;
+import org.eclipse.jface.text.Region;
 import org.eclipse.jface.text.TextPresentation;
 import org.eclipse.jface.text.source.ISourceViewer;
 
 import org.eclipse.ui.IWorkbenchPartSite;
 
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElementDelta;
 import org.eclipse.jdt.core.ITypeRoot;
+import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.dom.AST;
 import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.AbstractTypeDeclaration;
+import org.eclipse.jdt.core.dom.BodyDeclaration;
 import org.eclipse.jdt.core.dom.CompilationUnit;
 import org.eclipse.jdt.core.dom.ConstructorInvocation;
+import org.eclipse.jdt.core.dom.EnumDeclaration;
 import org.eclipse.jdt.core.dom.Expression;
+import org.eclipse.jdt.core.dom.IBinding;
 import org.eclipse.jdt.core.dom.IMethodBinding;
 import org.eclipse.jdt.core.dom.Modifier;
 import org.eclipse.jdt.core.dom.Modifier.ModifierKeyword;
@@ -50,6 +63,8 @@ import org.eclipse.jdt.core.dom.TypeDeclaration;
 import org.eclipse.jdt.core.dom.YieldStatement;
 import org.eclipse.jdt.core.manipulation.SharedASTProviderCore;
 
+import org.eclipse.jdt.internal.corext.util.JavaElementDeltas;
+
 import org.eclipse.jdt.internal.ui.JavaPlugin;
 import org.eclipse.jdt.internal.ui.javaeditor.SemanticHighlightingManager.HighlightedPosition;
 import org.eclipse.jdt.internal.ui.javaeditor.SemanticHighlightingManager.Highlighting;
@@ -77,9 +92,8 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 		@Override
 		protected boolean visitLiteral(Expression node) {
 			fToken.update(node);
-			for (int i= 0, n= fJobSemanticHighlightings.length; i < n; i++) {
-				SemanticHighlighting semanticHighlighting= fJobSemanticHighlightings[i];
-				if (fJobHighlightings[i].isEnabled() && semanticHighlighting.consumesLiteral(fToken)) {
+			for (int i : fJobLiteralDispatchTable) {
+				if (fJobSemanticHighlightings[i].consumesLiteral(fToken)) {
 					int offset= node.getStartPosition();
 					int length= node.getLength();
 					if (offset > -1 && length > 0)
@@ -134,14 +148,9 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 			if (node.getAST().apiLevel() >= ASTHelper.JLS10 && node.isVar()) {
 				int offset= node.getStartPosition();
 				int length= node.getLength();
-				if (offset > -1 && length > 0) {
-					for (int i= 0; i < fJobSemanticHighlightings.length; i++) {
-						SemanticHighlighting semanticHighlighting= fJobSemanticHighlightings[i];
-						if (semanticHighlighting instanceof RestrictedIdentifiersHighlighting) {
-							addPosition(offset, length, fJobHighlightings[i]);
-							return false;
-						}
-					}
+				if (offset > -1 && length > 0 && fJobRestrictedIdentifiersHighlighting != null) {
+					addPosition(offset, length, fJobRestrictedIdentifiersHighlighting);
+					return false;
 				}
 			}
 			return true;
@@ -153,15 +162,8 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 			if (ASTHelper.isYieldNodeSupportedInAST(ast) && !node.isImplicit()) {
 				int offset= node.getStartPosition();
 				int length= 5; // length of 'yield'
-				if (offset > -1 && length > 0) {
-					for (int i= 0; i < fJobSemanticHighlightings.length; i++) {
-						SemanticHighlighting semanticHighlighting= fJobSemanticHighlightings[i];
-						if (semanticHighlighting instanceof RestrictedIdentifiersHighlighting) {
-							addPosition(offset, length, fJobHighlightings[i]);
-							return true;
-						}
-					}
-				}
+				if (offset > -1 && length > 0 && fJobRestrictedIdentifiersHighlighting != null)
+					addPosition(offset, length, fJobRestrictedIdentifiersHighlighting);
 			}
 			return true;
 		}
@@ -172,15 +174,8 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 			if (ASTHelper.isRecordDeclarationNodeSupportedInAST(ast)) {
 				int offset= node.getRestrictedIdentifierStartPosition();
 				int length= 6; // length of 'record'
-				if (offset > -1 && length > 0) {
-					for (int i= 0; i < fJobSemanticHighlightings.length; i++) {
-						SemanticHighlighting semanticHighlighting= fJobSemanticHighlightings[i];
-						if (semanticHighlighting instanceof RestrictedIdentifiersHighlighting) {
-							addPosition(offset, length, fJobHighlightings[i]);
-							return true;
-						}
-					}
-				}
+				if (offset > -1 && length > 0 && fJobRestrictedIdentifiersHighlighting != null)
+					addPosition(offset, length, fJobRestrictedIdentifiersHighlighting);
 			}
 			return true;
 		}
@@ -191,15 +186,8 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 				if (node.permittedTypes().size() > 0) {
 					int offset= node.getRestrictedIdentifierStartPosition();
 					int length= 7; // length of 'permits'
-					if (offset > -1) {
-						for (int i= 0; i < fJobSemanticHighlightings.length; i++) {
-							SemanticHighlighting semanticHighlighting= fJobSemanticHighlightings[i];
-							if (semanticHighlighting instanceof RestrictedIdentifiersHighlighting) {
-								addPosition(offset, length, fJobHighlightings[i]);
-								return true;
-							}
-						}
-					}
+					if (offset > -1 && fJobRestrictedIdentifiersHighlighting != null)
+						addPosition(offset, length, fJobRestrictedIdentifiersHighlighting);
 				}
 			} catch (UnsupportedOperationException e) {
 				// do nothing
@@ -221,14 +209,9 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 				} else {
 					return true;
 				}
-				if (offset > -1 && length > 0) {
-					for (int i= 0; i < fJobSemanticHighlightings.length; i++) {
-						SemanticHighlighting semanticHighlighting= fJobSemanticHighlightings[i];
-						if (semanticHighlighting instanceof RestrictedIdentifiersHighlighting) {
-							addPosition(offset, length, fJobHighlightings[i]);
-							return false;
-						}
-					}
+				if (offset > -1 && length > 0 && fJobRestrictedIdentifiersHighlighting != null) {
+					addPosition(offset, length, fJobRestrictedIdentifiersHighlighting);
+					return false;
 				}
 			}
 			return true;
@@ -240,9 +223,10 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 		@Override
 		public boolean visit(SimpleName node) {
 			fToken.update(node);
-			for (int i= 0, n= fJobSemanticHighlightings.length; i < n; i++) {
-				SemanticHighlighting semanticHighlighting= fJobSemanticHighlightings[i];
-				if (fJobHighlightings[i].isEnabled() && semanticHighlighting.consumes(fToken)) {
+			IBinding binding= fToken.getBinding();
+			int kind= binding != null ? binding.getKind() : 0;
+			for (int i : fJobNameDispatchTable[kind < fJobNameDispatchTable.length ? kind : 0]) {
+				if (fJobSemanticHighlightings[i].consumes(fToken)) {
 					int offset= node.getStartPosition();
 					int length= node.getLength();
 					if (offset > -1 && length > 0)
@@ -299,6 +283,65 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 		}
 	}
 
+	/**
+	 * Tracks the region of the document which has been changed since the last reconcile and
+	 * whether the structure of the Java element has changed.
+	 */
+	private class ChangeTracker implements IDocumentListener, ITextInputListener, IElementChangedListener {
+
+		@Override
+		public void documentAboutToBeChanged(DocumentEvent event) {
+			// do nothing
+		}
+
+		@Override
+		public void documentChanged(DocumentEvent event) {
+			synchronized (fChangeLock) {
+				int textLength= event.getText() == null ? 0 : event.getText().length();
+				IRegion changed= new Region(event.getOffset(), textLength);
+				fDirtyRegion= fDirtyRegion == null ? changed : union(adjust(fDirtyRegion, event), changed);
+				if (fReconcilingRegion != null)
+					fReconcilingRegion= adjust(fReconcilingRegion, event);
+			}
+		}
+
+		@Override
+		public void inputDocumentAboutToBeChanged(IDocument oldInput, IDocument newInput) {
+			if (oldInput != null)
+				oldInput.removeDocumentListener(this);
+		}
+
+		@Override
+		public void inputDocumentChanged(IDocument oldInput, IDocument newInput) {
+			synchronized (fChangeLock) {
+				invalidatePositions();
+			}
+			if (newInput != null)
+				newInput.addDocumentListener(this);
+		}
+
+		@Override
+		public void elementChanged(ElementChangedEvent event) {
+			IJavaElementDelta delta= event.getDelta();
+			JavaEditor editor= fEditor;
+			if (editor == null || !delta.getElement().equals(editor.getInputJavaElement()))
+				return;
+			synchronized (fChangeLock) {
+				if (JavaElementDeltas.isBodyChangeOnly(delta))
+					fBodyChanged= true;
+				else
+					fStructureChanged= true;
+			}
+		}
+	}
+
+	/**
+	 * System property to disable the incremental reconciling of semantic highlighting, i.e.
+	 * re-visiting only the body declarations touched by edits which did not change the structure
+	 * of the Java element.
+	 */
+	public static final String INCREMENTAL_PROPERTY= "org.eclipse.jdt.ui.semanticHighlighting.incremental"; //$NON-NLS-1$
+
 	/** Position collector */
 	private PositionCollector fCollector= new PositionCollector();
 
@@ -320,6 +363,26 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 	/** Number of removed positions */
 	private int fNOfRemovedPositions;
 
+	/** The change tracker, only used for compilation unit editors */
+	private ChangeTracker fChangeTracker;
+	/** Lock for the change tracking state */
+	private final Object fChangeLock= new Object();
+	/** The region changed since the last reconcile was started, or <code>null</code> */
+	private IRegion fDirtyRegion;
+	/** The region changed before the current reconcile was started, or <code>null</code> */
+	private IRegion fReconcilingRegion;
+	/** <code>true</code> if the Java element reported a change which only affected bodies since the last reconcile */
+	private boolean fBodyChanged;
+	/** <code>true</code> if the structure of the Java element changed since the last reconcile */
+	private boolean fStructureChanged;
+	/**
+	 * <code>true</code> if the positions of the presenter are up to date with the document, except
+	 * for {@link #fReconcilingRegion} and {@link #fDirtyRegion}.
+	 */
+	private boolean fPositionsValid;
+	/** Counts reconciles, to find out whether an update of the positions is still the latest one */
+	private int fReconcileCount;
+
 	/** Background job */
 	private Job fJob;
 	/** Background job lock */
@@ -348,13 +411,28 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 	 * @since 3.5
 	 */
 	private Highlighting fJobDeprecatedMemberHighlighting;
+	/**
+	 * Indices of the enabled semantic highlightings which can consume a name, in the order of
+	 * precedence, by the kind of the binding of the name, index 0 for names without binding -
+	 * cache for background thread, only valid during {@link #reconciled(CompilationUnit, boolean, IProgressMonitor)}
+	 */
+	private int[][] fJobNameDispatchTable;
+	/** Indices of the enabled semantic highlightings which can consume a literal - cache for background thread, only valid during {@link #reconciled(CompilationUnit, boolean, IProgressMonitor)} */
+	private int[] fJobLiteralDispatchTable;
+	/** The restricted identifiers highlighting - cache for background thread, only valid during {@link #reconciled(CompilationUnit, boolean, IProgressMonitor)} */
+	private Highlighting fJobRestrictedIdentifiersHighlighting;
 
 	/*
 	 * @see org.eclipse.jdt.internal.ui.text.java.IJavaReconcilingListener#aboutToBeReconciled()
 	 */
 	@Override
 	public void aboutToBeReconciled() {
-		// Do nothing
+		synchronized (fChangeLock) {
+			if (fDirtyRegion != null) {
+				fReconcilingRegion= fReconcilingRegion == null ? fDirtyRegion : union(fReconcilingRegion, fDirtyRegion);
+				fDirtyRegion= null;
+			}
+		}
 	}
 
 	/*
@@ -382,30 +460,60 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 			if (ast == null || fJobPresenter.isCanceled())
 				return;
 
-			ASTNode[] subtrees= getAffectedSubtrees(ast);
-			if (subtrees.length == 0)
+			IRegion region;
+			boolean incremental;
+			int reconcileCount;
+			synchronized (fChangeLock) {
+				region= fReconcilingRegion;
+				incremental= fChangeTracker != null && fPositionsValid && fBodyChanged && !fStructureChanged && !forced && region != null && isIncrementalEnabled();
+				fReconcilingRegion= null;
+				fBodyChanged= false;
+				fStructureChanged= false;
+				fPositionsValid= false; // until the update has been applied
+				reconcileCount= ++fReconcileCount;
+			}
+
+			ASTNode[] subtrees= incremental ? getAffectedSubtrees(ast, region) : getAffectedSubtrees(ast);
+			if (subtrees == null) {
+				incremental= false;
+				subtrees= getAffectedSubtrees(ast);
+			}
+			if (subtrees.length == 0) {
+				if (incremental)
+					positionsUpdated(reconcileCount);
 				return;
+			}
 
-			startReconcilingPositions();
+			if (incremental)
+				startReconcilingPositions(subtrees);
+			else
+				startReconcilingPositions();
 
 			if (!fJobPresenter.isCanceled()) {
 				fJobDeprecatedMemberHighlighting= null;
+				fJobRestrictedIdentifiersHighlighting= null;
 				for (int i= 0, n= fJobSemanticHighlightings.length; i < n; i++) {
 					SemanticHighlighting semanticHighlighting= fJobSemanticHighlightings[i];
-					if (fJobHighlightings[i].isEnabled() && semanticHighlighting instanceof DeprecatedMemberHighlighting) {
+					if (fJobHighlightings[i].isEnabled() && semanticHighlighting instanceof DeprecatedMemberHighlighting)
 						fJobDeprecatedMemberHighlighting= fJobHighlightings[i];
-						break;
-					}
+					else if (semanticHighlighting instanceof RestrictedIdentifiersHighlighting && fJobRestrictedIdentifiersHighlighting == null)
+						fJobRestrictedIdentifiersHighlighting= fJobHighlightings[i];
 				}
+				createDispatchTables();
 				reconcilePositions(subtrees);
 			}
 
-			TextPresentation textPresentation= null;
-			if (!fJobPresenter.isCanceled())
-				textPresentation= fJobPresenter.createPresentation(fAddedPositions, fRemovedPositions);
+			if (fAddedPositions.isEmpty() && fRemovedPositions.isEmpty()) {
+				if (!fJobPresenter.isCanceled())
+					positionsUpdated(reconcileCount);
+			} else {
+				TextPresentation textPresentation= null;
+				if (!fJobPresenter.isCanceled())
+					textPresentation= fJobPresenter.createPresentation(fAddedPositions, fRemovedPositions);
 
-			if (!fJobPresenter.isCanceled())
-				updatePresentation(textPresentation, fAddedPositions, fRemovedPositions);
+				if (!fJobPresenter.isCanceled())
+					updatePresentation(textPresentation, fAddedPositions, fRemovedPositions, () -> positionsUpdated(reconcileCount));
+			}
 
 			stopReconcilingPositions();
 		} finally {
@@ -413,12 +521,66 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 			fJobSemanticHighlightings= null;
 			fJobHighlightings= null;
 			fJobDeprecatedMemberHighlighting= null;
+			fJobNameDispatchTable= null;
+			fJobLiteralDispatchTable= null;
+			fJobRestrictedIdentifiersHighlighting= null;
 			synchronized (fReconcileLock) {
 				fIsReconciling= false;
 			}
 		}
 	}
 
+	/**
+	 * Creates the tables to dispatch names and literals to the enabled semantic highlightings which
+	 * can consume them, see {@link SemanticHighlighting#getConsumedBindingKinds()} and
+	 * {@link SemanticHighlighting#canConsumeLiterals()}.
+	 */
+	private void createDispatchTables() {
+		int maxKind= 0;
+		for (SemanticHighlighting semanticHighlighting : fJobSemanticHighlightings) {
+			int[] kinds= semanticHighlighting.getConsumedBindingKinds();
+			if (kinds != null) {
+				for (int kind : kinds)
+					maxKind= Math.max(maxKind, kind);
+			}
+		}
+
+		int n= fJobSemanticHighlightings.length;
+		int[] indices= new int[n];
+		fJobNameDispatchTable= new int[maxKind + 1][];
+		for (int kind= 0; kind <= maxKind; kind++) {
+			int count= 0;
+			for (int i= 0; i < n; i++) {
+				if (fJobHighlightings[i].isEnabled() && consumesBindingKind(fJobSemanticHighlightings[i], kind))
+					indices[count++]= i;
+			}
+			fJobNameDispatchTable[kind]= Arrays.copyOf(indices, count);
+		}
+
+		int count= 0;
+		for (int i= 0; i < n; i++) {
+			if (fJobHighlightings[i].isEnabled() && fJobSemanticHighlightings[i].canConsumeLiterals())
+				indices[count++]= i;
+		}
+		fJobLiteralDispatchTable= Arrays.copyOf(indices, count);
+	}
+
+	/**
+	 * @param semanticHighlighting the semantic highlighting
+	 * @param kind the binding kind, <code>0</code> for names without binding
+	 * @return <code>true</code> iff the semantic highlighting can consume a name with a binding of the given kind
+	 */
+	private static boolean consumesBindingKind(SemanticHighlighting semanticHighlighting, int kind) {
+		int[] kinds= semanticHighlighting.getConsumedBindingKinds();
+		if (kinds == null)
+			return true;
+		for (int consumedKind : kinds) {
+			if (consumedKind == kind)
+				return true;
+		}
+		return false;
+	}
+
 	/**
 	 * @param node Root node
 	 * @return Array of subtrees that may be affected by past document changes
@@ -428,6 +590,54 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 		return new ASTNode[] { node };
 	}
 
+	/**
+	 * Returns the body declarations which have to be visited again after the given region has been
+	 * changed without changing the structure of the Java element.
+	 *
+	 * @param ast the compilation unit AST
+	 * @param region the changed region
+	 * @return the body declarations in the order of their offsets, or <code>null</code> if the
+	 *         whole AST has to be visited again
+	 */
+	private ASTNode[] getAffectedSubtrees(CompilationUnit ast, IRegion region) {
+		List<ASTNode> subtrees= new ArrayList<>();
+		collectAffectedBodyDeclarations(ast.types(), region, subtrees);
+
+		// positions in the region which are not covered by the body declarations, e.g. in a type
+		// header, would not be reconciled
+		List<Position> positions= new ArrayList<>();
+		fJobPresenter.addPositions(positions, region.getOffset(), region.getLength());
+		for (Position position : positions) {
+			if (!position.isDeleted() && !isCovered(position, subtrees))
+				return null;
+		}
+		return subtrees.toArray(new ASTNode[subtrees.size()]);
+	}
+
+	private static void collectAffectedBodyDeclarations(List<? extends BodyDeclaration> declarations, IRegion region, List<ASTNode> result) {
+		for (BodyDeclaration declaration : declarations) {
+			int start= declaration.getStartPosition();
+			if (start > region.getOffset() + region.getLength() || start + declaration.getLength() < region.getOffset())
+				continue;
+
+			if (declaration instanceof AbstractTypeDeclaration) {
+				if (declaration instanceof EnumDeclaration)
+					collectAffectedBodyDeclarations(((EnumDeclaration) declaration).enumConstants(), region, result);
+				collectAffectedBodyDeclarations(((AbstractTypeDeclaration) declaration).bodyDeclarations(), region, result);
+			} else {
+				result.add(declaration);
+			}
+		}
+	}
+
+	private static boolean isCovered(Position position, List<ASTNode> subtrees) {
+		for (ASTNode subtree : subtrees) {
+			if (subtree.getStartPosition() <= position.getOffset() && position.getOffset() + position.getLength() <= subtree.getStartPosition() + subtree.getLength())
+				return true;
+		}
+		return false;
+	}
+
 	/**
 	 * Start reconciling positions.
 	 */
@@ -436,6 +646,83 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 		fNOfRemovedPositions= fRemovedPositions.size();
 	}
 
+	/**
+	 * Start reconciling the positions of the given subtrees, the positions outside of the subtrees
+	 * are kept.
+	 *
+	 * @param subtrees the AST subtrees
+	 */
+	private void startReconcilingPositions(ASTNode[] subtrees) {
+		for (ASTNode subtree : subtrees)
+			fJobPresenter.addPositions(fRemovedPositions, subtree.getStartPosition(), subtree.getLength());
+		fNOfRemovedPositions= fRemovedPositions.size();
+	}
+
+	/**
+	 * Marks the positions as up to date if no other reconcile has been started in the meantime.
+	 *
+	 * @param reconcileCount the number of the reconcile which updated the positions
+	 */
+	private void positionsUpdated(int reconcileCount) {
+		synchronized (fChangeLock) {
+			if (reconcileCount == fReconcileCount)
+				fPositionsValid= true;
+		}
+	}
+
+	/**
+	 * Forces the next reconcile to visit the whole AST.
+	 * <p>
+	 * NOTE: Must be called while holding {@link #fChangeLock}.
+	 * </p>
+	 */
+	private void invalidatePositions() {
+		fPositionsValid= false;
+		fDirtyRegion= null;
+		fReconcilingRegion= null;
+		fReconcileCount++;
+	}
+
+	/**
+	 * @return <code>true</code> if incremental reconciling has not been disabled with
+	 *         {@link #INCREMENTAL_PROPERTY}
+	 */
+	private static boolean isIncrementalEnabled() {
+		return !Boolean.FALSE.toString().equals(System.getProperty(INCREMENTAL_PROPERTY));
+	}
+
+	/**
+	 * Moves the given region as the given document change moves its text, a region touched by
+	 * the change is extended to the changed text.
+	 *
+	 * @param region the region
+	 * @param event the document change
+	 * @return the adjusted region
+	 */
+	private static IRegion adjust(IRegion region, DocumentEvent event) {
+		int eventOffset= event.getOffset();
+		int eventEnd= eventOffset + event.getLength();
+		int textLength= event.getText() == null ? 0 : event.getText().length();
+		int delta= textLength - event.getLength();
+		int start= region.getOffset();
+		int end= start + region.getLength();
+		if (start >= eventEnd)
+			start+= delta;
+		else if (start > eventOffset)
+			start= eventOffset;
+		if (end >= eventEnd)
+			end+= delta;
+		else if (end > eventOffset)
+			end= eventOffset + textLength;
+		return new Region(start, end - start);
+	}
+
+	private static IRegion union(IRegion region1, IRegion region2) {
+		int start= Math.min(region1.getOffset(), region2.getOffset());
+		int end= Math.max(region1.getOffset() + region1.getLength(), region2.getOffset() + region2.getLength());
+		return new Region(start, end - start);
+	}
+
 	/**
 	 * Reconcile positions based on the AST subtrees
 	 *
@@ -463,9 +750,10 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 	 * @param textPresentation the text presentation
 	 * @param addedPositions the added positions
 	 * @param removedPositions the removed positions
+	 * @param updated the runnable to run after the positions have been updated
 	 */
-	private void updatePresentation(TextPresentation textPresentation, List<Position> addedPositions, List<Position> removedPositions) {
-		Runnable runnable= fJobPresenter.createUpdateRunnable(textPresentation, addedPositions, removedPositions);
+	private void updatePresentation(TextPresentation textPresentation, List<Position> addedPositions, List<Position> removedPositions, Runnable updated) {
+		Runnable runnable= fJobPresenter.createUpdateRunnable(textPresentation, addedPositions, removedPositions, updated);
 		if (runnable == null)
 			return;
 
@@ -514,6 +802,12 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 		fSourceViewer= sourceViewer;
 
 		if (fEditor instanceof CompilationUnitEditor) {
+			fChangeTracker= new ChangeTracker();
+			fSourceViewer.addTextInputListener(fChangeTracker);
+			IDocument document= fSourceViewer.getDocument();
+			if (document != null)
+				document.addDocumentListener(fChangeTracker);
+			JavaCore.addElementChangedListener(fChangeTracker, ElementChangedEvent.POST_RECONCILE);
 			((CompilationUnitEditor)fEditor).addReconcileListener(this);
 		} else if (fEditor == null) {
 			fSourceViewer.addTextInputListener(this);
@@ -529,9 +823,17 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 			fPresenter.setCanceled(true);
 
 		if (fEditor != null) {
-			if (fEditor instanceof CompilationUnitEditor)
+			if (fEditor instanceof CompilationUnitEditor) {
 				((CompilationUnitEditor)fEditor).removeReconcileListener(this);
-			else
+				if (fChangeTracker != null) {
+					JavaCore.removeElementChangedListener(fChangeTracker);
+					fSourceViewer.removeTextInputListener(fChangeTracker);
+					IDocument document= fSourceViewer.getDocument();
+					if (document != null)
+						document.removeDocumentListener(fChangeTracker);
+					fChangeTracker= null;
+				}
+			} else
 				fSourceViewer.removeTextInputListener(this);
 			fEditor= null;
 		}
@@ -614,6 +916,9 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 	 * @since 3.2
 	 */
 	public void refresh() {
+		synchronized (fChangeLock) {
+			invalidatePositions();
+		}
 		scheduleJob();
 	}
 }
@@ -205,6 +205,16 @@ public class SemanticHighlightings {
 	 */
 	private static SemanticHighlighting[] fgSemanticHighlightings;
 
+	/*
+	 * Binding kinds consumed by the semantic highlightings, see SemanticHighlightingCore#getConsumedBindingKinds()
+	 */
+	private static final int[] NO_BINDINGS= {};
+	private static final int[] TYPE_BINDINGS= { IBinding.TYPE };
+	private static final int[] VARIABLE_BINDINGS= { IBinding.VARIABLE };
+	private static final int[] METHOD_BINDINGS= { IBinding.METHOD };
+	/** Constructors are also found with the type name of a class instance creation, see {@link #getBinding(SemanticToken)} */
+	private static final int[] METHOD_AND_TYPE_BINDINGS= { IBinding.METHOD, IBinding.TYPE };
+
 	/**
 	 * Semantic highlighting for static final fields.
 	 */
@@ -258,6 +268,14 @@ public class SemanticHighlightings {
 			return JavaEditorMessages.SemanticHighlighting_staticFinalField;
 		}
 
+		/*
+		 * @see org.eclipse.jdt.internal.ui.javaeditor.SemanticHighlightingCore#getConsumedBindingKinds()
+		 */
+		@Override
+		public int[] getConsumedBindingKinds() {
+			return VARIABLE_BINDINGS;
+		}
+
 		/*
 		 * @see org.eclipse.jdt.internal.ui.javaeditor.SemanticHighlighting#consumes(org.eclipse.jdt.internal.ui.javaeditor.SemanticToken)
 		 */
@@ -321,6 +339,14 @@ public class SemanticHighlightings {
 			return JavaEditorMessages.SemanticHighlighting_staticField;
 		}
 
+		/*
+		 * @see org.eclipse.jdt.internal.ui.javaeditor.SemanticHighlightingCore#getConsumedBindingKinds()
+		 */
+		@Override
+		public int[] getConsumedBindingKinds() {
+			return VARIABLE_BINDINGS;
+		}
+
 		/*
 		 * @see org.eclipse.jdt.internal.ui.javaeditor.SemanticHighlighting#consumes(org.eclipse.jdt.internal.ui.javaeditor.SemanticToken)
 		 */
@@ -384,6 +410,14 @@ public class SemanticHighlightings {
 			return JavaEditorMessages.SemanticHighlighting_field;
 		}
 
+		/*
+		 * @see org.eclipse.jdt.internal.ui.javaeditor.SemanticHighlightingCore#getConsumedBindingKinds()
+		 */
+		@Override
+		public int[] getConsumedBindingKinds() {
+			return VARIABLE_BINDINGS;
+		}
+
 		/*
 		 * @see org.eclipse.jdt.internal.ui.javaeditor.SemanticHighlighting#consumes(org.eclipse.jdt.internal.ui.javaeditor.SemanticToken)
 		 */
@@ -455,6 +489,14 @@ public class SemanticHighlightings {
 			return isAutoUnBoxing(token.getLiteral());
 		}
 
+		/*
+		 * @see org.eclipse.jdt.internal.ui.javaeditor.SemanticHighlightingCore#canConsumeLiterals()
+		 */
+		@Override
+		public boolean canConsumeLiterals() {
+			return true;
+		}
+
 		/*
 		 * @see org.eclipse.jdt.internal.ui.javaeditor.SemanticHighlighting#consumes(org.eclipse.jdt.internal.ui.javaeditor.SemanticToken)
 		 */
@@ -618,6 +660,14 @@ public class SemanticHighlightings {
 			return JavaEditorMessages.SemanticHighlighting_staticMethodInvocation;
 		}
 
+		/*
+		 * @see org.eclipse.jdt.internal.ui.javaeditor.SemanticHighlightingCore#getConsumedBindingKinds()
+		 */
+		@Override
+		public int[] getConsumedBindingKinds() {
+			return METHOD_BINDINGS;
+		}
+
 		/*
 		 * @see org.eclipse.jdt.internal.ui.javaeditor.ISemanticHighlighting#isMatched(org.eclipse.jdt.core.dom.ASTNode)
 		 */
@@ -686,6 +736,14 @@ public class SemanticHighlightings {
 			return JavaEditorMessages.SemanticHighlighting_annotationElementReference;
 		}
 
+		/*
+		 * @see org.eclipse.jdt.internal.ui.javaeditor.SemanticHighlightingCore#getConsumedBindingKinds()
+		 */
+		@Override
+		public int[] getConsumedBindingKinds() {
+			return METHOD_BINDINGS;
+		}
+
 		/*
 		 * @see org.eclipse.jdt.internal.ui.javaeditor.ISemanticHighlighting#isMatched(org.eclipse.jdt.core.dom.ASTNode)
 		 */
@@ -756,6 +814,14 @@ public class SemanticHighlightings {
 			return JavaEditorMessages.SemanticHighlighting_abstractMethodInvocation;
 		}
 
+		/*
+		 * @see org.eclipse.jdt.internal.ui.javaeditor.SemanticHighlightingCore#getConsumedBindingKinds()
+		 */
+		@Override
+		public int[] getConsumedBindingKinds() {
+			return METHOD_BINDINGS;
+		}
+
 		/*
 		 * @see org.eclipse.jdt.internal.ui.javaeditor.ISemanticHighlighting#isMatched(org.eclipse.jdt.core.dom.ASTNode)
 		 */
@@ -834,6 +900,14 @@ public class SemanticHighlightings {
 			return JavaEditorMessages.SemanticHighlighting_inheritedMethodInvocation;
 		}
 
+		/*
+		 * @see org.eclipse.jdt.internal.ui.javaeditor.SemanticHighlightingCore#getConsumedBindingKinds()
+		 */
+		@Override
+		public int[] getConsumedBindingKinds() {
+			return METHOD_BINDINGS;
+		}
+
 		/*
 		 * @see org.eclipse.jdt.internal.ui.javaeditor.ISemanticHighlighting#isMatched(org.eclipse.jdt.core.dom.ASTNode)
 		 */
@@ -909,6 +983,14 @@ public class SemanticHighlightings {
 			return JavaEditorMessages.SemanticHighlighting_method;
 		}
 
+		/*
+		 * @see org.eclipse.jdt.internal.ui.javaeditor.SemanticHighlightingCore#getConsumedBindingKinds()
+		 */
+		@Override
+		public int[] getConsumedBindingKinds() {
+			return METHOD_AND_TYPE_BINDINGS;
+		}
+
 		/*
 		 * @see org.eclipse.jdt.internal.ui.javaeditor.ISemanticHighlighting#isMatched(org.eclipse.jdt.core.dom.ASTNode)
 		 */
@@ -1043,6 +1125,14 @@ public class SemanticHighlightings {
 			return JavaEditorMessages.SemanticHighlighting_localVariable;
 		}
 
+		/*
+		 * @see org.eclipse.jdt.internal.ui.javaeditor.SemanticHighlightingCore#getConsumedBindingKinds()
+		 */
+		@Override
+		public int[] getConsumedBindingKinds() {
+			return VARIABLE_BINDINGS;
+		}
+
 		/*
 		 * @see org.eclipse.jdt.internal.ui.javaeditor.SemanticHighlighting#consumes(org.eclipse.jdt.internal.ui.javaeditor.SemanticToken)
 		 */
@@ -1110,6 +1200,14 @@ public class SemanticHighlightings {
 			return JavaEditorMessages.SemanticHighlighting_parameterVariable;
 		}
 
+		/*
+		 * @see org.eclipse.jdt.internal.ui.javaeditor.SemanticHighlightingCore#getConsumedBindingKinds()
+		 */
+		@Override
+		public int[] getConsumedBindingKinds() {
+			return VARIABLE_BINDINGS;
+		}
+
 		/*
 		 * @see org.eclipse.jdt.internal.ui.javaeditor.SemanticHighlighting#consumes(org.eclipse.jdt.internal.ui.javaeditor.SemanticToken)
 		 */
@@ -1272,6 +1370,14 @@ public class SemanticHighlightings {
 			return JavaEditorMessages.SemanticHighlighting_typeVariables;
 		}
 
+		/*
+		 * @see org.eclipse.jdt.internal.ui.javaeditor.SemanticHighlightingCore#getConsumedBindingKinds()
+		 */
+		@Override
+		public int[] getConsumedBindingKinds() {
+			return TYPE_BINDINGS;
+		}
+
 		/*
 		 * @see org.eclipse.jdt.internal.ui.javaeditor.SemanticHighlighting#consumes(org.eclipse.jdt.internal.ui.javaeditor.SemanticToken)
 		 */
@@ -1344,6 +1450,14 @@ public class SemanticHighlightings {
 			return JavaEditorMessages.SemanticHighlighting_classes;
 		}
 
+		/*
+		 * @see org.eclipse.jdt.internal.ui.javaeditor.SemanticHighlightingCore#getConsumedBindingKinds()
+		 */
+		@Override
+		public int[] getConsumedBindingKinds() {
+			return TYPE_BINDINGS;
+		}
+
 		/*
 		 * @see org.eclipse.jdt.internal.ui.javaeditor.SemanticHighlighting#consumes(org.eclipse.jdt.internal.ui.javaeditor.SemanticToken)
 		 */
@@ -1423,6 +1537,14 @@ public class SemanticHighlightings {
 			return JavaEditorMessages.SemanticHighlighting_enums;
 		}
 
+		/*
+		 * @see org.eclipse.jdt.internal.ui.javaeditor.SemanticHighlightingCore#getConsumedBindingKinds()
+		 */
+		@Override
+		public int[] getConsumedBindingKinds() {
+			return TYPE_BINDINGS;
+		}
+
 		/*
 		 * @see org.eclipse.jdt.internal.ui.javaeditor.SemanticHighlighting#consumes(org.eclipse.jdt.internal.ui.javaeditor.SemanticToken)
 		 */
@@ -1503,6 +1625,14 @@ public class SemanticHighlightings {
 			return JavaEditorMessages.SemanticHighlighting_interfaces;
 		}
 
+		/*
+		 * @see org.eclipse.jdt.internal.ui.javaeditor.SemanticHighlightingCore#getConsumedBindingKinds()
+		 */
+		@Override
+		public int[] getConsumedBindingKinds() {
+			return TYPE_BINDINGS;
+		}
+
 		/*
 		 * @see org.eclipse.jdt.internal.ui.javaeditor.SemanticHighlighting#consumes(org.eclipse.jdt.internal.ui.javaeditor.SemanticToken)
 		 */
@@ -1582,6 +1712,14 @@ public class SemanticHighlightings {
 			return JavaEditorMessages.SemanticHighlighting_annotations;
 		}
 
+		/*
+		 * @see org.eclipse.jdt.internal.ui.javaeditor.SemanticHighlightingCore#getConsumedBindingKinds()
+		 */
+		@Override
+		public int[] getConsumedBindingKinds() {
+			return TYPE_BINDINGS;
+		}
+
 		/*
 		 * @see org.eclipse.jdt.internal.ui.javaeditor.SemanticHighlighting#consumes(org.eclipse.jdt.internal.ui.javaeditor.SemanticToken)
 		 */
@@ -1738,6 +1876,22 @@ public class SemanticHighlightings {
 			return JavaEditorMessages.SemanticHighlighting_numbers;
 		}
 
+		/*
+		 * @see org.eclipse.jdt.internal.ui.javaeditor.SemanticHighlightingCore#getConsumedBindingKinds()
+		 */
+		@Override
+		public int[] getConsumedBindingKinds() {
+			return NO_BINDINGS;
+		}
+
+		/*
+		 * @see org.eclipse.jdt.internal.ui.javaeditor.SemanticHighlightingCore#canConsumeLiterals()
+		 */
+		@Override
+		public boolean canConsumeLiterals() {
+			return true;
+		}
+
 		/*
 		 * @see org.eclipse.jdt.internal.ui.javaeditor.SemanticHighlighting#consumes(org.eclipse.jdt.internal.ui.javaeditor.SemanticToken)
 		 */
@@ -1810,6 +1964,14 @@ public class SemanticHighlightings {
 			return JavaEditorMessages.SemanticHighlighting_abstractClasses;
 		}
 
+		/*
+		 * @see org.eclipse.jdt.internal.ui.javaeditor.SemanticHighlightingCore#getConsumedBindingKinds()
+		 */
+		@Override
+		public int[] getConsumedBindingKinds() {
+			return TYPE_BINDINGS;
+		}
+
 		/*
 		 * @see org.eclipse.jdt.internal.ui.javaeditor.SemanticHighlighting#consumes(org.eclipse.jdt.internal.ui.javaeditor.SemanticToken)
 		 */
@@ -1895,6 +2057,14 @@ public class SemanticHighlightings {
 			return JavaEditorMessages.SemanticHighlighting_inheritedField;
 		}
 
+		/*
+		 * @see org.eclipse.jdt.internal.ui.javaeditor.SemanticHighlightingCore#getConsumedBindingKinds()
+		 */
+		@Override
+		public int[] getConsumedBindingKinds() {
+			return VARIABLE_BINDINGS;
+		}
+
 		/*
 		 * @see org.eclipse.jdt.internal.ui.javaeditor.ISemanticHighlighting#isMatched(org.eclipse.jdt.core.dom.ASTNode)
 		 */
@@ -1954,6 +2124,11 @@ public class SemanticHighlightings {
 			return JavaEditorMessages.SemanticHighlighting_restrictedIdentifiers;
 		}
 
+		@Override
+		public int[] getConsumedBindingKinds() {
+			return NO_BINDINGS;
+		}
+
 		@Override
 		public boolean consumes(SemanticToken token) {
 			return false;
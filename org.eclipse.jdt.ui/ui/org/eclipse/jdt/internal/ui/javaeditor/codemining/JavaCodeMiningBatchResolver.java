@@ -0,0 +1,580 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.javaeditor.codemining;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+
+import org.eclipse.search.ui.NewSearchUI;
+
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.IBuffer;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.ITypeHierarchy;
+import org.eclipse.jdt.core.ITypeRoot;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.core.search.IJavaSearchConstants;
+import org.eclipse.jdt.core.search.IJavaSearchScope;
+import org.eclipse.jdt.core.search.SearchEngine;
+import org.eclipse.jdt.core.search.SearchMatch;
+import org.eclipse.jdt.core.search.SearchParticipant;
+import org.eclipse.jdt.core.search.SearchPattern;
+import org.eclipse.jdt.core.search.SearchRequestor;
+
+import org.eclipse.jdt.internal.corext.util.JavaElementDeltas;
+
+import org.eclipse.jdt.internal.ui.search.JavaSearchScopeFactory;
+
+/**
+ * Resolves the counts shown by the reference and implementation code minings of an editor.
+ * <p>
+ * The requests of all minings of the editor which arrive within {@link #BATCH_DELAY}
+ * milliseconds are resolved together: the references of all elements are searched with one
+ * search for an OR pattern of the elements, and the implementations of a type and of its methods
+ * are counted from one type hierarchy. The batches of all editors are run on a small, bounded
+ * executor.
+ * </p>
+ * <p>
+ * The counts are cached until the Java model changes in a way which can change them, so that an
+ * update of the minings which is not caused by an edit does not search again. The reference counts
+ * are also kept in the {@link JavaReferenceCountIndex}, which persists them across sessions.
+ * </p>
+ * <p>
+ * A batch which is running when the structure of the Java model or the contents of the editor's
+ * own compilation unit change is stale. It is cancelled and its requests are resolved again with
+ * the next batch, unless the minings waiting for them have been cancelled. Edits of the bodies of
+ * other compilation units only discard the cached counts.
+ * </p>
+ */
+final class JavaCodeMiningBatchResolver {
+
+	/**
+	 * The time in milliseconds the requests are collected before a batch is resolved.
+	 */
+	private static final long BATCH_DELAY= 50;
+
+	private static final int MAX_THREADS= 2;
+
+	private static final Executor fgExecutor= createExecutor();
+
+	/**
+	 * A request for the count of an element, shared by the minings of the element.
+	 */
+	private static final class Request {
+		final CompletableFuture<Long> fFuture= new CompletableFuture<>();
+		private final List<IProgressMonitor> fMonitors= new ArrayList<>(1);
+
+		synchronized void addMonitor(IProgressMonitor monitor) {
+			fMonitors.add(monitor);
+		}
+
+		/**
+		 * @return <code>true</code> if all minings waiting for the count have been cancelled
+		 */
+		synchronized boolean isCanceled() {
+			for (IProgressMonitor monitor : fMonitors) {
+				if (monitor == null || !monitor.isCanceled()) {
+					return false;
+				}
+			}
+			return !fMonitors.isEmpty();
+		}
+	}
+
+	private final Map<IJavaElement, Long> fReferenceCounts= new HashMap<>();
+	private final Map<IJavaElement, Long> fImplementationCounts= new HashMap<>();
+	private Map<IJavaElement, Request> fPendingReferences= new LinkedHashMap<>();
+	private Map<IJavaElement, Request> fPendingImplementations= new LinkedHashMap<>();
+	/**
+	 * The compilation unit or class file of the editor, whose edits make a running batch stale.
+	 */
+	private IJavaElement fUnit;
+	private boolean fBatchScheduled;
+	/**
+	 * Incremented whenever the cached counts become invalid, a batch which has been started
+	 * before is stale.
+	 */
+	private int fGeneration;
+	private IElementChangedListener fListener;
+	private boolean fDisposed;
+
+	private static Executor createExecutor() {
+		AtomicInteger threadCount= new AtomicInteger();
+		ThreadPoolExecutor executor= new ThreadPoolExecutor(MAX_THREADS, MAX_THREADS, 10, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+			Thread thread= new Thread(r, "Java Code Mining Search " + threadCount.incrementAndGet()); //$NON-NLS-1$
+			thread.setDaemon(true);
+			return thread;
+		});
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+	/**
+	 * Returns the number of references to an element.
+	 *
+	 * @param element the field, method or type
+	 * @param monitor the monitor of the mining, may be <code>null</code>
+	 * @return a future which is completed with the number of references to <code>element</code>,
+	 *         or completed exceptionally if the search fails or all minings waiting for it have
+	 *         been cancelled
+	 */
+	public synchronized CompletableFuture<Long> countReferences(IJavaElement element, IProgressMonitor monitor) {
+		Long indexed= JavaReferenceCountIndex.getDefault().get(element);
+		if (indexed != null) {
+			return CompletableFuture.completedFuture(indexed);
+		}
+		return request(element, monitor, fReferenceCounts, fPendingReferences);
+	}
+
+	/**
+	 * Returns the number of implementations of a type or method, see
+	 * {@link JavaImplementationCodeMining}.
+	 *
+	 * @param element the method or type
+	 * @param monitor the monitor of the mining, may be <code>null</code>
+	 * @return a future which is completed with the number of implementations of
+	 *         <code>element</code>, or completed exceptionally if the computation fails or all
+	 *         minings waiting for it have been cancelled
+	 */
+	public synchronized CompletableFuture<Long> countImplementations(IJavaElement element, IProgressMonitor monitor) {
+		return request(element, monitor, fImplementationCounts, fPendingImplementations);
+	}
+
+	/**
+	 * Discards the cached counts and stops listening to the Java model.
+	 */
+	public synchronized void dispose() {
+		fDisposed= true;
+		fGeneration++;
+		fReferenceCounts.clear();
+		fImplementationCounts.clear();
+		if (fListener != null) {
+			JavaCore.removeElementChangedListener(fListener);
+			fListener= null;
+		}
+	}
+
+	private synchronized CompletableFuture<Long> request(IJavaElement element, IProgressMonitor monitor, Map<IJavaElement, Long> counts, Map<IJavaElement, Request> pending) {
+		Long count= counts.get(element);
+		if (count != null) {
+			return CompletableFuture.completedFuture(count);
+		}
+		if (fDisposed) {
+			return CompletableFuture.failedFuture(new OperationCanceledException());
+		}
+		if (fListener == null) {
+			fListener= this::elementChanged;
+			JavaCore.addElementChangedListener(fListener, ElementChangedEvent.POST_CHANGE | ElementChangedEvent.POST_RECONCILE);
+		}
+		fUnit= element.getOpenable() instanceof IJavaElement ? ((IJavaElement) element.getOpenable()).getPrimaryElement() : null;
+		Request request= pending.computeIfAbsent(element, e -> new Request());
+		request.addMonitor(monitor);
+		scheduleBatch();
+		return request.fFuture;
+	}
+
+	private synchronized void scheduleBatch() {
+		if (!fBatchScheduled) {
+			fBatchScheduled= true;
+			CompletableFuture.delayedExecutor(BATCH_DELAY, TimeUnit.MILLISECONDS, fgExecutor).execute(this::resolveBatch);
+		}
+	}
+
+	private void resolveBatch() {
+		Map<IJavaElement, Request> references;
+		Map<IJavaElement, Request> implementations;
+		int generation;
+		synchronized (this) {
+			references= fPendingReferences;
+			implementations= fPendingImplementations;
+			fPendingReferences= new LinkedHashMap<>();
+			fPendingImplementations= new LinkedHashMap<>();
+			fBatchScheduled= false;
+			generation= fGeneration;
+		}
+		removeCanceled(references);
+		removeCanceled(implementations);
+		IProgressMonitor monitor= new NullProgressMonitor() {
+			@Override
+			public boolean isCanceled() {
+				return super.isCanceled() || isStale(generation);
+			}
+		};
+		if (!references.isEmpty()) {
+			JavaReferenceCountIndex index= JavaReferenceCountIndex.getDefault();
+			long indexStamp= index.getStamp();
+			try {
+				JavaSearchScopeFactory factory= JavaSearchScopeFactory.getInstance();
+				List<IJavaElement> insideJRE= new ArrayList<>();
+				List<IJavaElement> outsideJRE= new ArrayList<>();
+				for (IJavaElement element : references.keySet()) {
+					(factory.isInsideJRE(element) ? insideJRE : outsideJRE).add(element);
+				}
+				Map<IJavaElement, Long> counts= new HashMap<>();
+				if (!insideJRE.isEmpty()) {
+					counts.putAll(searchReferences(insideJRE, factory.createWorkspaceScope(true), monitor));
+				}
+				if (!outsideJRE.isEmpty()) {
+					counts.putAll(searchReferences(outsideJRE, factory.createWorkspaceScope(false), monitor));
+				}
+				complete(references, counts, fReferenceCounts, generation);
+				counts.forEach((element, count) -> index.put(element, count.longValue(), indexStamp));
+			} catch (OperationCanceledException e) {
+				retry(references, () -> fPendingReferences, generation, e);
+			} catch (CoreException e) {
+				fail(references, e);
+			}
+		}
+		if (!implementations.isEmpty()) {
+			try {
+				complete(implementations, countImplementations(implementations.keySet(), monitor), fImplementationCounts, generation);
+			} catch (OperationCanceledException e) {
+				retry(implementations, () -> fPendingImplementations, generation, e);
+			} catch (JavaModelException e) {
+				fail(implementations, e);
+			}
+		}
+	}
+
+	/**
+	 * Completes the requests whose minings have all been cancelled and removes them.
+	 *
+	 * @param requests the requests of a batch
+	 */
+	private static void removeCanceled(Map<IJavaElement, Request> requests) {
+		for (Iterator<Request> iterator= requests.values().iterator(); iterator.hasNext();) {
+			Request request= iterator.next();
+			if (request.isCanceled()) {
+				request.fFuture.completeExceptionally(new OperationCanceledException());
+				iterator.remove();
+			}
+		}
+	}
+
+	/**
+	 * Adds the requests of a cancelled batch to the next batch if the batch has become stale.
+	 *
+	 * @param requests the requests of the batch
+	 * @param pending the pending requests of the next batch
+	 * @param generation the generation of the batch
+	 * @param e the exception which cancelled the batch
+	 */
+	private void retry(Map<IJavaElement, Request> requests, Supplier<Map<IJavaElement, Request>> pending, int generation, OperationCanceledException e) {
+		synchronized (this) {
+			if (!fDisposed && isStale(generation)) {
+				Map<IJavaElement, Request> next= pending.get();
+				for (Entry<IJavaElement, Request> entry : requests.entrySet()) {
+					Request request= entry.getValue();
+					Request newer= next.putIfAbsent(entry.getKey(), request);
+					if (newer != null) {
+						// the count has been requested again in the meantime
+						newer.fFuture.whenComplete((count, t) -> {
+							if (t != null) {
+								request.fFuture.completeExceptionally(t);
+							} else {
+								request.fFuture.complete(count);
+							}
+						});
+					}
+				}
+				scheduleBatch();
+				return;
+			}
+		}
+		fail(requests, e);
+	}
+
+	private static void fail(Map<IJavaElement, Request> requests, Exception e) {
+		requests.values().forEach(request -> request.fFuture.completeExceptionally(e));
+	}
+
+	private void complete(Map<IJavaElement, Request> requests, Map<IJavaElement, Long> counts, Map<IJavaElement, Long> cache, int generation) {
+		synchronized (this) {
+			if (!isStale(generation)) {
+				cache.putAll(counts);
+			}
+		}
+		for (Entry<IJavaElement, Request> entry : requests.entrySet()) {
+			Long count= counts.get(entry.getKey());
+			entry.getValue().fFuture.complete(count != null ? count : Long.valueOf(0));
+		}
+	}
+
+	private synchronized boolean isStale(int generation) {
+		return generation != fGeneration;
+	}
+
+	/**
+	 * Counts the references to the given elements with one search per kind of element, so that
+	 * e.g. the reference to a type in a class instance creation is not attributed to the
+	 * constructor. A match is attributed to an element by the name it references, or by code
+	 * select if the name is ambiguous. If a match cannot be attributed, e.g. in a class file
+	 * without source, the elements are searched one by one.
+	 *
+	 * @param elements the elements, all in the same search scope
+	 * @param scope the search scope
+	 * @param monitor the monitor
+	 * @return the number of references by element
+	 * @throws CoreException if the search fails
+	 */
+	private static Map<IJavaElement, Long> searchReferences(List<IJavaElement> elements, IJavaSearchScope scope, IProgressMonitor monitor) throws CoreException {
+		Map<Integer, List<IJavaElement>> elementsByKind= new LinkedHashMap<>();
+		for (IJavaElement element : elements) {
+			elementsByKind.computeIfAbsent(Integer.valueOf(element.getElementType()), k -> new ArrayList<>()).add(element);
+		}
+		Map<IJavaElement, Long> counts= new HashMap<>();
+		for (List<IJavaElement> kind : elementsByKind.values()) {
+			counts.putAll(searchReferencesOfKind(kind, scope, monitor));
+		}
+		return counts;
+	}
+
+	/**
+	 * Counts the references to elements of the same kind with one search.
+	 *
+	 * @param elements the elements, all of the same element type and in the same search scope
+	 * @param scope the search scope
+	 * @param monitor the monitor
+	 * @return the number of references by element
+	 * @throws CoreException if the search fails
+	 */
+	private static Map<IJavaElement, Long> searchReferencesOfKind(List<IJavaElement> elements, IJavaSearchScope scope, IProgressMonitor monitor) throws CoreException {
+		Map<IJavaElement, Long> counts= new HashMap<>();
+		Map<String, List<IJavaElement>> elementsByName= new HashMap<>();
+		SearchPattern pattern= null;
+		for (IJavaElement element : elements) {
+			counts.put(element, Long.valueOf(0));
+			SearchPattern elementPattern= SearchPattern.createPattern(element, IJavaSearchConstants.REFERENCES);
+			if (elementPattern == null) {
+				continue;
+			}
+			elementsByName.computeIfAbsent(element.getElementName(), n -> new ArrayList<>()).add(element);
+			pattern= pattern == null ? elementPattern : SearchPattern.createOrPattern(pattern, elementPattern);
+		}
+		if (pattern == null) {
+			return counts;
+		}
+		List<IJavaElement> first= elementsByName.values().iterator().next();
+		IJavaElement single= elementsByName.size() == 1 && first.size() == 1 ? first.get(0) : null;
+		boolean[] unattributed= new boolean[1];
+		final boolean ignoreInaccurate= NewSearchUI.arePotentialMatchesIgnored();
+		new SearchEngine().search(pattern, new SearchParticipant[] { SearchEngine.getDefaultSearchParticipant() }, scope, new SearchRequestor() {
+
+			@Override
+			public void acceptSearchMatch(SearchMatch match) throws CoreException {
+				if (unattributed[0] || match.getAccuracy() == SearchMatch.A_INACCURATE && ignoreInaccurate) {
+					return;
+				}
+				Object o= match.getElement();
+				if (!(o instanceof IJavaElement)) {
+					return;
+				}
+				IJavaElement e= (IJavaElement) o;
+				ITypeRoot typeRoot= (ITypeRoot) e.getAncestor(IJavaElement.COMPILATION_UNIT);
+				if (typeRoot == null) {
+					typeRoot= (ITypeRoot) e.getAncestor(IJavaElement.CLASS_FILE);
+				}
+				if (typeRoot == null) {
+					return;
+				}
+				IJavaElement referenced= single != null ? single : getReferencedElement(typeRoot, match, elementsByName);
+				if (referenced == null) {
+					unattributed[0]= true;
+				} else {
+					counts.merge(referenced, Long.valueOf(1), Long::sum);
+				}
+			}
+		}, monitor);
+
+		if (unattributed[0]) {
+			for (List<IJavaElement> group : elementsByName.values()) {
+				for (IJavaElement element : group) {
+					counts.putAll(searchReferencesOfKind(List.of(element), scope, monitor));
+				}
+			}
+		}
+		return counts;
+	}
+
+	/**
+	 * Finds the element which is referenced by a match. The referenced name is the last
+	 * identifier in front of the arguments and type arguments of the match, e.g.
+	 * <code>setFoo</code> in <code>setFoo(foo)</code> or <code>Foo</code> in
+	 * <code>new p.Foo&lt;T&gt;()</code>. If several searched elements have that name, the
+	 * name is resolved with code select.
+	 *
+	 * @param typeRoot the type root containing the match
+	 * @param match the match
+	 * @param elementsByName the searched elements by name, all of the same element type
+	 * @return the searched element referenced by the match, or <code>null</code> if the match
+	 *         cannot be attributed
+	 * @throws JavaModelException if the source of the match cannot be accessed
+	 */
+	private static IJavaElement getReferencedElement(ITypeRoot typeRoot, SearchMatch match, Map<String, List<IJavaElement>> elementsByName) throws JavaModelException {
+		IBuffer buffer= typeRoot.getBuffer();
+		if (buffer == null) {
+			return null;
+		}
+		String text= buffer.getText(match.getOffset(), match.getLength());
+		int offset= match.getOffset();
+		int length= match.getLength();
+		int end= getNameEnd(text);
+		int start= end;
+		while (start > 0 && Character.isJavaIdentifierPart(text.charAt(start - 1))) {
+			start--;
+		}
+		if (start < end) {
+			List<IJavaElement> named= elementsByName.get(text.substring(start, end));
+			if (named != null && named.size() == 1) {
+				return named.get(0);
+			}
+			if (named != null) {
+				offset+= start;
+				length= end - start;
+			}
+			// otherwise e.g. this(...) or super(...), code select the whole match
+		}
+		for (IJavaElement selected : typeRoot.codeSelect(offset, length)) {
+			List<IJavaElement> named= elementsByName.get(selected.getElementName());
+			if (named != null && named.contains(selected)) {
+				return selected;
+			}
+			if (selected instanceof IMethod && ((IMethod) selected).isConstructor()) {
+				// the type name of a class instance creation selects the constructor
+				IType type= ((IMethod) selected).getDeclaringType();
+				named= elementsByName.get(type.getElementName());
+				if (named != null && named.contains(type)) {
+					return type;
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @param text the text of a match
+	 * @return the end of the referenced name in the text, i.e. the end of the text without
+	 *         arguments, type arguments, array dimensions and trailing white space
+	 */
+	private static int getNameEnd(String text) {
+		int end= text.length();
+		for (int i= 0; i < text.length(); i++) {
+			char c= text.charAt(i);
+			if (c == '(' || c == '<' || c == '[') {
+				end= i;
+				break;
+			}
+		}
+		while (end > 0 && !Character.isJavaIdentifierPart(text.charAt(end - 1))) {
+			end--;
+		}
+		return end;
+	}
+
+	/**
+	 * Counts the implementations of the given types and methods, see
+	 * {@link JavaImplementationCodeMining}. The type hierarchy of a type is computed once for
+	 * the type and its methods.
+	 *
+	 * @param elements the types and methods
+	 * @param monitor the monitor
+	 * @return the number of implementations by element
+	 * @throws JavaModelException if a type hierarchy cannot be computed
+	 */
+	private static Map<IJavaElement, Long> countImplementations(Iterable<IJavaElement> elements, IProgressMonitor monitor) throws JavaModelException {
+		Map<IJavaElement, Long> counts= new HashMap<>();
+		Map<IType, List<IType>> subtypesByType= new HashMap<>();
+		for (IJavaElement element : elements) {
+			if (monitor.isCanceled()) {
+				throw new OperationCanceledException();
+			}
+			IType type;
+			if (element instanceof IType) {
+				type= (IType) element;
+			} else if (element instanceof IMethod) {
+				type= ((IMethod) element).getDeclaringType();
+			} else {
+				continue;
+			}
+			List<IType> subtypes= subtypesByType.get(type);
+			if (subtypes == null) {
+				ITypeHierarchy hierarchy= type.newTypeHierarchy(monitor);
+				subtypes= new ArrayList<>();
+				for (IType subtype : hierarchy.getAllSubtypes(type)) {
+					if (subtype.getAncestor(IJavaElement.COMPILATION_UNIT) != null) {
+						subtypes.add(subtype);
+					}
+				}
+				subtypesByType.put(type, subtypes);
+			}
+			long count;
+			if (element instanceof IType) {
+				count= subtypes.size();
+			} else {
+				IMethod method= (IMethod) element;
+				count= subtypes.stream().filter(t -> t.getMethod(method.getElementName(), method.getParameterTypes()).exists()).count();
+			}
+			counts.put(element, Long.valueOf(count));
+		}
+		return counts;
+	}
+
+	private void elementChanged(ElementChangedEvent event) {
+		IJavaElementDelta delta= event.getDelta();
+		boolean structural= JavaElementDeltas.isStructuralChange(delta);
+		List<IJavaElementDelta> unitDeltas= new ArrayList<>();
+		JavaElementDeltas.collectCompilationUnitDeltas(delta, unitDeltas);
+		Set<IJavaElement> changedUnits= new HashSet<>();
+		for (IJavaElementDelta unitDelta : unitDeltas) {
+			if ((unitDelta.getFlags() & IJavaElementDelta.F_CONTENT) != 0) {
+				changedUnits.add(unitDelta.getElement().getPrimaryElement());
+			}
+		}
+		if (!structural && changedUnits.isEmpty()) {
+			return;
+		}
+		synchronized (this) {
+			if (structural || changedUnits.contains(fUnit)) {
+				// a running batch is stale and is resolved again
+				fGeneration++;
+			}
+			fReferenceCounts.clear();
+			fImplementationCounts.clear();
+		}
+	}
+}
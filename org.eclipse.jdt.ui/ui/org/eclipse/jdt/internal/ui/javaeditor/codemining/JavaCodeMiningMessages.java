@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2018 Angelo Zerr and others.
+ * Copyright (c) 2018, 2022 Angelo Zerr and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -31,6 +31,8 @@ final class JavaCodeMiningMessages extends NLS {
 
 	public static String JavaImplementationCodeMining_label;
 
+	public static String JavaReferenceCountIndex_load_job_name;
+
 	static {
 		NLS.initializeMessages(BUNDLE_NAME, JavaCodeMiningMessages.class);
 	}
@@ -67,6 +67,8 @@ public class JavaElementCodeMiningProvider extends AbstractCodeMiningProvider {
 
 	private final boolean editorEnabled;
 
+	private final JavaCodeMiningBatchResolver resolver= new JavaCodeMiningBatchResolver();
+
 	public JavaElementCodeMiningProvider() {
 		editorEnabled= JavaPreferencesPropertyTester.isEnabled(PreferenceConstants.EDITOR_CODEMINING_ENABLED);
 		showAtLeastOne= editorEnabled && JavaPreferencesPropertyTester.isEnabled(PreferenceConstants.EDITOR_JAVA_CODEMINING_SHOW_CODEMINING_AT_LEAST_ONE);
@@ -158,7 +160,7 @@ public class JavaElementCodeMiningProvider extends AbstractCodeMiningProvider {
 							|| (showReferencesOnFields && (element.getElementType() == IJavaElement.FIELD)) // Show references on fields
 					) {
 						minings.add(new JavaReferenceCodeMining(element, (JavaEditor) textEditor, viewer.getDocument(),
-								this, showAtLeastOne));
+								this, showAtLeastOne, resolver));
 					}
 				} catch (BadLocationException e) {
 					// Should never occur
@@ -178,7 +180,7 @@ public class JavaElementCodeMiningProvider extends AbstractCodeMiningProvider {
 				if (addMining) {
 					try {
 						minings.add(new JavaImplementationCodeMining(element, (JavaEditor) textEditor, viewer.getDocument(), this,
-								showAtLeastOne));
+								showAtLeastOne, resolver));
 					} catch (BadLocationException e) {
 						// Should never occur
 					}
@@ -187,4 +189,10 @@ public class JavaElementCodeMiningProvider extends AbstractCodeMiningProvider {
 		}
 	}
 
+	@Override
+	public void dispose() {
+		resolver.dispose();
+		super.dispose();
+	}
+
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2019 Angelo Zerr and others.
+ * Copyright (c) 2019, 2022 Angelo Zerr and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -63,69 +63,69 @@ public class JavaImplementationCodeMining extends AbstractJavaElementLineHeaderC
 
 	private final boolean showImplementationsAtLeastOne;
 
+	private final JavaCodeMiningBatchResolver resolver;
+
 	private Consumer<MouseEvent> action;
 
 	public JavaImplementationCodeMining(IJavaElement element, JavaEditor editor, IDocument document, ICodeMiningProvider provider,
-			boolean showImplementationsAtLeastOne) throws JavaModelException, BadLocationException {
+			boolean showImplementationsAtLeastOne, JavaCodeMiningBatchResolver resolver) throws JavaModelException, BadLocationException {
 		super(element, document, provider, null);
 		this.editor= editor;
 		this.showImplementationsAtLeastOne= showImplementationsAtLeastOne;
+		this.resolver= resolver;
 	}
 
 	@SuppressWarnings("boxing")
 	@Override
 	protected CompletableFuture<Void> doResolve(ITextViewer viewer, IProgressMonitor monitor) {
-		return CompletableFuture.runAsync(() -> {
-			try {
-				IJavaElement element= super.getElement();
-				if (element instanceof IType) {
-					// for a type, count types implementing this type and show type hierarchy
-					final long typeImplCount= countTypeImplementations((IType) element, monitor);
-					action= typeImplCount > 0 ? e -> {
-						if (typeImplCount == 1 && (e.stateMask & SWT.CTRL) == SWT.CTRL) {
-							// Ctrl + Click is done, open the referenced element in the Java Editor
-							try {
-								IType javaElement= getTypeImplementation((IType)element, monitor);
-								showJavaElementInEditor(javaElement);
-							} catch (CoreException e1) {
-								// Should never occur
-							}
-						} else {
-							// Otherwise, launch open type hierarchy
-							new OpenTypeHierarchyAction(editor).run(new StructuredSelection(element));
+		IJavaElement element= super.getElement();
+		if (!(element instanceof IType) && !(element instanceof IMethod)) {
+			return CompletableFuture.completedFuture(null);
+		}
+		// the implementations of all minings of the editor are counted together
+		return resolver.countImplementations(element, monitor).thenAccept(count -> {
+			long implCount= count;
+			if (element instanceof IType) {
+				// for a type, count types implementing this type and show type hierarchy
+				action= implCount > 0 ? e -> {
+					if (implCount == 1 && (e.stateMask & SWT.CTRL) == SWT.CTRL) {
+						// Ctrl + Click is done, open the referenced element in the Java Editor
+						try {
+							IType javaElement= getTypeImplementation((IType)element, monitor);
+							showJavaElementInEditor(javaElement);
+						} catch (CoreException e1) {
+							// Should never occur
 						}
-					} : null;
-					if (typeImplCount == 0 && showImplementationsAtLeastOne) {
-						super.setLabel(""); //$NON-NLS-1$
 					} else {
-						super.setLabel(MessageFormat.format(JavaCodeMiningMessages.JavaImplementationCodeMining_label, typeImplCount));
+						// Otherwise, launch open type hierarchy
+						new OpenTypeHierarchyAction(editor).run(new StructuredSelection(element));
 					}
-				} else if (element instanceof IMethod) {
-					// for a method, count declarations in hierarchy and show search->declarations->hierarchy
-					final long methodImplCount= countMethodImplementations((IMethod) element, monitor);
-					action= methodImplCount > 0 ? e -> {
-						if (methodImplCount == 1 && (e.stateMask & SWT.CTRL) == SWT.CTRL) {
-							// Ctrl + Click is done, open the referenced element in the Java Editor
-							try {
-								IMethod javaElement= getMethodImplementation((IMethod)element, monitor);
-								showJavaElementInEditor(javaElement);
-							} catch (CoreException e1) {
-								// Should never occur
-							}
-						} else {
-							// Otherwise, launch find declarations in type hierarchy
-							new FindDeclarationsInHierarchyAction(editor, true).run(element);
+				} : null;
+			} else {
+				// for a method, count declarations in hierarchy and show search->declarations->hierarchy
+				action= implCount > 0 ? e -> {
+					if (implCount == 1 && (e.stateMask & SWT.CTRL) == SWT.CTRL) {
+						// Ctrl + Click is done, open the referenced element in the Java Editor
+						try {
+							IMethod javaElement= getMethodImplementation((IMethod)element, monitor);
+							showJavaElementInEditor(javaElement);
+						} catch (CoreException e1) {
+							// Should never occur
 						}
-					} : null;
-					if (methodImplCount == 0 && showImplementationsAtLeastOne) {
-						super.setLabel(""); //$NON-NLS-1$
 					} else {
-						super.setLabel(MessageFormat.format(JavaCodeMiningMessages.JavaImplementationCodeMining_label, methodImplCount));
+						// Otherwise, launch find declarations in type hierarchy
+						new FindDeclarationsInHierarchyAction(editor, true).run(element);
 					}
-				}
-			} catch (CoreException e1) {
-				// Should never occur
+				} : null;
+			}
+			if (implCount == 0 && showImplementationsAtLeastOne) {
+				super.setLabel(""); //$NON-NLS-1$
+			} else {
+				super.setLabel(MessageFormat.format(JavaCodeMiningMessages.JavaImplementationCodeMining_label, implCount));
 			}
+		}).exceptionally(e -> {
+			// the computation failed or the mining has been cancelled
+			return null;
 		});
 	}
 
@@ -153,19 +153,6 @@ public class JavaImplementationCodeMining extends AbstractJavaElementLineHeaderC
 		}
 	}
 
-	/**
-	 * Return the count of implementation for the given java element type.
-	 *
-	 * @param type the java element type.
-	 * @param monitor the monitor
-	 * @return the count of implementation for the given java element type.
-	 * @throws JavaModelException throws when Java error
-	 */
-	private static long countTypeImplementations(IType type, IProgressMonitor monitor) throws JavaModelException {
-		IType[] results= type.newTypeHierarchy(monitor).getAllSubtypes(type);
-		return Stream.of(results).filter(t -> t.getAncestor(IJavaElement.COMPILATION_UNIT) != null).count();
-	}
-
 	/**
 	 * Return the first implementation for the given java element type.
 	 *
@@ -179,25 +166,6 @@ public class JavaImplementationCodeMining extends AbstractJavaElementLineHeaderC
 		return Stream.of(results).filter(t -> t.getAncestor(IJavaElement.COMPILATION_UNIT) != null).findFirst().get();
 	}
 
-	/**
-	 * Return the count of implementation for the java element method.
-	 *
-	 * @param method the java element method.
-	 * @param monitor the monitor
-	 * @return the count of implementation for the given java element method.
-	 * @throws CoreException throws when java error
-	 */
-	private static long countMethodImplementations(IMethod method, IProgressMonitor monitor) throws CoreException {
-		if (method == null) {
-			return 0;
-		}
-		IType type= method.getDeclaringType();
-		IType[] results= type.newTypeHierarchy(monitor).getAllSubtypes(type);
-		List<IType> list= Stream.of(results).filter(t -> t.getAncestor(IJavaElement.COMPILATION_UNIT) != null).collect(Collectors.toList());
-		long count= list.stream().filter(t -> t.getMethod(method.getElementName(), method.getParameterTypes()).exists()).count();
-		return count;
-	}
-
 	/**
 	 * Return the implementation of a java element method.
 	 *
@@ -0,0 +1,708 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.javaeditor.codemining;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.TransformerFactoryConfigurationError;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.ResourcesPlugin;
+
+import org.eclipse.search.ui.NewSearchUI;
+
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.JavaModelException;
+
+import org.eclipse.jdt.internal.corext.util.JavaElementDeltas;
+
+import org.eclipse.jdt.internal.ui.JavaPlugin;
+
+/**
+ * Persistent index of the reference counts shown by {@link JavaReferenceCodeMining}, so that
+ * the counts of an editor which is opened again, also in a later session, are shown without
+ * searching.
+ * <p>
+ * The counts of the elements declared in a project are stored in one file per project in the
+ * state location. The references to these elements can be in the project itself and in the
+ * projects which require it, so a change in a project invalidates the counts of the project and
+ * of all projects it requires. Changes made while the index was not running are detected by a
+ * fingerprint of the modification stamps of the Java files, archives and class paths of all
+ * projects the counts depend on, which is stored with the counts and compared when they are
+ * loaded. The hashes of the files of the projects and the dependencies between the projects are
+ * cached and dropped when resource and Java model deltas change them, so that a project is only
+ * visited again after it has changed. The counts of a project are loaded in the background, they
+ * are not known until they have been loaded. The fingerprint of the counts of a project is
+ * computed in the background as well, after the counts have been modified; counts whose
+ * fingerprint is not known when the index is disposed are not stored.
+ * </p>
+ */
+public final class JavaReferenceCountIndex {
+
+	private static final String DIRECTORY= "codeMiningReferences"; //$NON-NLS-1$
+	private static final String FILE_EXTENSION= ".xml"; //$NON-NLS-1$
+	private static final String NODE_ROOT= "referenceCounts"; //$NON-NLS-1$
+	private static final String NODE_ELEMENT= "element"; //$NON-NLS-1$
+	private static final String NODE_FINGERPRINT= "fingerprint"; //$NON-NLS-1$
+	private static final String NODE_IGNORE_INACCURATE= "ignoreInaccurate"; //$NON-NLS-1$
+	private static final String NODE_HANDLE= "handle"; //$NON-NLS-1$
+	private static final String NODE_COUNT= "count"; //$NON-NLS-1$
+
+	/**
+	 * The family of the jobs loading the counts of projects and computing their fingerprints.
+	 */
+	public static final String FAMILY_LOAD= JavaReferenceCountIndex.class.getName() + ".load"; //$NON-NLS-1$
+
+	/**
+	 * The maximum number of counts kept per project.
+	 */
+	private static final int MAX_ENTRIES= 10000;
+
+	private static final class ProjectIndex {
+		final boolean fIgnoreInaccurate;
+		final Map<String, Long> fCounts= new LinkedHashMap<String, Long>(16, 0.75f, true) {
+			private static final long serialVersionUID= 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+				return size() > MAX_ENTRIES;
+			}
+		};
+		boolean fModified;
+		/**
+		 * The fingerprint of the state the counts have been computed in, or <code>null</code> if
+		 * it has not been computed yet.
+		 */
+		Long fFingerprint;
+		boolean fFingerprintScheduled;
+
+		ProjectIndex(boolean ignoreInaccurate) {
+			fIgnoreInaccurate= ignoreInaccurate;
+		}
+	}
+
+	private static JavaReferenceCountIndex fgInstance;
+
+	private final File fDirectory;
+	private final Map<String, ProjectIndex> fIndexes= new HashMap<>();
+	/**
+	 * The working copies which have been edited, discarding them reverts the edits.
+	 */
+	private final Set<ICompilationUnit> fEditedWorkingCopies= new HashSet<>();
+	private final IResourceChangeListener fResourceListener;
+	private final IElementChangedListener fElementListener;
+	/**
+	 * Incremented whenever counts are invalidated, see {@link #put(IJavaElement, long, long)}.
+	 */
+	private long fStamp;
+	/**
+	 * The hashes of the relevant files of the projects, see {@link #computeHash(String)}.
+	 */
+	private final Map<String, Long> fProjectHashes= new HashMap<>();
+	/**
+	 * The names of the projects required by each Java project, or <code>null</code> if they have
+	 * to be computed again.
+	 */
+	private Map<String, Set<String>> fRequiredProjects;
+	/**
+	 * Incremented whenever all counts or the dependencies between the projects are reset, so that
+	 * a load or computation which has been started before is not used.
+	 */
+	private long fResets;
+	/**
+	 * The names of the projects whose counts are being loaded.
+	 */
+	private final Set<String> fLoading= new HashSet<>();
+
+	/**
+	 * @return the index shared by the code minings of all editors, which stores the counts in the
+	 *         state location of the plug-in
+	 */
+	public static synchronized JavaReferenceCountIndex getDefault() {
+		if (fgInstance == null)
+			fgInstance= new JavaReferenceCountIndex(JavaPlugin.getDefault().getStateLocation().append(DIRECTORY).toFile());
+		return fgInstance;
+	}
+
+	/**
+	 * Disposes the shared index, called when the plug-in is stopped.
+	 */
+	public static synchronized void shutdown() {
+		if (fgInstance == null)
+			return;
+		fgInstance.dispose();
+		fgInstance= null;
+	}
+
+	/**
+	 * Creates an index, which is disposed with {@link #dispose()}. The code minings use the index
+	 * returned by {@link #getDefault()}.
+	 *
+	 * @param directory the directory to store the counts in
+	 */
+	public JavaReferenceCountIndex(File directory) {
+		fDirectory= directory;
+		fResourceListener= this::resourceChanged;
+		fElementListener= this::elementChanged;
+		ResourcesPlugin.getWorkspace().addResourceChangeListener(fResourceListener, IResourceChangeEvent.POST_CHANGE);
+		JavaCore.addElementChangedListener(fElementListener, ElementChangedEvent.POST_CHANGE | ElementChangedEvent.POST_RECONCILE);
+	}
+
+	/**
+	 * @return the current stamp, to be passed to {@link #put(IJavaElement, long, long)} with
+	 *         counts which are computed afterwards
+	 */
+	public synchronized long getStamp() {
+		return fStamp;
+	}
+
+	/**
+	 * Returns the indexed number of references to an element.
+	 *
+	 * @param element the element
+	 * @return the number of references, or <code>null</code> if it is not known or the counts of
+	 *         the project of the element have not been loaded yet
+	 */
+	public synchronized Long get(IJavaElement element) {
+		if (!isIndexed(element))
+			return null;
+		String name= element.getJavaProject().getElementName();
+		if (!fIndexes.containsKey(name)) {
+			scheduleLoad(name);
+			return null;
+		}
+		ProjectIndex index= fIndexes.get(name);
+		if (index == null || index.fIgnoreInaccurate != NewSearchUI.arePotentialMatchesIgnored())
+			return null;
+		return index.fCounts.get(element.getHandleIdentifier());
+	}
+
+	/**
+	 * Adds the number of references to an element to the index. The count is ignored if counts
+	 * have been invalidated since <code>stamp</code> has been taken.
+	 *
+	 * @param element the element
+	 * @param count the number of references
+	 * @param stamp the stamp taken with {@link #getStamp()} before the count has been computed
+	 */
+	public synchronized void put(IJavaElement element, long count, long stamp) {
+		if (stamp != fStamp || !isIndexed(element))
+			return;
+		IJavaProject project= element.getJavaProject();
+		boolean ignoreInaccurate= NewSearchUI.arePotentialMatchesIgnored();
+		ProjectIndex index= fIndexes.get(project.getElementName());
+		if (index == null || index.fIgnoreInaccurate != ignoreInaccurate) {
+			index= new ProjectIndex(ignoreInaccurate);
+			fIndexes.put(project.getElementName(), index);
+		}
+		index.fCounts.put(element.getHandleIdentifier(), Long.valueOf(count));
+		index.fModified= true;
+		if (index.fFingerprint == null && !index.fFingerprintScheduled)
+			scheduleFingerprint(project.getElementName(), index);
+	}
+
+	/**
+	 * @param element the element
+	 * @return <code>true</code> if the counts of the element can be indexed, i.e. if it is
+	 *         declared in a source file of a project
+	 */
+	private static boolean isIndexed(IJavaElement element) {
+		return element.getAncestor(IJavaElement.COMPILATION_UNIT) != null && element.getJavaProject() != null;
+	}
+
+	private void scheduleLoad(String projectName) {
+		if (!fLoading.add(projectName))
+			return;
+		schedule(() -> load(projectName));
+	}
+
+	private void scheduleFingerprint(String projectName, ProjectIndex index) {
+		index.fFingerprintScheduled= true;
+		schedule(() -> computeFingerprint(projectName, index));
+	}
+
+	private void schedule(Runnable runnable) {
+		Job job= new Job(JavaCodeMiningMessages.JavaReferenceCountIndex_load_job_name) {
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				runnable.run();
+				return Status.OK_STATUS;
+			}
+
+			@Override
+			public boolean belongsTo(Object family) {
+				return FAMILY_LOAD.equals(family) || family == JavaReferenceCountIndex.this;
+			}
+		};
+		job.setSystem(true);
+		job.setPriority(Job.SHORT);
+		job.schedule();
+	}
+
+	/**
+	 * Computes the fingerprint of the counts of a project after they have been modified.
+	 *
+	 * @param projectName the name of the project
+	 * @param index the counts of the project
+	 */
+	private void computeFingerprint(String projectName, ProjectIndex index) {
+		long stamp;
+		synchronized (this) {
+			if (fIndexes.get(projectName) != index)
+				return;
+			stamp= fStamp;
+		}
+		long fingerprint= computeFingerprint(projectName);
+		synchronized (this) {
+			index.fFingerprintScheduled= false;
+			// a fingerprint computed while files have been changed may not match the counts
+			if (stamp == fStamp)
+				index.fFingerprint= Long.valueOf(fingerprint);
+		}
+	}
+
+	/**
+	 * Loads the counts of a project from the state location.
+	 *
+	 * @param projectName the name of the project
+	 */
+	private void load(String projectName) {
+		long resets;
+		synchronized (this) {
+			resets= fResets;
+		}
+		File file= getFile(projectName);
+		ProjectIndex index= file.exists() ? read(file, projectName) : null;
+		synchronized (this) {
+			fLoading.remove(projectName);
+			// counts which have been invalidated in the meantime are not replaced
+			if (resets == fResets && !fIndexes.containsKey(projectName))
+				fIndexes.put(projectName, index);
+		}
+	}
+
+	private void invalidate(IProject project) {
+		synchronized (this) {
+			fProjectHashes.remove(project.getName());
+		}
+		invalidate(getRequiredProjectNames(project.getName()));
+	}
+
+	private synchronized void invalidate(Set<String> projectNames) {
+		fStamp++;
+		for (String name : projectNames) {
+			// an empty, modified index deletes the file when the index is stored
+			ProjectIndex empty= new ProjectIndex(NewSearchUI.arePotentialMatchesIgnored());
+			empty.fModified= true;
+			fIndexes.put(name, empty);
+		}
+	}
+
+	private synchronized void invalidateAll() {
+		fStamp++;
+		fResets++;
+		fIndexes.clear();
+		fProjectHashes.clear();
+		fRequiredProjects= null;
+		File[] files= fDirectory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+	}
+
+	private void resourceChanged(IResourceChangeEvent event) {
+		IResourceDelta delta= event.getDelta();
+		if (delta == null)
+			return;
+		for (IResourceDelta projectDelta : delta.getAffectedChildren()) {
+			if (projectDelta.getKind() != IResourceDelta.CHANGED
+					|| (projectDelta.getFlags() & (IResourceDelta.OPEN | IResourceDelta.DESCRIPTION)) != 0) {
+				// the dependencies between the projects may have changed
+				invalidateAll();
+				return;
+			}
+			if (hasRelevantChange(projectDelta)) {
+				invalidate((IProject) projectDelta.getResource());
+			}
+		}
+	}
+
+	private static boolean hasRelevantChange(IResourceDelta delta) {
+		IResource resource= delta.getResource();
+		if (resource.isDerived())
+			return false;
+		if (resource.getType() == IResource.FILE) {
+			return isRelevant(resource.getName()) && (delta.getKind() != IResourceDelta.CHANGED || (delta.getFlags() & (IResourceDelta.CONTENT | IResourceDelta.REPLACED)) != 0);
+		}
+		for (IResourceDelta child : delta.getAffectedChildren()) {
+			if (hasRelevantChange(child))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Invalidates the counts when a working copy is edited or discarded, which is not reported
+	 * by resource deltas.
+	 *
+	 * @param event the event
+	 */
+	private void elementChanged(ElementChangedEvent event) {
+		boolean reconcile= event.getType() == ElementChangedEvent.POST_RECONCILE;
+		if (!reconcile && hasClasspathChange(event.getDelta())) {
+			synchronized (this) {
+				fResets++;
+				fRequiredProjects= null;
+			}
+		}
+		List<IJavaElementDelta> unitDeltas= new ArrayList<>();
+		JavaElementDeltas.collectCompilationUnitDeltas(event.getDelta(), unitDeltas);
+		Set<ICompilationUnit> changed= new HashSet<>();
+		for (IJavaElementDelta unitDelta : unitDeltas) {
+			if (isChangedWorkingCopy(unitDelta, reconcile)) {
+				changed.add((ICompilationUnit) unitDelta.getElement());
+			}
+		}
+		for (ICompilationUnit workingCopy : changed) {
+			synchronized (this) {
+				if (reconcile) {
+					fEditedWorkingCopies.add(workingCopy);
+				} else if (!fEditedWorkingCopies.remove(workingCopy)) {
+					// opened, or discarded without edits
+					continue;
+				}
+			}
+			invalidate(getRequiredProjectNames(workingCopy.getJavaProject().getElementName()));
+		}
+	}
+
+	private static boolean hasClasspathChange(IJavaElementDelta delta) {
+		for (IJavaElementDelta projectDelta : delta.getAffectedChildren()) {
+			if ((projectDelta.getFlags() & (IJavaElementDelta.F_CLASSPATH_CHANGED | IJavaElementDelta.F_RESOLVED_CLASSPATH_CHANGED)) != 0)
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * @param unitDelta the delta of a compilation unit
+	 * @param reconcile <code>true</code> if the delta is a reconcile delta
+	 * @return <code>true</code> if the delta edits a working copy, or opens or discards a primary
+	 *         working copy
+	 */
+	private static boolean isChangedWorkingCopy(IJavaElementDelta unitDelta, boolean reconcile) {
+		if (unitDelta.getElement().getJavaProject() == null)
+			return false;
+		int flags= unitDelta.getFlags() & ~(IJavaElementDelta.F_AST_AFFECTED | IJavaElementDelta.F_CHILDREN);
+		return reconcile ? flags != 0 || unitDelta.getAffectedChildren().length > 0 : (flags & IJavaElementDelta.F_PRIMARY_WORKING_COPY) != 0;
+	}
+
+	/**
+	 * Stores the modified counts whose fingerprint is known and stops listening to changes.
+	 */
+	public void dispose() {
+		ResourcesPlugin.getWorkspace().removeResourceChangeListener(fResourceListener);
+		JavaCore.removeElementChangedListener(fElementListener);
+		Job.getJobManager().cancel(this);
+		Map<String, ProjectIndex> modified= new HashMap<>();
+		synchronized (this) {
+			fResets++;
+			for (Entry<String, ProjectIndex> entry : fIndexes.entrySet()) {
+				ProjectIndex index= entry.getValue();
+				if (index != null && index.fModified) {
+					ProjectIndex copy= new ProjectIndex(index.fIgnoreInaccurate);
+					copy.fCounts.putAll(index.fCounts);
+					copy.fFingerprint= index.fFingerprint;
+					modified.put(entry.getKey(), copy);
+				}
+			}
+			fIndexes.clear();
+		}
+		// counts computed with unsaved changes must not be stored
+		Set<String> unsaved= new HashSet<>();
+		for (ICompilationUnit workingCopy : JavaCore.getWorkingCopies(null)) {
+			try {
+				if (workingCopy.hasUnsavedChanges())
+					unsaved.addAll(getRequiredProjectNames(workingCopy.getJavaProject().getElementName()));
+			} catch (JavaModelException e) {
+				unsaved.addAll(getRequiredProjectNames(workingCopy.getJavaProject().getElementName()));
+			}
+		}
+		for (Entry<String, ProjectIndex> entry : modified.entrySet()) {
+			String name= entry.getKey();
+			ProjectIndex index= entry.getValue();
+			File file= getFile(name);
+			IJavaProject project= JavaCore.create(ResourcesPlugin.getWorkspace().getRoot().getProject(name));
+			if (index.fCounts.isEmpty() || unsaved.contains(name) || !project.exists()) {
+				file.delete();
+			} else if (index.fFingerprint != null) {
+				save(file, index, index.fFingerprint.longValue());
+			}
+			// otherwise the fingerprint is not known yet, a stored file is checked when it is loaded
+		}
+	}
+
+	private File getFile(String projectName) {
+		return new File(fDirectory, projectName + FILE_EXTENSION);
+	}
+
+	private ProjectIndex read(File file, String projectName) {
+		try (InputStream in= new FileInputStream(file)) {
+			DocumentBuilder parser= DocumentBuilderFactory.newInstance().newDocumentBuilder();
+			parser.setErrorHandler(new DefaultHandler());
+			Element root= parser.parse(in).getDocumentElement();
+			if (root == null || !NODE_ROOT.equals(root.getNodeName()))
+				return null;
+			long fingerprint= computeFingerprint(projectName);
+			if (Long.parseLong(root.getAttribute(NODE_FINGERPRINT)) != fingerprint) {
+				// changed while the counts were not tracked
+				file.delete();
+				return null;
+			}
+			ProjectIndex index= new ProjectIndex(Boolean.parseBoolean(root.getAttribute(NODE_IGNORE_INACCURATE)));
+			index.fFingerprint= Long.valueOf(fingerprint);
+			NodeList list= root.getChildNodes();
+			for (int i= 0; i < list.getLength(); i++) {
+				Node node= list.item(i);
+				if (node.getNodeType() == Node.ELEMENT_NODE && NODE_ELEMENT.equals(node.getNodeName())) {
+					Element element= (Element) node;
+					index.fCounts.put(element.getAttribute(NODE_HANDLE), Long.valueOf(element.getAttribute(NODE_COUNT)));
+				}
+			}
+			return index;
+		} catch (IOException | SAXException | ParserConfigurationException | NumberFormatException e) {
+			JavaPlugin.log(e);
+			file.delete();
+			return null;
+		}
+	}
+
+	private static void save(File file, ProjectIndex index, long fingerprint) {
+		file.getParentFile().mkdirs();
+		try (OutputStream out= new FileOutputStream(file)) {
+			Document document= DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+			Element root= document.createElement(NODE_ROOT);
+			root.setAttribute(NODE_FINGERPRINT, Long.toString(fingerprint));
+			root.setAttribute(NODE_IGNORE_INACCURATE, Boolean.toString(index.fIgnoreInaccurate));
+			document.appendChild(root);
+			for (Entry<String, Long> entry : index.fCounts.entrySet()) {
+				Element element= document.createElement(NODE_ELEMENT);
+				element.setAttribute(NODE_HANDLE, entry.getKey());
+				element.setAttribute(NODE_COUNT, entry.getValue().toString());
+				root.appendChild(element);
+			}
+			Transformer transformer= TransformerFactory.newInstance().newTransformer();
+			transformer.setOutputProperty(OutputKeys.METHOD, "xml"); //$NON-NLS-1$
+			transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8"); //$NON-NLS-1$
+			transformer.transform(new DOMSource(document), new StreamResult(out));
+		} catch (IOException | ParserConfigurationException | TransformerException | TransformerFactoryConfigurationError e) {
+			JavaPlugin.log(e);
+			file.delete();
+		}
+	}
+
+	/**
+	 * Computes the fingerprint of the state the counts of the elements of a project depend on,
+	 * from the hashes of the relevant files of the project and of all projects which require it.
+	 *
+	 * @param projectName the name of the project
+	 * @return the fingerprint
+	 */
+	private long computeFingerprint(String projectName) {
+		long fingerprint= 1;
+		for (String name : new TreeSet<>(getRequiringProjectNames(projectName))) {
+			fingerprint= 31 * fingerprint + getHash(name);
+		}
+		return fingerprint;
+	}
+
+	/**
+	 * @param projectName the name of a project
+	 * @return the cached hash of the relevant files of the project, computed if necessary
+	 */
+	private long getHash(String projectName) {
+		long stamp;
+		synchronized (this) {
+			Long hash= fProjectHashes.get(projectName);
+			if (hash != null)
+				return hash.longValue();
+			stamp= fStamp;
+		}
+		long hash= computeHash(projectName);
+		synchronized (this) {
+			// a hash computed while the project has been changed may be stale
+			if (stamp == fStamp)
+				fProjectHashes.put(projectName, Long.valueOf(hash));
+		}
+		return hash;
+	}
+
+	/**
+	 * Computes a hash of the modification stamps of the relevant files of a project.
+	 *
+	 * @param projectName the name of the project
+	 * @return the hash
+	 */
+	private static long computeHash(String projectName) {
+		IProject project= ResourcesPlugin.getWorkspace().getRoot().getProject(projectName);
+		long[] hash= { projectName.hashCode() };
+		try {
+			if (project.isAccessible()) {
+				project.accept(proxy -> {
+					if (proxy.isDerived())
+						return false;
+					if (proxy.getType() == IResource.FILE && isRelevant(proxy.getName())) {
+						hash[0]= 31 * (31 * hash[0] + proxy.getName().hashCode()) + proxy.getModificationStamp();
+					}
+					return true;
+				}, IResource.NONE);
+			}
+		} catch (CoreException e) {
+			hash[0]= IResource.NULL_STAMP;
+		}
+		return hash[0];
+	}
+
+	/**
+	 * @param name the name of a file
+	 * @return <code>true</code> if a change of the file can change reference counts
+	 */
+	private static boolean isRelevant(String name) {
+		return JavaCore.isJavaLikeFileName(name) || name.endsWith(".jar") || name.equals(".classpath"); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	/**
+	 * @param projectName the name of a project
+	 * @return the project and all Java projects it requires, directly or indirectly, whose counts
+	 *         can be changed by a change in the project
+	 */
+	private Set<String> getRequiredProjectNames(String projectName) {
+		return collectProjectNames(projectName, getRequiredProjects());
+	}
+
+	/**
+	 * @param projectName the name of a project
+	 * @return the project and all Java projects which require it, directly or indirectly, whose
+	 *         changes can change the counts of the project
+	 */
+	private Set<String> getRequiringProjectNames(String projectName) {
+		Map<String, Set<String>> requiring= new HashMap<>();
+		for (Entry<String, Set<String>> entry : getRequiredProjects().entrySet()) {
+			for (String required : entry.getValue()) {
+				requiring.computeIfAbsent(required, n -> new HashSet<>()).add(entry.getKey());
+			}
+		}
+		return collectProjectNames(projectName, requiring);
+	}
+
+	private static Set<String> collectProjectNames(String projectName, Map<String, Set<String>> edges) {
+		Set<String> result= new HashSet<>();
+		Deque<String> queue= new ArrayDeque<>();
+		queue.add(projectName);
+		while (!queue.isEmpty()) {
+			String name= queue.remove();
+			if (result.add(name)) {
+				queue.addAll(edges.getOrDefault(name, Set.of()));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return the names of the projects required by each Java project, cached until the class
+	 *         paths change
+	 */
+	private Map<String, Set<String>> getRequiredProjects() {
+		long resets;
+		synchronized (this) {
+			if (fRequiredProjects != null)
+				return fRequiredProjects;
+			resets= fResets;
+		}
+		Map<String, Set<String>> required= computeRequiredProjects();
+		synchronized (this) {
+			if (resets == fResets)
+				fRequiredProjects= required;
+		}
+		return required;
+	}
+
+	private static Map<String, Set<String>> computeRequiredProjects() {
+		Map<String, Set<String>> required= new HashMap<>();
+		try {
+			for (IJavaProject project : JavaCore.create(ResourcesPlugin.getWorkspace().getRoot()).getJavaProjects()) {
+				try {
+					required.put(project.getElementName(), new HashSet<>(Arrays.asList(project.getRequiredProjectNames())));
+				} catch (JavaModelException e) {
+					// closed project
+				}
+			}
+		} catch (JavaModelException e) {
+			JavaPlugin.log(e);
+		}
+		return required;
+	}
+}
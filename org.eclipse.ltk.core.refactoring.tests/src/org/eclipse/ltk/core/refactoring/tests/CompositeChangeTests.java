@@ -0,0 +1,225 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ltk.core.refactoring.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IFolder;
+
+import org.eclipse.text.edits.ReplaceEdit;
+
+import org.eclipse.ltk.core.refactoring.Change;
+import org.eclipse.ltk.core.refactoring.CompositeChange;
+import org.eclipse.ltk.core.refactoring.NullChange;
+import org.eclipse.ltk.core.refactoring.RefactoringStatus;
+import org.eclipse.ltk.core.refactoring.RefactoringStatusEntry;
+import org.eclipse.ltk.core.refactoring.TextFileChange;
+import org.eclipse.ltk.core.refactoring.resource.MoveResourceChange;
+import org.eclipse.ltk.core.refactoring.tests.util.SimpleTestProject;
+
+public class CompositeChangeTests {
+
+	private static final int FILE_COUNT= 120;
+
+	private SimpleTestProject fProject;
+	private IFile[] fFiles;
+
+	@Before
+	public void setUp() throws Exception {
+		fProject= new SimpleTestProject();
+		IFolder folder= fProject.createFolder("test");
+		fFiles= new IFile[FILE_COUNT];
+		for (int i= 0; i < FILE_COUNT; i++) {
+			fFiles[i]= fProject.createFile(folder, "file" + i + ".txt", "section one");
+		}
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		fProject.delete();
+	}
+
+	private static class IndependentTextFileChange extends TextFileChange {
+
+		public IndependentTextFileChange(String name, IFile file) {
+			super(name, file);
+		}
+
+		@Override
+		protected boolean isValidationIndependent() {
+			return true;
+		}
+	}
+
+	private static class CountingTextFileChange extends TextFileChange {
+
+		int fValidations;
+
+		public CountingTextFileChange(String name, IFile file) {
+			super(name, file);
+		}
+
+		@Override
+		public RefactoringStatus isValid(IProgressMonitor pm) throws CoreException {
+			fValidations++;
+			return super.isValid(pm);
+		}
+	}
+
+	private static class StatusChange extends NullChange {
+
+		private final RefactoringStatus fStatus;
+
+		public StatusChange(RefactoringStatus status) {
+			fStatus= status;
+		}
+
+		@Override
+		public RefactoringStatus isValid(IProgressMonitor pm) {
+			return fStatus;
+		}
+	}
+
+	private CompositeChange createChange() {
+		CompositeChange composite= new CompositeChange("composite");
+		composite.setParallelValidation(true);
+		composite.setBatchedPerform(true);
+		for (IFile file : fFiles) {
+			TextFileChange change= new IndependentTextFileChange("change", file);
+			change.setEdit(new ReplaceEdit(8, 3, "two"));
+			composite.add(change);
+		}
+		// a second change of the same file is validated in order
+		TextFileChange change= new IndependentTextFileChange("change", fFiles[0]);
+		change.setEdit(new ReplaceEdit(0, 7, "part"));
+		composite.add(change);
+		return composite;
+	}
+
+	@Test
+	public void testParallelValidation() throws Exception {
+		CompositeChange composite= createChange();
+		composite.initializeValidationData(new NullProgressMonitor());
+		RefactoringStatus status= composite.isValid(new NullProgressMonitor());
+		assertTrue(status.toString(), status.isOK());
+
+		fFiles[FILE_COUNT / 2].delete(true, null);
+		status= composite.isValid(new NullProgressMonitor());
+		assertTrue(status.hasFatalError());
+		assertEquals(1, status.getEntries().length);
+		composite.dispose();
+	}
+
+	@Test
+	public void testParallelValidationOnlyOfIndependentChanges() throws Exception {
+		CompositeChange composite= new CompositeChange("composite");
+		composite.setParallelValidation(true);
+		CountingTextFileChange change= new CountingTextFileChange("change", fFiles[0]);
+		change.setEdit(new ReplaceEdit(8, 3, "two"));
+		composite.add(change);
+		TextFileChange independent= new IndependentTextFileChange("change", fFiles[1]);
+		independent.setEdit(new ReplaceEdit(8, 3, "two"));
+		composite.add(independent);
+		composite.initializeValidationData(new NullProgressMonitor());
+		RefactoringStatus status= composite.isValid(new NullProgressMonitor());
+		assertTrue(status.toString(), status.isOK());
+		assertEquals(1, change.fValidations);
+		composite.dispose();
+	}
+
+	@Test
+	public void testParallelValidationStatusOrder() throws Exception {
+		CompositeChange[] composites= new CompositeChange[2];
+		for (int i= 0; i < composites.length; i++) {
+			composites[i]= new CompositeChange("composite");
+			composites[i].setParallelValidation(i == 1);
+			composites[i].add(new StatusChange(RefactoringStatus.createWarningStatus("first")));
+			for (int j= 0; j < 4; j++) {
+				TextFileChange change= new IndependentTextFileChange("change", fFiles[j]);
+				change.setEdit(new ReplaceEdit(8, 3, "two"));
+				composites[i].add(change);
+				composites[i].add(new StatusChange(RefactoringStatus.createWarningStatus("after " + j)));
+			}
+			composites[i].initializeValidationData(new NullProgressMonitor());
+		}
+		// change a file behind the back of the workspace
+		File file= fFiles[2].getLocation().toFile();
+		Files.write(file.toPath(), "section three".getBytes(StandardCharsets.UTF_8));
+		file.setLastModified(file.lastModified() + 10000);
+
+		RefactoringStatusEntry[] sequential= composites[0].isValid(new NullProgressMonitor()).getEntries();
+		RefactoringStatusEntry[] parallel= composites[1].isValid(new NullProgressMonitor()).getEntries();
+		assertTrue(sequential.length > 3);
+		assertEquals(sequential.length, parallel.length);
+		for (int i= 0; i < sequential.length; i++) {
+			assertEquals(sequential[i].getSeverity(), parallel[i].getSeverity());
+			assertEquals(sequential[i].getMessage(), parallel[i].getMessage());
+		}
+		for (CompositeChange composite : composites)
+			composite.dispose();
+	}
+
+	@Test
+	public void testBatchedPerform() throws Exception {
+		CompositeChange composite= createChange();
+		composite.initializeValidationData(new NullProgressMonitor());
+		assertFalse(composite.isValid(new NullProgressMonitor()).hasFatalError());
+		Change undo= composite.perform(new NullProgressMonitor());
+		assertNotNull(undo);
+		assertEquals("part two", fProject.getContent(fFiles[0]));
+		assertEquals("section two", fProject.getContent(fFiles[FILE_COUNT - 1]));
+		composite.dispose();
+		undo.dispose();
+	}
+
+	@Test
+	public void testBatchedPerformWithMovedFile() throws Exception {
+		IFolder destination= fProject.createFolder("destination");
+		IFile moved= destination.getFile(fFiles[1].getName());
+		CompositeChange composite= new CompositeChange("composite");
+		composite.setBatchedPerform(true);
+		TextFileChange change= new TextFileChange("change", fFiles[0]);
+		change.setEdit(new ReplaceEdit(8, 3, "two"));
+		composite.add(change);
+		composite.add(new MoveResourceChange(fFiles[1], destination));
+		// the buffer of the moved file must not be connected before the file has been moved
+		change= new TextFileChange("change", moved);
+		change.setEdit(new ReplaceEdit(8, 3, "two"));
+		composite.add(change);
+		composite.initializeValidationData(new NullProgressMonitor());
+		Change undo= composite.perform(new NullProgressMonitor());
+		assertEquals("section two", fProject.getContent(fFiles[0]));
+		assertFalse(fFiles[1].exists());
+		assertEquals("section two", fProject.getContent(moved));
+		composite.dispose();
+		if (undo != null)
+			undo.dispose();
+	}
+}
@@ -0,0 +1,177 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ltk.core.refactoring.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.eclipse.core.commands.operations.IUndoableOperation;
+import org.eclipse.core.commands.operations.OperationHistoryFactory;
+import org.eclipse.core.commands.operations.TriggeredOperations;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IFolder;
+import org.eclipse.core.resources.ResourcesPlugin;
+
+import org.eclipse.text.edits.MultiTextEdit;
+import org.eclipse.text.edits.ReplaceEdit;
+
+import org.eclipse.ltk.core.refactoring.Change;
+import org.eclipse.ltk.core.refactoring.PerformChangeOperation;
+import org.eclipse.ltk.core.refactoring.RefactoringCore;
+import org.eclipse.ltk.core.refactoring.TextFileChange;
+import org.eclipse.ltk.core.refactoring.tests.util.SimpleTestProject;
+import org.eclipse.ltk.internal.core.refactoring.ISpillableUndoChange;
+import org.eclipse.ltk.internal.core.refactoring.RefactoringCorePlugin;
+import org.eclipse.ltk.internal.core.refactoring.UndoManager2;
+import org.eclipse.ltk.internal.core.refactoring.UndoableOperation2ChangeAdapter;
+
+public class UndoBudgetTests {
+
+	private SimpleTestProject fProject;
+	private IFolder fFolder;
+
+	@Before
+	public void setUp() throws Exception {
+		fProject= new SimpleTestProject();
+		fFolder= fProject.createFolder("test");
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		RefactoringCore.getUndoManager().flush();
+		fProject.delete();
+	}
+
+	private static TextFileChange createChange(IFile file) {
+		TextFileChange change= new TextFileChange("change", file);
+		change.setEdit(new ReplaceEdit(8, 3, "two"));
+		change.initializeValidationData(new NullProgressMonitor());
+		return change;
+	}
+
+	@Test
+	public void testSpilledUndo() throws Exception {
+		IFile file= fProject.createFile(fFolder, "file.txt", "section one");
+		TextFileChange change= createChange(file);
+		Change undo= change.perform(new NullProgressMonitor());
+		change.dispose();
+		assertEquals("section two", fProject.getContent(file));
+
+		ISpillableUndoChange spillable= getSpillable(undo);
+		assertTrue(spillable.getUndoSize() > 0);
+		assertTrue(spillable.spill());
+		assertTrue(spillable.isSpilled());
+
+		undo.initializeValidationData(new NullProgressMonitor());
+		assertTrue(undo.isValid(new NullProgressMonitor()).isOK());
+		Change redo= undo.perform(new NullProgressMonitor());
+		undo.dispose();
+		assertEquals("section one", fProject.getContent(file));
+		assertFalse(getSpillable(redo).isSpilled());
+		redo.dispose();
+	}
+
+	@Test
+	public void testSpilledMultiEditUndo() throws Exception {
+		IFile file= fProject.createFile(fFolder, "file.txt", "aXbYcZd");
+		TextFileChange change= new TextFileChange("change", file);
+		MultiTextEdit edit= new MultiTextEdit();
+		edit.addChild(new ReplaceEdit(1, 1, "xx"));
+		edit.addChild(new ReplaceEdit(2, 1, "B-"));
+		edit.addChild(new ReplaceEdit(3, 1, "yyy"));
+		edit.addChild(new ReplaceEdit(5, 1, ""));
+		change.setEdit(edit);
+		change.initializeValidationData(new NullProgressMonitor());
+		Change undo= change.perform(new NullProgressMonitor());
+		change.dispose();
+		assertEquals("axxB-yyycd", fProject.getContent(file));
+
+		// the replaces of the undo edit refer to the document as it was when they were recorded
+		assertTrue(getSpillable(undo).spill());
+		undo.initializeValidationData(new NullProgressMonitor());
+		Change redo= undo.perform(new NullProgressMonitor());
+		undo.dispose();
+		assertEquals("aXbYcZd", fProject.getContent(file));
+
+		assertTrue(getSpillable(redo).spill());
+		redo.initializeValidationData(new NullProgressMonitor());
+		Change undo2= redo.perform(new NullProgressMonitor());
+		redo.dispose();
+		assertEquals("axxB-yyycd", fProject.getContent(file));
+
+		assertTrue(getSpillable(undo2).spill());
+		undo2.initializeValidationData(new NullProgressMonitor());
+		undo2.perform(new NullProgressMonitor()).dispose();
+		undo2.dispose();
+		assertEquals("aXbYcZd", fProject.getContent(file));
+	}
+
+	@Test
+	public void testBudgets() throws Exception {
+		UndoManager2 manager= (UndoManager2) RefactoringCore.getUndoManager();
+		long memoryBudget= manager.getMemoryBudget();
+		long sizeBudget= manager.getSizeBudget();
+		manager.flush();
+		try {
+			manager.setMemoryBudget(0);
+			IFile[] files= new IFile[3];
+			for (int i= 0; i < files.length; i++) {
+				files[i]= fProject.createFile(fFolder, "file" + i + ".txt", "section one");
+				PerformChangeOperation operation= new PerformChangeOperation(createChange(files[i]));
+				operation.setUndoManager(manager, "change " + i);
+				ResourcesPlugin.getWorkspace().run(operation, null);
+				assertEquals("section two", fProject.getContent(files[i]));
+			}
+			// the next undo is kept in memory, the older ones are written to disk
+			IUndoableOperation[] undos= OperationHistoryFactory.getOperationHistory().getUndoHistory(RefactoringCorePlugin.getUndoContext());
+			assertEquals(3, undos.length);
+			assertTrue(isSpilled(undos[0]));
+			assertTrue(isSpilled(undos[1]));
+			assertFalse(isSpilled(undos[2]));
+
+			manager.performUndo(null, new NullProgressMonitor());
+			manager.performUndo(null, new NullProgressMonitor());
+			assertEquals("section two", fProject.getContent(files[0]));
+			assertEquals("section one", fProject.getContent(files[1]));
+			assertEquals("section one", fProject.getContent(files[2]));
+
+			// only the next undo and the next redo fit into the size budget
+			manager.setSizeBudget(1);
+			assertTrue(manager.testHasNumberOfUndos(1));
+			assertTrue(manager.testHasNumberOfRedos(1));
+			manager.performUndo(null, new NullProgressMonitor());
+			assertEquals("section one", fProject.getContent(files[0]));
+		} finally {
+			manager.setMemoryBudget(memoryBudget);
+			manager.setSizeBudget(sizeBudget);
+		}
+	}
+
+	private static ISpillableUndoChange getSpillable(Change change) {
+		return change.getAdapter(ISpillableUndoChange.class);
+	}
+
+	private static boolean isSpilled(IUndoableOperation operation) {
+		UndoableOperation2ChangeAdapter changeOperation= (UndoableOperation2ChangeAdapter) ((TriggeredOperations) operation).getTriggeringOperation();
+		return getSpillable(changeOperation.getChange()).isSpilled();
+	}
+}
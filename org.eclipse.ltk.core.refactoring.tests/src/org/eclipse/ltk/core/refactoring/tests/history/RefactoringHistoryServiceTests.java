@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2015 IBM Corporation and others.
+ * Copyright (c) 2006, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -21,6 +21,10 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
@@ -33,6 +37,7 @@ import org.osgi.service.prefs.BackingStoreException;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.preferences.IEclipsePreferences;
 
+import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IFolder;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.ProjectScope;
@@ -53,6 +58,7 @@ import org.eclipse.ltk.core.refactoring.tests.util.SimpleTestProject;
 import org.eclipse.ltk.internal.core.refactoring.RefactoringPreferenceConstants;
 import org.eclipse.ltk.internal.core.refactoring.history.RefactoringDescriptorProxyAdapter;
 import org.eclipse.ltk.internal.core.refactoring.history.RefactoringHistoryImplementation;
+import org.eclipse.ltk.internal.core.refactoring.history.RefactoringHistoryManager;
 import org.eclipse.ltk.internal.core.refactoring.history.RefactoringHistoryService;
 
 public class RefactoringHistoryServiceTests {
@@ -581,6 +587,40 @@ public class RefactoringHistoryServiceTests {
 		assertEquals("Refactoring history has wrong size", 0, proxies.length);
 	}
 
+	@Test
+	public void testReadProjectHistory7() throws Exception {
+		final IProject project= fProject.getProject();
+		final RefactoringHistoryService service= RefactoringHistoryService.getInstance();
+		RefactoringHistory history= service.getProjectHistory(project, STAMP_FACTOR, STAMP_FACTOR + 1, RefactoringDescriptor.NONE, null);
+		assertEquals("Refactoring history has wrong size", 1, history.getDescriptors().length);
+		// an index file updated by a team provider
+		final long stamp= STAMP_FACTOR + 1;
+		final IFile file= project.getFolder(RefactoringHistoryService.NAME_HISTORY_FOLDER).getFile(RefactoringHistoryManager.stampToPath(stamp).append(RefactoringHistoryService.NAME_INDEX_FILE));
+		assertTrue("Refactoring history index should exist", file.exists());
+		final String entry= stamp + String.valueOf(RefactoringHistoryManager.DELIMITER_COMPONENT) + "A shared description" + RefactoringHistoryManager.DELIMITER_ENTRY;
+		file.appendContents(new ByteArrayInputStream(entry.getBytes(StandardCharsets.UTF_8)), true, false, null);
+		history= service.getProjectHistory(project, STAMP_FACTOR, STAMP_FACTOR + 1, RefactoringDescriptor.NONE, null);
+		assertEquals("Refactoring history has wrong size", 2, history.getDescriptors().length);
+		history= service.getProjectHistory(project, null);
+		assertEquals("Refactoring history has wrong size", TOTAL_PROJECT_NUMBER + 1, history.getDescriptors().length);
+	}
+
+	@Test
+	public void testReadProjectHistory8() throws Exception {
+		final IProject project= fProject.getProject();
+		final RefactoringHistoryService service= RefactoringHistoryService.getInstance();
+		RefactoringHistory history= service.getProjectHistory(project, STAMP_FACTOR, STAMP_FACTOR + 1, RefactoringDescriptor.NONE, null);
+		assertEquals("Refactoring history has wrong size", 1, history.getDescriptors().length);
+		// an index file changed on disk without a resource delta
+		final long stamp= STAMP_FACTOR + 1;
+		final IFile file= project.getFolder(RefactoringHistoryService.NAME_HISTORY_FOLDER).getFile(RefactoringHistoryManager.stampToPath(stamp).append(RefactoringHistoryService.NAME_INDEX_FILE));
+		assertTrue("Refactoring history index should exist", file.exists());
+		final String entry= stamp + String.valueOf(RefactoringHistoryManager.DELIMITER_COMPONENT) + "A changed description" + RefactoringHistoryManager.DELIMITER_ENTRY;
+		Files.write(file.getLocation().toFile().toPath(), entry.getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+		history= service.getProjectHistory(project, STAMP_FACTOR, STAMP_FACTOR + 1, RefactoringDescriptor.NONE, null);
+		assertEquals("Refactoring history has wrong size", 2, history.getDescriptors().length);
+	}
+
 	@Test
 	public void testReadRefactoringHistory0() throws Exception {
 		setUpWorkspaceRefactorings();
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -16,17 +16,40 @@ package org.eclipse.ltk.core.refactoring;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.ISafeRunnable;
+import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.SafeRunner;
+import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.SubProgressMonitor;
 
+import org.eclipse.core.resources.IFile;
+
+import org.eclipse.core.filebuffers.FileBuffers;
+import org.eclipse.core.filebuffers.ITextFileBufferManager;
+import org.eclipse.core.filebuffers.LocationKind;
+
+import org.eclipse.ltk.core.refactoring.resource.Resources;
+import org.eclipse.ltk.internal.core.refactoring.Changes;
 import org.eclipse.ltk.internal.core.refactoring.RefactoringCoreMessages;
 import org.eclipse.ltk.internal.core.refactoring.RefactoringCorePlugin;
 
@@ -44,10 +67,106 @@ import org.eclipse.ltk.internal.core.refactoring.RefactoringCorePlugin;
  */
 public class CompositeChange extends Change {
 
+	/**
+	 * The maximum number of threads which validate the children concurrently.
+	 */
+	private static final int MAX_VALIDATION_THREADS= Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+	/**
+	 * The interval in milliseconds in which cancellation is checked while waiting for a validation.
+	 */
+	private static final long POLL_INTERVAL= 100;
+
+	/**
+	 * The number of children whose file buffers are connected together by a batched perform.
+	 */
+	private static final int PERFORM_BATCH_SIZE= 50;
+
 	private String fName;
 	private List<Change> fChanges;
 	private boolean fIsSynthetic;
 	private Change fUndoUntilException;
+	private boolean fParallelValidation;
+	private boolean fBatchedPerform;
+
+	private static final class BufferValidation {
+		final RefactoringStatus fStatus;
+		final boolean fNeedsSaving;
+
+		BufferValidation(TextFileChange change) throws CoreException {
+			fStatus= change.isBufferValid();
+			fNeedsSaving= change.needsSaving();
+		}
+	}
+
+	/**
+	 * Connects the file buffers of the text file changes among the children before they are
+	 * performed, a batch of children at a time. The children of a batch which change the same
+	 * file share its buffer, instead of reading the file and disposing the buffer for each of
+	 * them. A batch only spans consecutive text file changes, since other children may create,
+	 * move or delete the files of the following children.
+	 */
+	private static final class FileBufferBatch {
+		private final Change[] fChildren;
+		private final List<IPath> fConnected= new ArrayList<>();
+		private int fNext;
+		private int fEnd;
+
+		FileBufferBatch(Change[] children) {
+			fChildren= children;
+		}
+
+		/**
+		 * Called before the next child is performed, the children are performed in order.
+		 */
+		void next() {
+			if (fNext == fEnd) {
+				disconnect();
+				fEnd= fNext + 1;
+				if (!endsBatch(fChildren[fNext])) {
+					int limit= Math.min(fNext + PERFORM_BATCH_SIZE, fChildren.length);
+					while (fEnd < limit && !endsBatch(fChildren[fEnd]))
+						fEnd++;
+				}
+				connect(fNext, fEnd);
+			}
+			fNext++;
+		}
+
+		private static boolean endsBatch(Change child) {
+			return child.isEnabled() && !(child instanceof TextFileChange);
+		}
+
+		private void connect(int start, int end) {
+			Set<IPath> paths= new LinkedHashSet<>();
+			for (int i= start; i < end; i++) {
+				Change child= fChildren[i];
+				if (child.isEnabled() && child instanceof TextFileChange)
+					paths.add(((TextFileChange) child).getFile().getFullPath());
+			}
+			ITextFileBufferManager manager= FileBuffers.getTextFileBufferManager();
+			for (IPath path : paths) {
+				try {
+					manager.connect(path, LocationKind.IFILE, null);
+					fConnected.add(path);
+				} catch (CoreException e) {
+					// the change reports the problem when it connects the buffer itself
+				}
+			}
+		}
+
+		void disconnect() {
+			ITextFileBufferManager manager= FileBuffers.getTextFileBufferManager();
+			for (IPath path : fConnected) {
+				try {
+					manager.disconnect(path, LocationKind.IFILE, null);
+				} catch (CoreException e) {
+					RefactoringCorePlugin.log(e);
+				}
+			}
+			fConnected.clear();
+		}
+	}
 
 	/**
 	 * Creates a new composite change with the given name.
@@ -96,6 +215,70 @@ public class CompositeChange extends Change {
 		fIsSynthetic= true;
 	}
 
+	/**
+	 * Sets whether {@link #isValid(IProgressMonitor)} validates the children concurrently. If
+	 * enabled, the buffers of the {@link TextFileChange} children which are the only children
+	 * changing their file and which are {@link TextFileChange#isValidationIndependent()
+	 * independent} are validated on several threads, and the edits of their files are validated
+	 * at once. The other children are validated in order in the calling thread. The statuses of
+	 * the children are merged in the order of the children, like the ones of a sequential
+	 * validation.
+	 * <p>
+	 * Clients which enable the parallel validation must make sure that the validation of the
+	 * buffers of their text file changes does not depend on the calling thread.
+	 * </p>
+	 *
+	 * @param parallel <code>true</code> to validate the children concurrently
+	 *
+	 * @since 3.13
+	 */
+	public void setParallelValidation(boolean parallel) {
+		fParallelValidation= parallel;
+	}
+
+	/**
+	 * Returns whether the children are validated concurrently.
+	 *
+	 * @return <code>true</code> if the children are validated concurrently
+	 *
+	 * @see #setParallelValidation(boolean)
+	 *
+	 * @since 3.13
+	 */
+	public boolean isParallelValidation() {
+		return fParallelValidation;
+	}
+
+	/**
+	 * Sets whether {@link #perform(IProgressMonitor)} connects the file buffers of the
+	 * {@link TextFileChange} children in batches. If enabled, the buffers of a batch of children
+	 * are connected before the first child of the batch is performed, and disconnected after the
+	 * last one has been performed. The children of a batch which change the same file share its
+	 * buffer. A batch ends before the next enabled child which is not a text file change, so that
+	 * no buffer is connected before the files have been created, moved or deleted by the children
+	 * performed before.
+	 *
+	 * @param batched <code>true</code> to connect the file buffers in batches
+	 *
+	 * @since 3.13
+	 */
+	public void setBatchedPerform(boolean batched) {
+		fBatchedPerform= batched;
+	}
+
+	/**
+	 * Returns whether the file buffers of the children are connected in batches.
+	 *
+	 * @return <code>true</code> if the file buffers are connected in batches
+	 *
+	 * @see #setBatchedPerform(boolean)
+	 *
+	 * @since 3.13
+	 */
+	public boolean isBatchedPerform() {
+		return fBatchedPerform;
+	}
+
 	@Override
 	public String getName() {
 		return fName;
@@ -225,7 +408,8 @@ public class CompositeChange extends Change {
 	 * The composite change sends <code>isValid</code> to all its children
 	 * until the first one returns a status with a severity of <code>FATAL
 	 * </code>. If one of the children throws an exception the remaining children
-	 * will not receive the <code>isValid</code> call.
+	 * will not receive the <code>isValid</code> call. See {@link #setParallelValidation(boolean)}
+	 * for validating the children concurrently.
 	 * </p>
 	 * <p>
 	 * Client are allowed to extend this method.
@@ -233,6 +417,8 @@ public class CompositeChange extends Change {
 	 */
 	@Override
 	public RefactoringStatus isValid(IProgressMonitor pm) throws CoreException {
+		if (fParallelValidation)
+			return isValidInParallel(pm);
 		RefactoringStatus result= new RefactoringStatus();
 		pm.beginTask("", fChanges.size()); //$NON-NLS-1$
 		for (Iterator<Change> iter= fChanges.iterator(); iter.hasNext() && !result.hasFatalError();) {
@@ -248,6 +434,120 @@ public class CompositeChange extends Change {
 		return result;
 	}
 
+	private RefactoringStatus isValidInParallel(IProgressMonitor pm) throws CoreException {
+		Change[] children= getChildren();
+		pm.beginTask("", children.length); //$NON-NLS-1$
+		Map<IFile, Integer> fileCounts= new HashMap<>();
+		for (Change change : children) {
+			if (change.isEnabled() && change instanceof TextFileChange)
+				fileCounts.merge(((TextFileChange) change).getFile(), Integer.valueOf(1), (count, one) -> Integer.valueOf(count.intValue() + 1));
+		}
+		AtomicInteger threadCount= new AtomicInteger();
+		ExecutorService executor= new ThreadPoolExecutor(MAX_VALIDATION_THREADS, MAX_VALIDATION_THREADS, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
+			Thread thread= new Thread(r, "Change Validation " + threadCount.incrementAndGet()); //$NON-NLS-1$
+			thread.setDaemon(true);
+			return thread;
+		});
+		try {
+			List<Future<BufferValidation>> validations= new ArrayList<>(children.length);
+			for (Change change : children) {
+				if (isIndependent(change, fileCounts)) {
+					TextFileChange textFileChange= (TextFileChange) change;
+					validations.add(executor.submit(() -> new BufferValidation(textFileChange)));
+				} else {
+					validations.add(null);
+				}
+			}
+			// the status of each child, or the buffer validation of an independent child
+			RefactoringStatus[] statuses= new RefactoringStatus[children.length];
+			BufferValidation[] bufferValidations= new BufferValidation[children.length];
+			List<IFile> filesToModify= new ArrayList<>();
+			boolean fatal= false;
+			for (int i= 0; i < children.length && !fatal; i++) {
+				Change change= children[i];
+				Future<BufferValidation> validation= validations.get(i);
+				if (validation != null) {
+					BufferValidation bufferValidation= waitFor(validation, pm);
+					bufferValidations[i]= bufferValidation;
+					if (bufferValidation.fNeedsSaving)
+						filesToModify.add(((TextFileChange) change).getFile());
+					fatal= bufferValidation.fStatus.hasFatalError();
+					pm.worked(1);
+				} else if (change.isEnabled()) {
+					statuses[i]= change.isValid(new SubProgressMonitor(pm, 1));
+					fatal= statuses[i].hasFatalError();
+				} else {
+					pm.worked(1);
+				}
+				if (pm.isCanceled())
+					throw new OperationCanceledException();
+			}
+			IStatus committable= filesToModify.isEmpty() ? Status.OK_STATUS : Resources.makeCommittable(filesToModify.toArray(new IFile[filesToModify.size()]), null);
+			// merge the statuses in the order of TextFileChange#isValid(IProgressMonitor)
+			RefactoringStatus result= new RefactoringStatus();
+			for (int i= 0; i < children.length && !result.hasFatalError(); i++) {
+				BufferValidation bufferValidation= bufferValidations[i];
+				if (bufferValidation != null) {
+					result.merge(bufferValidation.fStatus);
+					RefactoringStatus fileStatus= Changes.checkInSync(new IFile[] { ((TextFileChange) children[i]).getFile() });
+					if (bufferValidation.fNeedsSaving) {
+						// the files are made committable at once, a failure is reported with the first one
+						Changes.mergeCommittable(fileStatus, committable);
+						committable= Status.OK_STATUS;
+					}
+					result.merge(fileStatus);
+				} else if (statuses[i] != null) {
+					result.merge(statuses[i]);
+				}
+			}
+			return result;
+		} finally {
+			executor.shutdownNow();
+			pm.done();
+		}
+	}
+
+	/**
+	 * Returns whether a child can be validated concurrently with the other children.
+	 *
+	 * @param change the child
+	 * @param fileCounts the number of enabled text file changes per file
+	 * @return <code>true</code> if the child is the only text file change of its file and is
+	 *         {@link TextFileChange#isValidationIndependent() independent}
+	 */
+	private static boolean isIndependent(Change change, Map<IFile, Integer> fileCounts) {
+		if (!change.isEnabled() || !(change instanceof TextFileChange))
+			return false;
+		TextFileChange textFileChange= (TextFileChange) change;
+		return fileCounts.get(textFileChange.getFile()).intValue() == 1 && textFileChange.isValidationIndependent();
+	}
+
+	private static <T> T waitFor(Future<T> future, IProgressMonitor pm) throws CoreException {
+		try {
+			while (true) {
+				if (pm.isCanceled())
+					throw new OperationCanceledException();
+				try {
+					return future.get(POLL_INTERVAL, TimeUnit.MILLISECONDS);
+				} catch (TimeoutException e) {
+					// check for cancellation and wait again
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new OperationCanceledException();
+		} catch (ExecutionException e) {
+			Throwable cause= e.getCause();
+			if (cause instanceof CoreException)
+				throw (CoreException) cause;
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			if (cause instanceof Error)
+				throw (Error) cause;
+			throw new IllegalStateException(cause);
+		}
+	}
+
 	/**
 	 * {@inheritDoc}
 	 * <p>
@@ -255,7 +555,8 @@ public class CompositeChange extends Change {
 	 * children. If one of the children throws an exception the remaining children
 	 * will not receive the <code>perform</code> call. In this case the method <code>
 	 * getUndoUntilException</code> can be used to get an undo object containing the
-	 * undo objects of all executed children.
+	 * undo objects of all executed children. See {@link #setBatchedPerform(boolean)} for connecting
+	 * the file buffers of the children in batches.
 	 * </p>
 	 * <p>
 	 * Client are allowed to extend this method.
@@ -269,9 +570,12 @@ public class CompositeChange extends Change {
 		pm.setTaskName(RefactoringCoreMessages.CompositeChange_performingChangesTask_name);
 		Change change= null;
 		boolean canceled= false;
+		FileBufferBatch batch= fBatchedPerform ? new FileBufferBatch(getChildren()) : null;
 		try {
 			for (Iterator<Change> iter= fChanges.iterator(); iter.hasNext();) {
 				change= iter.next();
+				if (batch != null)
+					batch.next();
 				if (canceled && !internalProcessOnCancel(change))
 					continue;
 
@@ -324,6 +628,9 @@ public class CompositeChange extends Change {
 			handleUndos(change, undos);
 			internalHandleException(change, e);
 			throw e;
+		} finally {
+			if (batch != null)
+				batch.disconnect();
 		}
 	}
 
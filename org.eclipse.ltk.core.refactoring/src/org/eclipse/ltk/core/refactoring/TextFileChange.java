@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2014 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -197,6 +197,40 @@ public class TextFileChange extends TextChange {
 		}
 	}
 
+	/**
+	 * Returns whether this change may be validated concurrently with the other children of a
+	 * {@link CompositeChange} which validates its children in parallel. The buffer of such a
+	 * change is validated on another thread and the edit of its file is validated together with
+	 * the files of the other children, instead of calling {@link #isValid(IProgressMonitor)}.
+	 * <p>
+	 * The implementation of this method returns <code>false</code>. Subclasses which do not
+	 * extend the validation of this class may return <code>true</code>.
+	 * </p>
+	 *
+	 * @return <code>true</code> if the change may be validated concurrently
+	 *
+	 * @see CompositeChange#setParallelValidation(boolean)
+	 *
+	 * @since 3.13
+	 */
+	protected boolean isValidationIndependent() {
+		return false;
+	}
+
+	/**
+	 * Validates the buffer of the file like {@link #isValid(IProgressMonitor)}, but does not
+	 * validate the edit of the file and does not check whether it is in sync. Used by
+	 * {@link CompositeChange} to validate many changes concurrently and their files in bulk.
+	 *
+	 * @return the status of the buffer
+	 * @throws CoreException if the change has not been initialized
+	 */
+	RefactoringStatus isBufferValid() throws CoreException {
+		if (fValidationState == null)
+			throw new CoreException(new Status(IStatus.ERROR, RefactoringCorePlugin.getPluginId(), "TextFileChange has not been initialialized")); //$NON-NLS-1$
+		return fValidationState.isValid(needsSaving());
+	}
+
 	@Override
 	public void dispose() {
 		if (fValidationState != null) {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2010 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -13,6 +13,8 @@
  *******************************************************************************/
 package org.eclipse.ltk.core.refactoring;
 
+import java.io.IOException;
+
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -39,8 +41,10 @@ import org.eclipse.jface.text.link.LinkedModeModel;
 import org.eclipse.ltk.internal.core.refactoring.BufferValidationState;
 import org.eclipse.ltk.internal.core.refactoring.Changes;
 import org.eclipse.ltk.internal.core.refactoring.ContentStamps;
+import org.eclipse.ltk.internal.core.refactoring.ISpillableUndoChange;
 import org.eclipse.ltk.internal.core.refactoring.Lock;
 import org.eclipse.ltk.internal.core.refactoring.RefactoringCorePlugin;
+import org.eclipse.ltk.internal.core.refactoring.SpilledUndoEdits;
 
 /**
  * A change to perform the reverse change of a {@link TextFileChange}.
@@ -58,6 +62,8 @@ public class UndoTextFileChange extends Change {
 
 	private String fName;
 	private UndoEdit fUndo;
+	private SpilledUndoEdits fSpilledUndo;
+	private final long fUndoSize;
 	private IFile fFile;
 	private ContentStamp fContentStampToRestore;
 	private int fSaveMode;
@@ -85,6 +91,7 @@ public class UndoTextFileChange extends Change {
 		fName= name;
 		fFile= file;
 		fUndo= undo;
+		fUndoSize= SpilledUndoEdits.estimateSize(new UndoEdit[] { undo });
 		fContentStampToRestore= stamp;
 		fSaveMode= saveMode;
 	}
@@ -131,6 +138,52 @@ public class UndoTextFileChange extends Change {
 		return fFile;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The undo manager of the refactoring core adapts the change to an internal type to write its
+	 * undo edit to disk.
+	 * </p>
+	 */
+	@Override
+	public <T> T getAdapter(Class<T> adapter) {
+		if (adapter == ISpillableUndoChange.class)
+			return adapter.cast(new ISpillableUndoChange() {
+				@Override
+				public long getUndoSize() {
+					return fUndoSize;
+				}
+
+				@Override
+				public boolean isSpilled() {
+					synchronized (UndoTextFileChange.this) {
+						return fSpilledUndo != null;
+					}
+				}
+
+				@Override
+				public boolean spill() throws IOException {
+					synchronized (UndoTextFileChange.this) {
+						if (fSpilledUndo != null)
+							return true;
+						UndoEdit[] undos= new UndoEdit[] { fUndo };
+						if (!SpilledUndoEdits.canSpill(undos))
+							return false;
+						fSpilledUndo= SpilledUndoEdits.spill(undos);
+						fUndo= null;
+						return true;
+					}
+				}
+			});
+		return super.getAdapter(adapter);
+	}
+
+	private synchronized TextEdit getUndo() throws CoreException {
+		if (fSpilledUndo != null)
+			return fSpilledUndo.restore()[0];
+		return fUndo;
+	}
+
 	@Override
 	public Object[] getAffectedObjects() {
 		Object modifiedElement= getModifiedElement();
@@ -267,7 +320,7 @@ public class UndoTextFileChange extends Change {
 	private UndoEdit doPerformEdits(IDocument document, boolean[] setContentStampSuccess) throws MalformedTreeException, BadLocationException, CoreException {
 		// perform the changes
 		LinkedModeModel.closeAllModels(document);
-		UndoEdit redo= fUndo.apply(document, TextEdit.CREATE_UNDO);
+		UndoEdit redo= getUndo().apply(document, TextEdit.CREATE_UNDO);
 
 		// try to restore the document content stamp
 		setContentStampSuccess[0]= ContentStamps.set(document, fContentStampToRestore);
@@ -279,6 +332,11 @@ public class UndoTextFileChange extends Change {
 		if (fValidationState != null) {
 			fValidationState.dispose();
 		}
+		synchronized (this) {
+			if (fSpilledUndo != null) {
+				fSpilledUndo.dispose();
+			}
+		}
 	}
 
 	private boolean needsSaving() {
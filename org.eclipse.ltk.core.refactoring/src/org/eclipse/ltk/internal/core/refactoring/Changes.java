@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2018 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -34,14 +34,17 @@ public class Changes {
 		IStatus status= Resources.checkInSync(filesToModify);
 		if (!status.isOK())
 			result.merge(RefactoringStatus.create(status));
-		status= Resources.makeCommittable(filesToModify, null);
-		if (!status.isOK()) {
-			result.merge(RefactoringStatus.create(status));
+		mergeCommittable(result, Resources.makeCommittable(filesToModify, null));
+		return result;
+	}
+
+	public static void mergeCommittable(RefactoringStatus result, IStatus committable) {
+		if (!committable.isOK()) {
+			result.merge(RefactoringStatus.create(committable));
 			if (!result.hasFatalError()) {
 				result.addFatalError(RefactoringCoreMessages.Changes_validateEdit);
 			}
 		}
-		return result;
 	}
 
 	public static RefactoringStatus checkInSync(IFile[] filesToModify) {
@@ -0,0 +1,46 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ltk.internal.core.refactoring;
+
+import java.io.IOException;
+
+/**
+ * An undo change whose undo edits can be written to disk to release memory, see
+ * {@link UndoManager2#setMemoryBudget(long)}.
+ */
+public interface ISpillableUndoChange {
+
+	/**
+	 * Returns the estimated number of bytes of the undo edits of the change in memory. The size
+	 * does not change when the edits are written to disk.
+	 *
+	 * @return the estimated size of the undo edits
+	 */
+	long getUndoSize();
+
+	/**
+	 * @return <code>true</code> if the undo edits have been written to disk
+	 */
+	boolean isSpilled();
+
+	/**
+	 * Writes the undo edits to disk and releases them. They are read again when the change is
+	 * performed.
+	 *
+	 * @return <code>true</code> if the undo edits have been written to disk, <code>false</code>
+	 *         if they cannot be written in the compact form
+	 * @throws IOException if writing the undo edits fails
+	 */
+	boolean spill() throws IOException;
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2008 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -13,6 +13,7 @@
  *******************************************************************************/
 package org.eclipse.ltk.internal.core.refactoring;
 
+import java.io.IOException;
 import java.util.LinkedList;
 
 import org.eclipse.core.runtime.Assert;
@@ -56,7 +57,7 @@ import org.eclipse.ltk.core.refactoring.TextFileChange;
  *
  * @since 3.2
  */
-public class MultiStateUndoChange extends Change {
+public class MultiStateUndoChange extends Change implements ISpillableUndoChange {
 
 	private ContentStamp fContentStampToRestore;
 
@@ -70,6 +71,10 @@ public class MultiStateUndoChange extends Change {
 
 	private UndoEdit[] fUndos;
 
+	private SpilledUndoEdits fSpilledUndos;
+
+	private final long fUndoSize;
+
 	private BufferValidationState fValidationState;
 
 	/**
@@ -97,6 +102,7 @@ public class MultiStateUndoChange extends Change {
 		fName= name;
 		fFile= file;
 		fUndos= undos;
+		fUndoSize= SpilledUndoEdits.estimateSize(undos);
 		fContentStampToRestore= stamp;
 		fSaveMode= saveMode;
 	}
@@ -128,6 +134,38 @@ public class MultiStateUndoChange extends Change {
 		if (fValidationState != null) {
 			fValidationState.dispose();
 		}
+		synchronized (this) {
+			if (fSpilledUndos != null) {
+				fSpilledUndos.dispose();
+			}
+		}
+	}
+
+	@Override
+	public long getUndoSize() {
+		return fUndoSize;
+	}
+
+	@Override
+	public synchronized boolean isSpilled() {
+		return fSpilledUndos != null;
+	}
+
+	@Override
+	public synchronized boolean spill() throws IOException {
+		if (fSpilledUndos != null)
+			return true;
+		if (!SpilledUndoEdits.canSpill(fUndos))
+			return false;
+		fSpilledUndos= SpilledUndoEdits.spill(fUndos);
+		fUndos= null;
+		return true;
+	}
+
+	private synchronized TextEdit[] getUndos() throws CoreException {
+		if (fSpilledUndos != null)
+			return fSpilledUndos.restore();
+		return fUndos;
 	}
 
 	@Override
@@ -210,7 +248,7 @@ public class MultiStateUndoChange extends Change {
 			ContentStamp currentStamp= ContentStamps.get(fFile, document);
 			// perform the changes
 			LinkedList<UndoEdit> list= new LinkedList<>();
-			for (UndoEdit edit : fUndos) {
+			for (TextEdit edit : getUndos()) {
 				UndoEdit redo= edit.apply(document, TextEdit.CREATE_UNDO);
 				list.addFirst(redo);
 			}
@@ -0,0 +1,272 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ltk.internal.core.refactoring;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+
+import org.eclipse.text.edits.MalformedTreeException;
+import org.eclipse.text.edits.MultiTextEdit;
+import org.eclipse.text.edits.ReplaceEdit;
+import org.eclipse.text.edits.TextEdit;
+import org.eclipse.text.edits.UndoEdit;
+
+import org.eclipse.ltk.core.refactoring.IRefactoringCoreStatusCodes;
+
+/**
+ * Undo edits written to a compressed file in the state location of the plug-in. An undo edit only
+ * consists of replace edits, their offsets, lengths and texts are written in the recorded order.
+ * <p>
+ * The replace edits of an undo edit are not independent: each one refers to the document as it
+ * was when it was recorded, and the undo edit replays them in reverse recorded order. The undo
+ * edits are read as multi text edits which have the same effect, the replayed replace edits are
+ * composed into replace edits which refer to the document before the replay. Applying such a
+ * multi text edit creates a single undo edit for the redo.
+ * </p>
+ */
+public final class SpilledUndoEdits {
+
+	private static final String NAME_SPILL_FOLDER= ".undo"; //$NON-NLS-1$
+
+	/**
+	 * The estimated number of bytes of a replace edit and its text without the characters.
+	 */
+	private static final int EDIT_SIZE= 96;
+
+	private static boolean fgFolderCleaned= false;
+
+	private final File fFile;
+
+	private SpilledUndoEdits(File file) {
+		fFile= file;
+	}
+
+	/**
+	 * @param edits the undo edits
+	 * @return the estimated number of bytes of the undo edits in memory
+	 */
+	public static long estimateSize(UndoEdit[] edits) {
+		long size= 0;
+		for (UndoEdit edit : edits) {
+			size+= EDIT_SIZE;
+			for (TextEdit child : edit.getChildren()) {
+				size+= EDIT_SIZE;
+				if (child instanceof ReplaceEdit)
+					size+= 2L * ((ReplaceEdit) child).getText().length();
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * @param edits the undo edits
+	 * @return <code>true</code> if the undo edits only consist of replace edits
+	 */
+	public static boolean canSpill(UndoEdit[] edits) {
+		for (UndoEdit edit : edits) {
+			for (TextEdit child : edit.getChildren()) {
+				if (!(child instanceof ReplaceEdit) || child.hasChildren())
+					return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Writes undo edits to disk.
+	 *
+	 * @param edits the undo edits, see {@link #canSpill(UndoEdit[])}
+	 * @return the written undo edits
+	 * @throws IOException if writing fails
+	 */
+	public static SpilledUndoEdits spill(UndoEdit[] edits) throws IOException {
+		File file= File.createTempFile("undo", ".bin", getSpillFolder()); //$NON-NLS-1$ //$NON-NLS-2$
+		try (DataOutputStream output= new DataOutputStream(new BufferedOutputStream(new DeflaterOutputStream(new FileOutputStream(file))))) {
+			output.writeInt(edits.length);
+			for (UndoEdit edit : edits) {
+				TextEdit[] children= edit.getChildren();
+				output.writeInt(children.length);
+				for (TextEdit child : children) {
+					ReplaceEdit replace= (ReplaceEdit) child;
+					byte[] text= replace.getText().getBytes(StandardCharsets.UTF_8);
+					output.writeInt(replace.getOffset());
+					output.writeInt(replace.getLength());
+					output.writeInt(text.length);
+					output.write(text);
+				}
+			}
+		} catch (IOException e) {
+			file.delete();
+			throw e;
+		}
+		return new SpilledUndoEdits(file);
+	}
+
+	/**
+	 * Reads the undo edits.
+	 *
+	 * @return edits with the same effect as the written undo edits, in the same order
+	 * @throws CoreException if reading fails
+	 */
+	public TextEdit[] restore() throws CoreException {
+		try (DataInputStream input= new DataInputStream(new BufferedInputStream(new InflaterInputStream(new FileInputStream(fFile))))) {
+			TextEdit[] edits= new TextEdit[input.readInt()];
+			for (int i= 0; i < edits.length; i++) {
+				ReplaceEdit[] replaces= new ReplaceEdit[input.readInt()];
+				for (int j= 0; j < replaces.length; j++) {
+					int offset= input.readInt();
+					int length= input.readInt();
+					byte[] text= new byte[input.readInt()];
+					input.readFully(text);
+					replaces[j]= new ReplaceEdit(offset, length, new String(text, StandardCharsets.UTF_8));
+				}
+				edits[i]= compose(replaces);
+			}
+			return edits;
+		} catch (IOException | MalformedTreeException e) {
+			throw new CoreException(new Status(IStatus.ERROR, RefactoringCorePlugin.getPluginId(), IRefactoringCoreStatusCodes.INTERNAL_ERROR,
+					RefactoringCoreMessages.RefactoringCorePlugin_internal_error, e));
+		}
+	}
+
+	/**
+	 * A replaced region of the document before the replay of an undo edit.
+	 */
+	private static final class Region {
+		/** The offset in the document after the replays so far */
+		int fOffset;
+		/** The offset in the document before the replay */
+		final int fOriginalOffset;
+		/** The end offset in the document before the replay, exclusive */
+		final int fOriginalEnd;
+		/** The text of the region after the replays so far */
+		final String fText;
+
+		Region(int offset, int originalOffset, int originalEnd, String text) {
+			fOffset= offset;
+			fOriginalOffset= originalOffset;
+			fOriginalEnd= originalEnd;
+			fText= text;
+		}
+
+		int getEnd() {
+			return fOffset + fText.length();
+		}
+
+		int getDelta() {
+			return fText.length() - (fOriginalEnd - fOriginalOffset);
+		}
+	}
+
+	/**
+	 * Composes the replace edits of an undo edit into a multi text edit with the same effect.
+	 * <p>
+	 * The replace edits are replayed in reverse recorded order like the undo edit does. Each one
+	 * refers to the document after the previous replays; it is mapped to the document before the
+	 * replay and merged with the regions it overlaps or touches.
+	 * </p>
+	 *
+	 * @param replaces the replace edits in the recorded order
+	 * @return the multi text edit referring to the document before the replay
+	 */
+	static MultiTextEdit compose(ReplaceEdit[] replaces) {
+		List<Region> regions= new ArrayList<>();
+		for (int i= replaces.length - 1; i >= 0; i--) {
+			ReplaceEdit replace= replaces[i];
+			int start= replace.getOffset();
+			int end= start + replace.getLength();
+			int delta= 0;
+			int first= 0;
+			while (first < regions.size() && regions.get(first).getEnd() < start) {
+				delta+= regions.get(first).getDelta();
+				first++;
+			}
+			int last= first;
+			while (last < regions.size() && regions.get(last).fOffset <= end) {
+				last++;
+			}
+			int offset= start;
+			int originalOffset= start - delta;
+			int originalEnd= end - delta;
+			StringBuilder text= new StringBuilder(replace.getText());
+			if (first < last) {
+				Region head= regions.get(first);
+				Region tail= regions.get(last - 1);
+				if (head.fOffset < start) {
+					text.insert(0, head.fText, 0, start - head.fOffset);
+					offset= head.fOffset;
+				}
+				originalOffset= Math.min(originalOffset, head.fOriginalOffset);
+				if (tail.getEnd() > end)
+					text.append(tail.fText, end - tail.fOffset, tail.fText.length());
+				originalEnd= tail.getEnd() >= end ? tail.fOriginalEnd : tail.fOriginalEnd + end - tail.getEnd();
+			}
+			Region region= new Region(offset, originalOffset, originalEnd, text.toString());
+			int shift= replace.getText().length() - replace.getLength();
+			for (int j= last; j < regions.size(); j++) {
+				regions.get(j).fOffset+= shift;
+			}
+			regions.subList(first, last).clear();
+			regions.add(first, region);
+		}
+		MultiTextEdit result= new MultiTextEdit();
+		for (Region region : regions) {
+			result.addChild(new ReplaceEdit(region.fOriginalOffset, region.fOriginalEnd - region.fOriginalOffset, region.fText));
+		}
+		return result;
+	}
+
+	/**
+	 * Deletes the file of the undo edits.
+	 */
+	public void dispose() {
+		fFile.delete();
+	}
+
+	/**
+	 * @return the folder of the undo edits, the files left by earlier sessions are deleted
+	 */
+	private static synchronized File getSpillFolder() {
+		RefactoringCorePlugin plugin= RefactoringCorePlugin.getDefault();
+		if (plugin == null)
+			return null;
+		File folder= plugin.getStateLocation().append(NAME_SPILL_FOLDER).toFile();
+		if (!fgFolderCleaned) {
+			fgFolderCleaned= true;
+			File[] files= folder.listFiles();
+			if (files != null) {
+				for (File file : files) {
+					file.delete();
+				}
+			}
+		}
+		folder.mkdirs();
+		return folder;
+	}
+}
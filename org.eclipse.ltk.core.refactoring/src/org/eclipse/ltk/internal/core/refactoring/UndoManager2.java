@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -13,9 +13,14 @@
  *******************************************************************************/
 package org.eclipse.ltk.internal.core.refactoring;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
 import org.eclipse.core.commands.ExecutionException;
 import org.eclipse.core.commands.operations.IOperationHistory;
 import org.eclipse.core.commands.operations.IOperationHistoryListener;
+import org.eclipse.core.commands.operations.IUndoContext;
 import org.eclipse.core.commands.operations.IUndoableOperation;
 import org.eclipse.core.commands.operations.OperationHistoryEvent;
 import org.eclipse.core.commands.operations.OperationHistoryFactory;
@@ -27,17 +32,41 @@ import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.ISafeRunnable;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.ListenerList;
+import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.SafeRunner;
 import org.eclipse.core.runtime.Status;
 
 import org.eclipse.ltk.core.refactoring.Change;
+import org.eclipse.ltk.core.refactoring.CompositeChange;
 import org.eclipse.ltk.core.refactoring.IUndoManager;
 import org.eclipse.ltk.core.refactoring.IUndoManagerListener;
 import org.eclipse.ltk.core.refactoring.IValidationCheckResultQuery;
 import org.eclipse.ltk.core.refactoring.RefactoringStatus;
-
+import org.eclipse.ltk.core.refactoring.UndoTextFileChange;
+
+/**
+ * The undo manager of the refactorings, based on the operation history of the workbench.
+ * <p>
+ * Besides the limit of the number of undos set on the undo context, the undo edits of the text
+ * changes are accounted by their estimated size, see {@link ISpillableUndoChange}. When their
+ * total size exceeds the memory budget, the undo edits of the older undos and redos are written to
+ * disk. When it exceeds the size budget, the oldest undos and the farthest redos are removed. The
+ * next undo and the next redo are always kept in memory. The budgets are enforced when a change
+ * has been performed, undone or redone through this undo manager.
+ * </p>
+ */
 public class UndoManager2 implements IUndoManager {
 
+	/**
+	 * The default number of bytes of undo edits which are kept in memory.
+	 */
+	public static final long DEFAULT_MEMORY_BUDGET= 32 * 1024 * 1024;
+
+	/**
+	 * The default number of bytes of undo edits which are kept in memory or on disk.
+	 */
+	public static final long DEFAULT_SIZE_BUDGET= 256 * 1024 * 1024;
+
 	private class OperationHistoryListener implements IOperationHistoryListener {
 		@Override
 		public void historyNotification(OperationHistoryEvent event) {
@@ -115,8 +144,53 @@ public class UndoManager2 implements IUndoManager {
 
 	private ListenerList<IUndoManagerListener> fListeners;
 
+	private long fMemoryBudget;
+	private long fSizeBudget;
+
 	public UndoManager2() {
 		fOperationHistory= OperationHistoryFactory.getOperationHistory();
+		fMemoryBudget= getPreference(RefactoringPreferenceConstants.PREFERENCE_UNDO_MEMORY_BUDGET, DEFAULT_MEMORY_BUDGET);
+		fSizeBudget= getPreference(RefactoringPreferenceConstants.PREFERENCE_UNDO_SIZE_BUDGET, DEFAULT_SIZE_BUDGET);
+	}
+
+	private static long getPreference(String key, long defaultValue) {
+		if (RefactoringCorePlugin.getDefault() == null)
+			return defaultValue;
+		return Platform.getPreferencesService().getLong(RefactoringCorePlugin.getPluginId(), key, defaultValue, null);
+	}
+
+	/**
+	 * Sets the number of bytes of undo edits which are kept in memory.
+	 *
+	 * @param budget the memory budget in bytes
+	 */
+	public void setMemoryBudget(long budget) {
+		fMemoryBudget= Math.max(0, budget);
+		enforceBudgets();
+	}
+
+	/**
+	 * @return the number of bytes of undo edits which are kept in memory
+	 */
+	public long getMemoryBudget() {
+		return fMemoryBudget;
+	}
+
+	/**
+	 * Sets the number of bytes of undo edits which are kept in memory or on disk.
+	 *
+	 * @param budget the size budget in bytes
+	 */
+	public void setSizeBudget(long budget) {
+		fSizeBudget= Math.max(0, budget);
+		enforceBudgets();
+	}
+
+	/**
+	 * @return the number of bytes of undo edits which are kept in memory or on disk
+	 */
+	public long getSizeBudget() {
+		return fSizeBudget;
 	}
 
 	@Override
@@ -177,6 +251,7 @@ public class UndoManager2 implements IUndoManager {
 			operation.setLabel(name);
 			fOperationHistory.add(fActiveOperation);
 			fActiveOperation= null;
+			enforceBudgets();
 		}
 	}
 
@@ -207,6 +282,7 @@ public class UndoManager2 implements IUndoManager {
 		} catch (ExecutionException e) {
 			handleException(e);
 		}
+		enforceBudgets();
 	}
 
 	@Override
@@ -236,6 +312,7 @@ public class UndoManager2 implements IUndoManager {
 		} catch (ExecutionException e) {
 			handleException(e);
 		}
+		enforceBudgets();
 	}
 
 	private UndoableOperation2ChangeAdapter getUnwrappedOperation(IUndoableOperation operation) {
@@ -249,6 +326,75 @@ public class UndoManager2 implements IUndoManager {
 		return null;
 	}
 
+	/**
+	 * Writes the undo edits of older operations to disk and removes the oldest operations until
+	 * the undo edits fit into the budgets.
+	 */
+	private void enforceBudgets() {
+		IUndoContext context= RefactoringCorePlugin.getUndoContext();
+		IUndoableOperation[] undos= fOperationHistory.getUndoHistory(context);
+		IUndoableOperation[] redos= fOperationHistory.getRedoHistory(context);
+		// the next undo and redo are last in the histories, they come first and are kept
+		List<IUndoableOperation> operations= new ArrayList<>(undos.length + redos.length);
+		if (undos.length > 0)
+			operations.add(undos[undos.length - 1]);
+		if (redos.length > 0)
+			operations.add(redos[redos.length - 1]);
+		int kept= operations.size();
+		for (int i= undos.length - 2; i >= 0; i--) {
+			operations.add(undos[i]);
+		}
+		for (int i= redos.length - 2; i >= 0; i--) {
+			operations.add(redos[i]);
+		}
+		long memory= 0;
+		long size= 0;
+		for (int i= 0; i < operations.size(); i++) {
+			IUndoableOperation operation= operations.get(i);
+			UndoableOperation2ChangeAdapter changeOperation= getUnwrappedOperation(operation);
+			if (changeOperation == null || changeOperation.getChange() == null)
+				continue;
+			List<ISpillableUndoChange> changes= new ArrayList<>();
+			collectSpillableChanges(changeOperation.getChange(), changes);
+			for (ISpillableUndoChange change : changes) {
+				size+= change.getUndoSize();
+			}
+			if (i >= kept && size > fSizeBudget) {
+				fOperationHistory.replaceOperation(operation, new IUndoableOperation[0]);
+				operation.dispose();
+				continue;
+			}
+			for (ISpillableUndoChange change : changes) {
+				if (change.isSpilled())
+					continue;
+				memory+= change.getUndoSize();
+				if (i >= kept && memory > fMemoryBudget) {
+					try {
+						if (change.spill())
+							memory-= change.getUndoSize();
+					} catch (IOException e) {
+						RefactoringCorePlugin.log(e);
+					}
+				}
+			}
+		}
+	}
+
+	private static void collectSpillableChanges(Change change, List<ISpillableUndoChange> result) {
+		if (change instanceof ISpillableUndoChange) {
+			result.add((ISpillableUndoChange) change);
+		} else if (change instanceof CompositeChange) {
+			for (Change child : ((CompositeChange) change).getChildren()) {
+				collectSpillableChanges(child, result);
+			}
+		} else if (change instanceof UndoTextFileChange) {
+			// the API class provides the internal interface as an adapter
+			ISpillableUndoChange spillable= change.getAdapter(ISpillableUndoChange.class);
+			if (spillable != null)
+				result.add(spillable);
+		}
+	}
+
 	@Override
 	public void flush() {
 		if (fActiveOperation != null) {
@@ -0,0 +1,728 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ltk.internal.core.refactoring.history;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.UUID;
+
+import org.eclipse.core.filesystem.EFS;
+import org.eclipse.core.filesystem.IFileInfo;
+import org.eclipse.core.filesystem.IFileStore;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+
+import org.eclipse.ltk.core.refactoring.RefactoringDescriptorProxy;
+import org.eclipse.ltk.internal.core.refactoring.RefactoringCorePlugin;
+
+/**
+ * Binary index of a refactoring history, which answers queries for the
+ * refactoring descriptor proxies of a time range without walking the folders
+ * of the history.
+ * <p>
+ * The index of a history store is a file in the state location of the
+ * plug-in. It contains a segment for each history folder with an index file,
+ * holding the time stamps and descriptions of its refactorings in ascending
+ * order, and is terminated by a table of the segments sorted by their first
+ * time stamp. A query reads the table and the segments overlapping its time
+ * range only. A changed segment is appended to the segments and the table is
+ * written again behind it; the file is compacted once the replaced segments
+ * take up more space than the current ones.
+ * </p>
+ * <p>
+ * The index files of the history remain the persistent format, the binary
+ * index is built from them when it is missing, unreadable or out of date.
+ * The table records the modification time stamp and length of the index file
+ * of each segment. The folder tree of the history is compared with the
+ * segments only once per session, when the index is opened or built. Later
+ * on, the history manager updates the segments it writes, the history service
+ * discards the index if a team provider changes or removes an index file, and
+ * a query checks the index files of the segments it reads.
+ * </p>
+ */
+final class RefactoringHistoryIndex {
+
+	/** A segment of the index */
+	private static final class Segment {
+
+		/** The encoded entries, or <code>null</code> if not read */
+		byte[] fBytes;
+
+		/** The number of entries */
+		final int fCount;
+
+		/** The length of the index file of the history folder */
+		long fFileLength;
+
+		/** The modification time stamp of the index file of the history folder */
+		long fFileStamp;
+
+		/** The first time stamp */
+		final long fFirst;
+
+		/** The last time stamp */
+		final long fLast;
+
+		/** The length of the encoded entries */
+		final int fLength;
+
+		/** The offset of the encoded entries in the file */
+		long fOffset;
+
+		/** The portable path of the history folder */
+		final String fPath;
+
+		Segment(final String path, final long first, final long last, final int count, final int length) {
+			fPath= path;
+			fFirst= first;
+			fLast= last;
+			fCount= count;
+			fLength= length;
+		}
+	}
+
+	/** The table of the segments */
+	private static final class Table {
+
+		/** The number of bytes of replaced segments */
+		long fGarbage;
+
+		/** The offset of the table, behind the last segment */
+		long fOffset;
+
+		/** The segments, sorted by their first time stamp */
+		final List<Segment> fSegments= new ArrayList<>();
+	}
+
+	/** The file extension of the index files */
+	private static final String EXTENSION_INDEX= ".bin"; //$NON-NLS-1$
+
+	/** The file extension of the temporary files */
+	private static final String EXTENSION_TEMP= ".tmp"; //$NON-NLS-1$
+
+	/** The length of the file header */
+	private static final int HEADER_LENGTH= 8;
+
+	/** The magic number of the file header and trailer */
+	private static final int MAGIC= 0x52484958;
+
+	/** The minimal number of bytes of replaced segments before compacting */
+	private static final long MIN_COMPACT_GARBAGE= 64 * 1024;
+
+	/** The name of the folder of the index files in the state location */
+	private static final String NAME_INDEX_FOLDER= ".index"; //$NON-NLS-1$
+
+	/** The length of the file trailer */
+	private static final int TRAILER_LENGTH= 12;
+
+	/** The version of the file format */
+	private static final int VERSION= 3;
+
+	/** The locations of the history stores whose index has been checked against their folder tree */
+	private static final Set<String> fgChecked= new HashSet<>();
+
+	/**
+	 * Deletes the index of the specified history store.
+	 *
+	 * @param store
+	 *            the history file store
+	 */
+	static void delete(final IFileStore store) {
+		new RefactoringHistoryIndex(store).delete();
+	}
+
+	/**
+	 * Creates a segment from the specified refactoring descriptor proxies.
+	 *
+	 * @param path
+	 *            the portable path of the history folder
+	 * @param proxies
+	 *            the refactoring descriptor proxies
+	 * @return the segment, or <code>null</code> if there are no proxies
+	 * @throws IOException
+	 *             if an input/output error occurs
+	 */
+	private static Segment createSegment(final String path, final Collection<RefactoringDescriptorProxy> proxies) throws IOException {
+		final Set<RefactoringDescriptorProxy> set= new HashSet<>(proxies);
+		if (set.isEmpty())
+			return null;
+		final RefactoringDescriptorProxy[] sorted= set.toArray(new RefactoringDescriptorProxy[set.size()]);
+		RefactoringHistoryManager.sortRefactoringDescriptorsAscending(sorted);
+		final ByteArrayOutputStream bytes= new ByteArrayOutputStream(sorted.length * 64);
+		final DataOutputStream output= new DataOutputStream(bytes);
+		for (RefactoringDescriptorProxy proxy : sorted) {
+			output.writeLong(proxy.getTimeStamp());
+			writeString(output, proxy.getDescription());
+		}
+		output.flush();
+		final Segment segment= new Segment(path, sorted[0].getTimeStamp(), sorted[sorted.length - 1].getTimeStamp(), sorted.length, bytes.size());
+		segment.fBytes= bytes.toByteArray();
+		return segment;
+	}
+
+	/**
+	 * Lists the index files of a folder tree.
+	 *
+	 * @param store
+	 *            the file store of the folder
+	 * @param path
+	 *            the path of the folder, relative to the history store
+	 * @param infos
+	 *            the map of the file infos of the index files to fill in,
+	 *            keyed by the portable path of their folder
+	 * @throws CoreException
+	 *             if an error occurs while listing the folder
+	 */
+	private static void listIndexFiles(final IFileStore store, final IPath path, final Map<String, IFileInfo> infos) throws CoreException {
+		for (IFileInfo info : store.childInfos(EFS.NONE, null)) {
+			final String name= info.getName();
+			if (info.isDirectory())
+				listIndexFiles(store.getChild(name), path.append(name), infos);
+			else if (info.exists() && RefactoringHistoryService.NAME_INDEX_FILE.equalsIgnoreCase(name))
+				infos.put(path.toPortableString(), info);
+		}
+	}
+
+	/**
+	 * Decodes the refactoring descriptor proxies of a segment.
+	 *
+	 * @param bytes
+	 *            the encoded entries
+	 * @param count
+	 *            the number of entries
+	 * @param project
+	 *            the name of the project, or <code>null</code> for the
+	 *            workspace
+	 * @param start
+	 *            the start time stamp, inclusive
+	 * @param end
+	 *            the end time stamp, inclusive
+	 * @param collection
+	 *            the collection to add the proxies to
+	 * @throws IOException
+	 *             if the entries are malformed
+	 */
+	private static void decode(final byte[] bytes, final int count, final String project, final long start, final long end, final Collection<RefactoringDescriptorProxy> collection) throws IOException {
+		final DataInputStream input= new DataInputStream(new ByteArrayInputStream(bytes));
+		for (int index= 0; index < count; index++) {
+			final long stamp= input.readLong();
+			final String description= readString(input);
+			if (stamp > end)
+				break;
+			if (stamp >= start)
+				collection.add(new DefaultRefactoringDescriptorProxy(description, project, stamp));
+		}
+	}
+
+	private static byte[] readBytes(final RandomAccessFile file, final long offset, final int length) throws IOException {
+		final byte[] bytes= new byte[length];
+		file.seek(offset);
+		file.readFully(bytes);
+		return bytes;
+	}
+
+	private static String readString(final DataInputStream input) throws IOException {
+		final int length= input.readInt();
+		if (length < 0 || length > input.available())
+			throw new EOFException();
+		final byte[] bytes= new byte[length];
+		input.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static void writeString(final DataOutputStream output, final String string) throws IOException {
+		final byte[] bytes= string.getBytes(StandardCharsets.UTF_8);
+		output.writeInt(bytes.length);
+		output.write(bytes);
+	}
+
+	/** The index file */
+	private final File fFile;
+
+	/** The location of the history store */
+	private final String fLocation;
+
+	/** The history file store */
+	private final IFileStore fStore;
+
+	/**
+	 * Creates a new refactoring history index.
+	 *
+	 * @param store
+	 *            the history file store
+	 */
+	RefactoringHistoryIndex(final IFileStore store) {
+		fStore= store;
+		fLocation= store.toURI().toString();
+		final String name= UUID.nameUUIDFromBytes(fLocation.getBytes(StandardCharsets.UTF_8)).toString() + EXTENSION_INDEX;
+		fFile= RefactoringCorePlugin.getDefault().getStateLocation().append(NAME_INDEX_FOLDER).append(name).toFile();
+	}
+
+	/**
+	 * Compacts the index file by writing its current segments only.
+	 *
+	 * @throws IOException
+	 *             if an input/output error occurs
+	 */
+	private void compact() throws IOException {
+		final Table table;
+		try (RandomAccessFile file= new RandomAccessFile(fFile, "r")) { //$NON-NLS-1$
+			table= readTable(file);
+			if (table == null)
+				return;
+			for (Segment segment : table.fSegments)
+				segment.fBytes= readBytes(file, segment.fOffset, segment.fLength);
+		}
+		writeFile(table);
+	}
+
+	/**
+	 * Deletes the index.
+	 */
+	void delete() {
+		synchronized (RefactoringHistoryIndex.class) {
+			discard();
+		}
+	}
+
+	/**
+	 * Deletes the index file. The caller must hold the lock of the class.
+	 */
+	private void discard() {
+		fFile.delete();
+		fgChecked.remove(fLocation);
+	}
+
+	/**
+	 * Does the table match the folder tree of the history store, i.e. is
+	 * there a current segment for each non-empty index file and an index file
+	 * for each segment?
+	 *
+	 * @param table
+	 *            the table of the index file
+	 * @param infos
+	 *            the file infos of the index files, keyed by the portable
+	 *            path of their folder
+	 * @return <code>true</code> if the table matches the folder tree
+	 */
+	private static boolean matches(final Table table, final Map<String, IFileInfo> infos) {
+		int count= 0;
+		for (IFileInfo info : infos.values()) {
+			if (info.getLength() > 0)
+				count++;
+		}
+		if (count != table.fSegments.size())
+			return false;
+		for (Segment segment : table.fSegments) {
+			final IFileInfo info= infos.get(segment.fPath);
+			if (info == null || info.getLastModified() != segment.fFileStamp || info.getLength() != segment.fFileLength)
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the file info of the index file of a history folder.
+	 *
+	 * @param path
+	 *            the portable path of the history folder
+	 * @return the file info
+	 */
+	private IFileInfo fetchIndexFileInfo(final String path) {
+		return fStore.getFileStore(Path.fromPortableString(path)).getChild(RefactoringHistoryService.NAME_INDEX_FILE).fetchInfo();
+	}
+
+	/**
+	 * Is the segment still current, i.e. has the index file of its history
+	 * folder not been changed since the segment has been written?
+	 *
+	 * @param segment
+	 *            the segment
+	 * @return <code>true</code> if the segment is current
+	 */
+	private boolean isCurrent(final Segment segment) {
+		final IFileInfo info= fetchIndexFileInfo(segment.fPath);
+		return info.exists() && info.getLastModified() == segment.fFileStamp && info.getLength() == segment.fFileLength;
+	}
+
+	/**
+	 * Records the modification time stamp and length of the index file of a
+	 * segment.
+	 *
+	 * @param segment
+	 *            the segment
+	 * @param info
+	 *            the file info of the index file
+	 */
+	private static void setFileInfo(final Segment segment, final IFileInfo info) {
+		segment.fFileStamp= info.getLastModified();
+		segment.fFileLength= info.getLength();
+	}
+
+	/**
+	 * Discards the index if it is older than a changed index file of the
+	 * history.
+	 *
+	 * @param stamp
+	 *            the modification time stamp of the index file
+	 */
+	void indexFileChanged(final long stamp) {
+		synchronized (RefactoringHistoryIndex.class) {
+			if (fFile.isFile() && stamp > fFile.lastModified())
+				discard();
+		}
+	}
+
+	/**
+	 * Discards the index if it still has a segment for a removed index file
+	 * of the history.
+	 *
+	 * @param path
+	 *            the path of the history folder, relative to the history store
+	 */
+	void indexFileRemoved(final IPath path) {
+		synchronized (RefactoringHistoryIndex.class) {
+			if (!fFile.isFile())
+				return;
+			final String name= path.toPortableString();
+			boolean current= false;
+			try (RandomAccessFile file= new RandomAccessFile(fFile, "r")) { //$NON-NLS-1$
+				final Table table= readTable(file);
+				if (table != null) {
+					current= true;
+					for (Segment segment : table.fSegments) {
+						if (segment.fPath.equals(name))
+							current= false;
+					}
+				}
+			} catch (IOException exception) {
+				// Built again on the next query
+			}
+			if (!current)
+				discard();
+		}
+	}
+
+	/**
+	 * Reads the refactoring descriptor proxies of the specified time range
+	 * from the index.
+	 *
+	 * @param project
+	 *            the name of the project, or <code>null</code> for the
+	 *            workspace
+	 * @param start
+	 *            the start time stamp, inclusive
+	 * @param end
+	 *            the end time stamp, inclusive
+	 * @param collection
+	 *            the collection to add the proxies to
+	 * @return <code>true</code> if the proxies have been read,
+	 *         <code>false</code> if the index is missing, unreadable or out
+	 *         of date
+	 */
+	boolean read(final String project, final long start, final long end, final Collection<RefactoringDescriptorProxy> collection) {
+		Map<String, IFileInfo> infos= null;
+		synchronized (RefactoringHistoryIndex.class) {
+			if (!fFile.isFile())
+				return false;
+			if (!fgChecked.contains(fLocation))
+				infos= new HashMap<>();
+		}
+		if (infos != null) {
+			// Opened for the first time in this session, list the folder tree outside of the lock
+			try {
+				listIndexFiles(fStore, Path.EMPTY, infos);
+			} catch (CoreException exception) {
+				return false;
+			}
+		}
+		synchronized (RefactoringHistoryIndex.class) {
+			if (!fFile.isFile())
+				return false;
+			try (RandomAccessFile file= new RandomAccessFile(fFile, "r")) { //$NON-NLS-1$
+				final Table table= readTable(file);
+				if (table == null)
+					return false;
+				if (infos != null) {
+					if (!matches(table, infos))
+						return false;
+					fgChecked.add(fLocation);
+				}
+				final List<RefactoringDescriptorProxy> list= new ArrayList<>();
+				for (Segment segment : table.fSegments) {
+					if (segment.fFirst > end)
+						break;
+					if (segment.fLast >= start) {
+						if (!isCurrent(segment))
+							return false;
+						decode(readBytes(file, segment.fOffset, segment.fLength), segment.fCount, project, start, end, list);
+					}
+				}
+				collection.addAll(list);
+				return true;
+			} catch (IOException exception) {
+				return false;
+			}
+		}
+	}
+
+	/**
+	 * Reads the table of the index file.
+	 *
+	 * @param file
+	 *            the index file
+	 * @return the table, or <code>null</code> if the file is malformed or
+	 *         belongs to another history store
+	 * @throws IOException
+	 *             if an input/output error occurs
+	 */
+	private Table readTable(final RandomAccessFile file) throws IOException {
+		final long length= file.length();
+		if (length < HEADER_LENGTH + TRAILER_LENGTH)
+			return null;
+		file.seek(0);
+		if (file.readInt() != MAGIC || file.readInt() != VERSION)
+			return null;
+		file.seek(length - TRAILER_LENGTH);
+		final long offset= file.readLong();
+		if (file.readInt() != MAGIC || offset < HEADER_LENGTH || offset > length - TRAILER_LENGTH)
+			return null;
+		final DataInputStream input= new DataInputStream(new ByteArrayInputStream(readBytes(file, offset, (int) (length - TRAILER_LENGTH - offset))));
+		if (!fLocation.equals(readString(input)))
+			return null;
+		final Table table= new Table();
+		table.fOffset= offset;
+		table.fGarbage= input.readLong();
+		final int count= input.readInt();
+		for (int index= 0; index < count; index++) {
+			final String path= readString(input);
+			final long first= input.readLong();
+			final long last= input.readLong();
+			final int entries= input.readInt();
+			final long position= input.readLong();
+			final int size= input.readInt();
+			final long stamp= input.readLong();
+			final long fileLength= input.readLong();
+			if (position < HEADER_LENGTH || size < 0 || position + size > offset)
+				return null;
+			final Segment segment= new Segment(path, first, last, entries, size);
+			segment.fOffset= position;
+			segment.fFileStamp= stamp;
+			segment.fFileLength= fileLength;
+			table.fSegments.add(segment);
+		}
+		return table;
+	}
+
+	/**
+	 * Replaces the segment of a history folder by appending the new segment
+	 * and the table to the index file.
+	 *
+	 * @param file
+	 *            the index file
+	 * @param table
+	 *            the table of the index file
+	 * @param path
+	 *            the portable path of the history folder
+	 * @param proxies
+	 *            the refactoring descriptor proxies of the folder
+	 * @param append
+	 *            <code>true</code> to add the proxies to the ones of the
+	 *            existing segment, <code>false</code> to replace them
+	 * @throws IOException
+	 *             if an input/output error occurs
+	 */
+	private void replaceSegment(final RandomAccessFile file, final Table table, final String path, final RefactoringDescriptorProxy[] proxies, final boolean append) throws IOException {
+		final List<RefactoringDescriptorProxy> list= new ArrayList<>(Arrays.asList(proxies));
+		for (final Iterator<Segment> iterator= table.fSegments.iterator(); iterator.hasNext();) {
+			final Segment segment= iterator.next();
+			if (segment.fPath.equals(path)) {
+				if (append)
+					decode(readBytes(file, segment.fOffset, segment.fLength), segment.fCount, null, 0, Long.MAX_VALUE, list);
+				table.fGarbage+= segment.fLength;
+				iterator.remove();
+			}
+		}
+		// Truncate the table first, an interrupted update leaves a file without trailer
+		file.setLength(table.fOffset);
+		final Segment segment= createSegment(path, list);
+		if (segment != null) {
+			setFileInfo(segment, fetchIndexFileInfo(path));
+			segment.fOffset= table.fOffset;
+			file.seek(table.fOffset);
+			file.write(segment.fBytes);
+			table.fOffset+= segment.fLength;
+			table.fSegments.add(segment);
+			table.fSegments.sort(Comparator.comparingLong(s -> s.fFirst));
+		}
+		final ByteArrayOutputStream bytes= new ByteArrayOutputStream();
+		final DataOutputStream output= new DataOutputStream(bytes);
+		writeTable(output, table);
+		output.flush();
+		file.seek(table.fOffset);
+		file.write(bytes.toByteArray());
+	}
+
+	/**
+	 * Updates the segment of a history folder after its index file has been
+	 * written.
+	 * <p>
+	 * Nothing happens if there is no index yet. The index is discarded if it
+	 * cannot be updated. An index file written to a new history folder adds a
+	 * segment to the index.
+	 * </p>
+	 *
+	 * @param path
+	 *            the path of the history folder, relative to the history store
+	 * @param proxies
+	 *            the refactoring descriptor proxies written to the index file
+	 * @param append
+	 *            <code>true</code> if the proxies have been appended to the
+	 *            index file, <code>false</code> if they replace its contents
+	 */
+	void update(final IPath path, final RefactoringDescriptorProxy[] proxies, final boolean append) {
+		synchronized (RefactoringHistoryIndex.class) {
+			if (!fFile.isFile())
+				return;
+			try {
+				Table table= null;
+				try (RandomAccessFile file= new RandomAccessFile(fFile, "rw")) { //$NON-NLS-1$
+					table= readTable(file);
+					if (table != null)
+						replaceSegment(file, table, path.toPortableString(), proxies, append);
+				}
+				if (table == null)
+					discard();
+				else if (table.fGarbage > MIN_COMPACT_GARBAGE && table.fGarbage > table.fOffset - HEADER_LENGTH - table.fGarbage)
+					compact();
+			} catch (IOException exception) {
+				RefactoringCorePlugin.log(exception);
+				discard();
+			}
+		}
+	}
+
+	/**
+	 * Writes the index of the specified history folders.
+	 *
+	 * @param folders
+	 *            the refactoring descriptor proxies of the index files, keyed
+	 *            by the path of their folder relative to the history store
+	 * @param infos
+	 *            the file infos of the index files, fetched before they have
+	 *            been read and keyed like <code>folders</code>
+	 * @throws IOException
+	 *             if an input/output error occurs
+	 */
+	void write(final Map<IPath, RefactoringDescriptorProxy[]> folders, final Map<IPath, IFileInfo> infos) throws IOException {
+		final Table table= new Table();
+		for (Entry<IPath, RefactoringDescriptorProxy[]> entry : folders.entrySet()) {
+			final Segment segment= createSegment(entry.getKey().toPortableString(), Arrays.asList(entry.getValue()));
+			final IFileInfo info= infos.get(entry.getKey());
+			if (segment != null) {
+				if (info != null)
+					setFileInfo(segment, info);
+				table.fSegments.add(segment);
+			}
+		}
+		table.fSegments.sort(Comparator.comparingLong(s -> s.fFirst));
+		synchronized (RefactoringHistoryIndex.class) {
+			writeFile(table);
+			fgChecked.add(fLocation);
+		}
+	}
+
+	/**
+	 * Writes an index file with the specified segments, which must have been
+	 * read.
+	 *
+	 * @param table
+	 *            the table of the index file
+	 * @throws IOException
+	 *             if an input/output error occurs
+	 */
+	private void writeFile(final Table table) throws IOException {
+		fFile.getParentFile().mkdirs();
+		final File temp= new File(fFile.getPath() + EXTENSION_TEMP);
+		try (DataOutputStream output= new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+			output.writeInt(MAGIC);
+			output.writeInt(VERSION);
+			long offset= HEADER_LENGTH;
+			for (Segment segment : table.fSegments) {
+				segment.fOffset= offset;
+				output.write(segment.fBytes);
+				offset+= segment.fLength;
+			}
+			table.fOffset= offset;
+			table.fGarbage= 0;
+			writeTable(output, table);
+		} catch (IOException exception) {
+			temp.delete();
+			throw exception;
+		}
+		Files.move(temp.toPath(), fFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	/**
+	 * Writes the table and the trailer of the index file.
+	 *
+	 * @param output
+	 *            the output stream, positioned at the offset of the table
+	 * @param table
+	 *            the table to write
+	 * @throws IOException
+	 *             if an input/output error occurs
+	 */
+	private void writeTable(final DataOutputStream output, final Table table) throws IOException {
+		writeString(output, fLocation);
+		output.writeLong(table.fGarbage);
+		output.writeInt(table.fSegments.size());
+		for (Segment segment : table.fSegments) {
+			writeString(output, segment.fPath);
+			output.writeLong(segment.fFirst);
+			output.writeLong(segment.fLast);
+			output.writeInt(segment.fCount);
+			output.writeLong(segment.fOffset);
+			output.writeInt(segment.fLength);
+			output.writeLong(segment.fFileStamp);
+			output.writeLong(segment.fFileLength);
+		}
+		output.writeLong(table.fOffset);
+		output.writeInt(MAGIC);
+	}
+}
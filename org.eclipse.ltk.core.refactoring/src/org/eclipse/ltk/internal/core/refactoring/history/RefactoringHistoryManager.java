@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2015 IBM Corporation and others.
+ * Copyright (c) 2005, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -185,6 +185,107 @@ public final class RefactoringHistoryManager {
 		return arguments;
 	}
 
+	/**
+	 * Reads refactoring descriptor proxies using the binary index of a
+	 * history store.
+	 * <p>
+	 * If the binary index is missing or out of date, it is built from the
+	 * index files of the history store.
+	 * </p>
+	 *
+	 * @param store
+	 *            the history file store
+	 * @param project
+	 *            the name of the project, or <code>null</code> for the
+	 *            workspace
+	 * @param collection
+	 *            the collection of proxies to fill in
+	 * @param start
+	 *            the start time stamp, inclusive
+	 * @param end
+	 *            the end time stamp, inclusive
+	 * @param monitor
+	 *            the progress monitor to use
+	 * @throws CoreException
+	 *             if an error occurs
+	 */
+	private static void readIndexedRefactoringDescriptorProxies(final IFileStore store, final String project, final Collection<RefactoringDescriptorProxy> collection, final long start, final long end, final IProgressMonitor monitor) throws CoreException {
+		try {
+			monitor.beginTask(RefactoringCoreMessages.RefactoringHistoryService_retrieving_history, 20);
+			final RefactoringHistoryIndex index= new RefactoringHistoryIndex(store);
+			if (index.read(project, start, end, collection))
+				return;
+			final Map<IPath, RefactoringDescriptorProxy[]> folders= new HashMap<>();
+			final Map<IPath, IFileInfo> infos= new HashMap<>();
+			readIndexTree(store, Path.EMPTY, folders, infos, new SubProgressMonitor(monitor, 18), RefactoringCoreMessages.RefactoringHistoryService_retrieving_history);
+			try {
+				index.write(folders, infos);
+			} catch (IOException exception) {
+				RefactoringCorePlugin.log(exception);
+			}
+			for (RefactoringDescriptorProxy[] proxies : folders.values()) {
+				for (RefactoringDescriptorProxy proxy : proxies) {
+					final long current= proxy.getTimeStamp();
+					if (current >= start && current <= end)
+						collection.add(new DefaultRefactoringDescriptorProxy(proxy.getDescription(), project, current));
+				}
+			}
+		} finally {
+			monitor.done();
+		}
+	}
+
+	/**
+	 * Reads the index files of a history folder and its sub folders.
+	 *
+	 * @param store
+	 *            the file store of the folder
+	 * @param path
+	 *            the path of the folder, relative to the history store
+	 * @param folders
+	 *            the map of the proxies of the index files to fill in, keyed
+	 *            by the path of their folder
+	 * @param infos
+	 *            the map of the file infos of the index files to fill in,
+	 *            keyed by the path of their folder
+	 * @param monitor
+	 *            the progress monitor to use
+	 * @param task
+	 *            the task label to use
+	 * @throws CoreException
+	 *             if an error occurs
+	 */
+	private static void readIndexTree(final IFileStore store, final IPath path, final Map<IPath, RefactoringDescriptorProxy[]> folders, final Map<IPath, IFileInfo> infos, final IProgressMonitor monitor, final String task) throws CoreException {
+		try {
+			monitor.beginTask(task, 10);
+			final IFileInfo[] children= store.childInfos(EFS.NONE, new SubProgressMonitor(monitor, 1, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL));
+			final IProgressMonitor subMonitor= new SubProgressMonitor(monitor, 9);
+			try {
+				subMonitor.beginTask(task, children.length);
+				for (IFileInfo info : children) {
+					final String name= info.getName();
+					if (info.isDirectory())
+						readIndexTree(store.getChild(name), path.append(name), folders, infos, new SubProgressMonitor(subMonitor, 1), task);
+					else if (info.exists() && RefactoringHistoryService.NAME_INDEX_FILE.equalsIgnoreCase(name)) {
+						try (InputStream stream= store.getChild(name).openInputStream(EFS.NONE, new SubProgressMonitor(subMonitor, 1, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL))) {
+							folders.put(path, readRefactoringDescriptorProxies(stream, null, 0, Long.MAX_VALUE));
+							infos.put(path, info);
+						} catch (IOException exception) {
+							throw createCoreException(exception);
+						}
+					} else
+						subMonitor.worked(1);
+					if (monitor.isCanceled())
+						throw new OperationCanceledException();
+				}
+			} finally {
+				subMonitor.done();
+			}
+		} finally {
+			monitor.done();
+		}
+	}
+
 	/**
 	 * Reads refactoring descriptor proxies.
 	 *
@@ -733,6 +834,9 @@ public final class RefactoringHistoryManager {
 	/** The history file store */
 	private final IFileStore fHistoryStore;
 
+	/** The binary index of the history */
+	private final RefactoringHistoryIndex fIndex;
+
 	/**
 	 * The non-empty name of the managed project, or <code>null</code> for the
 	 * workspace
@@ -753,6 +857,7 @@ public final class RefactoringHistoryManager {
 		Assert.isTrue(name == null || !"".equals(name)); //$NON-NLS-1$
 		fHistoryStore= store;
 		fProjectName= name;
+		fIndex= new RefactoringHistoryIndex(store);
 	}
 
 	/**
@@ -818,9 +923,13 @@ public final class RefactoringHistoryManager {
 							if (sort) {
 								final Set<RefactoringDescriptorProxy> set= new HashSet<>(64);
 								readRefactoringDescriptorProxies(index, null, set, 0, Long.MAX_VALUE, new SubProgressMonitor(monitor, 2), RefactoringCoreMessages.RefactoringHistoryService_updating_history);
-								writeIndexEntry(index, set.toArray(new RefactoringDescriptorProxy[set.size()]), EFS.NONE, new SubProgressMonitor(monitor, 3, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL), RefactoringCoreMessages.RefactoringHistoryService_updating_history);
-							} else
+								final RefactoringDescriptorProxy[] entries= set.toArray(new RefactoringDescriptorProxy[set.size()]);
+								writeIndexEntry(index, entries, EFS.NONE, new SubProgressMonitor(monitor, 3, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL), RefactoringCoreMessages.RefactoringHistoryService_updating_history);
+								fIndex.update(path, entries, false);
+							} else {
 								writeIndexEntry(index, proxies, EFS.APPEND, new SubProgressMonitor(monitor, 5, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL), RefactoringCoreMessages.RefactoringHistoryService_updating_history);
+								fIndex.update(path, proxies, true);
+							}
 						}
 					} catch (ParserConfigurationException | IOException | SAXException exception) {
 						throw createCoreException(exception);
@@ -838,6 +947,7 @@ public final class RefactoringHistoryManager {
 						final Document result= transformDescriptor(descriptor, false);
 						writeHistoryEntry(history, result, new SubProgressMonitor(monitor, 1, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL), RefactoringCoreMessages.RefactoringHistoryService_updating_history);
 							writeIndexEntry(index, proxies, EFS.NONE, new SubProgressMonitor(monitor, 1, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL), RefactoringCoreMessages.RefactoringHistoryService_updating_history);
+						fIndex.update(path, proxies, false);
 					} catch (IOException exception) {
 						throw createCoreException(exception);
 					}
@@ -923,10 +1033,10 @@ public final class RefactoringHistoryManager {
 			final Set<RefactoringDescriptorProxy> set= new HashSet<>();
 			try {
 				if (fHistoryStore.fetchInfo(EFS.NONE, new SubProgressMonitor(monitor, 20, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL)).exists())
-					readRefactoringDescriptorProxies(fHistoryStore, fProjectName, set, start, end, new SubProgressMonitor(monitor, 80), RefactoringCoreMessages.RefactoringHistoryService_retrieving_history);
+					readIndexedRefactoringDescriptorProxies(fHistoryStore, fProjectName, set, start, end, new SubProgressMonitor(monitor, 80));
 				final IFileStore store= EFS.getLocalFileSystem().getStore(RefactoringCorePlugin.getDefault().getStateLocation()).getChild(RefactoringHistoryService.NAME_HISTORY_FOLDER).getChild(RefactoringHistoryService.NAME_WORKSPACE_PROJECT);
 				if (store.fetchInfo(EFS.NONE, new SubProgressMonitor(monitor, 20, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL)).exists())
-					readRefactoringDescriptorProxies(store, null, set, start, end, new SubProgressMonitor(monitor, 80), RefactoringCoreMessages.RefactoringHistoryService_retrieving_history);
+					readIndexedRefactoringDescriptorProxies(store, null, set, start, end, new SubProgressMonitor(monitor, 80));
 			} catch (CoreException exception) {
 				RefactoringCorePlugin.log(exception);
 			}
@@ -964,9 +1074,10 @@ public final class RefactoringHistoryManager {
 			if (index.fetchInfo(EFS.NONE, new SubProgressMonitor(monitor, 1, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL)).exists()) {
 				final Set<RefactoringDescriptorProxy> resultingProxies= new HashSet<>(64);
 				readRefactoringDescriptorProxies(index, null, resultingProxies, 0, Long.MAX_VALUE, new SubProgressMonitor(monitor, 1), task);
-				if (resultingProxies.size() == proxies.length)
+				if (resultingProxies.size() == proxies.length) {
 					removeIndexTree(folder, new SubProgressMonitor(monitor, 1), task);
-				else {
+					fIndex.update(path, new RefactoringDescriptorProxy[0], false);
+				} else {
 					final IFileStore history= folder.getChild(RefactoringHistoryService.NAME_HISTORY_FILE);
 					if (history.fetchInfo(EFS.NONE, new SubProgressMonitor(monitor, 1, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL)).exists()) {
 						InputStream input= null;
@@ -1011,7 +1122,9 @@ public final class RefactoringHistoryManager {
 							node.getParentNode().removeChild(node);
 						}
 						try {
-							writeIndexEntry(index, resultingProxies.toArray(new RefactoringDescriptorProxy[resultingProxies.size()]), EFS.NONE, new SubProgressMonitor(monitor, 1, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL), task);
+							final RefactoringDescriptorProxy[] entries= resultingProxies.toArray(new RefactoringDescriptorProxy[resultingProxies.size()]);
+							writeIndexEntry(index, entries, EFS.NONE, new SubProgressMonitor(monitor, 1, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL), task);
+							fIndex.update(path, entries, false);
 							writeHistoryEntry(history, document, new SubProgressMonitor(monitor, 1, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL), task);
 						} catch (IOException exception) {
 							throw createCoreException(exception);
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2016 IBM Corporation and others.
+ * Copyright (c) 2005, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -49,6 +49,7 @@ import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.ListenerList;
 import org.eclipse.core.runtime.MultiStatus;
 import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.Path;
 import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.SafeRunner;
 import org.eclipse.core.runtime.Status;
@@ -258,6 +259,8 @@ public final class RefactoringHistoryService implements IRefactoringHistoryServi
 							destination.mkdir(EFS.NONE, new SubProgressMonitor(monitor, 20));
 							source.copy(destination, EFS.OVERWRITE, new SubProgressMonitor(monitor, 20));
 							source.delete(EFS.NONE, new SubProgressMonitor(monitor, 20));
+							RefactoringHistoryIndex.delete(source);
+							RefactoringHistoryIndex.delete(destination);
 						}
 					} else {
 						final IFileStore source= EFS.getStore(uri).getChild(NAME_HISTORY_FOLDER);
@@ -268,6 +271,8 @@ public final class RefactoringHistoryService implements IRefactoringHistoryServi
 							destination.mkdir(EFS.NONE, new SubProgressMonitor(monitor, 20));
 							source.copy(destination, EFS.OVERWRITE, new SubProgressMonitor(monitor, 20));
 							source.delete(EFS.NONE, new SubProgressMonitor(monitor, 20));
+							RefactoringHistoryIndex.delete(source);
+							RefactoringHistoryIndex.delete(destination);
 						}
 					}
 				} finally {
@@ -516,14 +521,17 @@ public final class RefactoringHistoryService implements IRefactoringHistoryServi
 			if (NAME_WORKSPACE_PROJECT.equals(name)) {
 				final IFileStore metaStore= stateStore.getChild(NAME_HISTORY_FOLDER).getChild(name);
 				metaStore.delete(EFS.NONE, new SubProgressMonitor(monitor, 100));
+				RefactoringHistoryIndex.delete(metaStore);
 			} else {
 				final URI uri= project.getLocationURI();
 				if (uri != null && project.isAccessible()) {
 					try {
 						final IFileStore metaStore= stateStore.getChild(NAME_HISTORY_FOLDER).getChild(name);
 						metaStore.delete(EFS.NONE, new SubProgressMonitor(monitor, 20));
+						RefactoringHistoryIndex.delete(metaStore);
 						final IFileStore projectStore= EFS.getStore(uri).getChild(NAME_HISTORY_FOLDER);
 						projectStore.delete(EFS.NONE, new SubProgressMonitor(monitor, 20));
+						RefactoringHistoryIndex.delete(projectStore);
 					} finally {
 						project.refreshLocal(IResource.DEPTH_INFINITE, new SubProgressMonitor(monitor, 60));
 					}
@@ -854,6 +862,8 @@ public final class RefactoringHistoryService implements IRefactoringHistoryServi
 				if (newStore.fetchInfo(EFS.NONE, new SubProgressMonitor(monitor, 10, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL)).exists())
 					newStore.delete(EFS.NONE, new SubProgressMonitor(monitor, 20, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL));
 				oldStore.move(newStore, EFS.OVERWRITE, new SubProgressMonitor(monitor, 20, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL));
+				RefactoringHistoryIndex.delete(oldStore);
+				RefactoringHistoryIndex.delete(newStore);
 			}
 		} catch (CoreException exception) {
 			RefactoringCorePlugin.log(exception);
@@ -862,6 +872,37 @@ public final class RefactoringHistoryService implements IRefactoringHistoryServi
 		}
 	}
 
+	/**
+	 * Discards the binary index of the shared refactoring history of the
+	 * specified project if its index files have been changed other than by a
+	 * refactoring history manager, e.g. by a team provider.
+	 *
+	 * @param project
+	 *            the project
+	 * @param delta
+	 *            the resource delta of the history folder
+	 */
+	private void performHistoryFolderChanged(final IProject project, final IResourceDelta delta) {
+		final URI uri= project.getLocationURI();
+		if (uri != null) {
+			try {
+				final RefactoringHistoryIndex index= new RefactoringHistoryIndex(EFS.getStore(uri).getChild(NAME_HISTORY_FOLDER));
+				delta.accept(child -> {
+					final IResource resource= child.getResource();
+					if (resource.getType() == IResource.FILE && NAME_INDEX_FILE.equalsIgnoreCase(resource.getName())) {
+						if (child.getKind() == IResourceDelta.REMOVED)
+							index.indexFileRemoved(resource.getProjectRelativePath().removeFirstSegments(1).removeLastSegments(1));
+						else
+							index.indexFileChanged(resource.getLocalTimeStamp());
+					}
+					return true;
+				});
+			} catch (CoreException exception) {
+				RefactoringCorePlugin.log(exception);
+			}
+		}
+	}
+
 	private void peformResourceChanged(final IResourceChangeEvent event) {
 		final int type= event.getType();
 		if ((type & IResourceChangeEvent.POST_CHANGE) != 0) {
@@ -885,6 +926,11 @@ public final class RefactoringHistoryService implements IRefactoringHistoryServi
 						}
 					}
 				}
+				for (IResourceDelta projectDelta : deltas) {
+					final IResourceDelta historyDelta= projectDelta.findMember(new Path(NAME_HISTORY_FOLDER));
+					if (historyDelta != null && projectDelta.getResource().getType() == IResource.PROJECT)
+						performHistoryFolderChanged((IProject) projectDelta.getResource(), historyDelta);
+				}
 			}
 		}
 	}